@@ -43,13 +43,18 @@ while true; do
             echo "File to download : $url"
             curl -O "$url"
           fi
+          # the index lets the import read the dump's streams in parallel and resume where it stopped:
+          indexFile="${file/.xml.bz2/-index.txt.bz2}"
+          if [ "$indexFile" != "$file" ] && [ ! -f "$indexFile" ]; then
+            curl -O "https://dumps.wikimedia.org/${wiki}wiki/$dump/$indexFile"
+          fi
           if [ -d "/home/nwords/$wiki" ]; then
             nwordsargument='--languagemodel nwords'
           else
             nwordsargument=
           fi
           java -jar /srv/languagetool-wikipedia/*/languagetool-wikipedia.jar check-data $nwordsargument -f "`pwd`/$file" -l "$wiki" -d /home/server.properties --rule-properties=/home/disabled_rules.properties \
-            && touch "$file.done" && rm -f "$file" && break
+            && touch "$file.done" && rm -f "$file" "$indexFile" "$file.offset" && break
         fi
       done
 
@@ -0,0 +1,58 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all (or the matching) check pipeline benchmarks with the GC profiler enabled,
+ * so that both ops/s and allocation rate are reported per stage, and writes the results
+ * as JSON for comparison between versions. For all other JMH options,
+ * use {@code java -jar languagetool-benchmarks-x.y-benchmarks.jar -h}.
+ * @since 5.2
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    if (args.length > 2) {
+      System.out.println("Usage: " + BenchmarkRunner.class.getSimpleName() + " [benchmarkRegex] [resultFile]");
+      System.out.println("  benchmarkRegex  only run benchmarks matching this, e.g. 'AnalysisBenchmark' (default: all)");
+      System.out.println("  resultFile      where to write the JSON results (default: jmh-result.json)");
+      System.exit(1);
+    }
+    String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark";
+    String resultFile = args.length > 1 ? args[1] : "jmh-result.json";
+    Options options = new OptionsBuilder()
+      .include(include)
+      .addProfiler(GCProfiler.class)
+      .resultFormat(ResultFormatType.JSON)
+      .result(resultFile)
+      .build();
+    new Runner(options).run();
+  }
+
+}
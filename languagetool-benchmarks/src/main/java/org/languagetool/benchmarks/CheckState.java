@@ -0,0 +1,111 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.*;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.TextLevelRule;
+import org.languagetool.rules.patterns.RuleSet;
+import org.languagetool.tools.StringTools;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Shared JMH state for the check pipeline benchmarks: loads the fixed corpus for
+ * the language under test and pre-computes the output of every pipeline stage,
+ * so that each benchmark can measure a single stage in isolation.
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+public class CheckState {
+
+  @Param({"en-US", "de-DE", "fr", "pl-PL"})
+  public String languageCode;
+
+  Language language;
+  JLanguageTool lt;
+  String text;
+  AnnotatedText annotatedText;
+  List<String> sentences;
+  /** the raw, i.e. not yet disambiguated, analysis of {@link #sentences} */
+  List<AnalyzedSentence> rawSentences;
+  List<AnalyzedSentence> analyzedSentences;
+  RuleSet ruleSet;
+  List<Rule> sentenceRules;
+  List<TextLevelRule> textLevelRules;
+  /** all matches of all active rules on the corpus, with text-level offsets, before any filtering */
+  List<RuleMatch> unfilteredMatches;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    language = Languages.getLanguageForShortCode(languageCode);
+    lt = new JLanguageTool(language);
+    text = loadCorpus(languageCode);
+    annotatedText = new AnnotatedTextBuilder().addText(text).build();
+    sentences = lt.sentenceTokenize(text);
+    rawSentences = new ArrayList<>();
+    analyzedSentences = new ArrayList<>();
+    for (String sentence : sentences) {
+      rawSentences.add(lt.getRawAnalyzedSentence(sentence));
+      analyzedSentences.add(lt.getAnalyzedSentence(sentence));
+    }
+    List<Rule> activeRules = lt.getAllActiveRules();
+    ruleSet = RuleSet.textLemmaHinted(activeRules);
+    sentenceRules = activeRules.stream().filter(rule -> !(rule instanceof TextLevelRule)).collect(Collectors.toList());
+    textLevelRules = activeRules.stream().filter(rule -> rule instanceof TextLevelRule).map(rule -> (TextLevelRule) rule).collect(Collectors.toList());
+    unfilteredMatches = new ArrayList<>();
+    int offset = 0;
+    for (int i = 0; i < analyzedSentences.size(); i++) {
+      for (Rule rule : ruleSet.rulesForSentence(analyzedSentences.get(i))) {
+        if (rule instanceof TextLevelRule) {
+          continue;
+        }
+        for (RuleMatch match : rule.match(analyzedSentences.get(i))) {
+          match.setOffsetPosition(match.getFromPos() + offset, match.getToPos() + offset);
+          unfilteredMatches.add(match);
+        }
+      }
+      offset += sentences.get(i).length();
+    }
+    for (TextLevelRule rule : textLevelRules) {
+      for (RuleMatch match : rule.match(analyzedSentences)) {
+        unfilteredMatches.add(match);
+      }
+    }
+  }
+
+  private static String loadCorpus(String languageCode) throws IOException {
+    String path = "/org/languagetool/benchmarks/corpus/" + languageCode + ".txt";
+    try (InputStream stream = CheckState.class.getResourceAsStream(path)) {
+      if (stream == null) {
+        throw new IllegalArgumentException("No benchmark corpus found for " + languageCode + " at " + path);
+      }
+      return StringTools.readStream(stream, "utf-8");
+    }
+  }
+
+}
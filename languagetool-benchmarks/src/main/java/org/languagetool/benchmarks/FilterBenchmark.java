@@ -0,0 +1,53 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.rules.CleanOverlappingFilter;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SameRuleGroupFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the post-processing of the unfiltered rule matches of the corpus.
+ * The input list is copied on each invocation, as {@link SameRuleGroupFilter} sorts it in place.
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+  @Benchmark
+  public List<RuleMatch> sameRuleGroupFilter(CheckState state) {
+    return new SameRuleGroupFilter().filter(new ArrayList<>(state.unfilteredMatches));
+  }
+
+  @Benchmark
+  public List<RuleMatch> sameRuleGroupAndCleanOverlappingFilter(CheckState state) {
+    List<RuleMatch> matches = new SameRuleGroupFilter().filter(new ArrayList<>(state.unfilteredMatches));
+    return new CleanOverlappingFilter(state.language).filter(matches);
+  }
+
+}
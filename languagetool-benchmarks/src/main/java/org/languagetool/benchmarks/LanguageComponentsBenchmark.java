@@ -0,0 +1,141 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.Languages;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the per-sentence access to the analysis components of one shared
+ * {@link Language} scales with the number of threads, as in a server where all
+ * pipelines of a language use the same {@code Language} object. Compare the ops/s
+ * of the {@code _1} to {@code _32} variants: without contention, they grow with
+ * the number of threads until all cores are busy.
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LanguageComponentsBenchmark {
+
+  private static final String SENTENCE = "This is a short sentence, and we analyze it again and again.";
+
+  @State(Scope.Benchmark)
+  public static class SharedLanguage {
+    @Param({"en-US", "de-DE"})
+    public String languageCode;
+    Language language;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      language = Languages.getLanguageForShortCode(languageCode);
+      // create all components, so that only the access is measured:
+      getComponents(language, null);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Pipeline {
+    JLanguageTool lt;
+
+    @Setup(Level.Trial)
+    public void setUp(SharedLanguage shared) {
+      lt = new JLanguageTool(shared.language);
+    }
+  }
+
+  private static void getComponents(Language language, Blackhole bh) {
+    Object[] components = {
+      language.getSentenceTokenizer(), language.getWordTokenizer(), language.getTagger(), language.getChunker(),
+      language.getDisambiguator(), language.getPostDisambiguationChunker(), language.getSynthesizer()
+    };
+    if (bh != null) {
+      bh.consume(components);
+    }
+  }
+
+  @Benchmark @Threads(1)
+  public void components_1(SharedLanguage shared, Blackhole bh) {
+    getComponents(shared.language, bh);
+  }
+
+  @Benchmark @Threads(2)
+  public void components_2(SharedLanguage shared, Blackhole bh) {
+    getComponents(shared.language, bh);
+  }
+
+  @Benchmark @Threads(4)
+  public void components_4(SharedLanguage shared, Blackhole bh) {
+    getComponents(shared.language, bh);
+  }
+
+  @Benchmark @Threads(8)
+  public void components_8(SharedLanguage shared, Blackhole bh) {
+    getComponents(shared.language, bh);
+  }
+
+  @Benchmark @Threads(16)
+  public void components_16(SharedLanguage shared, Blackhole bh) {
+    getComponents(shared.language, bh);
+  }
+
+  @Benchmark @Threads(32)
+  public void components_32(SharedLanguage shared, Blackhole bh) {
+    getComponents(shared.language, bh);
+  }
+
+  @Benchmark @Threads(1)
+  public void analysis_1(Pipeline pipeline, Blackhole bh) throws IOException {
+    bh.consume(pipeline.lt.getAnalyzedSentence(SENTENCE));
+  }
+
+  @Benchmark @Threads(2)
+  public void analysis_2(Pipeline pipeline, Blackhole bh) throws IOException {
+    bh.consume(pipeline.lt.getAnalyzedSentence(SENTENCE));
+  }
+
+  @Benchmark @Threads(4)
+  public void analysis_4(Pipeline pipeline, Blackhole bh) throws IOException {
+    bh.consume(pipeline.lt.getAnalyzedSentence(SENTENCE));
+  }
+
+  @Benchmark @Threads(8)
+  public void analysis_8(Pipeline pipeline, Blackhole bh) throws IOException {
+    bh.consume(pipeline.lt.getAnalyzedSentence(SENTENCE));
+  }
+
+  @Benchmark @Threads(16)
+  public void analysis_16(Pipeline pipeline, Blackhole bh) throws IOException {
+    bh.consume(pipeline.lt.getAnalyzedSentence(SENTENCE));
+  }
+
+  @Benchmark @Threads(32)
+  public void analysis_32(Pipeline pipeline, Blackhole bh) throws IOException {
+    bh.consume(pipeline.lt.getAnalyzedSentence(SENTENCE));
+  }
+
+}
@@ -0,0 +1,70 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.TextLevelRule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rule matching on the analyzed corpus: sentence-level rules, once with
+ * the rules pre-selected by the rule set hints (like {@code JLanguageTool.check()} does)
+ * and once without, and text-level rules on the whole text.
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RuleMatchBenchmark {
+
+  @Benchmark
+  public void sentenceRulesHinted(CheckState state, Blackhole bh) throws IOException {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      for (Rule rule : state.ruleSet.rulesForSentence(sentence)) {
+        if (!(rule instanceof TextLevelRule)) {
+          bh.consume(rule.match(sentence));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void sentenceRulesAll(CheckState state, Blackhole bh) throws IOException {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      for (Rule rule : state.sentenceRules) {
+        bh.consume(rule.match(sentence));
+      }
+    }
+  }
+
+  @Benchmark
+  public void textLevelRules(CheckState state, Blackhole bh) throws IOException {
+    for (TextLevelRule rule : state.textLevelRules) {
+      bh.consume(rule.match(state.analyzedSentences));
+    }
+  }
+
+}
@@ -19,6 +19,7 @@
 package org.languagetool;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
@@ -35,8 +36,9 @@ public final class AnalyzedSentence {
   private final AnalyzedTokenReadings[] nonBlankTokens;
   private final AnalyzedTokenReadings[] nonBlankPreDisambigTokens;
   private final int[] whPositions;  // maps positions without whitespace to positions that include whitespaces
-  private final Set<String> tokenSet;
-  private final Set<String> lemmaSet;
+  // computed on first use for the intermediate sentences of disambiguation, see withDisambiguatedTokens():
+  private volatile Set<String> tokenSet;
+  private volatile Set<String> lemmaSet;
 
   /**
    * Creates an AnalyzedSentence from the given {@link AnalyzedTokenReadings}. Whitespace is also a token.
@@ -82,6 +84,44 @@ public final class AnalyzedSentence {
     this.lemmaSet = getLemmaSet(tokens);
   }
 
+  private AnalyzedSentence(AnalyzedTokenReadings[] tokens, AnalyzedTokenReadings[] preDisambigTokens, int[] mapping,
+                           AnalyzedTokenReadings[] nonBlankTokens, AnalyzedTokenReadings[] nonBlankPreDisambigTokens) {
+    this.tokens = tokens;
+    this.preDisambigTokens = preDisambigTokens;
+    this.whPositions = mapping;
+    this.nonBlankTokens = nonBlankTokens;
+    this.nonBlankPreDisambigTokens = nonBlankPreDisambigTokens;
+  }
+
+  /**
+   * Like {@code new AnalyzedSentence(tokens, getTokens())}, but cheaper for the intermediate results
+   * of disambiguation: the whitespace mapping is reused if the whitespace tokens are unchanged, and the
+   * token and lemma sets are only computed when they're used.
+   * @param tokens the tokens of this sentence with changed readings
+   * @since 5.2
+   */
+  @ApiStatus.Internal
+  public AnalyzedSentence withDisambiguatedTokens(AnalyzedTokenReadings[] tokens) {
+    if (tokens.length == this.tokens.length) {
+      AnalyzedTokenReadings[] nonBlank = new AnalyzedTokenReadings[nonBlankTokens.length];
+      int nonWhCounter = 0;
+      for (int i = 0; i < tokens.length; i++) {
+        AnalyzedTokenReadings token = tokens[i];
+        if (!token.isWhitespace() || token.isSentenceStart() || token.isSentenceEnd() || token.isParagraphEnd()) {
+          if (nonWhCounter == nonBlank.length || whPositions[nonWhCounter] != i || nonBlankTokens[nonWhCounter] != this.tokens[i]) {
+            nonBlank = null;
+            break;
+          }
+          nonBlank[nonWhCounter++] = token;
+        }
+      }
+      if (nonBlank != null && nonWhCounter == nonBlank.length) {
+        return new AnalyzedSentence(tokens, this.tokens, whPositions, nonBlank, nonBlankTokens);
+      }
+    }
+    return new AnalyzedSentence(tokens, this.tokens);
+  }
+
   private Set<String> getTokenSet(AnalyzedTokenReadings[] tokens) {
     Set<String> tokenSet = new HashSet<>();
     for (AnalyzedTokenReadings token : tokens) {
@@ -300,7 +340,11 @@ public final class AnalyzedSentence {
    * @since 2.4
    */
   public Set<String> getTokenSet() {
-    return tokenSet;
+    Set<String> result = tokenSet;
+    if (result == null) {
+      tokenSet = result = getTokenSet(tokens);
+    }
+    return result;
   }
 
   /**
@@ -309,7 +353,35 @@ public final class AnalyzedSentence {
    * @since 2.5
    */
   public Set<String> getLemmaSet() {
-    return lemmaSet;
+    Set<String> result = lemmaSet;
+    if (result == null) {
+      lemmaSet = result = getLemmaSet(tokens);
+    }
+    return result;
+  }
+
+  private volatile TokenPositionIndex tokenPositionIndex;
+  private volatile TokenPositionIndex preDisambigTokenPositionIndex;
+
+  /**
+   * Get the positions of tokens, lemmas and POS tags in {@link #getTokensWithoutWhitespace()}
+   * or {@link #getPreDisambigTokensWithoutWhitespace()}. Used internally for performance optimization.
+   * @since 5.2
+   */
+  @ApiStatus.Internal
+  public TokenPositionIndex getTokenPositionIndex(boolean preDisambig) {
+    if (preDisambig) {
+      TokenPositionIndex result = preDisambigTokenPositionIndex;
+      if (result == null) {
+        preDisambigTokenPositionIndex = result = new TokenPositionIndex(nonBlankPreDisambigTokens);
+      }
+      return result;
+    }
+    TokenPositionIndex result = tokenPositionIndex;
+    if (result == null) {
+      tokenPositionIndex = result = new TokenPositionIndex(nonBlankTokens);
+    }
+    return result;
   }
 
   @SuppressWarnings("ControlFlowStatementWithoutBraces")
@@ -18,6 +18,7 @@
  */
 package org.languagetool;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
@@ -31,21 +32,18 @@ public final class AnalyzedToken {
 
   private final String token;
   private final String posTag;
+  private final int posTagId;
   private final String lemma;
-  private final String lemmaOrToken;  // used only for matching with Elements
 
   private boolean isWhitespaceBefore;
   private boolean hasNoPOSTag;
 
   public AnalyzedToken(String token, String posTag, String lemma) {
     this.token = Objects.requireNonNull(token, "token cannot be null");
-    this.posTag = posTag;
-    this.lemma = lemma;    
-    if (lemma == null) {
-      lemmaOrToken = token;
-    } else {
-      lemmaOrToken = lemma;
-    }
+    PosTagIds.Entry tagEntry = PosTagIds.get(posTag);
+    this.posTag = tagEntry.tag;
+    this.posTagId = tagEntry.id;
+    this.lemma = lemma;
     hasNoPOSTag = (posTag == null 
         || JLanguageTool.SENTENCE_END_TAGNAME.equals(posTag)
         || JLanguageTool.PARAGRAPH_END_TAGNAME.equals(posTag));
@@ -63,6 +61,15 @@ public final class AnalyzedToken {
     return posTag;
   }
 
+  /**
+   * @return the id of the token's part-of-speech tag, or {@link PosTagIds#NO_ID}
+   * @since 5.2
+   */
+  @ApiStatus.Internal
+  public int getPosTagId() {
+    return posTagId;
+  }
+
   /**
    * @return the token's lemma or {@code null}
    */
@@ -127,7 +134,7 @@ public final class AnalyzedToken {
   
   @Override
   public String toString() {
-    return lemmaOrToken + '/' + posTag;
+    return (lemma != null ? lemma : token) + "/" + posTag;
   }
 
   @Override
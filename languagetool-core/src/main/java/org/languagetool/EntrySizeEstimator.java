@@ -0,0 +1,189 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Estimates the heap memory retained by the entries of the {@link ResultCache}, assuming a 64-bit JVM
+ * with compressed references. The per-object sizes are derived from the fields of the classes by
+ * {@link #shallowSize(Class)}, using the HotSpot object layout (see {@code EntrySizeEstimatorTest}).
+ * Objects shared between entries (rules, languages, the sentence of a match) are not counted.
+ * @since 5.2
+ */
+final class EntrySizeEstimator {
+
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  // the overhead of an entry in a Guava cache: the entry object with its access queue links, the
+  // reference holding the value and its weight, the hash table slot, and the weight kept by ResultCache:
+  static final int CACHE_ENTRY_BYTES = (int) (
+    shallowSize("com.google.common.cache.LocalCache$StrongAccessEntry", 48) +
+    shallowSize("com.google.common.cache.LocalCache$WeightedStrongValueReference", 24) + REFERENCE +
+    shallowSize("java.util.concurrent.ConcurrentHashMap$Node", 32) + REFERENCE + shallowSize(ResultCache.Weighted.class));
+
+  // the remote rule matches get added after the entry has been put into the cache, so a
+  // fixed minimum size (that of a few matches) is assumed when it's weighed:
+  static final int REMOTE_MATCHES_BYTES = 1024;
+
+  private static final long STRING_BYTES = shallowSize(String.class);
+  private static final long ANALYZED_SENTENCE_BYTES = shallowSize(AnalyzedSentence.class);
+  private static final long TOKEN_READINGS_BYTES = shallowSize(AnalyzedTokenReadings.class);
+  private static final long ANALYZED_TOKEN_BYTES = shallowSize(AnalyzedToken.class);
+  private static final long HASH_SET_BYTES = shallowSize(HashSet.class) + shallowSize(HashMap.class);
+  private static final long HASH_SET_ENTRY_BYTES = shallowSize("java.util.HashMap$Node", 32);
+  private static final long RULE_MATCH_BYTES = shallowSize(RuleMatch.class) + 4 * shallowSize("org.languagetool.rules.RuleMatch$OffsetPosition", 24);
+  // suggestions might be computed lazily, so they are not counted individually, but assumed to be
+  // five short replacement strings:
+  private static final long SUGGESTIONS_BYTES = 5 * (shallowSize(SuggestedReplacement.class) + STRING_BYTES + align(ARRAY_HEADER + 16));
+  private static final long ARRAY_LIST_BYTES = shallowSize(ArrayList.class);
+
+  private EntrySizeEstimator() {
+  }
+
+  static long estimate(String s) {
+    return s == null ? 0 : STRING_BYTES + align(ARRAY_HEADER + 2L * s.length());
+  }
+
+  static long estimate(AnalyzedSentence sentence) {
+    long size = ANALYZED_SENTENCE_BYTES;
+    AnalyzedTokenReadings[] tokens = sentence.getTokens();
+    AnalyzedTokenReadings[] preDisambigTokens = sentence.getPreDisambigTokens();
+    int nonBlankCount = sentence.getTokensWithoutWhitespace().length;
+    // tokens, preDisambigTokens, the two non-blank arrays, and the whitespace position mapping:
+    size += 2 * array(tokens.length) + 3 * array(nonBlankCount);
+    // the pre-disambiguation tokens share most objects with the disambiguated ones:
+    Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (AnalyzedTokenReadings token : tokens) {
+      size += estimate(token, seen);
+    }
+    for (AnalyzedTokenReadings token : preDisambigTokens) {
+      size += estimate(token, seen);
+    }
+    size += set(sentence.getTokenSet(), seen) + set(sentence.getLemmaSet(), seen);
+    size += estimate(sentence.getText());
+    return size;
+  }
+
+  private static long estimate(AnalyzedTokenReadings token, Set<Object> seen) {
+    if (!seen.add(token)) {
+      return 0;
+    }
+    long size = TOKEN_READINGS_BYTES + array(token.getReadingsLength());
+    size += string(token.getToken(), seen) + string(token.getCleanToken(), seen) + string(token.getWhitespaceBefore(), seen);
+    for (int i = 0; i < token.getReadingsLength(); i++) {
+      AnalyzedToken reading = token.getAnalyzedToken(i);
+      if (seen.add(reading)) {
+        size += ANALYZED_TOKEN_BYTES + string(reading.getToken(), seen) + string(reading.getLemma(), seen) + string(reading.getPOSTag(), seen);
+      }
+    }
+    return size;
+  }
+
+  private static long set(Set<String> set, Set<Object> seen) {
+    long size = HASH_SET_BYTES + array(set.size() * 2) + (long) set.size() * HASH_SET_ENTRY_BYTES;
+    for (String s : set) {
+      size += string(s, seen);
+    }
+    return size;
+  }
+
+  private static long string(String s, Set<Object> seen) {
+    return s != null && seen.add(s) ? estimate(s) : 0;
+  }
+
+  static long estimate(List<RuleMatch> matches) {
+    long size = ARRAY_LIST_BYTES + array(matches.size());
+    for (RuleMatch match : matches) {
+      size += RULE_MATCH_BYTES + SUGGESTIONS_BYTES + estimate(match.getMessage()) + estimate(match.getShortMessage());
+    }
+    return size;
+  }
+
+  static long estimate(Map<String, List<RuleMatch>> matchesByRule) {
+    long size = HASH_SET_BYTES + array(matchesByRule.size() * 2);
+    for (Map.Entry<String, List<RuleMatch>> entry : matchesByRule.entrySet()) {
+      size += HASH_SET_ENTRY_BYTES + estimate(entry.getValue());
+    }
+    return size;
+  }
+
+  static long estimate(InputSentence key) {
+    // the rule and category lists are shared between all keys of a pipeline
+    return OBJECT_HEADER + 12 * REFERENCE + estimate(key.getText());
+  }
+
+  static long estimate(SimpleInputSentence key) {
+    return OBJECT_HEADER + 2 * REFERENCE + estimate(key.getText());
+  }
+
+  /**
+   * The size of an instance of the class: the object header, followed by the fields of the class
+   * and its superclasses, padded to a multiple of 8 bytes.
+   */
+  static long shallowSize(Class<?> clazz) {
+    long size = OBJECT_HEADER;
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          size += fieldSize(field.getType());
+        }
+      }
+    }
+    return align(size);
+  }
+
+  private static long shallowSize(String className, long fallback) {
+    try {
+      return shallowSize(Class.forName(className));
+    } catch (ClassNotFoundException e) {
+      // an implementation class of another library version or JVM
+      return fallback;
+    }
+  }
+
+  private static int fieldSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return REFERENCE;
+  }
+
+  private static long array(int length) {
+    return align(ARRAY_HEADER + (long) REFERENCE * length);
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+}
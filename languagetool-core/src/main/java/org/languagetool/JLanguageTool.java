@@ -43,6 +43,7 @@ import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -171,6 +172,8 @@ public class JLanguageTool {
   private final List<Rule> userRules = new ArrayList<>(); // rules added via addRule() method
   // rules fetched via getRelevantLanguageModelCapableRules()
   private final Set<String> optionalLanguageModelRules = new HashSet<>();
+  @Nullable
+  private final RuleRegistry.DefaultRules defaultRules;  // shared with other instances, if any
   private final Set<String> disabledRules = new HashSet<>();
   private final Set<CategoryId> disabledRuleCategories = new HashSet<>();
   private final Set<String> enabledRules = new HashSet<>();
@@ -184,6 +187,7 @@ public class JLanguageTool {
   private final List<RuleMatchFilter> matchFilters = new LinkedList<>();
 
   private CheckCancelledCallback checkCancelledCallback;
+  private Predicate<TextLevelRule> textLevelRuleFilter;
 
   private PrintStream printStream;
   private boolean listUnknownWords;
@@ -305,6 +309,18 @@ public class JLanguageTool {
    */
   public JLanguageTool(Language language, List<Language> altLanguages, Language motherTongue, ResultCache cache,
                        GlobalConfig globalConfig, UserConfig userConfig, boolean inputLogging) {
+    this(language, altLanguages, motherTongue, cache, globalConfig, userConfig, inputLogging, null);
+  }
+
+  /**
+   * Like {@link #JLanguageTool(Language, List, Language, ResultCache, GlobalConfig, UserConfig, boolean)}, but
+   * takes the default pattern and false friend rules from the given registry if another JLanguageTool with the same settings
+   * has already been created with it.
+   * @param ruleRegistry a registry to share the default rules with other JLanguageTool objects, or {@code null}
+   * @since 5.2
+   */
+  public JLanguageTool(Language language, List<Language> altLanguages, Language motherTongue, ResultCache cache,
+                       GlobalConfig globalConfig, UserConfig userConfig, boolean inputLogging, @Nullable RuleRegistry ruleRegistry) {
     this.language = Objects.requireNonNull(language, "language cannot be null");
     this.altLanguages = Objects.requireNonNull(altLanguages, "altLanguages cannot be null (but empty)");
     this.motherTongue = motherTongue;
@@ -315,17 +331,21 @@ public class JLanguageTool {
     }
     this.globalConfig = globalConfig;
     ResourceBundle messages = ResourceBundleTools.getMessageBundle(language);
-    builtinRules = getAllBuiltinRules(language, messages, userConfig, globalConfig);
     this.cleanOverlappingMatches = true;
-    try {
-      activateDefaultPatternRules();
-      if (!language.hasNGramFalseFriendRule(motherTongue)) {
-        // use the old false friends, which always match, not depending on context
-        activateDefaultFalseFriendRules();
-      }
-      updateOptionalLanguageModelRules(null); // start out with rules without language model
-    } catch (Exception e) {
-      throw new RuntimeException("Could not activate rules", e);
+    if (ruleRegistry != null) {
+      defaultRules = ruleRegistry.getRules(language, motherTongue, altLanguages, userConfig, globalConfig, () -> {
+        activateDefaultPatternAndFalseFriendRules();
+        return new RuleRegistry.DefaultRules(userRules);
+      });
+      userRules.clear();
+      userRules.addAll(defaultRules.patternRules);
+      // Java rules may keep state that isn't thread-safe (e.g. lazily initialized spellers), so they are not shared:
+      builtinRules = getAllBuiltinRules(language, messages, userConfig, globalConfig);
+      updateOptionalLanguageModelRules(null);
+    } else {
+      defaultRules = null;
+      builtinRules = getAllBuiltinRules(language, messages, userConfig, globalConfig);
+      activateDefaultRules();
     }
     this.cache = cache;
     descProvider = new ShortDescriptionProvider();
@@ -443,6 +463,20 @@ public class JLanguageTool {
     this.checkCancelledCallback = callback;
   }
 
+  /**
+   * Restrict the text-level rules used by the following {@code check...} calls to those accepted
+   * by the filter, e.g. to only re-run rules whose {@link TextLevelRule#minToCheckParagraph()} covers
+   * an edited part of a document. Use {@code null} to use all text-level rules again.
+   * @since 5.2
+   */
+  public void setTextLevelRuleFilter(@Nullable Predicate<TextLevelRule> filter) {
+    this.textLevelRuleFilter = filter;
+  }
+
+  boolean acceptsTextLevelRule(TextLevelRule rule) {
+    return textLevelRuleFilter == null || textLevelRuleFilter.test(rule);
+  }
+
   /**
    * Gets the ResourceBundle (i18n strings) for the default language of the user's system.
    */
@@ -459,6 +493,23 @@ public class JLanguageTool {
     return ResourceBundleTools.getMessageBundle(lang);
   }
 
+  private void activateDefaultRules() {
+    activateDefaultPatternAndFalseFriendRules();
+    updateOptionalLanguageModelRules(null); // start out with rules without language model
+  }
+
+  private void activateDefaultPatternAndFalseFriendRules() {
+    try {
+      activateDefaultPatternRules();
+      if (!language.hasNGramFalseFriendRule(motherTongue)) {
+        // use the old false friends, which always match, not depending on context
+        activateDefaultFalseFriendRules();
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("Could not activate rules", e);
+    }
+  }
+
   private List<Rule> getAllBuiltinRules(Language language, ResourceBundle messages, UserConfig userConfig, GlobalConfig globalConfig) {
     try {
       List<Rule> rules = new ArrayList<>(language.getRelevantRules(messages, userConfig, motherTongue, altLanguages));
@@ -963,7 +1014,8 @@ public class JLanguageTool {
   private RuleSet getActiveRulesForLevel(Level level) {
     return ruleSetCache.computeIfAbsent(level, l -> {
       List<Rule> allRules = getAllActiveRules();
-      return RuleSet.textLemmaHinted(l == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules);
+      List<Rule> rules = l == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules;
+      return defaultRules != null ? RuleSet.textLemmaHinted(rules, defaultRules.getIndex()) : RuleSet.textLemmaHinted(rules);
     });
   }
 
@@ -1192,7 +1244,8 @@ public class JLanguageTool {
     int lineCount = 0;
     int columnCount = 1;
     List<SentenceData> result = new ArrayList<>(texts.size());
-    for (int i = 0; i < texts.size(); i++) {
+    // there are fewer analyzed sentences if the check has been cancelled during the analysis:
+    for (int i = 0; i < Math.min(texts.size(), analyzedSentences.size()); i++) {
       String sentence = texts.get(i);
       result.add(new SentenceData(analyzedSentences.get(i), sentence, charCount, lineCount, columnCount));
 
@@ -1702,6 +1755,7 @@ public class JLanguageTool {
     private final RuleMatchListener listener;
     private final Mode mode;
     private final Level level;
+    private Map<String, Rule> rulesByFullId;  // only needed for matches from the off-heap cache
 
     TextCheckCallable(RuleSet rules, List<SentenceData> sentences,
                       ParagraphHandling paraMode, AnnotatedText annotatedText,
@@ -1741,7 +1795,8 @@ public class JLanguageTool {
         if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
           break;
         }
-        if (rule instanceof TextLevelRule && paraMode != ParagraphHandling.ONLYNONPARA) {
+        if (rule instanceof TextLevelRule && paraMode != ParagraphHandling.ONLYNONPARA &&
+            acceptsTextLevelRule((TextLevelRule) rule)) {
           if (analyzedSentences == null) {
             analyzedSentences = sentences.stream().map(s -> s.analyzed).collect(Collectors.toList());
           }
@@ -1778,6 +1833,17 @@ public class JLanguageTool {
       return ruleMatches;
     }
 
+    @Nullable
+    private Rule getRuleByFullId(String fullId) {
+      if (rulesByFullId == null) {
+        rulesByFullId = new HashMap<>();
+        for (Rule rule : rules.allRules()) {
+          rulesByFullId.put(rule.getFullId(), rule);
+        }
+      }
+      return rulesByFullId.get(fullId);
+    }
+
     private List<RuleMatch> getOtherRuleMatches() {
       List<RuleMatch> ruleMatches = new ArrayList<>();
       int wordCounter = 0;
@@ -1797,13 +1863,13 @@ public class JLanguageTool {
             cacheKey = new InputSentence(sentence.text, language, motherTongue,
                     disabledRules, disabledRuleCategories,
                     enabledRules, enabledRuleCategories, userConfig, altLanguages, mode, level);
-            sentenceMatches = cache.getIfPresent(cacheKey);
+            sentenceMatches = cache.getIfPresent(cacheKey, this::getRuleByFullId, sentence.analyzed);
           }
           if (sentenceMatches == null) {
             sentenceMatches = checkAnalyzedSentence(paraMode, rules.rulesForSentence(sentence.analyzed), sentence.analyzed, checkRemoteRules);
-          }
-          if (cache != null) {
-            cache.put(cacheKey, sentenceMatches);
+            if (cache != null) {
+              cache.put(cacheKey, sentenceMatches);
+            }
           }
           if (!sentenceMatches.isEmpty()) {
             for (RuleMatch elem : sentenceMatches) {
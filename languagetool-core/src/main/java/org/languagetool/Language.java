@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Nullable;
 import org.languagetool.broker.ResourceDataBroker;
 import org.languagetool.chunking.Chunker;
 import org.languagetool.language.Contributor;
+import org.languagetool.languagemodel.CompactNgramLanguageModel;
 import org.languagetool.languagemodel.LanguageModel;
 import org.languagetool.languagemodel.LuceneLanguageModel;
 import org.languagetool.rules.RemoteRuleConfig;
@@ -40,6 +41,7 @@ import java.io.*;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -69,13 +71,15 @@ public abstract class Language {
   private List<AbstractPatternRule> patternRules;
   private final AtomicBoolean noLmWarningPrinted = new AtomicBoolean();
 
-  private Disambiguator disambiguator;
-  private Tagger tagger;
-  private SentenceTokenizer sentenceTokenizer;
-  private Tokenizer wordTokenizer;
-  private Chunker chunker;
-  private Chunker postDisambiguationChunker;
-  private Synthesizer synthesizer;
+  // these are used for every sentence by all threads, so after they have been
+  // created they are read without locking:
+  private final LazyComponent<Disambiguator> disambiguator = new LazyComponent<>(this::createDefaultDisambiguator);
+  private final LazyComponent<Tagger> tagger = new LazyComponent<>(this::createDefaultTagger);
+  private final LazyComponent<SentenceTokenizer> sentenceTokenizer = new LazyComponent<>(this::createDefaultSentenceTokenizer);
+  private final LazyComponent<Tokenizer> wordTokenizer = new LazyComponent<>(this::createDefaultWordTokenizer);
+  private final LazyComponent<Chunker> chunker = new LazyComponent<>(this::createDefaultChunker);
+  private final LazyComponent<Chunker> postDisambiguationChunker = new LazyComponent<>(this::createDefaultPostDisambiguationChunker);
+  private final LazyComponent<Synthesizer> synthesizer = new LazyComponent<>(this::createDefaultSynthesizer);
 
   /**
    * Get this language's character code, e.g. <code>en</code> for English.
@@ -156,7 +160,8 @@ public abstract class Language {
   }
 
   /**
-   * @param indexDir directory with a '3grams' sub directory which contains a Lucene index with 3gram occurrence counts
+   * @param indexDir directory with a '3grams' sub directory which contains a Lucene index with 3gram occurrence counts,
+   *                 or with a {@link CompactNgramLanguageModel} file
    * @return a LanguageModel or {@code null} if this language doesn't support one
    * @since 2.7
    */
@@ -168,7 +173,9 @@ public abstract class Language {
   protected LanguageModel initLanguageModel(File indexDir, LanguageModel languageModel) {
     if (languageModel == null) {
       File topIndexDir = new File(indexDir, getShortCode());
-      if (topIndexDir.exists()) {
+      if (CompactNgramLanguageModel.isCompactIndex(topIndexDir)) {
+        languageModel = new CompactNgramLanguageModel(topIndexDir);
+      } else if (topIndexDir.exists()) {
         languageModel = new LuceneLanguageModel(topIndexDir);
       } else if (noLmWarningPrinted.compareAndSet(false, true)) {
         System.err.println("WARN: ngram index dir " + topIndexDir + " not found for " + getName());
@@ -313,7 +320,7 @@ public abstract class Language {
   }
 
   /**
-   * Creates language specific disambiguator. This function will be called each time in
+   * Creates language specific disambiguator. This function will be called on the first call of
    * {@link #getDisambiguator()} if disambiguator is not set.
    */
   public Disambiguator createDefaultDisambiguator() {
@@ -323,25 +330,21 @@ public abstract class Language {
   /**
    * Get this language's part-of-speech disambiguator implementation.
    */
-  public synchronized Disambiguator getDisambiguator() {
-    if (disambiguator == null) {
-      disambiguator = createDefaultDisambiguator();
-    }
-
-    return disambiguator;
+  public Disambiguator getDisambiguator() {
+    return disambiguator.get();
   }
 
   /**
    * Set this language's part-of-speech disambiguator implementation.
    */
   public void setDisambiguator(Disambiguator disambiguator) {
-    this.disambiguator = disambiguator;
+    this.disambiguator.set(disambiguator);
   }
 
   /**
    * Creates language specific part-of-speech tagger. The tagger must not be {@code null},
    * but it can be a trivial pseudo-tagger that only assigns {@code null} tags.
-   * This function will be called each time in {@link #getTagger()} ()} if tagger is not set.
+   * This function will be called on the first call of {@link #getTagger()} if tagger is not set.
    */
   @NotNull
   public Tagger createDefaultTagger() {
@@ -352,22 +355,19 @@ public abstract class Language {
    * Get this language's part-of-speech tagger implementation.
    */
   @NotNull
-  public synchronized Tagger getTagger() {
-    if (tagger == null) {
-      tagger = createDefaultTagger();
-    }
-    return tagger;
+  public Tagger getTagger() {
+    return tagger.get();
   }
 
   /**
    * Set this language's part-of-speech tagger implementation.
    */
   public void setTagger(Tagger tagger) {
-    this.tagger = tagger;
+    this.tagger.set(tagger);
   }
 
   /**
-   * Creates language specific sentence tokenizer. This function will be called each time in
+   * Creates language specific sentence tokenizer. This function will be called on the first call of
    * {@link #getSentenceTokenizer()} if sentence tokenizer is not set.
    */
   public SentenceTokenizer createDefaultSentenceTokenizer() {
@@ -377,23 +377,19 @@ public abstract class Language {
   /**
    * Get this language's sentence tokenizer implementation.
    */
-  public synchronized SentenceTokenizer getSentenceTokenizer() {
-    if (sentenceTokenizer == null) {
-      sentenceTokenizer = createDefaultSentenceTokenizer();
-    }
-
-    return sentenceTokenizer;
+  public SentenceTokenizer getSentenceTokenizer() {
+    return sentenceTokenizer.get();
   }
 
   /**
    * Set this language's sentence tokenizer implementation.
    */
   public void setSentenceTokenizer(SentenceTokenizer tokenizer) {
-    sentenceTokenizer = tokenizer;
+    sentenceTokenizer.set(tokenizer);
   }
 
   /**
-   * Creates language specific word tokenizer. This function will be called each time in
+   * Creates language specific word tokenizer. This function will be called on the first call of
    * {@link #getWordTokenizer()} if word tokenizer is not set.
    */
   public Tokenizer createDefaultWordTokenizer() {
@@ -403,23 +399,19 @@ public abstract class Language {
   /**
    * Get this language's word tokenizer implementation.
    */
-  public synchronized Tokenizer getWordTokenizer() {
-    if (wordTokenizer == null) {
-      wordTokenizer = createDefaultWordTokenizer();
-    }
-
-    return wordTokenizer;
+  public Tokenizer getWordTokenizer() {
+    return wordTokenizer.get();
   }
 
   /**
    * Set this language's word tokenizer implementation.
    */
   public void setWordTokenizer(Tokenizer tokenizer) {
-    wordTokenizer = tokenizer;
+    wordTokenizer.set(tokenizer);
   }
 
   /**
-   * Creates language specific chunker. This function will be called each time in
+   * Creates language specific chunker. This function will be called on the first call of
    * {@link #getChunker()} if chunker is not set.
    */
   @Nullable
@@ -432,24 +424,20 @@ public abstract class Language {
    * @since 2.3
    */
   @Nullable
-  public synchronized Chunker getChunker() {
-    if (chunker == null) {
-      chunker = createDefaultChunker();
-    }
-
-    return chunker;
+  public Chunker getChunker() {
+    return chunker.get();
   }
 
   /**
    * Set this language's chunker implementation or {@code null}.
    */
   public void setChunker(Chunker chunker) {
-    this.chunker = chunker;
+    this.chunker.set(chunker);
   }
 
   /**
    * Creates language specific post disambiguation chunker. This function will be called
-   * each time in {@link #getPostDisambiguationChunker()} if chunker is not set.
+   * on the first call of {@link #getPostDisambiguationChunker()} if chunker is not set.
    */
   @Nullable
   public Chunker createDefaultPostDisambiguationChunker() {
@@ -461,24 +449,20 @@ public abstract class Language {
    * @since 2.9
    */
   @Nullable
-  public synchronized Chunker getPostDisambiguationChunker() {
-    if (postDisambiguationChunker == null) {
-      postDisambiguationChunker = createDefaultPostDisambiguationChunker();
-    }
-
-    return postDisambiguationChunker;
+  public Chunker getPostDisambiguationChunker() {
+    return postDisambiguationChunker.get();
   }
 
   /**
    * Set this language's post disambiguation chunker implementation or {@code null}.
    */
   public void setPostDisambiguationChunker(Chunker chunker) {
-    postDisambiguationChunker = chunker;
+    postDisambiguationChunker.set(chunker);
   }
 
   /**
    * Creates language specific part-of-speech synthesizer. This function will be called
-   * each time in {@link #getSynthesizer()} if synthesizer is not set.
+   * on the first call of {@link #getSynthesizer()} if synthesizer is not set.
    */
   @Nullable
   public Synthesizer createDefaultSynthesizer() {
@@ -489,18 +473,15 @@ public abstract class Language {
    * Get this language's part-of-speech synthesizer implementation or {@code null}.
    */
   @Nullable
-  public synchronized Synthesizer getSynthesizer() {
-    if (synthesizer == null) {
-      synthesizer = createDefaultSynthesizer();
-    }
-    return synthesizer;
+  public Synthesizer getSynthesizer() {
+    return synthesizer.get();
   }
 
   /**
    * Set this language's part-of-speech synthesizer implementation or {@code null}.
    */
   public void setSynthesizer(Synthesizer synthesizer) {
-    this.synthesizer = synthesizer;
+    this.synthesizer.set(synthesizer);
   }
 
   /**
@@ -569,6 +550,7 @@ public abstract class Language {
   
   /**
    * Get the pattern rules as defined in the files returned by {@link #getRuleFileNames()}.
+   * A file's precompiled {@link RuleBundle} is used instead, if there is an up-to-date one.
    * @since 2.7
    */
   @SuppressWarnings("resource")
@@ -578,6 +560,13 @@ public abstract class Language {
       List<AbstractPatternRule> rules = new ArrayList<>();
       PatternRuleLoader ruleLoader = new PatternRuleLoader();
       for (String fileName : getRuleFileNames()) {
+        RuleBundle bundle = RuleBundle.loadIfCurrent(JLanguageTool.getDataBroker().getAsURL(fileName + RuleBundle.FILE_SUFFIX),
+          JLanguageTool.getDataBroker().getAsURL(fileName));
+        if (bundle != null) {
+          rules.addAll(ruleLoader.getRules(bundle, fileName));
+          patternRules = Collections.unmodifiableList(rules);
+          continue;
+        }
         InputStream is = null;
         try {
           is = JLanguageTool.getDataBroker().getAsStream(fileName);
@@ -838,4 +827,46 @@ public abstract class Language {
   public int hashCode() {
     return getShortCodeWithCountryAndVariant().hashCode();
   }
+
+  /**
+   * A component that gets created on first access. The component is published through
+   * a volatile holder, so reading it after that takes no lock, even if it is {@code null}.
+   */
+  private static final class LazyComponent<T> {
+
+    private final Supplier<T> factory;
+    private volatile Holder<T> holder;
+
+    private LazyComponent(Supplier<T> factory) {
+      this.factory = factory;
+    }
+
+    T get() {
+      Holder<T> result = holder;
+      if (result == null) {
+        synchronized (this) {
+          result = holder;
+          if (result == null) {
+            result = new Holder<>(factory.get());
+            holder = result;
+          }
+        }
+      }
+      return result.value;
+    }
+
+    /**
+     * Setting {@code null} resets the component, so it will be created again on next access.
+     */
+    void set(T value) {
+      holder = value != null ? new Holder<>(value) : null;
+    }
+  }
+
+  private static final class Holder<T> {
+    private final T value;
+    private Holder(T value) {
+      this.value = value;
+    }
+  }
 }
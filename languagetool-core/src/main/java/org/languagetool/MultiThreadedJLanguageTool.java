@@ -18,22 +18,23 @@
  */
 package org.languagetool;
 
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import org.languagetool.markup.AnnotatedText;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.TextLevelRule;
+import org.languagetool.rules.patterns.AbstractPatternRule;
 import org.languagetool.rules.patterns.RuleSet;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A variant of {@link JLanguageTool} that uses several threads for rule matching.
+ * The work is split into tasks of one rule and a chunk of sentences, with pattern rules that
+ * turned out to be expensive in earlier checks being split into more chunks, so that
+ * a single slow rule doesn't determine the check time of long texts.
  * Use this if you want text checking to be fast and do not care about the 
  * high load that this might cause. Call {@link #shutdown()} when you don't need
  * the object anymore.
@@ -44,8 +45,14 @@ import java.util.stream.IntStream;
  */
 public class MultiThreadedJLanguageTool extends JLanguageTool {
   
+  // how many tasks (per thread) the work of one check is split into at most:
+  private static final int TASKS_PER_THREAD = 4;
+  // don't split the work of a rule into chunks smaller than this:
+  private static final int MIN_SENTENCES_PER_TASK = 5;
+
   private final int threadPoolSize;
   private final ExecutorService threadPool;
+  private final Map<Rule, RuleCost> ruleCosts = new ConcurrentHashMap<>();
 
   public MultiThreadedJLanguageTool(Language language) {
     this(language, null);
@@ -175,38 +182,131 @@ public class MultiThreadedJLanguageTool extends JLanguageTool {
       }
     }
 
-    AtomicInteger ruleIndex = new AtomicInteger();
-    Map<Integer, List<RuleMatch>> ruleMatches = new TreeMap<>();
-    List<Future<?>> futures = IntStream.range(0, getThreadPoolSize()).mapToObj(__ -> getExecutorService().submit(() -> {
-      while (true) {
-        int index = ruleIndex.getAndIncrement();
-        if (index >= allRules.size()) return null;
-
-        Rule rule = allRules.get(index);
-        BitSet applicable = map.get(rule);
-        if (applicable == null) continue;
-
-        // less need for special treatment of remote rules when execution is already parallel
-        List<RuleMatch> matches = new TextCheckCallable(RuleSet.plain(Collections.singletonList(rule)),
-          RuleSet.filterList(applicable, sentences),
-          paraMode, annotatedText, listener, mode, level, true).call();
-        if (!matches.isEmpty()) {
-          synchronized (ruleMatches) {
-            ruleMatches.put(index, matches);
-          }
-        }
-      }
-    })).collect(Collectors.toList());
+    // the tasks are in rule order (and sentence order for the chunks of one rule), which is
+    // the order of the result, but they get submitted with the most expensive ones first, so
+    // that a slow rule doesn't start last and then determine the total check time:
+    List<CheckTask> tasks = createTasks(allRules, map, sentences, mode);
+    List<CheckTask> byCost = new ArrayList<>(tasks);
+    byCost.sort(Comparator.comparingDouble((CheckTask task) -> task.estimatedCost).reversed());
+    for (CheckTask task : byCost) {
+      // less need for special treatment of remote rules when execution is already parallel
+      TextCheckCallable callable = new TextCheckCallable(RuleSet.plain(Collections.singletonList(task.rule)),
+        task.sentences, paraMode, annotatedText, listener, mode, level, true);
+      task.future = getExecutorService().submit(() -> {
+        long startTime = System.nanoTime();
+        List<RuleMatch> matches = callable.call();
+        ruleCosts.computeIfAbsent(task.rule, __ -> new RuleCost()).add(System.nanoTime() - startTime, task.sentences.size());
+        return matches;
+      });
+    }
 
+    List<RuleMatch> ruleMatches = new ArrayList<>();
     try {
-      for (Future<?> future : futures) {
-        future.get();
+      for (CheckTask task : tasks) {
+        ruleMatches.addAll(task.future.get());
       }
     } catch (InterruptedException | ExecutionException e) {
       throw new RuntimeException(e);
     }
 
-    return applyCustomFilters(Lists.newArrayList(Iterables.concat(ruleMatches.values())), annotatedText);
+    return applyCustomFilters(ruleMatches, annotatedText);
+  }
+
+  /**
+   * Split the work into (rule, sentence chunk) tasks. Rules that are expensive, according to the
+   * cost measured in earlier checks, get split into several chunks of sentences, so that all threads
+   * can work on them. Only pattern rules get split, as they can be used by several threads at the
+   * same time (see {@link RuleRegistry}), while Java rules may keep state that isn't thread-safe
+   * (e.g. lazily initialized spellers). Text-level rules always need all sentences anyway.
+   */
+  private List<CheckTask> createTasks(List<Rule> allRules, Map<Rule, BitSet> applicableSentences, List<SentenceData> sentences, Mode mode) {
+    double defaultCost = getAverageCostPerSentence();
+    List<Rule> rules = new ArrayList<>();
+    List<List<SentenceData>> ruleSentences = new ArrayList<>();
+    List<Double> ruleCostEstimates = new ArrayList<>();
+    double totalCost = 0;
+    for (Rule rule : allRules) {
+      BitSet applicable = applicableSentences.get(rule);
+      if (applicable == null) continue;
+      boolean textLevel = rule instanceof TextLevelRule;
+      if (textLevel && mode == Mode.ALL_BUT_TEXTLEVEL_ONLY || !textLevel && mode == Mode.TEXTLEVEL_ONLY) {
+        continue;  // would not return any matches anyway
+      }
+      if (textLevel && !acceptsTextLevelRule((TextLevelRule) rule)) {
+        continue;
+      }
+      List<SentenceData> filtered = RuleSet.filterList(applicable, sentences);
+      RuleCost cost = ruleCosts.get(rule);
+      double estimate = (cost != null ? cost.getAverage() : defaultCost) * filtered.size();
+      rules.add(rule);
+      ruleSentences.add(filtered);
+      ruleCostEstimates.add(estimate);
+      totalCost += estimate;
+    }
+
+    double maxTaskCost = totalCost / (getThreadPoolSize() * TASKS_PER_THREAD);
+    List<CheckTask> tasks = new ArrayList<>();
+    for (int i = 0; i < rules.size(); i++) {
+      Rule rule = rules.get(i);
+      List<SentenceData> filtered = ruleSentences.get(i);
+      double estimate = ruleCostEstimates.get(i);
+      int chunks = 1;
+      if (rule instanceof AbstractPatternRule && maxTaskCost > 0) {
+        chunks = (int) Math.min(Math.ceil(estimate / maxTaskCost), filtered.size() / MIN_SENTENCES_PER_TASK);
+        chunks = Math.max(chunks, 1);
+      }
+      int chunkSize = (filtered.size() + chunks - 1) / chunks;
+      for (int from = 0; from < filtered.size(); from += chunkSize) {
+        List<SentenceData> chunk = filtered.subList(from, Math.min(from + chunkSize, filtered.size()));
+        tasks.add(new CheckTask(rule, chunk, estimate * chunk.size() / filtered.size()));
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * The average cost per sentence over all rules measured so far, used as an estimate
+   * for rules that have not been run yet.
+   */
+  private double getAverageCostPerSentence() {
+    double sum = 0;
+    int count = 0;
+    for (RuleCost cost : ruleCosts.values()) {
+      sum += cost.getAverage();
+      count++;
+    }
+    return count > 0 ? sum / count : 1;
+  }
+
+  private static final class CheckTask {
+    private final Rule rule;
+    private final List<SentenceData> sentences;
+    private final double estimatedCost;
+    private Future<List<RuleMatch>> future;
+
+    private CheckTask(Rule rule, List<SentenceData> sentences, double estimatedCost) {
+      this.rule = rule;
+      this.sentences = sentences;
+      this.estimatedCost = estimatedCost;
+    }
+  }
+
+  /**
+   * Measured run time of a rule, in nanoseconds per checked sentence.
+   */
+  private static final class RuleCost {
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder sentences = new LongAdder();
+
+    private void add(long nanos, int sentences) {
+      this.nanos.add(nanos);
+      this.sentences.add(sentences);
+    }
+
+    private double getAverage() {
+      long count = sentences.sum();
+      return count > 0 ? (double) nanos.sum() / count : 0;
+    }
   }
 
   private class AnalyzeSentenceCallable implements Callable<AnalyzedSentence> {
@@ -0,0 +1,306 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A second tier for the sentence matches of the {@link ResultCache}: matches evicted from the heap
+ * are serialized into a direct (off-heap) buffer that is used as a ring, so the oldest entries
+ * get overwritten when the buffer is full. Entries found here are removed, as the cache moves
+ * them back to the heap.
+ * @since 5.2
+ */
+final class OffHeapMatchStore {
+
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private final long expireAfterMillis;
+  // in order of insertion, which is also the order of the positions in the buffer:
+  private final LinkedHashMap<InputSentence, Entry> index = new LinkedHashMap<>();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  // the position of the next write if the buffer were endless, the real position is modulo capacity:
+  private long writePos;
+  private long usedBytes;
+
+  OffHeapMatchStore(long capacity, long expireAfter, TimeUnit timeUnit) {
+    if (capacity <= 0 || capacity > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Off-heap cache size must be > 0 and <= " + Integer.MAX_VALUE + ": " + capacity);
+    }
+    this.capacity = (int) capacity;
+    this.buffer = ByteBuffer.allocateDirect(this.capacity);
+    this.expireAfterMillis = timeUnit.toMillis(expireAfter);
+  }
+
+  /**
+   * Matches whose suggestions haven't been computed yet are not stored, as computing them here would
+   * slow down the request that caused the eviction, and they cannot be re-created from the buffer.
+   */
+  void put(InputSentence key, List<RuleMatch> matches) {
+    for (RuleMatch match : matches) {
+      if (!match.isSuggestedReplacementsComputed()) {
+        return;
+      }
+    }
+    byte[] bytes;
+    try {
+      bytes = serialize(matches);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not serialize matches of: " + key.getText(), e);
+    }
+    if (bytes.length > capacity) {
+      return;
+    }
+    synchronized (this) {
+      Entry old = index.remove(key);
+      if (old != null) {
+        usedBytes -= old.length;
+      }
+      int offset = (int) (writePos % capacity);
+      if (offset + bytes.length > capacity) {
+        writePos += capacity - offset;  // don't split entries, continue at the start of the buffer
+        offset = 0;
+      }
+      long validFrom = writePos + bytes.length - capacity;
+      Iterator<Entry> it = index.values().iterator();
+      while (it.hasNext()) {
+        Entry entry = it.next();
+        if (entry.position >= validFrom) {
+          break;
+        }
+        it.remove();
+        usedBytes -= entry.length;
+        evictionCount.increment();
+      }
+      ByteBuffer target = buffer.duplicate();
+      target.position(offset);
+      target.put(bytes);
+      index.put(key, new Entry(writePos, bytes.length, System.currentTimeMillis()));
+      writePos += bytes.length;
+      usedBytes += bytes.length;
+    }
+  }
+
+  /**
+   * @param ruleLookup maps a rule's full id to the rule
+   * @param sentence the sentence the matches refer to
+   * @return the matches or {@code null} if the key is not in the store or if one of its rules is unknown
+   */
+  @Nullable
+  List<RuleMatch> remove(InputSentence key, Function<String, Rule> ruleLookup, AnalyzedSentence sentence) {
+    byte[] bytes;
+    synchronized (this) {
+      Entry entry = index.remove(key);
+      if (entry == null) {
+        missCount.increment();
+        return null;
+      }
+      usedBytes -= entry.length;
+      if (System.currentTimeMillis() - entry.created > expireAfterMillis) {
+        missCount.increment();
+        evictionCount.increment();
+        return null;
+      }
+      bytes = new byte[entry.length];
+      ByteBuffer source = buffer.duplicate();
+      source.position((int) (entry.position % capacity));
+      source.get(bytes);
+    }
+    try {
+      List<RuleMatch> matches = deserialize(bytes, ruleLookup, sentence);
+      if (matches == null) {
+        missCount.increment();
+      } else {
+        hitCount.increment();
+      }
+      return matches;
+    } catch (IOException e) {
+      throw new RuntimeException("Could not deserialize matches of: " + key.getText(), e);
+    }
+  }
+
+  long getCapacity() {
+    return capacity;
+  }
+
+  synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  synchronized long size() {
+    return index.size();
+  }
+
+  long hitCount() {
+    return hitCount.sum();
+  }
+
+  long missCount() {
+    return missCount.sum();
+  }
+
+  long evictionCount() {
+    return evictionCount.sum();
+  }
+
+  static byte[] serialize(List<RuleMatch> matches) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + matches.size() * 128);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(matches.size());
+    for (RuleMatch match : matches) {
+      writeString(out, match.getRule().getFullId());
+      out.writeInt(match.getFromPos());
+      out.writeInt(match.getToPos());
+      out.writeInt(match.getPatternFromPos());
+      out.writeInt(match.getPatternToPos());
+      writeString(out, match.getMessage());
+      writeString(out, match.getShortMessage());
+      writeString(out, match.getUrl() != null ? match.getUrl().toString() : null);
+      out.writeByte(match.getType().ordinal());
+      out.writeBoolean(match.isAutoCorrect());
+      writeFeatures(out, match.getFeatures());
+      List<SuggestedReplacement> suggestions = match.getSuggestedReplacementObjects();
+      out.writeInt(suggestions.size());
+      for (SuggestedReplacement suggestion : suggestions) {
+        writeString(out, suggestion.getReplacement());
+        writeString(out, suggestion.getShortDescription());
+        writeString(out, suggestion.getSuffix());
+        out.writeBoolean(suggestion.getConfidence() != null);
+        if (suggestion.getConfidence() != null) {
+          out.writeFloat(suggestion.getConfidence());
+        }
+        out.writeByte(suggestion.getType().ordinal());
+        writeFeatures(out, suggestion.getFeatures());
+      }
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  @Nullable
+  static List<RuleMatch> deserialize(byte[] bytes, Function<String, Rule> ruleLookup, AnalyzedSentence sentence) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int count = in.readInt();
+    List<RuleMatch> matches = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Rule rule = ruleLookup.apply(readString(in));
+      if (rule == null) {
+        return null;
+      }
+      int fromPos = in.readInt();
+      int toPos = in.readInt();
+      int patternFromPos = in.readInt();
+      int patternToPos = in.readInt();
+      String message = readString(in);
+      String shortMessage = readString(in);
+      RuleMatch match = new RuleMatch(rule, sentence, fromPos, toPos, patternFromPos, patternToPos, message, shortMessage);
+      String url = readString(in);
+      if (url != null) {
+        match.setUrl(new URL(url));
+      }
+      match.setType(RuleMatch.Type.values()[in.readByte()]);
+      match.setAutoCorrect(in.readBoolean());
+      match.setFeatures(readFeatures(in));
+      int suggestionCount = in.readInt();
+      List<SuggestedReplacement> suggestions = new ArrayList<>(suggestionCount);
+      for (int j = 0; j < suggestionCount; j++) {
+        SuggestedReplacement suggestion = new SuggestedReplacement(readString(in), readString(in), readString(in));
+        if (in.readBoolean()) {
+          suggestion.setConfidence(in.readFloat());
+        }
+        suggestion.setType(SuggestedReplacement.SuggestionType.values()[in.readByte()]);
+        suggestion.setFeatures(readFeatures(in));
+        suggestions.add(suggestion);
+      }
+      match.setSuggestedReplacementObjects(suggestions);
+      matches.add(match);
+    }
+    return matches;
+  }
+
+  private static void writeFeatures(DataOutputStream out, SortedMap<String, Float> features) throws IOException {
+    out.writeInt(features.size());
+    for (Map.Entry<String, Float> entry : features.entrySet()) {
+      writeString(out, entry.getKey());
+      out.writeFloat(entry.getValue());
+    }
+  }
+
+  private static SortedMap<String, Float> readFeatures(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size == 0) {
+      return Collections.emptySortedMap();
+    }
+    SortedMap<String, Float> features = new TreeMap<>();
+    for (int i = 0; i < size; i++) {
+      features.put(readString(in), in.readFloat());
+    }
+    return features;
+  }
+
+  // not writeUTF(), as that is limited to 64KB
+  private static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  @Nullable
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class Entry {
+    private final long position;
+    private final int length;
+    private final long created;
+
+    private Entry(long position, int length, long created) {
+      this.position = position;
+      this.length = length;
+      this.created = created;
+    }
+  }
+
+}
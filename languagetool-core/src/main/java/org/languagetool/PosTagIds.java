@@ -0,0 +1,84 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns small integer ids to POS tags, so that the result of matching a POS tag regular expression
+ * can be stored per tag id and looked up instead of running the regex again. As the tags
+ * come from finite tag sets, the table stays small. The instances of the tag strings are shared, too.
+ * @since 5.2
+ */
+@ApiStatus.Internal
+public final class PosTagIds {
+
+  /** The id of {@code null} tags and of tags that were not given an id */
+  public static final int NO_ID = -1;
+
+  // protects against unlimited growth in case a tagger creates tags from its input:
+  private static final int MAX_TAGS = 1 << 16;
+
+  private static final Map<String, Entry> ids = new ConcurrentHashMap<>();
+  private static final AtomicInteger nextId = new AtomicInteger();
+
+  private PosTagIds() {
+  }
+
+  /**
+   * @return the id of the given tag and the shared instance of its string, creating the id if needed,
+   *   or an entry with {@link #NO_ID} if the tag is {@code null} or there are too many tags already
+   */
+  static Entry get(String posTag) {
+    if (posTag == null) {
+      return Entry.NONE;
+    }
+    Entry entry = ids.get(posTag);
+    if (entry != null) {
+      return entry;
+    }
+    if (nextId.get() >= MAX_TAGS) {
+      return new Entry(posTag, NO_ID);
+    }
+    return ids.computeIfAbsent(posTag, tag -> new Entry(tag, nextId.getAndIncrement()));
+  }
+
+  /**
+   * @return the number of tags that have an id, which is larger than the largest id
+   */
+  public static int size() {
+    return nextId.get();
+  }
+
+  static final class Entry {
+    private static final Entry NONE = new Entry(null, NO_ID);
+
+    final String tag;
+    final int id;
+
+    private Entry(String tag, int id) {
+      this.tag = tag;
+      this.id = id;
+    }
+  }
+}
@@ -18,14 +18,17 @@
  */
 package org.languagetool;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.Weigher;
+import com.google.common.cache.*;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * A cache to speed up text checking for use cases where sentences are checked more than once. This
@@ -36,10 +39,16 @@ import java.util.concurrent.TimeUnit;
  * Using a cache with bitext rules isn't supported either.
  * It is okay however, to use the same cache for {@link JLanguageTool} objects with different languages, as
  * cached results are not used for a different language.
+ * <p>The size of the entries is estimated in bytes, see {@link #withMaxBytes(long, long, long, TimeUnit)}.
+ * Optionally, the sentence matches evicted from the heap are kept in an off-heap buffer.
  * @since 3.7
  */
 public class ResultCache {
 
+  // the estimated size of an average sentence with its analysis and matches, used for
+  // the constructors that take the cache size as a number of sentences:
+  static final long BYTES_PER_SENTENCE = 6 * 1024;
+
   /**
    * rules can fail individually, results can be partial ->
    * store list if success (can be empty), null -> failure/not checked
@@ -47,6 +56,11 @@ public class ResultCache {
   private final Cache<InputSentence, Map<String, List<RuleMatch>>> remoteMatchesCache;
   private final Cache<InputSentence, List<RuleMatch>> matchesCache;
   private final Cache<SimpleInputSentence, AnalyzedSentence> sentenceCache;
+  @Nullable
+  private final OffHeapMatchStore offHeapStore;
+  private final WeightTotal<InputSentence, Map<String, List<RuleMatch>>> remoteMatchesBytes = new WeightTotal<>(new RemoteMatchesWeigher());
+  private final WeightTotal<InputSentence, List<RuleMatch>> matchesBytes = new WeightTotal<>(new MatchesWeigher());
+  private final WeightTotal<SimpleInputSentence, AnalyzedSentence> sentenceBytes = new WeightTotal<>(new SentenceWeigher());
 
   /**
    * Create a cache that expires items 5 minutes after the latest read access.
@@ -61,51 +75,142 @@ public class ResultCache {
    * @param expireAfter time to expire sentences from the cache after last read access 
    */
   public ResultCache(long maxSize, long expireAfter, TimeUnit timeUnit) {
-    if (maxSize < 0) {
-      throw new IllegalArgumentException("Result cache size must be >= 0: " + maxSize);
+    this(checkSize(maxSize) * BYTES_PER_SENTENCE, 0, expireAfter, timeUnit);
+  }
+
+  private ResultCache(long maxBytes, long offHeapBytes, long expireAfter, TimeUnit timeUnit) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Result cache size must be >= 0: " + maxBytes);
     }
+    offHeapStore = offHeapBytes > 0 ? new OffHeapMatchStore(offHeapBytes, expireAfter, timeUnit) : null;
     matchesCache = CacheBuilder.newBuilder().
-            maximumWeight(maxSize/2).weigher(new MatchesWeigher()).
+            maximumWeight(maxBytes/4).weigher(matchesBytes).
+            removalListener((RemovalNotification<InputSentence, List<RuleMatch>> notification) -> {
+              matchesBytes.removed(notification);
+              if (offHeapStore != null && notification.getCause() == RemovalCause.SIZE) {
+                offHeapStore.put(notification.getKey(), notification.getValue());
+              }
+            }).
             recordStats().
             expireAfterAccess(expireAfter, timeUnit).
             build();
     remoteMatchesCache = CacheBuilder.newBuilder().
-      maximumWeight(maxSize/2).weigher(new RemoteMatchesWeigher()).
+      maximumWeight(maxBytes/4).weigher(remoteMatchesBytes).
+      removalListener((RemovalNotification<InputSentence, Map<String, List<RuleMatch>>> notification) ->
+        remoteMatchesBytes.removed(notification)).
       recordStats().
       expireAfterAccess(expireAfter, timeUnit).
       build();
     sentenceCache = CacheBuilder.newBuilder().
-            maximumWeight(maxSize/2).weigher(new SentenceWeigher()).
+            maximumWeight(maxBytes/2).weigher(sentenceBytes).
+            removalListener((RemovalNotification<SimpleInputSentence, AnalyzedSentence> notification) ->
+              sentenceBytes.removed(notification)).
             recordStats().
             expireAfterAccess(expireAfter, timeUnit).
             build();
   }
-  
-  class MatchesWeigher implements Weigher<InputSentence, List<RuleMatch>> {
+
+  /**
+   * Create a cache whose heap usage is limited by the estimated size of its entries. Half of
+   * {@code maxBytes} is used for analyzed sentences, a quarter each for local and remote rule matches.
+   * @param maxBytes the maximum estimated heap size of the cache in bytes
+   * @param offHeapBytes the size of the off-heap buffer that keeps the sentence matches evicted
+   *                     from the heap (at most 2GB), or {@code 0} to not use off-heap memory
+   * @param expireAfter time to expire sentences from the cache after last read access
+   * @since 5.2
+   */
+  public static ResultCache withMaxBytes(long maxBytes, long offHeapBytes, long expireAfter, TimeUnit timeUnit) {
+    return new ResultCache(maxBytes, offHeapBytes, expireAfter, timeUnit);
+  }
+
+  private static long checkSize(long maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Result cache size must be >= 0: " + maxSize);
+    }
+    return maxSize;
+  }
+
+  private static int toWeight(long bytes) {
+    return (int) Math.min(bytes, Integer.MAX_VALUE);
+  }
+
+  static class MatchesWeigher implements Weigher<InputSentence, List<RuleMatch>> {
     @Override
     public int weigh(InputSentence sentence, List<RuleMatch> matches) {
-      // this is just a rough guesstimate so that the cacheSize given by the user
-      // is very roughly the number of average sentences the cache can keep:
-      return sentence.getText().length() / 75 + matches.size();
+      return toWeight(EntrySizeEstimator.CACHE_ENTRY_BYTES + EntrySizeEstimator.estimate(sentence) + EntrySizeEstimator.estimate(matches));
     }
   }
 
-  class RemoteMatchesWeigher implements Weigher<InputSentence, Map<String, List<RuleMatch>>> {
+  static class RemoteMatchesWeigher implements Weigher<InputSentence, Map<String, List<RuleMatch>>> {
     @Override
     public int weigh(InputSentence sentence, Map<String, List<RuleMatch>> matches) {
-      // this is just a rough guesstimate so that the cacheSize given by the user
-      // is very roughly the number of average sentences the cache can keep:
-      return sentence.getText().length() / 75;
+      return toWeight(EntrySizeEstimator.CACHE_ENTRY_BYTES + EntrySizeEstimator.estimate(sentence) +
+        Math.max(EntrySizeEstimator.estimate(matches), EntrySizeEstimator.REMOTE_MATCHES_BYTES));
     }
   }
 
-  class SentenceWeigher implements Weigher<SimpleInputSentence, AnalyzedSentence> {
+  static class SentenceWeigher implements Weigher<SimpleInputSentence, AnalyzedSentence> {
     @Override
     public int weigh(SimpleInputSentence sentence, AnalyzedSentence analyzedSentence) {
-      return sentence.getText().length() / 75;
+      return toWeight(EntrySizeEstimator.CACHE_ENTRY_BYTES + EntrySizeEstimator.estimate(sentence) + EntrySizeEstimator.estimate(analyzedSentence));
     }
   }
-  
+
+  /**
+   * Weighs the entries of a cache and keeps the total of the weights, so the size of the cache can be
+   * reported without iterating over it. The weight of an entry is remembered per key, as an analyzed sentence
+   * can still change after it has been added, so weighing it again on removal would not give the same result.
+   */
+  private static final class WeightTotal<K, V> implements Weigher<K, V> {
+    private final Weigher<K, V> weigher;
+    private final LongAdder total = new LongAdder();
+    private final Map<K, Weighted<V>> weights = new ConcurrentHashMap<>();
+
+    private WeightTotal(Weigher<K, V> weigher) {
+      this.weigher = weigher;
+    }
+
+    @Override
+    public int weigh(K key, V value) {
+      int weight = weigher.weigh(key, value);
+      Weighted<V> old = weights.put(key, new Weighted<>(value, weight));
+      if (old != null) {
+        // the old value has been replaced or its removal hasn't been notified yet
+        total.add(-old.weight);
+      }
+      total.add(weight);
+      return weight;
+    }
+
+    void removed(RemovalNotification<K, V> notification) {
+      if (notification.getCause() == RemovalCause.REPLACED) {
+        return;  // already accounted for when the new value was weighed
+      }
+      V value = notification.getValue();
+      weights.computeIfPresent(notification.getKey(), (key, weighted) -> {
+        if (weighted.value != value) {
+          return weighted;  // a newer value has been put for the key
+        }
+        total.add(-weighted.weight);
+        return null;
+      });
+    }
+
+    long get() {
+      return total.sum();
+    }
+  }
+
+  static final class Weighted<V> {
+    private final V value;
+    private final int weight;
+
+    private Weighted(V value, int weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
   public double hitRate() {
     return (matchesCache.stats().hitRate() + sentenceCache.stats().hitRate()) / 2.0;
   }
@@ -126,6 +231,26 @@ public class ResultCache {
     return sentenceCache.getIfPresent(key);
   }
 
+  /**
+   * Like {@link #getIfPresent(InputSentence)}, but also looks up the matches in the off-heap
+   * buffer, if there is one. Matches found there are moved back to the heap.
+   * @param ruleLookup maps a rule's full id to the rule, see {@link Rule#getFullId()}, used to
+   *                   re-create the matches from the off-heap buffer
+   * @param sentence the sentence the matches belong to
+   * @since 5.2
+   */
+  @Nullable
+  public List<RuleMatch> getIfPresent(InputSentence key, Function<String, Rule> ruleLookup, AnalyzedSentence sentence) {
+    List<RuleMatch> matches = matchesCache.getIfPresent(key);
+    if (matches == null && offHeapStore != null) {
+      matches = offHeapStore.remove(key, ruleLookup, sentence);
+      if (matches != null) {
+        matchesCache.put(key, matches);
+      }
+    }
+    return matches;
+  }
+
   public void put(InputSentence key, List<RuleMatch> sentenceMatches) {
     matchesCache.put(key, sentenceMatches);
   }
@@ -150,4 +275,65 @@ public class ResultCache {
   public Cache<SimpleInputSentence, AnalyzedSentence> getSentenceCache() {
     return sentenceCache;
   }
+
+  /**
+   * The estimated heap size of the analyzed sentences in the cache.
+   * @since 5.2
+   */
+  public long getSentenceCacheBytes() {
+    return sentenceBytes.get();
+  }
+
+  /**
+   * The estimated heap size of the (local) sentence matches in the cache.
+   * @since 5.2
+   */
+  public long getMatchesCacheBytes() {
+    return matchesBytes.get();
+  }
+
+  /**
+   * The estimated heap size of the remote rule matches in the cache.
+   * @since 5.2
+   */
+  public long getRemoteMatchesCacheBytes() {
+    return remoteMatchesBytes.get();
+  }
+
+  /**
+   * @return whether sentence matches evicted from the heap are kept in an off-heap buffer
+   * @since 5.2
+   */
+  public boolean hasOffHeapTier() {
+    return offHeapStore != null;
+  }
+
+  /**
+   * @return the size of the off-heap buffer, or {@code 0} if there is none
+   * @since 5.2
+   */
+  public long getOffHeapCapacity() {
+    return offHeapStore != null ? offHeapStore.getCapacity() : 0;
+  }
+
+  /**
+   * @return the bytes used by the entries of the off-heap buffer, or {@code 0} if there is none
+   * @since 5.2
+   */
+  public long getOffHeapBytes() {
+    return offHeapStore != null ? offHeapStore.getUsedBytes() : 0;
+  }
+
+  /**
+   * Statistics of the off-heap buffer: a lookup that is served from the heap doesn't count,
+   * a miss is a lookup that was served by neither tier. Evictions are entries that were
+   * overwritten or had expired.
+   * @since 5.2
+   */
+  public CacheStats getOffHeapStats() {
+    if (offHeapStore == null) {
+      return new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+    return new CacheStats(offHeapStore.hitCount(), offHeapStore.missCount(), 0, 0, 0, offHeapStore.evictionCount());
+  }
 }
@@ -0,0 +1,136 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.RuleSet;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Shares the default pattern and false friend rules of a language between {@link JLanguageTool} objects,
+ * so that creating another {@code JLanguageTool} with the same language, mother tongue, alternative
+ * languages and configuration doesn't load the false friend rules again. The index that selects the
+ * rules to run for a sentence (see {@link RuleSet}) is shared, too: each {@code JLanguageTool} only
+ * keeps the selection of active rules and indexes its own additional rules.
+ *
+ * <p>The shared rules are used by several threads at the same time, which pattern rules already
+ * support. Java rules are not shared, as many of them initialize state lazily without synchronization
+ * (e.g. the spellers of {@link org.languagetool.rules.spelling.morfologik.MorfologikSpellerRule}), so each
+ * {@code JLanguageTool} still creates its own. Enabling and disabling rules with {@link JLanguageTool} is
+ * fine, as it doesn't change the rules.
+ * @since 5.2
+ */
+public class RuleRegistry {
+
+  private final Cache<Key, DefaultRules> rules;
+
+  /**
+   * @param maxSize the maximum number of different configurations to keep the rules of
+   * @param expireAfter time to remove rules from the registry after their last use
+   */
+  public RuleRegistry(long maxSize, long expireAfter, TimeUnit timeUnit) {
+    rules = CacheBuilder.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterAccess(expireAfter, timeUnit)
+      .build();
+  }
+
+  DefaultRules getRules(Language language, @Nullable Language motherTongue, List<Language> altLanguages,
+                        @Nullable UserConfig userConfig, @Nullable GlobalConfig globalConfig, Callable<DefaultRules> loader) {
+    try {
+      return rules.get(new Key(language, motherTongue, altLanguages, userConfig, globalConfig), loader);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Could not load rules of language " + language, e.getCause());
+    } catch (UncheckedExecutionException e) {
+      // same exception as without a registry, e.g. "Could not activate rules":
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  /**
+   * @return the number of configurations whose rules are currently kept
+   */
+  public long size() {
+    return rules.size();
+  }
+
+  /**
+   * The pattern and false friend rules that {@link JLanguageTool} activates by default, before any rules get added.
+   */
+  static final class DefaultRules {
+    final List<Rule> patternRules;
+    private final Supplier<RuleSet> index;
+
+    DefaultRules(List<Rule> patternRules) {
+      this.patternRules = Collections.unmodifiableList(new ArrayList<>(patternRules));
+      this.index = Suppliers.memoize(() -> RuleSet.textLemmaHinted(this.patternRules));
+    }
+
+    /**
+     * @return an index of all the default rules, to be used with {@link RuleSet#textLemmaHinted(List, RuleSet)}
+     */
+    RuleSet getIndex() {
+      return index.get();
+    }
+  }
+
+  private static final class Key {
+    private final Language language;
+    private final Language motherTongue;
+    private final List<Language> altLanguages;
+    private final UserConfig userConfig;
+    private final GlobalConfig globalConfig;
+
+    private Key(Language language, Language motherTongue, List<Language> altLanguages, UserConfig userConfig, GlobalConfig globalConfig) {
+      this.language = Objects.requireNonNull(language);
+      this.motherTongue = motherTongue;
+      this.altLanguages = Objects.requireNonNull(altLanguages);
+      this.userConfig = userConfig;
+      this.globalConfig = globalConfig;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key other = (Key) o;
+      return language.equals(other.language) &&
+        Objects.equals(motherTongue, other.motherTongue) &&
+        altLanguages.equals(other.altLanguages) &&
+        Objects.equals(userConfig, other.userConfig) &&
+        Objects.equals(globalConfig, other.globalConfig);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(language, motherTongue, altLanguages, userConfig, globalConfig);
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The positions of the lowercase tokens, lemmas, and POS tags in the tokens of a sentence.
+ * Used internally for performance optimization, see {@link AnalyzedSentence#getTokenPositionIndex(boolean)}.
+ * The returned {@link BitSet}s must not be modified.
+ * @since 5.2
+ */
+@ApiStatus.Internal
+public final class TokenPositionIndex {
+
+  private static final BitSet NONE = new BitSet();
+
+  private final Map<String, BitSet> byToken = new HashMap<>();
+  private final Map<String, BitSet> byLemma = new HashMap<>();
+  private final Map<String, BitSet> byPosTag = new HashMap<>();
+
+  TokenPositionIndex(AnalyzedTokenReadings[] tokens) {
+    for (int i = 0; i < tokens.length; i++) {
+      add(byToken, tokens[i].getToken().toLowerCase(), i);
+      for (AnalyzedToken reading : tokens[i]) {
+        if (reading.getToken() != null) {
+          add(byToken, reading.getToken().toLowerCase(), i);
+        }
+        // like AnalyzedSentence.getLemmaSet(), the token is used when there's no lemma:
+        String lemma = reading.getLemma() != null ? reading.getLemma() : reading.getToken();
+        if (lemma != null) {
+          add(byLemma, lemma.toLowerCase(), i);
+        }
+        if (reading.getPOSTag() != null) {
+          add(byPosTag, reading.getPOSTag(), i);
+        }
+      }
+    }
+  }
+
+  private static void add(Map<String, BitSet> map, String key, int position) {
+    map.computeIfAbsent(key, k -> new BitSet()).set(position);
+  }
+
+  /**
+   * @param lowercaseToken the token text in lowercase
+   */
+  public BitSet getTokenPositions(String lowercaseToken) {
+    return byToken.getOrDefault(lowercaseToken, NONE);
+  }
+
+  /**
+   * @param lowercaseLemma the lemma in lowercase
+   */
+  public BitSet getLemmaPositions(String lowercaseLemma) {
+    return byLemma.getOrDefault(lowercaseLemma, NONE);
+  }
+
+  public BitSet getPosTagPositions(String posTag) {
+    return byPosTag.getOrDefault(posTag, NONE);
+  }
+
+  /**
+   * @return the positions of the tokens with a reading whose POS tag starts with the given prefix
+   */
+  public BitSet getPosTagPrefixPositions(String prefix) {
+    BitSet result = new BitSet();
+    for (Map.Entry<String, BitSet> entry : byPosTag.entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        result.or(entry.getValue());
+      }
+    }
+    return result;
+  }
+}
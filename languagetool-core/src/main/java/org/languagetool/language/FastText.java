@@ -28,6 +28,9 @@ import java.util.*;
 import static org.languagetool.language.LanguageIdentifier.canLanguageBeDetected;
 
 /**
+ * Language identification with a <a href="https://fasttext.cc">fastText</a> model. The model is run
+ * by {@link FastTextModel}, in this process. Only for models that it cannot read, the fastText
+ * executable is started as a separate process.
  * @since 5.0
  */
 public class FastText {
@@ -35,18 +38,64 @@ public class FastText {
   private static final Logger logger = LoggerFactory.getLogger(FastText.class);
   private static final int K_HIGHEST_SCORES = 5;
 
+  private final FastTextModel model;
+  // only used if the model cannot be loaded by FastTextModel:
   private final Process fasttextProcess;
   private final BufferedReader fasttextIn;
   private final BufferedWriter fasttextOut;
 
+  /**
+   * @since 5.2
+   */
+  public FastText(File modelPath) throws IOException {
+    model = FastTextModel.load(modelPath);
+    fasttextProcess = null;
+    fasttextIn = null;
+    fasttextOut = null;
+  }
+
+  /**
+   * @param binaryPath the fastText executable, only used if the model cannot be loaded in this process
+   */
   public FastText(File modelPath, File binaryPath) throws IOException {
-    fasttextProcess = new ProcessBuilder(binaryPath.getPath(), "predict-prob", modelPath.getPath(), "-", "" + K_HIGHEST_SCORES).start();
-    fasttextIn = new BufferedReader(new InputStreamReader(fasttextProcess.getInputStream(), StandardCharsets.UTF_8));
-    fasttextOut = new BufferedWriter(new OutputStreamWriter(fasttextProcess.getOutputStream(), StandardCharsets.UTF_8));
+    FastTextModel loadedModel = null;
+    try {
+      loadedModel = FastTextModel.load(modelPath);
+    } catch (IOException e) {
+      logger.warn("Could not load fasttext model " + modelPath + " (" + e.getMessage() + "), starting fasttext process " + binaryPath + " instead");
+    }
+    model = loadedModel;
+    if (model == null) {
+      fasttextProcess = new ProcessBuilder(binaryPath.getPath(), "predict-prob", modelPath.getPath(), "-", "" + K_HIGHEST_SCORES).start();
+      fasttextIn = new BufferedReader(new InputStreamReader(fasttextProcess.getInputStream(), StandardCharsets.UTF_8));
+      fasttextOut = new BufferedWriter(new OutputStreamWriter(fasttextProcess.getOutputStream(), StandardCharsets.UTF_8));
+    } else {
+      fasttextProcess = null;
+      fasttextIn = null;
+      fasttextOut = null;
+    }
+  }
+
+  /**
+   * Whether the model is run in this process, i.e. without the fastText executable.
+   * @since 5.2
+   */
+  public boolean isInProcess() {
+    return model != null;
   }
 
   public Map<String, Double> runFasttext(String text, List<String> additionalLanguageCodes) throws IOException {
     Map<String, Double> probabilities = new HashMap<>();
+    if (model != null) {
+      for (FastTextModel.Prediction prediction : model.predict(text, K_HIGHEST_SCORES)) {
+        String lang = prediction.getLabel();
+        String langCode = lang.substring(lang.lastIndexOf("__") + 2);
+        if (canLanguageBeDetected(langCode, additionalLanguageCodes)) {
+          probabilities.put(langCode, prediction.getProbability());
+        }
+      }
+      return probabilities;
+    }
     String joined = text.replace("\n", " ");
     String buffer;
     synchronized (this) {
@@ -86,7 +135,9 @@ public class FastText {
   }
 
   void destroy() {
-    fasttextProcess.destroy();
+    if (fasttextProcess != null) {
+      fasttextProcess.destroy();
+    }
   }
 
 }
@@ -0,0 +1,676 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Prediction with supervised <a href="https://fasttext.cc">fastText</a> models, like the
+ * language identification models {@code lid.176.bin} and {@code lid.176.ftz}, without the
+ * need for the fastText executable. Both the normal ({@code .bin}) and the quantized
+ * ({@code .ftz}) format of fastText 0.2 and later are supported. The computation follows
+ * the one of fastText, so the probabilities are the same as those printed by {@code fasttext predict-prob}.
+ * The model isn't modified after loading, so one instance can be used by several threads.
+ * @since 5.2
+ */
+public final class FastTextModel {
+
+  private static final int FILE_FORMAT_MAGIC = 793712314;
+  private static final int FILE_FORMAT_VERSION = 12;
+  private static final int MODEL_SUPERVISED = 3;
+  private static final int LOSS_HS = 1;
+  private static final int LOSS_NS = 2;
+  private static final int LOSS_SOFTMAX = 3;
+  private static final int LOSS_OVA = 4;
+  private static final byte ENTRY_LABEL = 1;
+
+  private static final int SIGMOID_TABLE_SIZE = 512;
+  private static final int MAX_SIGMOID = 8;
+  private static final float[] SIGMOID_TABLE = new float[SIGMOID_TABLE_SIZE + 1];
+  static {
+    for (int i = 0; i < SIGMOID_TABLE.length; i++) {
+      float x = (float) (i * 2 * MAX_SIGMOID) / SIGMOID_TABLE_SIZE - MAX_SIGMOID;
+      SIGMOID_TABLE[i] = (float) (1.0 / (1.0 + Math.exp(-x)));
+    }
+  }
+
+  private static final byte[] EOS = "</s>".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] LABEL_PREFIX = "__label__".getBytes(StandardCharsets.UTF_8);
+  private static final byte BOW = '<';
+  private static final byte EOW = '>';
+
+  private final int wordNgrams;
+  private final int loss;
+  private final int bucket;
+  private final int minn;
+  private final int maxn;
+
+  private final int nwords;
+  private final byte[][] words;
+  private final String[] labels;
+  // open addressing hash table from the word hash to the word id, like fastText's Dictionary:
+  private final int[] wordTable;
+  // for pruned (quantized) models: original bucket -> remaining bucket, null if not pruned
+  private final Map<Integer, Integer> pruneIndex;
+
+  private final Matrix input;
+  private final Matrix output;
+  private final int dim;
+  // Huffman tree over the labels, for models trained with hierarchical softmax:
+  private final int[] treeLeft;
+  private final int[] treeRight;
+
+  private FastTextModel(DataInput in) throws IOException {
+    if (readInt(in) != FILE_FORMAT_MAGIC) {
+      throw new IOException("Not a fastText model file (or a model file of fastText before 0.2, which is not supported)");
+    }
+    int version = readInt(in);
+    if (version > FILE_FORMAT_VERSION) {
+      throw new IOException("Unsupported fastText model version " + version + ", only versions up to " + FILE_FORMAT_VERSION + " are supported");
+    }
+    // Args:
+    dim = readInt(in);
+    readInt(in);  // ws
+    readInt(in);  // epoch
+    readInt(in);  // minCount
+    readInt(in);  // neg
+    wordNgrams = readInt(in);
+    loss = readInt(in);
+    int model = readInt(in);
+    bucket = readInt(in);
+    minn = readInt(in);
+    int maxnArg = readInt(in);
+    // old supervised models do not use char ngrams:
+    maxn = version == 11 && model == MODEL_SUPERVISED ? 0 : maxnArg;
+    readInt(in);  // lrUpdateRate
+    readDouble(in);  // t
+    if (model != MODEL_SUPERVISED) {
+      throw new IOException("Only supervised fastText models are supported, model type: " + model);
+    }
+    if (loss < LOSS_HS || loss > LOSS_OVA) {
+      throw new IOException("Unsupported loss type in fastText model: " + loss);
+    }
+
+    // Dictionary:
+    int size = readInt(in);
+    nwords = readInt(in);
+    int nlabels = readInt(in);
+    readLong(in);  // ntokens
+    long pruneIndexSize = readLong(in);
+    words = new byte[nwords][];
+    labels = new String[nlabels];
+    long[] labelCounts = new long[nlabels];
+    ByteArrayOutputStream word = new ByteArrayOutputStream();
+    for (int i = 0; i < size; i++) {
+      word.reset();
+      byte b;
+      while ((b = in.readByte()) != 0) {
+        word.write(b);
+      }
+      long count = readLong(in);
+      byte type = in.readByte();
+      if (type == ENTRY_LABEL) {
+        if (i < nwords) {
+          throw new IOException("Invalid fastText dictionary: label at position " + i + " before the end of the words (" + nwords + ")");
+        }
+        labels[i - nwords] = word.toString("UTF-8");
+        labelCounts[i - nwords] = count;
+      } else {
+        if (i >= nwords) {
+          throw new IOException("Invalid fastText dictionary: word at position " + i + " after the start of the labels (" + nwords + ")");
+        }
+        words[i] = word.toByteArray();
+      }
+    }
+    if (pruneIndexSize >= 0) {
+      pruneIndex = new HashMap<>();
+      for (long i = 0; i < pruneIndexSize; i++) {
+        int first = readInt(in);
+        int second = readInt(in);
+        pruneIndex.put(first, second);
+      }
+    } else {
+      pruneIndex = null;
+    }
+    wordTable = new int[Math.max(1, (int) Math.ceil(nwords / 0.7))];
+    Arrays.fill(wordTable, -1);
+    for (int i = 0; i < nwords; i++) {
+      wordTable[findSlot(words[i], 0, words[i].length, hash(words[i], 0, words[i].length))] = i;
+    }
+
+    boolean quantInput = in.readBoolean();
+    input = quantInput ? new QuantMatrix(in) : new DenseMatrix(in);
+    if (!quantInput && pruneIndex != null) {
+      throw new IOException("Invalid fastText model: the dictionary is pruned, but the input matrix is not quantized");
+    }
+    boolean quantOutput = in.readBoolean();
+    output = quantInput && quantOutput ? new QuantMatrix(in) : new DenseMatrix(in);
+    if (input.cols() != dim || output.cols() != dim) {
+      throw new IOException("Invalid fastText model: matrix dimensions " + input.cols() + "/" + output.cols() + " don't match " + dim);
+    }
+
+    if (loss == LOSS_HS) {
+      treeLeft = new int[2 * nlabels - 1];
+      treeRight = new int[2 * nlabels - 1];
+      buildTree(labelCounts);
+    } else {
+      treeLeft = null;
+      treeRight = null;
+    }
+  }
+
+  /**
+   * Load a model in the fastText format.
+   * @throws IOException if the file cannot be read or is not a supported fastText model
+   */
+  public static FastTextModel load(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+      return new FastTextModel(in);
+    } catch (EOFException e) {
+      throw new IOException("Unexpected end of fastText model file " + file, e);
+    }
+  }
+
+  /**
+   * The labels as stored in the model, e.g. {@code __label__en}.
+   */
+  public List<String> getLabels() {
+    return Collections.unmodifiableList(Arrays.asList(labels));
+  }
+
+  /**
+   * Get the {@code k} most probable labels of the text, like {@code fasttext predict-prob} does
+   * for one line of input. Line breaks are treated like spaces.
+   * @return the labels with their probability, most probable first; empty if the text contains
+   *         nothing the model knows about
+   */
+  public List<Prediction> predict(String text, int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be > 0: " + k);
+    }
+    int[] ids = getInputIds(text.getBytes(StandardCharsets.UTF_8));
+    if (ids.length == 0) {
+      return Collections.emptyList();
+    }
+    float[] hidden = new float[dim];
+    for (int id : ids) {
+      input.addRowToVector(hidden, id);
+    }
+    float inverse = (float) (1.0 / ids.length);
+    for (int i = 0; i < dim; i++) {
+      hidden[i] *= inverse;
+    }
+    // min-heap of the best (score, label) pairs, scores are log probabilities:
+    PriorityQueue<Prediction> heap = new PriorityQueue<>(k + 1, Comparator.comparingDouble(p -> p.score));
+    if (loss == LOSS_HS) {
+      dfs(k, treeLeft.length - 1, 0.0f, heap, hidden);
+    } else {
+      findBest(k, computeOutput(hidden), heap);
+    }
+    List<Prediction> result = new ArrayList<>(heap);
+    result.sort(Comparator.comparingDouble((Prediction p) -> p.score).reversed());
+    return result;
+  }
+
+  /**
+   * The ids of the input matrix rows for the words, subwords and word ngrams of the text.
+   */
+  private int[] getInputIds(byte[] text) {
+    IntList ids = new IntList();
+    IntList wordHashes = new IntList();
+    int pos = 0;
+    while (true) {
+      while (pos < text.length && isWhitespace(text[pos])) {
+        pos++;
+      }
+      if (pos == text.length) {
+        break;
+      }
+      int start = pos;
+      while (pos < text.length && !isWhitespace(text[pos])) {
+        pos++;
+      }
+      addWord(text, start, pos, ids, wordHashes);
+    }
+    // the end of the line is a token, too:
+    addWord(EOS, 0, EOS.length, ids, wordHashes);
+    for (int i = 0; i < wordHashes.size; i++) {
+      long h = wordHashes.values[i];
+      for (int j = i + 1; j < wordHashes.size && j < i + wordNgrams; j++) {
+        h = h * 116049371L + wordHashes.values[j];
+        pushHash(ids, (int) Long.remainderUnsigned(h, bucket));
+      }
+    }
+    return Arrays.copyOf(ids.values, ids.size);
+  }
+
+  private void addWord(byte[] text, int start, int end, IntList ids, IntList wordHashes) {
+    if (startsWith(text, start, end, LABEL_PREFIX)) {
+      return;  // labels are not used for prediction
+    }
+    int h = hash(text, start, end);
+    int wid = wordTable[findSlot(text, start, end, h)];
+    if (wid >= 0) {
+      ids.add(wid);
+    }
+    if (!equals(EOS, text, start, end)) {
+      byte[] word = new byte[end - start + 2];
+      word[0] = BOW;
+      System.arraycopy(text, start, word, 1, end - start);
+      word[word.length - 1] = EOW;
+      computeSubwords(word, ids);
+    }
+    wordHashes.add(h);
+  }
+
+  private void computeSubwords(byte[] word, IntList ids) {
+    for (int i = 0; i < word.length; i++) {
+      if ((word[i] & 0xC0) == 0x80) {
+        continue;  // not at the start of a UTF-8 character
+      }
+      int h = 0x811C9DC5;
+      for (int j = i, n = 1; j < word.length && n <= maxn; n++) {
+        h = hashByte(h, word[j++]);
+        while (j < word.length && (word[j] & 0xC0) == 0x80) {
+          h = hashByte(h, word[j++]);
+        }
+        if (n >= minn && !(n == 1 && (i == 0 || j == word.length))) {
+          pushHash(ids, Integer.remainderUnsigned(h, bucket));
+        }
+      }
+    }
+  }
+
+  private void pushHash(IntList ids, int id) {
+    if (pruneIndex != null) {
+      Integer pruned = pruneIndex.get(id);
+      if (pruned == null) {
+        return;
+      }
+      id = pruned;
+    }
+    ids.add(nwords + id);
+  }
+
+  private float[] computeOutput(float[] hidden) {
+    float[] out = new float[labels.length];
+    for (int i = 0; i < out.length; i++) {
+      out[i] = output.dotRow(hidden, i);
+    }
+    if (loss == LOSS_SOFTMAX) {
+      float max = out[0];
+      for (float value : out) {
+        max = Math.max(value, max);
+      }
+      float z = 0.0f;
+      for (int i = 0; i < out.length; i++) {
+        out[i] = (float) Math.exp(out[i] - max);
+        z += out[i];
+      }
+      for (int i = 0; i < out.length; i++) {
+        out[i] /= z;
+      }
+    } else {
+      // one independent binary classifier per label (negative sampling, one-vs-all)
+      for (int i = 0; i < out.length; i++) {
+        out[i] = sigmoid(out[i]);
+      }
+    }
+    return out;
+  }
+
+  private void findBest(int k, float[] out, PriorityQueue<Prediction> heap) {
+    for (int i = 0; i < out.length; i++) {
+      float score = log(out[i]);
+      if (heap.size() == k && score < heap.peek().score) {
+        continue;
+      }
+      addToHeap(k, heap, new Prediction(labels[i], score));
+    }
+  }
+
+  private void dfs(int k, int node, float score, PriorityQueue<Prediction> heap, float[] hidden) {
+    if (score < log(0.0f)) {
+      return;
+    }
+    if (heap.size() == k && score < heap.peek().score) {
+      return;
+    }
+    if (treeLeft[node] == -1 && treeRight[node] == -1) {
+      addToHeap(k, heap, new Prediction(labels[node], score));
+      return;
+    }
+    float f = output.dotRow(hidden, node - labels.length);
+    f = (float) (1.0 / (1.0f + (float) Math.exp(-f)));
+    dfs(k, treeLeft[node], (float) (score + Math.log(1.0 - f + 1e-5)), heap, hidden);
+    dfs(k, treeRight[node], (float) (score + Math.log(f + 1e-5)), heap, hidden);
+  }
+
+  private static void addToHeap(int k, PriorityQueue<Prediction> heap, Prediction prediction) {
+    heap.add(prediction);
+    if (heap.size() > k) {
+      heap.poll();
+    }
+  }
+
+  /**
+   * Build the Huffman tree the same way fastText does, so the inner nodes match the rows of the output matrix.
+   */
+  private void buildTree(long[] counts) {
+    int osz = counts.length;
+    long[] treeCount = new long[2 * osz - 1];
+    Arrays.fill(treeLeft, -1);
+    Arrays.fill(treeRight, -1);
+    Arrays.fill(treeCount, (long) 1e15);
+    System.arraycopy(counts, 0, treeCount, 0, osz);
+    int leaf = osz - 1;
+    int node = osz;
+    for (int i = osz; i < 2 * osz - 1; i++) {
+      int[] mini = new int[2];
+      for (int j = 0; j < 2; j++) {
+        if (leaf >= 0 && treeCount[leaf] < treeCount[node]) {
+          mini[j] = leaf--;
+        } else {
+          mini[j] = node++;
+        }
+      }
+      treeLeft[i] = mini[0];
+      treeRight[i] = mini[1];
+      treeCount[i] = treeCount[mini[0]] + treeCount[mini[1]];
+    }
+  }
+
+  private int findSlot(byte[] bytes, int start, int end, int hash) {
+    int slot = Integer.remainderUnsigned(hash, wordTable.length);
+    while (wordTable[slot] != -1 && !equals(words[wordTable[slot]], bytes, start, end)) {
+      slot = (slot + 1) % wordTable.length;
+    }
+    return slot;
+  }
+
+  /**
+   * FNV-1a, with the bytes sign-extended like fastText does.
+   */
+  private static int hash(byte[] bytes, int start, int end) {
+    int h = 0x811C9DC5;
+    for (int i = start; i < end; i++) {
+      h = hashByte(h, bytes[i]);
+    }
+    return h;
+  }
+
+  private static int hashByte(int h, byte b) {
+    return (h ^ b) * 16777619;
+  }
+
+  // the approximation fastText uses for the binary classifiers:
+  private static float sigmoid(float x) {
+    if (x < -MAX_SIGMOID) {
+      return 0.0f;
+    } else if (x > MAX_SIGMOID) {
+      return 1.0f;
+    }
+    return SIGMOID_TABLE[(int) ((x + MAX_SIGMOID) * SIGMOID_TABLE_SIZE / MAX_SIGMOID / 2)];
+  }
+
+  // log as used by fastText for the scores, so the probabilities are never 0
+  private static float log(float x) {
+    return (float) Math.log(x + 1e-5);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == 0x0B || b == '\f' || b == 0;
+  }
+
+  private static boolean equals(byte[] word, byte[] bytes, int start, int end) {
+    if (word.length != end - start) {
+      return false;
+    }
+    for (int i = 0; i < word.length; i++) {
+      if (word[i] != bytes[start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+    return end - start >= prefix.length && equals(prefix, bytes, start, start + prefix.length);
+  }
+
+  private static int readInt(DataInput in) throws IOException {
+    return Integer.reverseBytes(in.readInt());
+  }
+
+  private static long readLong(DataInput in) throws IOException {
+    return Long.reverseBytes(in.readLong());
+  }
+
+  private static double readDouble(DataInput in) throws IOException {
+    return Double.longBitsToDouble(readLong(in));
+  }
+
+  private static float[] readFloats(DataInput in, long count) throws IOException {
+    if (count < 0 || count > Integer.MAX_VALUE - 8) {
+      throw new IOException("Matrix in fastText model too large: " + count + " values");
+    }
+    float[] result = new float[(int) count];
+    byte[] buffer = new byte[1 << 16];
+    int pos = 0;
+    while (pos < result.length) {
+      int n = Math.min(buffer.length / 4, result.length - pos);
+      in.readFully(buffer, 0, n * 4);
+      ByteBuffer.wrap(buffer, 0, n * 4).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(result, pos, n);
+      pos += n;
+    }
+    return result;
+  }
+
+  /**
+   * A label with its probability.
+   */
+  public static final class Prediction {
+    private final String label;
+    private final float score;
+
+    private Prediction(String label, float score) {
+      this.label = label;
+      this.score = score;
+    }
+
+    /**
+     * The label as stored in the model, e.g. {@code __label__en}.
+     */
+    public String getLabel() {
+      return label;
+    }
+
+    public double getProbability() {
+      return Math.exp(score);
+    }
+
+    @Override
+    public String toString() {
+      return label + "/" + getProbability();
+    }
+  }
+
+  private interface Matrix {
+    int cols();
+    void addRowToVector(float[] x, int row);
+    float dotRow(float[] x, int row);
+  }
+
+  private static final class DenseMatrix implements Matrix {
+    private final int rows;
+    private final int cols;
+    private final float[] data;
+
+    private DenseMatrix(DataInput in) throws IOException {
+      long m = readLong(in);
+      long n = readLong(in);
+      if (m < 0 || n < 0 || m > Integer.MAX_VALUE || n > Integer.MAX_VALUE) {
+        throw new IOException("Invalid matrix size in fastText model: " + m + "x" + n);
+      }
+      rows = (int) m;
+      cols = (int) n;
+      data = readFloats(in, m * n);
+    }
+
+    @Override
+    public int cols() {
+      return cols;
+    }
+
+    @Override
+    public void addRowToVector(float[] x, int row) {
+      int offset = row * cols;
+      for (int j = 0; j < cols; j++) {
+        x[j] += data[offset + j];
+      }
+    }
+
+    @Override
+    public float dotRow(float[] x, int row) {
+      int offset = row * cols;
+      float d = 0.0f;
+      for (int j = 0; j < cols; j++) {
+        d += data[offset + j] * x[j];
+      }
+      return d;
+    }
+  }
+
+  /**
+   * A matrix compressed with product quantization, as in {@code .ftz} files. Each row is
+   * stored as one byte per sub-vector, pointing to one of 256 centroids of that sub-vector.
+   */
+  private static final class QuantMatrix implements Matrix {
+    private final int cols;
+    private final byte[] codes;
+    private final ProductQuantizer pq;
+    private final byte[] normCodes;
+    private final ProductQuantizer normPq;
+
+    private QuantMatrix(DataInput in) throws IOException {
+      boolean qnorm = in.readBoolean();
+      long m = readLong(in);
+      long n = readLong(in);
+      int codeSize = readInt(in);
+      if (m < 0 || m > Integer.MAX_VALUE || n < 0 || n > Integer.MAX_VALUE || codeSize < 0) {
+        throw new IOException("Invalid matrix size in fastText model: " + m + "x" + n + ", code size " + codeSize);
+      }
+      cols = (int) n;
+      codes = new byte[codeSize];
+      in.readFully(codes);
+      pq = new ProductQuantizer(in);
+      if (qnorm) {
+        normCodes = new byte[(int) m];
+        in.readFully(normCodes);
+        normPq = new ProductQuantizer(in);
+      } else {
+        normCodes = null;
+        normPq = null;
+      }
+    }
+
+    @Override
+    public int cols() {
+      return cols;
+    }
+
+    private float getNorm(int row) {
+      return normPq != null ? normPq.centroids[normPq.getCentroidOffset(0, normCodes[row] & 0xFF)] : 1.0f;
+    }
+
+    @Override
+    public void addRowToVector(float[] x, int row) {
+      float norm = getNorm(row);
+      int codeOffset = pq.nsubq * row;
+      int d = pq.dsub;
+      for (int m = 0; m < pq.nsubq; m++) {
+        int c = pq.getCentroidOffset(m, codes[codeOffset + m] & 0xFF);
+        if (m == pq.nsubq - 1) {
+          d = pq.lastdsub;
+        }
+        for (int n = 0; n < d; n++) {
+          x[m * pq.dsub + n] += norm * pq.centroids[c + n];
+        }
+      }
+    }
+
+    @Override
+    public float dotRow(float[] x, int row) {
+      float norm = getNorm(row);
+      int codeOffset = pq.nsubq * row;
+      int d = pq.dsub;
+      float result = 0.0f;
+      for (int m = 0; m < pq.nsubq; m++) {
+        int c = pq.getCentroidOffset(m, codes[codeOffset + m] & 0xFF);
+        if (m == pq.nsubq - 1) {
+          d = pq.lastdsub;
+        }
+        for (int n = 0; n < d; n++) {
+          result += x[m * pq.dsub + n] * pq.centroids[c + n];
+        }
+      }
+      return result * norm;
+    }
+  }
+
+  private static final class ProductQuantizer {
+    private static final int KSUB = 256;
+    private final int nsubq;
+    private final int dsub;
+    private final int lastdsub;
+    private final float[] centroids;
+
+    private ProductQuantizer(DataInput in) throws IOException {
+      int dim = readInt(in);
+      nsubq = readInt(in);
+      dsub = readInt(in);
+      lastdsub = readInt(in);
+      centroids = readFloats(in, (long) dim * KSUB);
+    }
+
+    private int getCentroidOffset(int m, int i) {
+      if (m == nsubq - 1) {
+        return m * KSUB * dsub + i * lastdsub;
+      }
+      return (m * KSUB + i) * dsub;
+    }
+  }
+
+  private static final class IntList {
+    private int[] values = new int[32];
+    private int size;
+
+    private void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+
+}
@@ -109,17 +109,33 @@ public class LanguageIdentifier {
     }
   }
 
+  /**
+   * @param fasttextBinary the fastText executable, only needed for models that cannot be loaded
+   *                       by {@link FastTextModel} (may be {@code null})
+   */
   public void enableFasttext(File fasttextBinary, File fasttextModel) {
-    if (fasttextBinary != null && fasttextModel != null) {
+    if (fasttextModel != null) {
       try {
-        fastText = new FastText(fasttextModel, fasttextBinary);
-        logger.info("Started fasttext process for language identification: Binary " + fasttextBinary + " with model @ " + fasttextModel);
+        fastText = fasttextBinary != null ? new FastText(fasttextModel, fasttextBinary) : new FastText(fasttextModel);
+        if (fastText.isInProcess()) {
+          logger.info("Loaded fasttext model for language identification @ " + fasttextModel);
+        } else {
+          logger.info("Started fasttext process for language identification: Binary " + fasttextBinary + " with model @ " + fasttextModel);
+        }
       } catch (IOException e) {
-        throw new RuntimeException("Could not start fasttext process for language identification @ " + fasttextBinary + " with model @ " + fasttextModel, e);
+        throw new RuntimeException("Could not set up fasttext for language identification @ " + fasttextBinary + " with model @ " + fasttextModel, e);
       }
     }
   }
 
+  /**
+   * Use the given fastText model for language identification, without the fastText executable.
+   * @since 5.2
+   */
+  public void enableFasttext(File fasttextModel) {
+    enableFasttext(null, fasttextModel);
+  }
+
   /** @since 5.2 */
   public boolean isFastTextEnabled() {
     return fastText != null;
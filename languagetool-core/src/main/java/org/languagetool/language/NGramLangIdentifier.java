@@ -21,124 +21,235 @@ package org.languagetool.language;
 import org.languagetool.noop.NoopLanguage;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.text.Normalizer;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 import java.util.zip.ZipFile;
 
 import static java.lang.StrictMath.*;
 import static org.languagetool.language.LanguageIdentifier.canLanguageBeDetected;
 
+/**
+ * Language identification with a bigram model of sub-word tokens. The model is either a zip file
+ * with text files or, loading much faster and using less memory, a binary file created from such a
+ * zip file with {@link #writeBinaryModel(File)}. The bigram probabilities of binary models are
+ * memory-mapped, not loaded into the heap.
+ */
 public class NGramLangIdentifier {
 
   private final static double EPSILON = 1e-4;
+  private final static double LOG_EPSILON = log(EPSILON);
+
+  private final static int BINARY_MAGIC = 0x4C544C49;  // "LTLI"
+  private final static int BINARY_VERSION = 1;
+
+  private final static Pattern DIGITS = Pattern.compile("\\d+");
+  private final static Pattern KOREAN = Pattern.compile("[\\uac00-\\ud7a3]");
+  private final static Pattern JAPANESE = Pattern.compile("[\\u3040-\\u30ff]");
+  private final static Pattern CHINESE = Pattern.compile("[\\u4e00-\\u9FFF]");
+  private final static Pattern KHMER = Pattern.compile("[\\u1780-\\u17FF]");
+  private final static Pattern TAGALOG = Pattern.compile("[\\u1700-\\u171F]");
+  private final static Pattern ARMENIAN = Pattern.compile("[\\u0530-\\u058F]");
+  private final static Pattern GREEK = Pattern.compile("[\\u0370-\\u03FF]");
+  private final static Pattern TAMIL = Pattern.compile("[\\u0B80-\\u0BFF]");
+  private final static Pattern WHITESPACE = Pattern.compile("\\s+");
 
+  private final List<String> vocabTokens;
   private final Map<String, Integer> vocab;
+  private final int maxTokenLength;
   private final List<String[]> codes; // Elem format = {Name, 2-code (or "NULL"), 3-code}
+  private final String[] langCodes;
 
-  private final List<Map<String, Double>> knpBigramProbs;
+  // per language: (token id, token id) -> log probability
+  private final BigramTable[] bigramLogProbs;
   private final int thresholdsStart;
   private final List<double[]> thresholds;
 
   private final int maxLength;
-  private final ZipFile zipFile;
 
-  public NGramLangIdentifier(File sourceModelZip, int maxLength) throws IOException {
+  public NGramLangIdentifier(File sourceModel, int maxLength) throws IOException {
     this.maxLength = maxLength;
-    this.zipFile = new ZipFile(sourceModelZip);
-
-    //Load language codes - Line format = {Language Name}\t{2-code or "NULL"}\t{3-code}
     codes = new ArrayList<>();
-    try (BufferedReader br = getReader("iso_codes.tsv")) {
-      String line;
-      while ((line = br.readLine()) != null) {
-        String[] values = line.split("\t");
-        if (values[3].equals("1")) {
-          codes.add(values);
+    vocabTokens = new ArrayList<>();
+    thresholds = new ArrayList<>();
+    if (isBinaryModel(sourceModel)) {
+      try (FileChannel channel = FileChannel.open(sourceModel.toPath(), StandardOpenOption.READ)) {
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(sourceModel)));
+        try (DataInputStream in = new DataInputStream(counter)) {
+          in.readInt();  // magic
+          int version = in.readInt();
+          if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported version " + version + " of ngram language identification model " + sourceModel);
+          }
+          int langCount = in.readInt();
+          for (int i = 0; i < langCount; i++) {
+            codes.add(new String[]{in.readUTF(), in.readUTF(), in.readUTF()});
+          }
+          thresholdsStart = in.readInt();
+          int thresholdCount = in.readInt();
+          for (int i = 0; i < thresholdCount; i++) {
+            double[] vals = new double[in.readInt()];
+            for (int j = 0; j < vals.length; j++) {
+              vals[j] = in.readDouble();
+            }
+            thresholds.add(vals);
+          }
+          int vocabSize = in.readInt();
+          for (int i = 0; i < vocabSize; i++) {
+            vocabTokens.add(in.readUTF());
+          }
+          bigramLogProbs = new BigramTable[langCount];
+          long offset = counter.count;
+          for (int i = 0; i < langCount; i++) {
+            bigramLogProbs[i] = BigramTable.map(channel, offset);
+            offset += bigramLogProbs[i].byteSize();
+          }
         }
       }
-    }
+    } else {
+      try (ZipFile zipFile = new ZipFile(sourceModel)) {
+        //Load language codes - Line format = {Language Name}\t{2-code or "NULL"}\t{3-code}
+        try (BufferedReader br = getReader(zipFile, "iso_codes.tsv")) {
+          String line;
+          while ((line = br.readLine()) != null) {
+            String[] values = line.split("\t");
+            if (values[3].equals("1")) {
+              codes.add(values);
+            }
+          }
+        }
 
-    //Load vocab - Line format = {token}
-    vocab = new HashMap<>();
-    try (BufferedReader br = getReader("vocab.txt")) {
-      String line;
-      int i = 0;
-      while ((line = br.readLine()) != null) {
-        vocab.put(line.split("\t")[0].trim(), i);
-        i++;
-      }
-    }
+        //Load vocab - Line format = {token}
+        try (BufferedReader br = getReader(zipFile, "vocab.txt")) {
+          String line;
+          while ((line = br.readLine()) != null) {
+            vocabTokens.add(line.split("\t")[0].trim());
+          }
+        }
 
-    //Load thresholds
-    thresholds = new ArrayList<>();
-    try (BufferedReader br = getReader("thresholds.txt")) {
-      String line;
-      thresholdsStart = Integer.parseInt(br.readLine());
-      while ((line = br.readLine()) != null) {
-        double[] vals = Arrays.stream(line.split(" ")).mapToDouble(Double::parseDouble).toArray();
-        thresholds.add(vals);
+        //Load thresholds
+        try (BufferedReader br = getReader(zipFile, "thresholds.txt")) {
+          String line;
+          thresholdsStart = Integer.parseInt(br.readLine());
+          while ((line = br.readLine()) != null) {
+            double[] vals = Arrays.stream(line.split(" ")).mapToDouble(Double::parseDouble).toArray();
+            thresholds.add(vals);
+          }
+        }
+
+        //Load transition matrices - Line format = {i} {j} {val}
+        bigramLogProbs = expectedFiles().stream().map(name -> readLines(zipFile, name)).parallel()
+          .map(NGramLangIdentifier::loadDict).toArray(BigramTable[]::new);
       }
-      assert (thresholds.size() == maxLength - thresholdsStart) : "Thresholds file is incomplete";
     }
+    assert (thresholds.size() == maxLength - thresholdsStart) : "Thresholds file is incomplete";
 
-    //Load transition matrices - Line format = {i} {j} {val}
-    knpBigramProbs = expectedFiles().stream().map(this::readLines).parallel().map(NGramLangIdentifier::loadDict).collect(Collectors.toList());
+    vocab = new HashMap<>();
+    int maxLen = 0;
+    for (int i = 0; i < vocabTokens.size(); i++) {
+      vocab.put(vocabTokens.get(i), i);
+      maxLen = Math.max(maxLen, vocabTokens.get(i).length());
+    }
+    maxTokenLength = maxLen;
+    langCodes = new String[codes.size()];
+    for (int i = 0; i < codes.size(); i++) {
+      langCodes[i] = codes.get(i)[1].equals("NULL") ? codes.get(i)[2] : codes.get(i)[1]; //2-character code if possible
+    }
   }
 
   public Map<String, Double> detectLanguages(String text, List<String> additionalLanguageCodes) {
-    List<Integer> enc = encode(text);
-    List<Double> finalProbs = new ArrayList<>();
-    List<int[]> keys = keys(enc);
-
-    for (int i = 0; i < codes.size(); i++) {
-      double val = 0;
-      for (int[] key: keys) {
-        double prob = knpBigramProbs.get(i).getOrDefault(key[0] + "_" + key[1], EPSILON);
-        val += log(prob);
+    int[] enc = encode(text);
+    double[] finalProbs = new double[codes.size()];
+    for (int k = 1; k < enc.length; k++) {
+      long key = BigramTable.key(enc[k-1], enc[k]);
+      for (int i = 0; i < finalProbs.length; i++) {
+        finalProbs[i] += bigramLogProbs[i].get(key, LOG_EPSILON);
       }
-      finalProbs.add(val);
     }
 
     Map<String, Double> result = new HashMap<>();
 
     if (text.length() >= this.thresholdsStart) {
       int argMax = 0;
-      for (int i = 1; i < finalProbs.size(); i++) {
-        if (finalProbs.get(i) > finalProbs.get(argMax)) {
+      for (int i = 1; i < finalProbs.length; i++) {
+        if (finalProbs[i] > finalProbs[argMax]) {
           argMax = i;
         }
       }
       int thresholdIndex = min(text.length(), maxLength) - this.thresholdsStart;
-      if (finalProbs.get(argMax) < thresholds.get(thresholdIndex)[argMax]) {
+      if (finalProbs[argMax] < thresholds.get(thresholdIndex)[argMax]) {
         result.put(NoopLanguage.SHORT_CODE, 100.0);
         return result;
       }
     }
 
-    finalProbs = finalProbs.stream().map(StrictMath::exp).collect(Collectors.toList());
-    finalProbs = normalize(finalProbs);
+    for (int i = 0; i < finalProbs.length; i++) {
+      finalProbs[i] = exp(finalProbs[i]);
+    }
+    double tot = Arrays.stream(finalProbs).sum();
     for (int i = 0; i < codes.size(); i++) {
-      String langCode = codes.get(i)[1].equals("NULL") ? codes.get(i)[2] : codes.get(i)[1]; //2-character code if possible
-      if (canLanguageBeDetected(langCode, additionalLanguageCodes)) {
-        result.put(langCode, finalProbs.get(i));
+      if (canLanguageBeDetected(langCodes[i], additionalLanguageCodes)) {
+        result.put(langCodes[i], finalProbs[i] / tot);
       }
     }
 
     return result;
   }
 
-  private BufferedReader getReader(String fileName) throws IOException {
-    InputStream is = this.zipFile.getInputStream(this.zipFile.getEntry(fileName));
+  /**
+   * Write the model in the binary format, which can be loaded much faster than the zip format.
+   * @since 5.2
+   */
+  public void writeBinaryModel(File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(BINARY_MAGIC);
+      out.writeInt(BINARY_VERSION);
+      out.writeInt(codes.size());
+      for (String[] code : codes) {
+        out.writeUTF(code[0]);
+        out.writeUTF(code[1]);
+        out.writeUTF(code[2]);
+      }
+      out.writeInt(thresholdsStart);
+      out.writeInt(thresholds.size());
+      for (double[] vals : thresholds) {
+        out.writeInt(vals.length);
+        for (double val : vals) {
+          out.writeDouble(val);
+        }
+      }
+      out.writeInt(vocabTokens.size());
+      for (String token : vocabTokens) {
+        out.writeUTF(token);
+      }
+      for (BigramTable table : bigramLogProbs) {
+        table.write(out);
+      }
+    }
+  }
+
+  private static boolean isBinaryModel(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      return file.length() >= 4 && in.readInt() == BINARY_MAGIC;
+    }
+  }
+
+  private static BufferedReader getReader(ZipFile zipFile, String fileName) throws IOException {
+    InputStream is = zipFile.getInputStream(zipFile.getEntry(fileName));
     InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8);
     return new BufferedReader(isr);
   }
 
-  private List<String> readLines(String path) {
+  private static List<String> readLines(ZipFile zipFile, String path) {
     ArrayList<String> result = new ArrayList<>();
-    try {
-      BufferedReader br = getReader(path);
+    try (BufferedReader br = getReader(zipFile, path)) {
       String line;
       while ((line = br.readLine()) != null) {
         result.add(line);
@@ -149,14 +260,20 @@ public class NGramLangIdentifier {
     return result;
   }
 
-  private static Map<String, Double> loadDict(List<String> lines)  {
-    Map<String, Double> tm = new HashMap<>();
-    for(String line : lines) {
+  private static BigramTable loadDict(List<String> lines)  {
+    long[] keys = new long[lines.size()];
+    double[] values = new double[lines.size()];
+    int size = 0;
+    for (String line : lines) {
       String[] parts = line.trim().split(" ");
-      String key = String.join("_", Arrays.copyOfRange(parts, 0, parts.length-1));
-      tm.put(key, Double.parseDouble(parts[parts.length-1]));
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("Unexpected line format, expected '{i} {j} {val}': " + line);
+      }
+      keys[size] = BigramTable.key(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+      values[size] = log(Double.parseDouble(parts[2]));
+      size++;
     }
-    return tm;
+    return BigramTable.create(keys, values, size);
   }
 
   private List<String> expectedFiles() {
@@ -168,33 +285,36 @@ public class NGramLangIdentifier {
     return result;
   }
 
-  private List<Integer> encode(String text) {
-    List<Integer> result = new ArrayList<>();
-    result.add(1); //Start of sentence token
+  private int[] encode(String text) {
     if (text.length() > maxLength) {
       text = text.substring(0, maxLength);
     }
     text = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
-    text = text.replaceAll("\\d+", "<NUM>");
-    text = text.replaceAll("[\\uac00-\\ud7a3]", "<KO>"); // Korean
-    text = text.replaceAll("[\\u3040-\\u30ff]", "<JA>"); // Japanese
-    text = text.replaceAll("[\\u4e00-\\u9FFF]", "<ZH>"); // Chinese
-    text = text.replaceAll("[\\u1780-\\u17FF]", "<KM>"); // Khmer
-    text = text.replaceAll("[\\u1700-\\u171F]", "<TL>"); // Tagalog
-    text = text.replaceAll("[\\u0530-\\u058F]", "<HY>"); // Armenian
-    text = text.replaceAll("[\\u0370-\\u03FF]", "<EL>"); // Greek
-    text = text.replaceAll("[\\u0B80-\\u0BFF]", "<TA>"); // Tamil
-    text = text.replaceAll("\\s+", "▁");
+    text = DIGITS.matcher(text).replaceAll("<NUM>");
+    text = KOREAN.matcher(text).replaceAll("<KO>");
+    text = JAPANESE.matcher(text).replaceAll("<JA>");
+    text = CHINESE.matcher(text).replaceAll("<ZH>");
+    text = KHMER.matcher(text).replaceAll("<KM>");
+    text = TAGALOG.matcher(text).replaceAll("<TL>");
+    text = ARMENIAN.matcher(text).replaceAll("<HY>");
+    text = GREEK.matcher(text).replaceAll("<EL>");
+    text = TAMIL.matcher(text).replaceAll("<TA>");
+    text = WHITESPACE.matcher(text).replaceAll("▁");
     if (text.length() == 0) {
-      return result;
+      return new int[] {1};  //Start of sentence token
     }
     text = "▁" + text;
 
+    int[] result = new int[text.length() + 1];
+    result[0] = 1; //Start of sentence token
+    int size = 1;
     int cur = 0;
     while (cur < text.length()) {
       int tok = 0;
       int ci = 1;
-      for (int i = cur + 1; i <= text.length(); i++) {
+      // longest match, no need to look at substrings longer than the longest token:
+      int end = Math.min(text.length(), cur + maxTokenLength);
+      for (int i = cur + 1; i <= end; i++) {
         int maybeTok = vocab.getOrDefault(text.substring(cur, i), -1);
         if (maybeTok > -1) {
           tok = maybeTok;
@@ -202,22 +322,118 @@ public class NGramLangIdentifier {
         }
       }
       cur += ci;
-      result.add(tok);
+      result[size++] = tok;
     }
-    return result;
+    return Arrays.copyOf(result, size);
   }
 
-  private List<int[]> keys(List<Integer> enc) {
-    //For now just bigrams
-    List<int[]> result = new ArrayList<>();
-    for (int i = 1; i < enc.size(); i++) {
-      result.add(new int[]{enc.get(i-1), enc.get(i)});
+  /**
+   * An open addressing hash table from bigram keys to log probabilities, on the heap or memory-mapped.
+   * Layout: capacity (a power of 2), capacity keys, capacity values.
+   */
+  private static final class BigramTable {
+    private static final long EMPTY = -1;
+
+    private final int capacity;
+    private final LongBuffer keys;
+    private final DoubleBuffer values;
+
+    private BigramTable(int capacity, LongBuffer keys, DoubleBuffer values) {
+      this.capacity = capacity;
+      this.keys = keys;
+      this.values = values;
+    }
+
+    static long key(int first, int second) {
+      return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    static BigramTable create(long[] keys, double[] values, int size) {
+      int capacity = Integer.highestOneBit(Math.max(2, size * 2 - 1)) << 1;  // load factor <= 0.5
+      long[] tableKeys = new long[capacity];
+      double[] tableValues = new double[capacity];
+      Arrays.fill(tableKeys, EMPTY);
+      LongBuffer keyBuffer = LongBuffer.wrap(tableKeys);
+      for (int i = 0; i < size; i++) {
+        // like in a map, later values for the same key replace earlier ones:
+        int slot = findSlot(capacity, keyBuffer, keys[i]);
+        tableKeys[slot] = keys[i];
+        tableValues[slot] = values[i];
+      }
+      return new BigramTable(capacity, keyBuffer, DoubleBuffer.wrap(tableValues));
+    }
+
+    static BigramTable map(FileChannel channel, long offset) throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(4);
+      channel.read(header, offset);
+      header.flip();
+      int capacity = header.getInt();
+      MappedByteBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4, (long) capacity * 8);
+      MappedByteBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4 + (long) capacity * 8, (long) capacity * 8);
+      return new BigramTable(capacity, keys.asLongBuffer(), values.asDoubleBuffer());
+    }
+
+    long byteSize() {
+      return 4 + (long) capacity * 16;
+    }
+
+    double get(long key, double defaultValue) {
+      int slot = findSlot(capacity, keys, key);
+      return keys.get(slot) == EMPTY ? defaultValue : values.get(slot);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeInt(capacity);
+      for (int i = 0; i < capacity; i++) {
+        out.writeLong(keys.get(i));
+      }
+      for (int i = 0; i < capacity; i++) {
+        out.writeDouble(values.get(i));
+      }
+    }
+
+    private static int findSlot(int capacity, LongBuffer keys, long key) {
+      int slot = (int) (mix(key) & (capacity - 1));
+      long k;
+      while ((k = keys.get(slot)) != EMPTY && k != key) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      return slot;
+    }
+
+    private static long mix(long h) {
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      h ^= h >>> 33;
+      return h;
     }
-    return result;
   }
 
-  private List<Double> normalize(List<Double> vals) {
-    double tot = vals.stream().mapToDouble(f -> f).sum();
-    return vals.stream().map(n -> n/tot).collect(Collectors.toList());
+  private static final class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    private CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
   }
 }
@@ -0,0 +1,129 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import java.util.List;
+
+/**
+ * The file format shared by {@link CompactNgramLanguageModel} and {@link CompactNgramIndexWriter}.
+ * All numbers are big endian:
+ * <ul>
+ *   <li>a header of {@value #HEADER_SIZE} bytes: magic number, format version, maximum ngram size,
+ *     number of bucket bits, number of ngrams, total token count</li>
+ *   <li>the bucket directory: {@code 2^bucketBits + 1} longs, the index of the first key of each bucket,
+ *     a bucket being the keys with the same top {@code bucketBits} bits</li>
+ *   <li>the keys: a 64 bit hash per ngram, sorted as unsigned numbers</li>
+ *   <li>the counts: a 16 bit quantized count per ngram, in the same order as the keys</li>
+ * </ul>
+ * Lookups are by hash only, so two ngrams with the same hash would be confused, which is
+ * not a practical problem with 64 bit hashes.
+ * @since 5.2
+ */
+final class CompactNgramFormat {
+
+  static final int MAGIC = 0x4C544E47;  // "LTNG"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 64;
+  static final long DIRECTORY_OFFSET = HEADER_SIZE;
+  static final int MAX_BUCKET_BITS = 31;
+
+  // counts below this are stored exactly, larger ones on a logarithmic scale up to Long.MAX_VALUE,
+  // with a relative error of less than 0.03%:
+  private static final int EXACT_COUNTS = 4096;
+  private static final int CODES = 1 << 16;
+  private static final double CODES_PER_DOUBLING = (CODES - 1 - EXACT_COUNTS) / 51.0;
+  private static final long[] DECODED = new long[CODES];
+  static {
+    for (int code = 0; code < CODES; code++) {
+      DECODED[code] = code < EXACT_COUNTS ? code : Math.round(EXACT_COUNTS * Math.pow(2, (code - EXACT_COUNTS) / CODES_PER_DOUBLING));
+    }
+  }
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private CompactNgramFormat() {
+  }
+
+  /**
+   * The hash of the ngram, the tokens being joined by a space.
+   */
+  static long hash(List<String> tokens) {
+    long hash = FNV_OFFSET;
+    for (int i = 0; i < tokens.size(); i++) {
+      if (i > 0) {
+        hash = (hash ^ ' ') * FNV_PRIME;
+      }
+      hash = hash(hash, tokens.get(i));
+    }
+    return mix(hash);
+  }
+
+  /**
+   * The hash of the ngram, with tokens separated by a space.
+   */
+  static long hash(String ngram) {
+    return mix(hash(FNV_OFFSET, ngram));
+  }
+
+  private static long hash(long hash, String s) {
+    for (int i = 0; i < s.length(); i++) {
+      hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  // the final step of MurmurHash3, so that the top bits used for the buckets are well distributed:
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  static int encodeCount(long count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must not be negative: " + count);
+    }
+    if (count < EXACT_COUNTS) {
+      return (int) count;
+    }
+    long code = EXACT_COUNTS + Math.round(Math.log((double) count / EXACT_COUNTS) / Math.log(2) * CODES_PER_DOUBLING);
+    return (int) Math.min(code, CODES - 1);
+  }
+
+  static long decodeCount(int code) {
+    return DECODED[code];
+  }
+
+  static long keysOffset(int bucketBits) {
+    return DIRECTORY_OFFSET + ((1L << bucketBits) + 1) * Long.BYTES;
+  }
+
+  static long countsOffset(int bucketBits, long ngramCount) {
+    return keysOffset(bucketBits) + ngramCount * Long.BYTES;
+  }
+
+  static long fileSize(int bucketBits, long ngramCount) {
+    return countsOffset(bucketBits, ngramCount) + ngramCount * Short.BYTES;
+  }
+
+}
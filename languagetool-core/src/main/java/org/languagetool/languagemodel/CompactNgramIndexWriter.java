@@ -0,0 +1,231 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Creates the ngram file used by {@link CompactNgramLanguageModel}. Ngrams can be added
+ * in any order, the counts of ngrams that are added more than once are summed up.
+ * To keep memory usage low even for billions of ngrams, they are first distributed
+ * to temporary files by their hash, which then get sorted one by one on {@link #close()}.
+ * @since 5.2
+ */
+public class CompactNgramIndexWriter implements Closeable {
+
+  private static final int PARTITION_BITS = 8;
+  private static final int AVERAGE_BUCKET_SIZE = 4;
+  private static final int RECORD_SIZE = 2 * Long.BYTES;
+
+  private final File outputFile;
+  private final Path tempDir;
+  private final DataOutputStream[] partitions = new DataOutputStream[1 << PARTITION_BITS];
+
+  private long addedCount;
+  private long unigramCountSum;
+  private long totalTokenCount = -1;
+  private int maxNgram;
+  private boolean closed;
+
+  /**
+   * @param topIndexDir the directory to write the {@value CompactNgramLanguageModel#FILE_NAME} file to,
+   *                    temporary files also get written there
+   */
+  public CompactNgramIndexWriter(File topIndexDir) throws IOException {
+    Files.createDirectories(topIndexDir.toPath());
+    outputFile = new File(topIndexDir, CompactNgramLanguageModel.FILE_NAME);
+    tempDir = Files.createTempDirectory(topIndexDir.toPath(), "ngrams-tmp");
+    for (int i = 0; i < partitions.length; i++) {
+      partitions[i] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getPartitionFile(i)), 1 << 16));
+    }
+  }
+
+  /**
+   * @param ngram the tokens of the ngram, separated by a single space
+   */
+  public void add(String ngram, long count) throws IOException {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must not be negative: " + count + " for '" + ngram + "'");
+    }
+    long key = CompactNgramFormat.hash(ngram);
+    DataOutputStream out = partitions[(int) (key >>> (64 - PARTITION_BITS))];
+    out.writeLong(key);
+    out.writeLong(count);
+    addedCount++;
+    int ngramSize = StringUtils.countMatches(ngram, ' ') + 1;
+    maxNgram = Math.max(maxNgram, ngramSize);
+    if (ngramSize == 1) {
+      unigramCountSum += count;
+    }
+  }
+
+  public void add(List<String> tokens, long count) throws IOException {
+    add(String.join(" ", tokens), count);
+  }
+
+  /**
+   * Set the value returned by {@link CompactNgramLanguageModel#getTotalTokenCount()}. If not set,
+   * the sum of the counts of all 1grams is used.
+   */
+  public void setTotalTokenCount(long totalTokenCount) {
+    this.totalTokenCount = totalTokenCount;
+  }
+
+  /**
+   * Sorts the ngrams and writes the final file.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      for (DataOutputStream partition : partitions) {
+        partition.close();
+      }
+      write();
+    } finally {
+      try (Stream<Path> tempFiles = Files.list(tempDir)) {
+        for (Path tempFile : (Iterable<Path>) tempFiles::iterator) {
+          Files.delete(tempFile);
+        }
+      }
+      Files.delete(tempDir);
+    }
+  }
+
+  private void write() throws IOException {
+    int bucketBits = getBucketBits(addedCount);
+    File directoryFile = tempDir.resolve("directory").toFile();
+    File keysFile = tempDir.resolve("keys").toFile();
+    File countsFile = tempDir.resolve("counts").toFile();
+    long ngramCount = 0;
+    long nextBucket = 0;
+    try (DataOutputStream directoryOut = newOutputStream(directoryFile);
+         DataOutputStream keysOut = newOutputStream(keysFile);
+         DataOutputStream countsOut = newOutputStream(countsFile)) {
+      // the partitions are by the top bits of the keys, so sorting each of them gives a sorted list of all keys:
+      for (int i = 0; i < partitions.length; i++) {
+        File partitionFile = getPartitionFile(i);
+        long records = partitionFile.length() / RECORD_SIZE;
+        if (records > Integer.MAX_VALUE - 8) {
+          throw new RuntimeException("Too many ngrams: " + addedCount);
+        }
+        // flipping the sign bit makes the signed sort order the unsigned order of the keys:
+        long[] keys = new long[(int) records];
+        long[] counts = new long[(int) records];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(partitionFile), 1 << 16))) {
+          for (int j = 0; j < keys.length; j++) {
+            keys[j] = in.readLong() ^ Long.MIN_VALUE;
+            counts[j] = in.readLong();
+          }
+        }
+        Files.delete(partitionFile.toPath());
+        sort(keys, counts, 0, keys.length - 1);
+        for (int j = 0; j < keys.length; j++) {
+          long count = counts[j];
+          while (j + 1 < keys.length && keys[j + 1] == keys[j]) {
+            count += counts[++j];
+          }
+          long key = keys[j] ^ Long.MIN_VALUE;
+          long bucket = key >>> (64 - bucketBits);
+          for (; nextBucket <= bucket; nextBucket++) {
+            directoryOut.writeLong(ngramCount);
+          }
+          keysOut.writeLong(key);
+          countsOut.writeShort(CompactNgramFormat.encodeCount(count));
+          ngramCount++;
+        }
+      }
+      for (; nextBucket <= (1L << bucketBits); nextBucket++) {
+        directoryOut.writeLong(ngramCount);
+      }
+    }
+    try (DataOutputStream out = newOutputStream(outputFile)) {
+      out.writeInt(CompactNgramFormat.MAGIC);
+      out.writeInt(CompactNgramFormat.VERSION);
+      out.writeInt(maxNgram);
+      out.writeInt(bucketBits);
+      out.writeLong(ngramCount);
+      out.writeLong(totalTokenCount >= 0 ? totalTokenCount : unigramCountSum);
+      out.write(new byte[CompactNgramFormat.HEADER_SIZE - out.size()]);
+      Files.copy(directoryFile.toPath(), out);
+      Files.copy(keysFile.toPath(), out);
+      Files.copy(countsFile.toPath(), out);
+    }
+  }
+
+  private static int getBucketBits(long ngramCount) {
+    int bits = 64 - Long.numberOfLeadingZeros(ngramCount / AVERAGE_BUCKET_SIZE);
+    return Math.max(1, Math.min(CompactNgramFormat.MAX_BUCKET_BITS, bits));
+  }
+
+  // quicksort of the keys that moves the counts along:
+  private static void sort(long[] keys, long[] counts, int from, int to) {
+    while (from < to) {
+      long pivot = keys[(from + to) >>> 1];
+      int i = from;
+      int j = to;
+      while (i <= j) {
+        while (keys[i] < pivot) {
+          i++;
+        }
+        while (keys[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(keys, i, j);
+          swap(counts, i, j);
+          i++;
+          j--;
+        }
+      }
+      // recurse into the smaller part only to limit the stack depth:
+      if (j - from < to - i) {
+        sort(keys, counts, from, j);
+        from = i;
+      } else {
+        sort(keys, counts, i, to);
+        to = j;
+      }
+    }
+  }
+
+  private static void swap(long[] array, int i, int j) {
+    long tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+
+  private File getPartitionFile(int partition) {
+    return tempDir.resolve("partition-" + partition).toFile();
+  }
+
+  private static DataOutputStream newOutputStream(File file) throws FileNotFoundException {
+    return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+  }
+
+}
@@ -0,0 +1,164 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Information about ngram occurrences, like {@link LuceneLanguageModel}, but taken from a
+ * single memory-mapped file as created by {@link CompactNgramIndexWriter} (or by
+ * {@code org.languagetool.dev.bigdata.CompactNgramIndexCreator} from existing Lucene indexes).
+ * The ngrams are only stored as hashes and the counts are slightly rounded for large values,
+ * which makes the file much smaller than the Lucene indexes. A lookup reads the bucket directory
+ * and usually only one or two keys, it doesn't allocate memory and can be used by several
+ * threads at the same time.
+ * @since 5.2
+ */
+public class CompactNgramLanguageModel extends BaseLanguageModel {
+
+  /** The name of the file in the ngram directory of a language. */
+  public static final String FILE_NAME = "ngrams.bin";
+
+  // the file gets mapped in chunks, as a single mapping is limited to 2GB:
+  private static final int CHUNK_BITS = 30;
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  private final File file;
+  private final MappedByteBuffer[] chunks;
+  private final int maxNgram;
+  private final int bucketBits;
+  private final long ngramCount;
+  private final long totalTokenCount;
+  private final long keysOffset;
+  private final long countsOffset;
+
+  /**
+   * Whether the directory contains an ngram file that can be loaded with {@link #CompactNgramLanguageModel(File)}.
+   */
+  public static boolean isCompactIndex(File topIndexDir) {
+    return new File(topIndexDir, FILE_NAME).isFile();
+  }
+
+  /**
+   * @param topIndexDir a directory with a file called {@value #FILE_NAME}
+   */
+  public CompactNgramLanguageModel(File topIndexDir) {
+    this.file = new File(topIndexDir, FILE_NAME);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+      for (int i = 0; i < chunks.length; i++) {
+        long start = (long) i << CHUNK_BITS;
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, 1L << CHUNK_BITS));
+      }
+      if (size < CompactNgramFormat.HEADER_SIZE || getInt(0) != CompactNgramFormat.MAGIC) {
+        throw new RuntimeException("Not an ngram file as created by " + CompactNgramIndexWriter.class.getSimpleName() + ": " + file);
+      }
+      if (getInt(4) != CompactNgramFormat.VERSION) {
+        throw new RuntimeException("Unsupported ngram file version " + getInt(4) + ", expected " + CompactNgramFormat.VERSION + ": " + file);
+      }
+      maxNgram = getInt(8);
+      bucketBits = getInt(12);
+      ngramCount = getLong(16);
+      totalTokenCount = getLong(24);
+      if (bucketBits < 1 || bucketBits > CompactNgramFormat.MAX_BUCKET_BITS || size != CompactNgramFormat.fileSize(bucketBits, ngramCount)) {
+        throw new RuntimeException("Ngram file seems to be corrupt, unexpected size " + size + ": " + file);
+      }
+      keysOffset = CompactNgramFormat.keysOffset(bucketBits);
+      countsOffset = CompactNgramFormat.countsOffset(bucketBits, ngramCount);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load ngram file " + file, e);
+    }
+  }
+
+  @Override
+  public long getCount(List<String> tokens) {
+    Objects.requireNonNull(tokens);
+    if (tokens.size() > maxNgram) {
+      throw new RuntimeException("Requested " + tokens.size() + "gram but index has only up to " + maxNgram + "gram: " + tokens);
+    }
+    return getCount(CompactNgramFormat.hash(tokens));
+  }
+
+  @Override
+  public long getCount(String token1) {
+    Objects.requireNonNull(token1);
+    return getCount(CompactNgramFormat.hash(token1));
+  }
+
+  private long getCount(long key) {
+    long bucket = key >>> (64 - bucketBits);
+    long from = getLong(CompactNgramFormat.DIRECTORY_OFFSET + bucket * Long.BYTES);
+    long to = getLong(CompactNgramFormat.DIRECTORY_OFFSET + (bucket + 1) * Long.BYTES);
+    for (long i = from; i < to; i++) {
+      int cmp = Long.compareUnsigned(getLong(keysOffset + i * Long.BYTES), key);
+      if (cmp == 0) {
+        return CompactNgramFormat.decodeCount(getShort(countsOffset + i * Short.BYTES) & 0xFFFF);
+      } else if (cmp > 0) {
+        break;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public long getTotalTokenCount() {
+    return totalTokenCount;
+  }
+
+  /**
+   * The number of different ngrams in the file.
+   */
+  public long getNgramCount() {
+    return ngramCount;
+  }
+
+  // all values are aligned to their size and chunks are aligned to 2^CHUNK_BITS, so no value spans two chunks:
+
+  private long getLong(long offset) {
+    return chunks[(int) (offset >>> CHUNK_BITS)].getLong((int) (offset & CHUNK_MASK));
+  }
+
+  private int getInt(long offset) {
+    return chunks[(int) (offset >>> CHUNK_BITS)].getInt((int) (offset & CHUNK_MASK));
+  }
+
+  private short getShort(long offset) {
+    return chunks[(int) (offset >>> CHUNK_BITS)].getShort((int) (offset & CHUNK_MASK));
+  }
+
+  /**
+   * Does nothing, the memory mapping is released by the garbage collector.
+   */
+  @Override
+  public void close() {
+  }
+
+  @Override
+  public String toString() {
+    return file.toString();
+  }
+
+}
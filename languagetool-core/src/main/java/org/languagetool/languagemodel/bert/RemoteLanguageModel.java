@@ -27,12 +27,16 @@ import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NegotiationType;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import io.grpc.stub.StreamObserver;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.languagemodel.bert.grpc.BertLmGrpc;
+import org.languagetool.rules.RemoteRequestBatcher;
 
 import javax.net.ssl.SSLException;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.languagetool.languagemodel.bert.grpc.BertLmProto.*;
@@ -40,6 +44,8 @@ import static org.languagetool.languagemodel.bert.grpc.BertLmProto.*;
 public class RemoteLanguageModel {
 
   private final BertLmGrpc.BertLmBlockingStub model;
+  private final BertLmGrpc.BertLmStub asyncModel;
+  private final RemoteRequestBatcher<List<Request>, List<List<Double>>> batcher;
   private final ManagedChannel channel;
   private final Cache<Request, List<Double>> cache = CacheBuilder.newBuilder()
     .maximumSize(1000)
@@ -88,9 +94,25 @@ public class RemoteLanguageModel {
   public RemoteLanguageModel(String host, int port, boolean useSSL,
                              @Nullable String clientPrivateKey, @Nullable  String clientCertificate,
                              @Nullable String rootCertificate) throws SSLException {
+    this(host, port, useSSL, clientPrivateKey, clientCertificate, rootCertificate, 1, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param maxBatchSize up to how many score requests from different calls of {@link #batchScoreAsync(List)}
+   *                     are combined into one {@code BatchScoreRequest}
+   * @param maxBatchDelayMillis how long requests may wait for other requests to be combined with
+   * @param maxConcurrentRequests how many {@code BatchScoreRequest}s may be in flight at the same time
+   * @since 5.2
+   */
+  public RemoteLanguageModel(String host, int port, boolean useSSL,
+                             @Nullable String clientPrivateKey, @Nullable  String clientCertificate,
+                             @Nullable String rootCertificate,
+                             int maxBatchSize, long maxBatchDelayMillis, int maxConcurrentRequests) throws SSLException {
     // TODO configure deadline/retries/... here?
     channel = getChannel(host, port, useSSL, clientPrivateKey, clientCertificate, rootCertificate);
     model = BertLmGrpc.newBlockingStub(channel);
+    asyncModel = BertLmGrpc.newStub(channel);
+    batcher = new RemoteRequestBatcher<>(maxBatchSize, maxBatchDelayMillis, maxConcurrentRequests, List::size, this::sendBatch);
   }
 
   private ManagedChannel getChannel(String host, int port, boolean useSSL,
@@ -119,6 +141,15 @@ public class RemoteLanguageModel {
   }
 
   public List<List<Double>> batchScore(List<Request> requests) {
+    return batchScoreAsync(requests).join();
+  }
+
+  /**
+   * Like {@link #batchScore(List)}, but without blocking; the requests may be sent to the server together
+   * with those of other calls, see {@link #RemoteLanguageModel(String, int, boolean, String, String, String, int, long, int)}.
+   * @since 5.2
+   */
+  public CompletableFuture<List<List<Double>>> batchScoreAsync(List<Request> requests) {
     Map<Request, List<Double>> cachedRequests = new HashMap<>();
     List<Request> uncachedRequests = new ArrayList<>();
     for (Request request : requests) {
@@ -129,34 +160,69 @@ public class RemoteLanguageModel {
         cachedRequests.put(request, result);
       }
     }
-    BatchScoreRequest batch = BatchScoreRequest.newBuilder().addAllRequests(
-      uncachedRequests.stream().map(Request::convert).collect(Collectors.toList())
-    ).build();
-    // TODO multiple masks
-    List<List<Double>> nonCacheResult = model.batchScore(batch).getResponsesList().stream().map(r ->
-      r.getScoresList().get(0).getScoreList()).collect(Collectors.toList());
-    //
-    List<List<Double>> allResults = new ArrayList<>();
-    int i = 0;
-    for (Request request : requests) {
-      List<Double> result = cachedRequests.get(request);
-      if (result != null) {
-        //System.out.println("Adding result from cache");
-        allResults.add(result);
-      } else {
-        //System.out.println("Adding result from remote");
-        allResults.add(nonCacheResult.get(i++));
+    CompletableFuture<List<List<Double>>> nonCacheResults = uncachedRequests.isEmpty() ?
+      CompletableFuture.completedFuture(Collections.emptyList()) : batcher.submit(uncachedRequests);
+    CompletableFuture<List<List<Double>>> allResults = nonCacheResults.thenApply(nonCacheResult -> {
+      List<List<Double>> results = new ArrayList<>();
+      int i = 0;
+      for (Request request : requests) {
+        List<Double> result = cachedRequests.get(request);
+        if (result != null) {
+          results.add(result);
+        } else {
+          results.add(nonCacheResult.get(i++));
+        }
       }
-    }
+      int j = 0;
+      for (List<Double> re : nonCacheResult) {
+        // a CacheLoader doesn't work with batching, so add manually:
+        cache.put(uncachedRequests.get(j), re);
+        j++;
+      }
+      return results;
+    });
+    allResults.whenComplete((results, error) -> {
+      if (error instanceof CancellationException) {
+        nonCacheResults.cancel(true);  // drop the requests if they are still queued
+      }
+    });
+    return allResults;
+  }
 
-    int j = 0;
-    for (List<Double> re : nonCacheResult) {
-      // a CacheLoader doesn't work with batching, so add manually:
-      //System.out.println("Adding request to cache");
-      cache.put(uncachedRequests.get(j), re);
-      j++;
+  private CompletableFuture<List<List<List<Double>>>> sendBatch(List<List<Request>> requestLists) {
+    BatchScoreRequest.Builder batch = BatchScoreRequest.newBuilder();
+    for (List<Request> requests : requestLists) {
+      batch.addAllRequests(requests.stream().map(Request::convert).collect(Collectors.toList()));
     }
-    return allResults;
+    CompletableFuture<BatchBertLmResponse> response = new CompletableFuture<>();
+    asyncModel.batchScore(batch.build(), new StreamObserver<BatchBertLmResponse>() {
+      @Override
+      public void onNext(BatchBertLmResponse value) {
+        response.complete(value);
+      }
+      @Override
+      public void onError(Throwable t) {
+        response.completeExceptionally(t);
+      }
+      @Override
+      public void onCompleted() {
+      }
+    });
+    return response.thenApply(res -> {
+      // TODO multiple masks
+      List<List<Double>> scores = res.getResponsesList().stream().map(r ->
+        r.getScoresList().get(0).getScoreList()).collect(Collectors.toList());
+      if (scores.size() != batch.getRequestsCount()) {
+        throw new IllegalStateException("Got " + scores.size() + " responses for " + batch.getRequestsCount() + " requests");
+      }
+      List<List<List<Double>>> results = new ArrayList<>(requestLists.size());
+      int start = 0;
+      for (List<Request> requests : requestLists) {
+        results.add(scores.subList(start, start + requests.size()));
+        start += requests.size();
+      }
+      return results;
+    });
   }
 
   public List<Double> score(Request req) {
@@ -37,6 +37,8 @@ import javax.net.ssl.SSLException;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -58,7 +60,8 @@ public class BERTSuggestionRanking extends RemoteRule {
       String cert = serviceConfiguration.getOptions().get("clientCertificate");
       String ca = serviceConfiguration.getOptions().get("rootCertificate");
       try {
-        return new RemoteLanguageModel(host, port, ssl, key, cert, ca);
+        return new RemoteLanguageModel(host, port, ssl, key, cert, ca, serviceConfiguration.getMaxBatchSize(),
+          serviceConfiguration.getMaxBatchDelayMilliseconds(), serviceConfiguration.getMaxConcurrentRequests());
       } catch (SSLException e) {
         throw new RuntimeException(e);
       }
@@ -138,45 +141,54 @@ public class BERTSuggestionRanking extends RemoteRule {
 
   @Override
   protected Callable<RemoteRuleResult> executeRequest(RemoteRequest request) {
-    return () -> {
-      if (model == null) {
-        return fallbackResults(request);
+    return () -> executeRequestAsync(request).get();
+  }
+
+  @Override
+  protected CompletableFuture<RemoteRuleResult> executeRequestAsync(RemoteRequest request) {
+    if (model == null) {
+      return CompletableFuture.completedFuture(fallbackResults(request));
+    }
+    MatchesForReordering data = (MatchesForReordering) request;
+    List<RuleMatch> matches = data.matches;
+    Streams.FunctionWithIndex<RemoteLanguageModel.Request, Long> mapIndices = (req, index) -> req != null ? index : null;
+    List<Long> indices = Streams.mapWithIndex(data.requests.stream(), mapIndices)
+      .filter(Objects::nonNull).collect(Collectors.toList());
+    List<RemoteLanguageModel.Request> requests = data.requests.stream().filter(Objects::nonNull).collect(Collectors.toList());
+
+    if (requests.isEmpty()) {
+      return CompletableFuture.completedFuture(new RemoteRuleResult(false, true, matches));
+    }
+    CompletableFuture<List<List<Double>>> scores = model.batchScoreAsync(requests);
+    CompletableFuture<RemoteRuleResult> result = scores.thenApply(results -> {
+      // put curated at the top, then compare probabilities
+      for (int i = 0; i < indices.size(); i++) {
+        List<Double> scoresForMatch = results.get(i);
+        String userWord = requests.get(i).text.substring(requests.get(i).start, requests.get(i).end);
+        RuleMatch match = matches.get(indices.get(i).intValue());
+        //RemoteLanguageModel.Request req = requests.get(i);
+        //String error = req.text.substring(req.start, req.end);
+        //logger.info("Scored suggestions for '{}': {} -> {}", error, match.getSuggestedReplacements(), Streams
+        //  .zip(match.getSuggestedReplacementObjects().stream(), scoresForMatch.stream(), Pair::of)
+        //  .sorted(new CuratedAndSameCaseComparator(userWord))
+        //  .map(scored -> String.format("%s (%e)", scored.getLeft().getReplacement(), scored.getRight()))
+        //  .collect(Collectors.toList()));
+        List<SuggestedReplacement> ranked = Streams
+          .zip(match.getSuggestedReplacementObjects().stream(), scoresForMatch.stream(), Pair::of)
+          .sorted(new CuratedAndSameCaseComparator(userWord))
+          .map(Pair::getLeft)
+          .collect(Collectors.toList());
+        //logger.info("Reordered correction for '{}' from {} to {}", error, req.candidates, ranked);
+        match.setSuggestedReplacementObjects(ranked);
       }
-      MatchesForReordering data = (MatchesForReordering) request;
-      List<RuleMatch> matches = data.matches;
-      List<RemoteLanguageModel.Request> requests = data.requests;
-      Streams.FunctionWithIndex<RemoteLanguageModel.Request, Long> mapIndices = (req, index) -> req != null ? index : null;
-      List<Long> indices = Streams.mapWithIndex(requests.stream(), mapIndices)
-        .filter(Objects::nonNull).collect(Collectors.toList());
-      requests = requests.stream().filter(Objects::nonNull).collect(Collectors.toList());
-
-      if (requests.isEmpty()) {
-        return new RemoteRuleResult(false, true, matches);
-      } else {
-        List<List<Double>> results = model.batchScore(requests);
-        // put curated at the top, then compare probabilities
-        for (int i = 0; i < indices.size(); i++) {
-          List<Double> scores = results.get(i);
-          String userWord = requests.get(i).text.substring(requests.get(i).start, requests.get(i).end);
-          RuleMatch match = matches.get(indices.get(i).intValue());
-          //RemoteLanguageModel.Request req = requests.get(i);
-          //String error = req.text.substring(req.start, req.end);
-          //logger.info("Scored suggestions for '{}': {} -> {}", error, match.getSuggestedReplacements(), Streams
-          //  .zip(match.getSuggestedReplacementObjects().stream(), scores.stream(), Pair::of)
-          //  .sorted(new CuratedAndSameCaseComparator(userWord))
-          //  .map(scored -> String.format("%s (%e)", scored.getLeft().getReplacement(), scored.getRight()))
-          //  .collect(Collectors.toList()));
-          List<SuggestedReplacement> ranked = Streams
-            .zip(match.getSuggestedReplacementObjects().stream(), scores.stream(), Pair::of)
-            .sorted(new CuratedAndSameCaseComparator(userWord))
-            .map(Pair::getLeft)
-            .collect(Collectors.toList());
-          //logger.info("Reordered correction for '{}' from {} to {}", error, req.candidates, ranked);
-          match.setSuggestedReplacementObjects(ranked);
-        }
-        return new RemoteRuleResult(true, true, matches);
+      return new RemoteRuleResult(true, true, matches);
+    });
+    result.whenComplete((res, error) -> {
+      if (error instanceof CancellationException) {
+        scores.cancel(true);  // timeout, drop the request if it's still queued
       }
-    };
+    });
+    return result;
   }
 
   @Nullable
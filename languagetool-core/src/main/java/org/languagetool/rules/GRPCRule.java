@@ -30,6 +30,7 @@ import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NegotiationType;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import io.grpc.stub.StreamObserver;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
@@ -44,6 +45,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -113,7 +117,10 @@ public abstract class GRPCRule extends RemoteRule {
 
   static class Connection {
     final ManagedChannel channel;
-    final MLServerGrpc.MLServerBlockingStub stub;
+    final MLServerGrpc.MLServerStub stub;
+    // sentences of requests from different checks are combined into one MatchRequest:
+    final RemoteRequestBatcher<MLServerProto.MatchRequest, List<MLServerProto.MatchList>> batcher;
+    private final RemoteRuleConfig serviceConfiguration;
 
     private ManagedChannel getChannel(String host, int port, boolean useSSL,
                                       @Nullable String clientPrivateKey, @Nullable  String clientCertificate,
@@ -142,8 +149,55 @@ public abstract class GRPCRule extends RemoteRule {
       String cert = serviceConfiguration.getOptions().get("clientCertificate");
       String ca = serviceConfiguration.getOptions().get("rootCertificate");
       this.channel = getChannel(host, port, ssl, key, cert, ca);
-      this.stub = MLServerGrpc.newBlockingStub(channel);
+      this.stub = MLServerGrpc.newStub(channel);
+      this.serviceConfiguration = serviceConfiguration;
+      this.batcher = new RemoteRequestBatcher<>(serviceConfiguration.getMaxBatchSize(),
+        serviceConfiguration.getMaxBatchDelayMilliseconds(), serviceConfiguration.getMaxConcurrentRequests(),
+        MLServerProto.MatchRequest::getSentencesCount,
+        // text session IDs are aligned with the sentences, so don't mix requests with and without them:
+        req -> Arrays.asList(req.getInputLogging(), req.getTextSessionIDCount() > 0),
+        this::match);
+    }
 
+    private CompletableFuture<List<List<MLServerProto.MatchList>>> match(List<MLServerProto.MatchRequest> requests) {
+      MLServerProto.MatchRequest.Builder batch = MLServerProto.MatchRequest.newBuilder()
+        .setInputLogging(requests.get(0).getInputLogging());
+      long characters = 0;
+      for (MLServerProto.MatchRequest request : requests) {
+        batch.addAllSentences(request.getSentencesList());
+        batch.addAllTextSessionID(request.getTextSessionIDList());
+        characters += request.getSentencesList().stream().mapToInt(String::length).sum();
+      }
+      long timeout = serviceConfiguration.getBaseTimeoutMilliseconds() +
+        Math.round(characters * serviceConfiguration.getTimeoutPerCharacterMilliseconds());
+      MLServerGrpc.MLServerStub batchStub = timeout > 0 ? stub.withDeadlineAfter(timeout, TimeUnit.MILLISECONDS) : stub;
+      CompletableFuture<MLServerProto.MatchResponse> response = new CompletableFuture<>();
+      batchStub.match(batch.build(), new StreamObserver<MLServerProto.MatchResponse>() {
+        @Override
+        public void onNext(MLServerProto.MatchResponse value) {
+          response.complete(value);
+        }
+        @Override
+        public void onError(Throwable t) {
+          response.completeExceptionally(t);
+        }
+        @Override
+        public void onCompleted() {
+        }
+      });
+      return response.thenApply(res -> {
+        if (res.getSentenceMatchesCount() != batch.getSentencesCount()) {
+          throw new IllegalStateException("Got matches for " + res.getSentenceMatchesCount() +
+            " sentences, expected " + batch.getSentencesCount());
+        }
+        List<List<MLServerProto.MatchList>> results = new ArrayList<>(requests.size());
+        int start = 0;
+        for (MLServerProto.MatchRequest request : requests) {
+          results.add(res.getSentenceMatchesList().subList(start, start + request.getSentencesCount()));
+          start += request.getSentencesCount();
+        }
+        return results;
+      });
     }
 
     private void shutdown() {
@@ -213,11 +267,20 @@ public abstract class GRPCRule extends RemoteRule {
 
   @Override
   protected Callable<RemoteRuleResult> executeRequest(RemoteRule.RemoteRequest request) {
-    return () -> {
-      MLRuleRequest req = (MLRuleRequest) request;
+    return () -> executeRequestAsync(request).get();
+  }
 
-      MLServerProto.MatchResponse response = conn.stub.match(req.request);
-      List<RuleMatch> matches = Streams.zip(response.getSentenceMatchesList().stream(), req.sentences.stream(), (matchList, sentence) ->
+  @Override
+  protected CompletableFuture<RemoteRuleResult> executeRequestAsync(RemoteRule.RemoteRequest request) {
+    if (conn == null) {
+      CompletableFuture<RemoteRuleResult> result = new CompletableFuture<>();
+      result.completeExceptionally(new IllegalStateException("No connection to remote service at " + serviceConfiguration));
+      return result;
+    }
+    MLRuleRequest req = (MLRuleRequest) request;
+    CompletableFuture<List<MLServerProto.MatchList>> response = conn.batcher.submit(req.request);
+    CompletableFuture<RemoteRuleResult> result = response.thenApply(sentenceMatches -> {
+      List<RuleMatch> matches = Streams.zip(sentenceMatches.stream(), req.sentences.stream(), (matchList, sentence) ->
         matchList.getMatchesList().stream().map(match -> {
             GRPCSubRule subRule = new GRPCSubRule(match.getSubId(), match.getRuleDescription());
             String message = match.getMatchDescription();
@@ -238,9 +301,14 @@ public abstract class GRPCRule extends RemoteRule {
           }
         )
       ).flatMap(Function.identity()).collect(Collectors.toList());
-      RemoteRuleResult result = new RemoteRuleResult(true, true, matches);
-      return result;
-    };
+      return new RemoteRuleResult(true, true, matches);
+    });
+    result.whenComplete((res, error) -> {
+      if (error instanceof CancellationException) {
+        response.cancel(true);  // timeout, drop the request if it's still queued
+      }
+    });
+    return result;
   }
 
   /**
@@ -0,0 +1,219 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Combines requests to a remote service into batches and limits the number of batches in flight.
+ * A request waits at most {@code maxDelayMillis} for other requests to fill its batch, requests
+ * that come in while the limit of batches in flight is reached are combined and sent as soon as
+ * a batch has finished. Requests are never split, so a single request larger than
+ * {@code maxBatchSize} is sent as a batch of its own. Requests whose future has been cancelled
+ * (e.g. because of a timeout) before they were sent are dropped.
+ * @param <Q> the type of a single request
+ * @param <R> the type of the result for a single request
+ * @since 5.2
+ */
+public class RemoteRequestBatcher<Q, R> {
+
+  private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("remote-request-batcher-%d").setDaemon(true).build());
+
+  /**
+   * Sends a batch of requests to the remote service.
+   */
+  public interface BatchFunction<Q, R> {
+    /**
+     * @return a future with one result per request, in the order of the requests
+     */
+    CompletableFuture<List<R>> apply(List<Q> requests);
+  }
+
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final int maxConcurrentBatches;
+  private final ToIntFunction<Q> sizeFunction;
+  private final Function<Q, ?> keyFunction;
+  private final BatchFunction<Q, R> batchFunction;
+
+  // guarded by this:
+  private final Deque<Pending<Q, R>> queue = new ArrayDeque<>();
+  private int queuedSize;
+  private int inFlight;
+  private boolean timerScheduled;
+
+  /**
+   * @param maxBatchSize maximum size of a batch, as the sum of {@code sizeFunction} over its requests
+   * @param maxDelayMillis how long a request may wait for other requests to be combined with
+   * @param maxConcurrentBatches how many batches may be in flight at the same time
+   * @param sizeFunction the size of a request, e.g. its number of sentences
+   * @param keyFunction only requests with equal keys are combined into a batch
+   * @param batchFunction sends a batch
+   */
+  public RemoteRequestBatcher(int maxBatchSize, long maxDelayMillis, int maxConcurrentBatches,
+                              ToIntFunction<Q> sizeFunction, Function<Q, ?> keyFunction, BatchFunction<Q, R> batchFunction) {
+    if (maxConcurrentBatches < 1) {
+      throw new IllegalArgumentException("maxConcurrentBatches must be > 0: " + maxConcurrentBatches);
+    }
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    this.maxConcurrentBatches = maxConcurrentBatches;
+    this.sizeFunction = sizeFunction;
+    this.keyFunction = keyFunction;
+    this.batchFunction = batchFunction;
+  }
+
+  public RemoteRequestBatcher(int maxBatchSize, long maxDelayMillis, int maxConcurrentBatches,
+                              ToIntFunction<Q> sizeFunction, BatchFunction<Q, R> batchFunction) {
+    this(maxBatchSize, maxDelayMillis, maxConcurrentBatches, sizeFunction, request -> Boolean.TRUE, batchFunction);
+  }
+
+  /**
+   * Queue a request to be sent with the next batch.
+   * @return the future result of the request; cancel it to drop the request if it hasn't been sent yet
+   */
+  public CompletableFuture<R> submit(Q request) {
+    Pending<Q, R> pending = new Pending<>(request, sizeFunction.applyAsInt(request), keyFunction.apply(request));
+    synchronized (this) {
+      queue.add(pending);
+      queuedSize += pending.size;
+    }
+    sendReadyBatches();
+    return pending.future;
+  }
+
+  /**
+   * @return the number of requests waiting to be sent
+   */
+  synchronized int getQueueLength() {
+    return queue.size();
+  }
+
+  private void sendReadyBatches() {
+    while (true) {
+      List<Pending<Q, R>> batch;
+      synchronized (this) {
+        if (queue.isEmpty() || inFlight >= maxConcurrentBatches) {
+          return;
+        }
+        long waitNanos = queue.getFirst().createdAt + maxDelayNanos - System.nanoTime();
+        if (queuedSize < maxBatchSize && waitNanos > 0) {
+          if (!timerScheduled) {
+            timerScheduled = true;
+            timer.schedule(this::onTimer, waitNanos, TimeUnit.NANOSECONDS);
+          }
+          return;
+        }
+        batch = takeBatch();
+        if (batch.isEmpty()) {
+          continue;  // all cancelled
+        }
+        inFlight++;
+      }
+      send(batch);
+    }
+  }
+
+  private void onTimer() {
+    synchronized (this) {
+      timerScheduled = false;
+    }
+    sendReadyBatches();
+  }
+
+  // the first request and all following ones with the same key, as long as they fit:
+  private List<Pending<Q, R>> takeBatch() {
+    List<Pending<Q, R>> batch = new ArrayList<>();
+    Object key = queue.getFirst().key;
+    int size = 0;
+    Iterator<Pending<Q, R>> iterator = queue.iterator();
+    while (iterator.hasNext()) {
+      Pending<Q, R> pending = iterator.next();
+      if (pending.future.isDone()) {
+        iterator.remove();
+        queuedSize -= pending.size;
+        continue;
+      }
+      if (!pending.key.equals(key)) {
+        continue;
+      }
+      if (!batch.isEmpty() && size + pending.size > maxBatchSize) {
+        break;
+      }
+      iterator.remove();
+      queuedSize -= pending.size;
+      size += pending.size;
+      batch.add(pending);
+    }
+    return batch;
+  }
+
+  private void send(List<Pending<Q, R>> batch) {
+    List<Q> requests = new ArrayList<>(batch.size());
+    for (Pending<Q, R> pending : batch) {
+      requests.add(pending.request);
+    }
+    CompletableFuture<List<R>> future;
+    try {
+      future = batchFunction.apply(requests);
+    } catch (RuntimeException e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    future.whenComplete((results, error) -> {
+      synchronized (this) {
+        inFlight--;
+      }
+      if (error == null && results.size() != batch.size()) {
+        error = new IllegalStateException("Got " + results.size() + " results for a batch of " + batch.size() + " requests");
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        if (error != null) {
+          batch.get(i).future.completeExceptionally(error);
+        } else {
+          batch.get(i).future.complete(results.get(i));
+        }
+      }
+      sendReadyBatches();
+    });
+  }
+
+  private static final class Pending<Q, R> {
+    private final Q request;
+    private final int size;
+    private final Object key;
+    private final long createdAt = System.nanoTime();
+    private final CompletableFuture<R> future = new CompletableFuture<>();
+
+    private Pending(Q request, int size, Object key) {
+      this.request = request;
+      this.size = size;
+      this.key = key;
+    }
+  }
+}
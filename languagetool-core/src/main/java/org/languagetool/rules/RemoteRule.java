@@ -65,8 +65,13 @@ public abstract class RemoteRule extends Rule {
     }
     lastFailure.putIfAbsent(ruleId, 0L);
     consecutiveFailures.putIfAbsent(ruleId, new AtomicInteger());
-    // TODO maybe use fixed pool, take number of concurrent requests from configuration?
-    executors.putIfAbsent(ruleId, Executors.newCachedThreadPool(threadFactory));
+    executors.computeIfAbsent(ruleId, id -> {
+      int threads = config.getMaxConcurrentRequests();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), threadFactory);
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    });
   }
 
   public RemoteRule(ResourceBundle messages, RemoteRuleConfig config, boolean inputLogging) {
@@ -87,6 +92,17 @@ public abstract class RemoteRule extends Rule {
   protected abstract Callable<RemoteRuleResult> executeRequest(RemoteRequest request);
   protected abstract RemoteRuleResult fallbackResults(RemoteRequest request);
 
+  /**
+   * Start executing the request. By default, this runs {@link #executeRequest(RemoteRequest)} in a thread pool
+   * with {@link RemoteRuleConfig#getMaxConcurrentRequests()} threads per rule. Override this for clients
+   * that can send requests asynchronously without blocking a thread for each of them.
+   * The returned future is cancelled when the request times out.
+   * @since 5.2
+   */
+  protected Future<RemoteRuleResult> executeRequestAsync(RemoteRequest request) {
+    return executors.get(getId()).submit(executeRequest(request));
+  }
+
   /**
    * @param sentences text to check
    * @param textSessionId ID for texts, should stay constant for a user session; used for A/B tests of experimental rules
@@ -114,11 +130,11 @@ public abstract class RemoteRule extends Rule {
       RemoteRuleMetrics.up(ruleId, true);
 
       for (int i = 0; i <= serviceConfiguration.getMaxRetries(); i++) {
-        Callable<RemoteRuleResult> task = executeRequest(req);
         long timeout = serviceConfiguration.getBaseTimeoutMilliseconds() +
           Math.round(characters * serviceConfiguration.getTimeoutPerCharacterMilliseconds());
+        Future<RemoteRuleResult> future = null;
         try {
-          Future<RemoteRuleResult> future = executors.get(ruleId).submit(task);
+          future = executeRequestAsync(req);
           if (timeout <= 0)  { // for debugging, disable timeout
             result = future.get();
           } else {
@@ -137,6 +153,9 @@ public abstract class RemoteRule extends Rule {
 
           return result;
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
+          if (future != null) {
+            future.cancel(true);  // don't keep a thread or a place in the queue for a result no one waits for
+          }
           logger.warn("Error while fetching results for remote rule " + ruleId + ", tried " + (i + 1) + " times, timeout: " + timeout + "ms" , e);
 
           RemoteRuleMetrics.RequestResult status;
@@ -51,6 +51,9 @@ public class RemoteRuleConfig {
   private static final float DEFAULT_TIMEOUT_PER_CHAR = 0;
   private static final int DEFAULT_FALL = 1;
   private static final int DEFAULT_DOWN = 5000;
+  private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+  private static final int DEFAULT_MAX_BATCH_SIZE = 1;
+  private static final long DEFAULT_MAX_BATCH_DELAY = 0;
 
   private static final LoadingCache<File, List<RemoteRuleConfig>> configCache = CacheBuilder.newBuilder()
     .expireAfterWrite(15, TimeUnit.MINUTES)
@@ -75,11 +78,28 @@ public class RemoteRuleConfig {
   private final Integer fall;
   private final Long downMilliseconds;
 
+  private final Integer maxConcurrentRequests;
+  private final Integer maxBatchSize;
+  private final Long maxBatchDelayMilliseconds;
 
   private final Map<String, String> options;
 
   // TODO configure health checks, load balancing, ...?
 
+  public RemoteRuleConfig(String ruleId, String url, Integer port, Integer maxRetries, Long baseTimeoutMilliseconds,
+                          Float timeoutPerCharacterMilliseconds, Integer fall, Long downMilliseconds,
+                          Map<String, String> options) {
+    this(ruleId, url, port, maxRetries, baseTimeoutMilliseconds, timeoutPerCharacterMilliseconds, fall, downMilliseconds,
+      null, null, null, options);
+  }
+
+  /**
+   * @param maxConcurrentRequests how many requests may be sent to the remote service at the same time
+   * @param maxBatchSize how many sentences (or similar units, depending on the rule) requests from different
+   *                     checks may be combined into, if the remote rule supports that; 1 disables combining requests
+   * @param maxBatchDelayMilliseconds how long a request may wait for other requests to be combined with
+   * @since 5.2
+   */
   @JsonCreator
   public RemoteRuleConfig(@JsonProperty("ruleId") String ruleId,
                           @JsonProperty("url") String url,
@@ -89,6 +109,9 @@ public class RemoteRuleConfig {
                           @JsonProperty("timeoutPerCharacterMilliseconds") Float timeoutPerCharacterMilliseconds,
                           @JsonProperty("fall") Integer fall,
                           @JsonProperty("downMilliseconds") Long downMilliseconds,
+                          @JsonProperty("maxConcurrentRequests") Integer maxConcurrentRequests,
+                          @JsonProperty("maxBatchSize") Integer maxBatchSize,
+                          @JsonProperty("maxBatchDelayMilliseconds") Long maxBatchDelayMilliseconds,
                           @JsonProperty("options") Map<String, String> options) {
     this.ruleId = ruleId;
     this.url = url;
@@ -98,6 +121,9 @@ public class RemoteRuleConfig {
     this.timeoutPerCharacterMilliseconds = timeoutPerCharacterMilliseconds;
     this.fall = fall;
     this.downMilliseconds = downMilliseconds;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchDelayMilliseconds = maxBatchDelayMilliseconds;
     this.options = Collections.unmodifiableMap(options != null ? options : Collections.emptyMap());
   }
 
@@ -127,6 +153,27 @@ public class RemoteRuleConfig {
     return timeoutPerCharacterMilliseconds != null ? timeoutPerCharacterMilliseconds : DEFAULT_TIMEOUT_PER_CHAR;
   }
 
+  /**
+   * @since 5.2
+   */
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests != null ? maxConcurrentRequests : DEFAULT_MAX_CONCURRENT_REQUESTS;
+  }
+
+  /**
+   * @since 5.2
+   */
+  public int getMaxBatchSize() {
+    return maxBatchSize != null ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+  }
+
+  /**
+   * @since 5.2
+   */
+  public long getMaxBatchDelayMilliseconds() {
+    return maxBatchDelayMilliseconds != null ? maxBatchDelayMilliseconds : DEFAULT_MAX_BATCH_DELAY;
+  }
+
   public Map<String, String> getOptions() {
     return options;
   }
@@ -152,6 +199,9 @@ public class RemoteRuleConfig {
       .append(timeoutPerCharacterMilliseconds, that.timeoutPerCharacterMilliseconds)
       .append(fall, that.fall)
       .append(downMilliseconds, that.downMilliseconds)
+      .append(maxConcurrentRequests, that.maxConcurrentRequests)
+      .append(maxBatchSize, that.maxBatchSize)
+      .append(maxBatchDelayMilliseconds, that.maxBatchDelayMilliseconds)
       .append(options, that.options)
       .isEquals();
   }
@@ -167,6 +217,9 @@ public class RemoteRuleConfig {
       .append(timeoutPerCharacterMilliseconds)
       .append(fall)
       .append(downMilliseconds)
+      .append(maxConcurrentRequests)
+      .append(maxBatchSize)
+      .append(maxBatchDelayMilliseconds)
       .append(options)
       .toHashCode();
   }
@@ -182,6 +235,9 @@ public class RemoteRuleConfig {
       .append("timeoutPerCharacter", timeoutPerCharacterMilliseconds)
       .append("fall", fall)
       .append("down", downMilliseconds)
+      .append("maxConcurrentRequests", maxConcurrentRequests)
+      .append("maxBatchSize", maxBatchSize)
+      .append("maxBatchDelay", maxBatchDelayMilliseconds)
       .append("options", options)
       .build();
   }
@@ -367,8 +367,14 @@ public class RuleMatch implements Comparable<RuleMatch> {
   public void addSuggestedReplacements(List<String> replacements) {
     Objects.requireNonNull(replacements, "replacements may be empty but not null");
     Supplier<List<SuggestedReplacement>> prev = suggestedReplacements;
-    setLazySuggestedReplacements(() ->
-      Lists.newArrayList(Iterables.concat(prev.get(), Iterables.transform(replacements, SuggestedReplacement::new))));
+    if (!(prev instanceof LazySuggestions) || ((LazySuggestions) prev).isComputed()) {
+      // nothing expensive left to defer:
+      suggestedReplacements = Suppliers.ofInstance(
+        Lists.newArrayList(Iterables.concat(prev.get(), Iterables.transform(replacements, SuggestedReplacement::new))));
+    } else {
+      setLazySuggestedReplacements(() ->
+        Lists.newArrayList(Iterables.concat(prev.get(), Iterables.transform(replacements, SuggestedReplacement::new))));
+    }
   }
   /**
    * The text fragments which might be an appropriate fix for the problem. One
@@ -413,7 +419,16 @@ public class RuleMatch implements Comparable<RuleMatch> {
    */
   public void setLazySuggestedReplacements(@NotNull Supplier<List<SuggestedReplacement>> replacements) {
     Objects.requireNonNull(replacements, "replacements may not be null");
-    suggestedReplacements = Suppliers.memoize(replacements::get);
+    suggestedReplacements = new LazySuggestions(replacements);
+  }
+
+  /**
+   * Whether the suggested replacements are available without computing them, i.e. they have not been
+   * set with {@link #setLazySuggestedReplacements(Supplier)} or the supplier has already been called.
+   * @since 5.2
+   */
+  public boolean isSuggestedReplacementsComputed() {
+    return !(suggestedReplacements instanceof LazySuggestions) || ((LazySuggestions) suggestedReplacements).isComputed();
   }
 
   /**
@@ -506,6 +521,37 @@ public class RuleMatch implements Comparable<RuleMatch> {
     Other
   }
 
+  /**
+   * Like {@code Suppliers.memoize()}, but it can tell whether the value has been computed yet.
+   */
+  private static final class LazySuggestions implements Supplier<List<SuggestedReplacement>> {
+    private Supplier<List<SuggestedReplacement>> delegate;
+    private volatile boolean computed;
+    private List<SuggestedReplacement> value;
+
+    private LazySuggestions(Supplier<List<SuggestedReplacement>> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public List<SuggestedReplacement> get() {
+      if (!computed) {
+        synchronized (this) {
+          if (!computed) {
+            value = delegate.get();
+            computed = true;
+            delegate = null;
+          }
+        }
+      }
+      return value;
+    }
+
+    boolean isComputed() {
+      return computed;
+    }
+  }
+
   static class PatternPosition extends MatchPosition {
     PatternPosition(int start, int end) {
       super(start, end);
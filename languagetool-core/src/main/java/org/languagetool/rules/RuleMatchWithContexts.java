@@ -15,6 +15,7 @@ import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,10 +30,6 @@ public class RuleMatchWithContexts extends RuleMatch {
   private static final int MAX_CONTEXT_LENGTH = 500;
   private static final int SMALL_CONTEXT_LENGTH = 40;  // do not modify - it would break lookup of errors marked as 'false alarm'
 
-  public static String languageCode;
-  public static String currentArticleCssUrl;
-  public static Document currentArticleDocument;
-
   static final ContextTools contextTools;
   static final ContextTools smallContextTools;
 
@@ -55,7 +52,8 @@ public class RuleMatchWithContexts extends RuleMatch {
     dbf.setValidating(false);
   }
 
-  public static final XPath xPath = XPathFactory.newInstance().newXPath();
+  // XPath objects are not thread-safe:
+  private static final ThreadLocal<XPath> xPath = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
 
   public String smallTextContext;
   public String textContext;
@@ -85,19 +83,24 @@ public class RuleMatchWithContexts extends RuleMatch {
     super(rule, sentence, fromPos, toPos, message, shortMessage, suggestions);
   }
 
-  public static Function<RuleMatchWithContexts, RuleMatchWithContexts> mapRuleAddHtmlContext() {
+  /**
+   * @param languageCode the language of the article, decides which parts of the HTML are excluded
+   * @param articleDocument the parsed HTML of the article the matches were found in
+   * @param articleCssUrl the stylesheet URL of that article
+   */
+  public static Function<RuleMatchWithContexts, RuleMatchWithContexts> mapRuleAddHtmlContext(String languageCode, Document articleDocument, String articleCssUrl) {
     return match -> {
       try {
         String largestErrorContextWithoutHtmlTags = getLargestErrorContext(match.getLargeTextContext());
         String stringToReplace = getStringToReplace(largestErrorContextWithoutHtmlTags);
-        NodeList nodeList = (NodeList) xPath.compile(getXpathExpression(stringToReplace)).evaluate(currentArticleDocument, XPathConstants.NODESET);
+        NodeList nodeList = (NodeList) xPath.get().compile(getXpathExpression(stringToReplace)).evaluate(articleDocument, XPathConstants.NODESET);
         switch (nodeList.getLength()) {
           case 0:
             System.out.printf(" No HTML match for '%s'%n", stringToReplace);
             break;
           case 1:
             System.out.printf(" Found an HTML match for '%s'%n", stringToReplace);
-            String htmlContext = getSimplifiedHtmlContext(dbf.newDocumentBuilder().newDocument(), nodeList.item(0), null);
+            String htmlContext = getSimplifiedHtmlContext(dbf.newDocumentBuilder().newDocument(), nodeList.item(0), null, articleCssUrl, languageCode);
             match.setHtmlContext(htmlContext);
             return match;
           default:
@@ -115,25 +118,25 @@ public class RuleMatchWithContexts extends RuleMatch {
     };
   }
 
-  private static String getSimplifiedHtmlContext(Document doc, Node node, Node childElement) throws SuggestionNotApplicableException {
+  private static String getSimplifiedHtmlContext(Document doc, Node node, Node childElement, String cssUrl, String languageCode) throws SuggestionNotApplicableException {
     if (node instanceof Text) {
       Node surroundingElement = doc.importNode(node.getParentNode(), true);
-      assertNodeNotExcluded(surroundingElement);
-      return getSimplifiedHtmlContext(doc, node.getParentNode().getParentNode(), surroundingElement);
+      assertNodeNotExcluded(surroundingElement, languageCode);
+      return getSimplifiedHtmlContext(doc, node.getParentNode().getParentNode(), surroundingElement, cssUrl, languageCode);
     } else {
       Element simpleElement;
       if (node.getParentNode() == null) {
         doc.appendChild(childElement);
         return getStringFromDocument(doc);
       } else {
-        assertNodeNotExcluded(node);
+        assertNodeNotExcluded(node, languageCode);
         simpleElement = doc.createElement(node.getNodeName());
 
         if (node.getNodeName().equals("html")) {
           Element headElement = doc.createElement("head");
           Element cssElement = doc.createElement("link");
           cssElement.setAttribute("rel", "stylesheet");
-          cssElement.setAttribute("href", currentArticleCssUrl);
+          cssElement.setAttribute("href", cssUrl);
           headElement.appendChild(cssElement);
           simpleElement.appendChild(headElement);
         }
@@ -141,14 +144,14 @@ public class RuleMatchWithContexts extends RuleMatch {
         simpleElement.appendChild(childElement);
         copyAttributes(node, simpleElement);
 
-        return getSimplifiedHtmlContext(doc, node.getParentNode(), simpleElement);
+        return getSimplifiedHtmlContext(doc, node.getParentNode(), simpleElement, cssUrl, languageCode);
       }
     }
   }
 
-  static void assertNodeNotExcluded(Node node) throws SuggestionNotApplicableException {
+  static void assertNodeNotExcluded(Node node, String languageCode) throws SuggestionNotApplicableException {
     NamedNodeMap attributes = node.getAttributes();
-    Map<String, Set<String>> excludedJsonPathsForLanguage = excludedJsonPaths.get(languageCode);
+    Map<String, Set<String>> excludedJsonPathsForLanguage = excludedJsonPaths.getOrDefault(languageCode, Collections.emptyMap());
     JsonProvider jsonProvider = Configuration.defaultConfiguration().jsonProvider();
 
     Node hrefAttribute =attributes.getNamedItem("href");
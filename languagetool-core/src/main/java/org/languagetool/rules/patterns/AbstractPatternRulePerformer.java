@@ -19,12 +19,14 @@
  */
 package org.languagetool.rules.patterns;
 
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.chunking.ChunkTag;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
@@ -53,13 +55,22 @@ public abstract class AbstractPatternRulePerformer {
   }
 
   protected void doMatch(List<PatternTokenMatcher> patternTokenMatchers, AnalyzedTokenReadings[] tokens, MatchConsumer consumer) throws IOException {
+    doMatch(patternTokenMatchers, tokens, null, consumer);
+  }
+
+  /**
+   * @param startPositions the only positions in {@code tokens} where a match can start, or {@code null} to try all positions
+   * @since 5.2
+   */
+  protected void doMatch(List<PatternTokenMatcher> patternTokenMatchers, AnalyzedTokenReadings[] tokens,
+                         @Nullable BitSet startPositions, MatchConsumer consumer) throws IOException {
     int[] tokenPositions = new int[patternTokenMatchers.size()];
     int patternSize = patternTokenMatchers.size();
     int limit = Math.max(0, tokens.length - patternSize + 1);
     PatternTokenMatcher pTokenMatcher = null;
-    int i = 0;
+    int i = startPositions == null ? 0 : startPositions.nextSetBit(0);
     int minOccurCorrection = getMinOccurrenceCorrection();
-    while (i < limit + minOccurCorrection && !(rule.isSentStart() && i > 0)) {
+    while (i >= 0 && i < limit + minOccurCorrection && !(rule.isSentStart() && i > 0)) {
       int skipShiftTotal = 0;
       boolean allElementsMatch = false;
       unifiedTokens = null;
@@ -135,7 +146,7 @@ public abstract class AbstractPatternRulePerformer {
       if (allElementsMatch && matchingTokens == patternSize) {
         consumer.consume(tokenPositions, firstMatchToken, lastMatchToken, firstMarkerMatchToken, lastMarkerMatchToken);
       }
-      i++;
+      i = startPositions == null ? i + 1 : startPositions.nextSetBit(i + 1);
     }
   }
 
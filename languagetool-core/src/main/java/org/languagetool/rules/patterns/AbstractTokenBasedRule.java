@@ -37,6 +37,10 @@ public abstract class AbstractTokenBasedRule extends AbstractPatternRule {
   @Nullable
   final String[][] formHints;
 
+  // A token used for finding the positions where a match can start.
+  @Nullable
+  final PatternAnchor anchor;
+
   protected AbstractTokenBasedRule(String id, String description, Language language, List<PatternToken> patternTokens, boolean getUnified) {
     super(id, description, language, patternTokens, getUnified);
 
@@ -60,6 +64,7 @@ public abstract class AbstractTokenBasedRule extends AbstractPatternRule {
         .comparing((String[] a) -> a.length)
         .thenComparing((String[] a) -> -Arrays.stream(a).mapToInt(String::length).min().orElse(0)))
       .toArray(String[][]::new);
+    this.anchor = PatternAnchor.create(patternTokens);
   }
 
   /**
@@ -0,0 +1,131 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.TokenPositionIndex;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A pattern token of a rule that is always matched at the same offset from the start of a rule match,
+ * together with the token texts, lemmas, or POS tags that it can match. It's used to try matching the rule
+ * only at the positions where this token can match, instead of at every position of the sentence.
+ * @since 5.2
+ */
+final class PatternAnchor {
+
+  enum Kind {
+    // in the order of preference, assuming that texts are usually rarer than lemmas and those rarer than POS tags:
+    TOKEN, LEMMA, POS_TAG, POS_TAG_PREFIX
+  }
+
+  /** The index of the anchor token in the pattern, which is also its offset from the start of a match */
+  final int offset;
+  final Kind kind;
+  /** The lowercase token texts or lemmas, or the POS tags or the POS tag prefix */
+  final String[] values;
+
+  private PatternAnchor(int offset, Kind kind, String[] values) {
+    this.offset = offset;
+    this.kind = kind;
+    this.values = values;
+  }
+
+  /**
+   * @return the best anchor for the given pattern, or {@code null} if none of its tokens can be used as an anchor
+   */
+  @Nullable
+  static PatternAnchor create(List<PatternToken> patternTokens) {
+    PatternAnchor best = null;
+    for (int i = 0; i < patternTokens.size(); i++) {
+      PatternToken token = patternTokens.get(i);
+      if (token.getMinOccurrence() < 1) {
+        break;  // optional tokens make the offset of the following tokens vary
+      }
+      PatternAnchor anchor = create(i, token);
+      if (anchor != null && (best == null || anchor.isBetterThan(best))) {
+        best = anchor;
+      }
+      if (token.getMaxOccurrence() != 1 || token.getSkipNext() != 0) {
+        break;  // the offset of the following tokens varies
+      }
+    }
+    return best;
+  }
+
+  @Nullable
+  private static PatternAnchor create(int offset, PatternToken token) {
+    Set<String> forms = token.calcFormHints();
+    if (forms != null) {
+      return new PatternAnchor(offset, Kind.TOKEN, forms.stream().map(String::toLowerCase).distinct().sorted().toArray(String[]::new));
+    }
+    Set<String> lemmas = token.calcLemmaHints();
+    if (lemmas != null) {
+      return new PatternAnchor(offset, Kind.LEMMA, lemmas.stream().map(String::toLowerCase).distinct().sorted().toArray(String[]::new));
+    }
+    Set<String> posTags = token.calcPosTagHints();
+    if (posTags != null) {
+      return new PatternAnchor(offset, Kind.POS_TAG, posTags.stream().sorted().toArray(String[]::new));
+    }
+    String posTagPrefix = token.calcPosTagPrefix();
+    if (posTagPrefix != null) {
+      return new PatternAnchor(offset, Kind.POS_TAG_PREFIX, new String[]{posTagPrefix});
+    }
+    return null;
+  }
+
+  private boolean isBetterThan(PatternAnchor other) {
+    if (kind != other.kind) {
+      return kind.compareTo(other.kind) < 0;
+    }
+    return values.length < other.values.length;
+  }
+
+  /**
+   * @return the positions in the sentence's tokens (without whitespace) where a match of the rule can start
+   */
+  BitSet getStartPositions(TokenPositionIndex index) {
+    BitSet anchorPositions = new BitSet();
+    for (String value : values) {
+      switch (kind) {
+        case TOKEN: anchorPositions.or(index.getTokenPositions(value)); break;
+        case LEMMA: anchorPositions.or(index.getLemmaPositions(value)); break;
+        case POS_TAG: anchorPositions.or(index.getPosTagPositions(value)); break;
+        case POS_TAG_PREFIX: anchorPositions.or(index.getPosTagPrefixPositions(value)); break;
+        default: throw new IllegalStateException("Unknown kind: " + kind);
+      }
+    }
+    if (offset == 0 || anchorPositions.isEmpty()) {
+      return anchorPositions;
+    }
+    BitSet startPositions = new BitSet();
+    for (int i = anchorPositions.nextSetBit(offset); i >= 0; i = anchorPositions.nextSetBit(i + 1)) {
+      startPositions.set(i - offset);
+    }
+    return startPositions;
+  }
+
+  @Override
+  public String toString() {
+    return kind + "@" + offset + ":" + String.join("|", values);
+  }
+}
@@ -208,10 +208,18 @@ public class PatternRule extends AbstractTokenBasedRule {
 
   @Override
   public final RuleMatch[] match(AnalyzedSentence sentence) throws IOException {
+    return match(sentence, PatternRuleMatcher.USE_ANCHORS);
+  }
+
+  /**
+   * @param useAnchors whether to use the rule's {@link PatternAnchor} to find the positions where a match can start
+   * @since 5.2
+   */
+  final RuleMatch[] match(AnalyzedSentence sentence, boolean useAnchors) throws IOException {
     if (canBeIgnoredFor(sentence)) return RuleMatch.EMPTY_ARRAY;
 
     try {
-      RuleMatcher matcher = new PatternRuleMatcher(this, useList);
+      RuleMatcher matcher = new PatternRuleMatcher(this, useList, useAnchors);
       return checkForAntiPatterns(sentence, matcher, matcher.match(sentence));
     } catch (IOException e) {
       throw new IOException("Error analyzing sentence: '" + sentence + "'", e);
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import javax.xml.parsers.SAXParser;
@@ -77,5 +78,32 @@ public class PatternRuleLoader extends DefaultHandler {
     }
   }
 
+  /**
+   * Like {@link #getRules(InputStream, String)}, but loads the rules from a precompiled bundle.
+   * @param filename used only for verbose exception message - should refer to the XML file the bundle was created from
+   * @since 5.2
+   */
+  public final List<AbstractPatternRule> getRules(RuleBundle bundle, String filename) throws IOException {
+    try {
+      PatternRuleHandler handler = new PatternRuleHandler(filename);
+      handler.setRelaxedMode(relaxedMode);
+      bundle.replay(handler);
+      return handler.getRules();
+    } catch (Exception e) {
+      throw new IOException("Cannot load rule bundle of '" + filename + "'", e);
+    }
+  }
+
+  /**
+   * Write the precompiled bundle for the given XML rules, see {@link RuleBundle}.
+   * @param filename used as the source file of the rules loaded from the bundle, and for exception messages
+   * @since 5.2
+   */
+  public final void writeBundle(InputStream is, String filename, OutputStream out) throws IOException {
+    PatternRuleHandler handler = new PatternRuleHandler(filename);
+    handler.setRelaxedMode(relaxedMode);
+    RuleBundle.write(is, filename, handler, out);
+  }
+
 }
 
@@ -52,14 +52,26 @@ final public class PatternRuleMatcher extends AbstractPatternRulePerformer imple
           + allowedChars + "(\\(" + allowedChars + "\\)|" + MISTAKE + ")" + allowedChars  
           + SUGGESTION_END_TAG);
 
+  // -DpatternRuleAnchors=false turns off the use of PatternAnchors, e.g. for comparing results:
+  static final boolean USE_ANCHORS = !"false".equals(System.getProperty("patternRuleAnchors"));
+
   private final boolean useList;
+  private final boolean useAnchors;
   private final List<PatternTokenMatcher> patternTokenMatchers;
   //private final Integer slowMatchThreshold;
   private static final boolean monitorRules = System.getProperty("monitorActiveRules") != null;
 
   PatternRuleMatcher(PatternRule rule, boolean useList) {
+    this(rule, useList, USE_ANCHORS);
+  }
+
+  /**
+   * @param useAnchors whether to try matching only at the positions where the rule's {@link PatternAnchor} matches
+   */
+  PatternRuleMatcher(PatternRule rule, boolean useList, boolean useAnchors) {
     super(rule, rule.getLanguage().getUnifier());
     this.useList = useList;
+    this.useAnchors = useAnchors;
     this.patternTokenMatchers = createElementMatchers();
     //String slowMatchThresholdStr = System.getProperty("slowMatchThreshold");
     //slowMatchThreshold = slowMatchThresholdStr != null ? Integer.parseInt(slowMatchThresholdStr) : null;
@@ -80,7 +92,9 @@ final public class PatternRuleMatcher extends AbstractPatternRulePerformer imple
     try {
       boolean isPreDisambigMatch = rule instanceof PatternRule && ((PatternRule)rule).isInterpretPosTagsPreDisambiguation();
       AnalyzedTokenReadings[] tokens = isPreDisambigMatch ? sentence.getPreDisambigTokensWithoutWhitespace() : sentence.getTokensWithoutWhitespace();
-      doMatch(patternTokenMatchers, tokens, (tokenPositions, firstMatchToken, lastMatchToken, firstMarkerMatchToken, lastMarkerMatchToken) -> {
+      PatternAnchor anchor = useAnchors ? ((PatternRule) rule).anchor : null;
+      BitSet startPositions = anchor != null ? anchor.getStartPositions(sentence.getTokenPositionIndex(isPreDisambigMatch)) : null;
+      doMatch(patternTokenMatchers, tokens, startPositions, (tokenPositions, firstMatchToken, lastMatchToken, firstMarkerMatchToken, lastMarkerMatchToken) -> {
         RuleMatch ruleMatch = createRuleMatch(tokenPositions, tokens, firstMatchToken, lastMatchToken, firstMarkerMatchToken, lastMarkerMatchToken, sentence);
         if (ruleMatch != null) {
           ruleMatches.add(ruleMatch);
@@ -336,7 +336,7 @@ public class PatternToken implements Cloneable {
     if (tokenPos == null) {
       return false;
     }
-    return pos.posPattern != null ? pos.posPattern.matcher(tokenPos).matches() : pos.posTag.equals(tokenPos);
+    return pos.posRegex != null ? pos.posRegex.matches(token) : pos.posTag.equals(tokenPos);
   }
 
   private String getTestToken(AnalyzedToken token) {
@@ -704,6 +704,66 @@ public class PatternToken implements Cloneable {
     return result;
   }
 
+  /**
+   * @return all lemmas that this token can match, or {@code null} if it's not inflected or the lemmas can't be determined
+   */
+  @Nullable
+  Set<String> calcLemmaHints() {
+    if (!inflected || negation || orGroupList != null || !hasStringThatMustMatch()) {
+      return null;
+    }
+    return textMatcher.getPossibleValues();
+  }
+
+  /**
+   * @return all POS tags that this token can match, or {@code null} if they can't be determined
+   */
+  @Nullable
+  Set<String> calcPosTagHints() {
+    PosToken pos = getPosTokenForHints();
+    if (pos == null) {
+      return null;
+    }
+    return pos.posPattern == null ? Collections.singleton(pos.posTag) : StringMatcher.getPossibleRegexpValues(pos.posTag);
+  }
+
+  /**
+   * @return a prefix that all POS tags this token can match start with, or {@code null} if there's no such prefix
+   */
+  @Nullable
+  String calcPosTagPrefix() {
+    PosToken pos = getPosTokenForHints();
+    if (pos == null || pos.posPattern == null) {
+      return null;
+    }
+    Substrings required = StringMatcher.getRequiredSubstrings(pos.posTag);
+    if (required != null) {
+      return required.mustStart && !required.substrings[0].isEmpty() ? required.substrings[0] : null;
+    }
+    // getRequiredSubstrings gives up on common tag patterns like "NN.*", so take the literal start in simple cases:
+    String tag = pos.posTag;
+    if (tag.indexOf('|') >= 0) {
+      return null;
+    }
+    int end = 0;
+    while (end < tag.length() && (Character.isLetterOrDigit(tag.charAt(end)) || tag.charAt(end) == ':' || tag.charAt(end) == '_')) {
+      end++;
+    }
+    if (end < tag.length() && "?*{".indexOf(tag.charAt(end)) >= 0) {
+      end--;  // the last literal character is optional
+    }
+    return end > 0 ? tag.substring(0, end) : null;
+  }
+
+  @Nullable
+  private PosToken getPosTokenForHints() {
+    PosToken pos = posToken;
+    if (pos == null || pos.posTag == null || pos.negation || pos.posUnknown || orGroupList != null || tokenReference != null) {
+      return null;
+    }
+    return pos;
+  }
+
   @Nullable
   private Set<String> calcOwnPossibleStringValues() {
     if (negation || !hasStringThatMustMatch()) {
@@ -749,15 +809,18 @@ public class PatternToken implements Cloneable {
     private final String posTag;
     private final boolean negation;
     private final Pattern posPattern;
+    private final PosTagRegex posRegex;
     private final boolean posUnknown;
 
     public PosToken(String posTag, boolean regExp, boolean negation) {
       this.posTag = posTag;
       this.negation = negation;
       if (regExp) {
-        posPattern = Pattern.compile(posTag);
+        posRegex = PosTagRegex.get(posTag);
+        posPattern = posRegex.pattern;
         posUnknown = posPattern.matcher(UNKNOWN_TAG).matches();
       } else {
+        posRegex = null;
         posPattern = null;
         posUnknown = UNKNOWN_TAG.equals(posTag);
       }
@@ -0,0 +1,85 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.languagetool.AnalyzedToken;
+import org.languagetool.PosTagIds;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A POS tag regular expression that remembers for which POS tags (by {@link PosTagIds id}) it matched,
+ * so that each distinct regex is run at most once per tag. Instances are shared by all rules
+ * that use the same regex.
+ * @since 5.2
+ */
+final class PosTagRegex {
+
+  private static final Map<String, PosTagRegex> instances = new ConcurrentHashMap<>();
+
+  private static final byte UNKNOWN = 0;
+  private static final byte MATCH = 1;
+  private static final byte NO_MATCH = 2;
+
+  final Pattern pattern;
+  // the match result per tag id, grown on demand; a result missing due to concurrent growth just gets computed again:
+  private volatile byte[] results = new byte[0];
+
+  private PosTagRegex(String regex) {
+    pattern = Pattern.compile(regex);
+  }
+
+  static PosTagRegex get(String regex) {
+    return instances.computeIfAbsent(regex, PosTagRegex::new);
+  }
+
+  /**
+   * @return whether the token's POS tag, which must not be {@code null}, matches this regex
+   */
+  boolean matches(AnalyzedToken token) {
+    int id = token.getPosTagId();
+    if (id == PosTagIds.NO_ID) {
+      return pattern.matcher(token.getPOSTag()).matches();
+    }
+    byte[] results = this.results;
+    if (id < results.length && results[id] != UNKNOWN) {
+      return results[id] == MATCH;
+    }
+    boolean matches = pattern.matcher(token.getPOSTag()).matches();
+    store(id, matches);
+    return matches;
+  }
+
+  private synchronized void store(int id, boolean matches) {
+    byte[] results = this.results;
+    if (id >= results.length) {
+      results = Arrays.copyOf(results, Math.max(id + 1, PosTagIds.size()) + 64);
+    }
+    results[id] = matches ? MATCH : NO_MATCH;
+    this.results = results;
+  }
+
+  @Override
+  public String toString() {
+    return pattern.pattern();
+  }
+}
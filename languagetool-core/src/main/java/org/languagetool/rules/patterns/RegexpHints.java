@@ -0,0 +1,77 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The results of the analysis that {@link StringMatcher} does on regular expressions, keyed by
+ * the expression. Used to store that analysis in a {@link RuleBundle} instead of repeating it
+ * on every start. Not thread-safe, it's only used while loading rules.
+ * @since 5.2
+ */
+final class RegexpHints {
+
+  private final Map<String, Hint> hints = new HashMap<>();
+
+  @Nullable
+  Hint get(String regexp) {
+    return hints.get(regexp);
+  }
+
+  void put(String regexp, Hint hint) {
+    hints.put(regexp, hint);
+  }
+
+  Map<String, Hint> asMap() {
+    return Collections.unmodifiableMap(hints);
+  }
+
+  static final class Hint {
+    /** All values the expression can match, see {@link StringMatcher#getPossibleRegexpValues} */
+    @Nullable
+    final Set<String> possibleValues;
+    /** Substrings a match needs to contain, see {@link StringMatcher#getRequiredSubstrings} */
+    @Nullable
+    final Substrings substrings;
+    /** Whether the {@link #substrings} can replace the expression completely */
+    final boolean substringsAreSufficient;
+
+    Hint(@Nullable Set<String> possibleValues, @Nullable Substrings substrings, boolean substringsAreSufficient) {
+      this.possibleValues = possibleValues;
+      this.substrings = substrings;
+      this.substringsAreSufficient = substringsAreSufficient;
+    }
+
+    static Hint analyze(String regexp) {
+      Set<String> possibleValues = StringMatcher.getPossibleRegexpValues(regexp);
+      if (possibleValues != null) {
+        return new Hint(possibleValues, null, false);
+      }
+      Substrings required = StringMatcher.getRequiredSubstrings(regexp);
+      Substrings exhaustive = required == null ? null : required.checkCanReplaceRegex(regexp);
+      return exhaustive != null ? new Hint(null, exhaustive, true) : new Hint(null, required, false);
+    }
+  }
+}
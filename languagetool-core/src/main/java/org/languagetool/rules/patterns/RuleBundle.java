@@ -0,0 +1,506 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import com.google.common.io.ByteStreams;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.JLanguageTool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.*;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A precompiled form of a rule XML file like {@code grammar.xml} or {@code disambiguation.xml},
+ * created at build time by {@code org.languagetool.tools.RuleBundleBuilder}. It contains the SAX events
+ * of the parsed file (with entities already resolved and all strings in a table without duplicates) and
+ * the analysis of the regular expressions used in its tokens. Loading rules from a bundle skips the XML
+ * parsing and the regex analysis, and the regular expressions only get compiled when they're first used.
+ * A bundle is only used if it has been created from the same XML file by the same LanguageTool version,
+ * otherwise the XML file gets loaded as usual.
+ * @since 5.2
+ */
+public final class RuleBundle {
+
+  /** Appended to the name of the XML file to get the name of its bundle, e.g. {@code grammar.xml.bundle}. */
+  public static final String FILE_SUFFIX = ".bundle";
+
+  private static final Logger logger = LoggerFactory.getLogger(RuleBundle.class);
+
+  private static final int MAGIC = 0x4c545242;  // "LTRB"
+  private static final int FORMAT_VERSION = 1;
+
+  private static final byte END_OF_DOCUMENT = 0;
+  private static final byte START_ELEMENT = 1;
+  private static final byte END_ELEMENT = 2;
+  private static final byte CHARACTERS = 3;
+
+  private static final byte NO_HINT = 0;
+  private static final byte POSSIBLE_VALUES = 1;
+  private static final byte SUBSTRINGS = 2;
+  private static final byte SUFFICIENT_SUBSTRINGS = 3;
+
+  private final String sourceName;
+  private final ByteBuffer data;
+  private final int[] stringOffsets;
+  private final int[] stringLengths;
+  private final int hintsStart;
+
+  private RuleBundle(String sourceName, ByteBuffer data, int[] stringOffsets, int[] stringLengths, int hintsStart) {
+    this.sourceName = sourceName;
+    this.data = data;
+    this.stringOffsets = stringOffsets;
+    this.stringLengths = stringLengths;
+    this.hintsStart = hintsStart;
+  }
+
+  /**
+   * Like {@link #load(URL, URL)}, but returns {@code null} instead of throwing an exception if
+   * the bundle cannot be read, so that the caller can fall back to the XML file.
+   * @param bundleUrl location of the bundle, or {@code null} if there's none
+   */
+  @Nullable
+  public static RuleBundle loadIfCurrent(@Nullable URL bundleUrl, @Nullable URL xmlUrl) {
+    if (bundleUrl == null) {
+      return null;
+    }
+    try {
+      return load(bundleUrl, xmlUrl);
+    } catch (IOException e) {
+      logger.warn("Could not load rule bundle " + bundleUrl + ", using the XML file instead", e);
+      return null;
+    }
+  }
+
+  /**
+   * @param bundleUrl location of the bundle, which gets memory-mapped if it's a file
+   * @param xmlUrl location of the XML file the bundle has been created from, to check that the bundle
+   *               isn't stale, or {@code null} to skip that check
+   * @return the bundle, or {@code null} if it was created from another version of the XML file
+   *         or by another LanguageTool version
+   */
+  @Nullable
+  public static RuleBundle load(URL bundleUrl, @Nullable URL xmlUrl) throws IOException {
+    ByteBuffer data = read(bundleUrl);
+    try {
+      if (data.getInt() != MAGIC) {
+        throw new IOException("Not a rule bundle: " + bundleUrl);
+      }
+      int formatVersion = data.getInt();
+      if (formatVersion != FORMAT_VERSION) {
+        logger.info("Ignoring rule bundle {} of format version {}, expected {}", bundleUrl, formatVersion, FORMAT_VERSION);
+        return null;
+      }
+      String version = new String(readBytes(data, readVarInt(data)), StandardCharsets.UTF_8);
+      if (!version.equals(JLanguageTool.VERSION)) {
+        logger.info("Ignoring rule bundle {} of LanguageTool {}, expected {}", bundleUrl, version, JLanguageTool.VERSION);
+        return null;
+      }
+      long checksum = data.getLong();
+      if (xmlUrl != null) {
+        try (InputStream xml = xmlUrl.openStream()) {
+          if (checksum(xml) != checksum) {
+            logger.info("Ignoring rule bundle {}, {} has changed since it was created", bundleUrl, xmlUrl);
+            return null;
+          }
+        }
+      }
+      int stringCount = readVarInt(data);
+      int[] offsets = new int[stringCount];
+      int[] lengths = new int[stringCount];
+      for (int i = 0; i < stringCount; i++) {
+        lengths[i] = readVarInt(data);
+        offsets[i] = data.position();
+        data.position(offsets[i] + lengths[i]);
+      }
+      return new RuleBundle(xmlUrl != null ? xmlUrl.toString() : bundleUrl.toString(), data, offsets, lengths, data.position());
+    } catch (RuntimeException e) {  // BufferUnderflowException etc.
+      throw new IOException("Corrupt rule bundle: " + bundleUrl, e);
+    }
+  }
+
+  /**
+   * Send the content of the rule file to the given handler, as if it was parsed from XML.
+   */
+  public void replay(XMLRuleHandler handler) throws SAXException {
+    ByteBuffer buf = data.duplicate();
+    buf.position(hintsStart);
+    String[] strings = new String[stringOffsets.length];
+
+    RegexpHints hints = new RegexpHints();
+    int hintCount = readVarInt(buf);
+    for (int i = 0; i < hintCount; i++) {
+      String regexp = readString(buf, strings);
+      byte type = buf.get();
+      switch (type) {
+        case NO_HINT:
+          hints.put(regexp, new RegexpHints.Hint(null, null, false));
+          break;
+        case POSSIBLE_VALUES:
+          hints.put(regexp, new RegexpHints.Hint(new HashSet<>(Arrays.asList(readStrings(buf, strings))), null, false));
+          break;
+        case SUBSTRINGS:
+        case SUFFICIENT_SUBSTRINGS:
+          boolean mustStart = buf.get() != 0;
+          boolean mustEnd = buf.get() != 0;
+          int minLength = readVarInt(buf);
+          Substrings substrings = new Substrings(mustStart, mustEnd, readStrings(buf, strings), minLength);
+          hints.put(regexp, new RegexpHints.Hint(null, substrings, type == SUFFICIENT_SUBSTRINGS));
+          break;
+        default:
+          throw new SAXException("Corrupt rule bundle for " + sourceName + ": unknown hint type " + type);
+      }
+    }
+    handler.setRegexpHints(hints);
+
+    BundleLocator locator = new BundleLocator(sourceName);
+    handler.setDocumentLocator(locator);
+    handler.startDocument();
+    AttributesImpl attrs = new AttributesImpl();
+    while (true) {
+      byte event = buf.get();
+      switch (event) {
+        case START_ELEMENT:
+          String name = readString(buf, strings);
+          locator.line = readVarInt(buf);
+          locator.column = readVarInt(buf);
+          attrs.clear();
+          int attrCount = readVarInt(buf);
+          for (int i = 0; i < attrCount; i++) {
+            String attrName = readString(buf, strings);
+            attrs.addAttribute("", "", attrName, "CDATA", readString(buf, strings));
+          }
+          handler.startElement("", "", name, attrs);
+          break;
+        case END_ELEMENT:
+          handler.endElement("", "", readString(buf, strings));
+          break;
+        case CHARACTERS:
+          char[] chars = readString(buf, strings).toCharArray();
+          handler.characters(chars, 0, chars.length);
+          break;
+        case END_OF_DOCUMENT:
+          handler.endDocument();
+          return;
+        default:
+          throw new SAXException("Corrupt rule bundle for " + sourceName + ": unknown event type " + event);
+      }
+    }
+  }
+
+  /**
+   * Parse the given rule XML with the given handler, which checks the rules for errors, and write its bundle.
+   * @param sourceName used only for error messages
+   */
+  public static void write(InputStream xml, String sourceName, XMLRuleHandler handler, OutputStream out) throws IOException {
+    byte[] xmlBytes = ByteStreams.toByteArray(xml);
+    RegexpHints hints = new RegexpHints();
+    handler.setRegexpHints(hints);
+    Recorder recorder = new Recorder(handler);
+    try {
+      SAXParserFactory factory = SAXParserFactory.newInstance();
+      SAXParser saxParser = factory.newSAXParser();
+      saxParser.getXMLReader().setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+      saxParser.parse(new ByteArrayInputStream(xmlBytes), recorder);
+    } catch (Exception e) {
+      throw new IOException("Cannot load or parse input stream of '" + sourceName + "'", e);
+    }
+
+    ByteArrayOutputStream hintBytes = new ByteArrayOutputStream();
+    writeVarInt(hintBytes, hints.asMap().size());
+    for (Map.Entry<String, RegexpHints.Hint> entry : hints.asMap().entrySet()) {
+      RegexpHints.Hint hint = entry.getValue();
+      writeVarInt(hintBytes, recorder.index(entry.getKey()));
+      if (hint.possibleValues != null) {
+        hintBytes.write(POSSIBLE_VALUES);
+        recorder.writeStrings(hintBytes, hint.possibleValues.toArray(new String[0]));
+      } else if (hint.substrings != null) {
+        hintBytes.write(hint.substringsAreSufficient ? SUFFICIENT_SUBSTRINGS : SUBSTRINGS);
+        hintBytes.write(hint.substrings.mustStart ? 1 : 0);
+        hintBytes.write(hint.substrings.mustEnd ? 1 : 0);
+        writeVarInt(hintBytes, hint.substrings.minLength);
+        recorder.writeStrings(hintBytes, hint.substrings.substrings);
+      } else {
+        hintBytes.write(NO_HINT);
+      }
+    }
+
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(MAGIC);
+    dataOut.writeInt(FORMAT_VERSION);
+    byte[] version = JLanguageTool.VERSION.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(dataOut, version.length);
+    dataOut.write(version);
+    dataOut.writeLong(checksum(new ByteArrayInputStream(xmlBytes)));
+    writeVarInt(dataOut, recorder.strings.size());
+    for (String s : recorder.strings.keySet()) {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(dataOut, bytes.length);
+      dataOut.write(bytes);
+    }
+    hintBytes.writeTo(dataOut);
+    recorder.events.writeTo(dataOut);
+    dataOut.flush();
+  }
+
+  private static long checksum(InputStream in) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[64 * 1024];
+    int len;
+    while ((len = in.read(buffer)) != -1) {
+      crc.update(buffer, 0, len);
+    }
+    return crc.getValue();
+  }
+
+  private static ByteBuffer read(URL url) throws IOException {
+    if ("file".equals(url.getProtocol())) {
+      try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } catch (URISyntaxException ignored) {
+        // read it like any other URL
+      }
+    }
+    try (InputStream in = url.openStream()) {
+      return ByteBuffer.wrap(ByteStreams.toByteArray(in));
+    }
+  }
+
+  private String readString(ByteBuffer buf, String[] strings) {
+    int index = readVarInt(buf);
+    String s = strings[index];
+    if (s == null) {
+      s = strings[index] = decode(stringOffsets[index], stringLengths[index]);
+    }
+    return s;
+  }
+
+  private String[] readStrings(ByteBuffer buf, String[] strings) {
+    String[] result = new String[readVarInt(buf)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = readString(buf, strings);
+    }
+    return result;
+  }
+
+  private String decode(int offset, int length) {
+    if (data.hasArray()) {
+      return new String(data.array(), data.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+    }
+    ByteBuffer buf = data.duplicate();
+    buf.position(offset);
+    return new String(readBytes(buf, length), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(ByteBuffer buf, int length) {
+    byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return bytes;
+  }
+
+  private static int readVarInt(ByteBuffer buf) {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buf.get();
+      result |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  private static void writeVarInt(OutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /**
+   * Passes the SAX events on to the actual handler and records them.
+   */
+  private static final class Recorder extends DefaultHandler {
+    private final XMLRuleHandler handler;
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+    private final StringBuilder chars = new StringBuilder();
+    private Locator locator;
+
+    private Recorder(XMLRuleHandler handler) {
+      this.handler = handler;
+    }
+
+    private int index(String s) {
+      return strings.computeIfAbsent(s, k -> strings.size());
+    }
+
+    private void writeStrings(OutputStream out, String[] values) throws IOException {
+      writeVarInt(out, values.length);
+      for (String value : values) {
+        writeVarInt(out, index(value));
+      }
+    }
+
+    private void writeString(String s) throws SAXException {
+      try {
+        writeVarInt(events, index(s));
+      } catch (IOException e) {
+        throw new SAXException(e);  // doesn't happen with a ByteArrayOutputStream
+      }
+    }
+
+    private void writeInt(int value) throws SAXException {
+      try {
+        writeVarInt(events, value);
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+
+    // adjacent character events are merged, the handlers only collect the text anyway:
+    private void flushCharacters() throws SAXException {
+      if (chars.length() > 0) {
+        events.write(CHARACTERS);
+        writeString(chars.toString());
+        chars.setLength(0);
+      }
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+      this.locator = locator;
+      handler.setDocumentLocator(locator);
+    }
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) throws IOException, SAXException {
+      return handler.resolveEntity(publicId, systemId);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+      handler.startDocument();
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+      flushCharacters();
+      events.write(END_OF_DOCUMENT);
+      handler.endDocument();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+      flushCharacters();
+      events.write(START_ELEMENT);
+      writeString(qName);
+      writeInt(locator != null ? Math.max(locator.getLineNumber(), 0) : 0);
+      writeInt(locator != null ? Math.max(locator.getColumnNumber(), 0) : 0);
+      writeInt(attributes.getLength());
+      for (int i = 0; i < attributes.getLength(); i++) {
+        writeString(attributes.getQName(i));
+        writeString(attributes.getValue(i));
+      }
+      handler.startElement(uri, localName, qName, attributes);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      flushCharacters();
+      events.write(END_ELEMENT);
+      writeString(qName);
+      handler.endElement(uri, localName, qName);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+      chars.append(ch, start, length);
+      handler.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+      handler.ignorableWhitespace(ch, start, length);
+    }
+
+    @Override
+    public void warning(SAXParseException e) throws SAXException {
+      handler.warning(e);
+    }
+
+    @Override
+    public void error(SAXParseException e) throws SAXException {
+      handler.error(e);
+    }
+
+    @Override
+    public void fatalError(SAXParseException e) throws SAXException {
+      handler.fatalError(e);
+    }
+  }
+
+  /**
+   * Reports the position in the original XML file, for error messages.
+   */
+  private static final class BundleLocator implements Locator {
+    private final String systemId;
+    private int line;
+    private int column;
+
+    private BundleLocator(String systemId) {
+      this.systemId = systemId;
+    }
+
+    @Override
+    public String getPublicId() {
+      return null;
+    }
+
+    @Override
+    public String getSystemId() {
+      return systemId;
+    }
+
+    @Override
+    public int getLineNumber() {
+      return line;
+    }
+
+    @Override
+    public int getColumnNumber() {
+      return column;
+    }
+  }
+}
@@ -78,60 +78,161 @@ public abstract class RuleSet {
     return hinted(rules, false);
   }
 
+  /**
+   * Like {@link #textLemmaHinted(List)}, but re-uses the index of {@code base} for the rules that
+   * are also part of {@code base}, so that only the other rules need to be indexed. This makes creating
+   * RuleSets for many different selections from the same rules cheap.
+   * @param base a RuleSet created by {@link #textLemmaHinted(List)}
+   */
+  public static RuleSet textLemmaHinted(List<? extends Rule> rules, RuleSet base) {
+    if (!(base instanceof HintedRuleSet) || !((HintedRuleSet) base).withLemmaHints) {
+      throw new IllegalArgumentException("base must be created by textLemmaHinted(List)");
+    }
+    return new RuleSetView(rules, (HintedRuleSet) base);
+  }
+
   private static RuleSet hinted(List<? extends Rule> rules, boolean withLemmaHints) {
-    List<Rule> allRules = Collections.unmodifiableList(rules);
-    Map<String, BitSet> byToken = new HashMap<>();
-    Map<String, BitSet> byLemma = new HashMap<>();
-    BitSet unclassified = new BitSet();
-    for (int i = 0; i < allRules.size(); i++) {
-      Rule rule = allRules.get(i);
-      if (rule instanceof AbstractTokenBasedRule) {
-        String[] inflectedRuleTokens = new String[0];
-        if (withLemmaHints) {
-          inflectedRuleTokens = ((AbstractTokenBasedRule) rule).inflectedRuleTokens;
-          if (inflectedRuleTokens != null) {
-            byLemma.computeIfAbsent(inflectedRuleTokens[0], __ -> new BitSet()).set(i);
+    return new HintedRuleSet(rules, withLemmaHints);
+  }
+
+  private static class HintedRuleSet extends RuleSet {
+    private final List<Rule> allRules;
+    private final boolean withLemmaHints;
+    private final Map<String, BitSet> byToken = new HashMap<>();
+    private final Map<String, BitSet> byLemma = new HashMap<>();
+    private final BitSet unclassified = new BitSet();
+    private volatile Map<Rule, Integer> positions;
+
+    HintedRuleSet(List<? extends Rule> rules, boolean withLemmaHints) {
+      this.allRules = Collections.unmodifiableList(rules);
+      this.withLemmaHints = withLemmaHints;
+      for (int i = 0; i < allRules.size(); i++) {
+        Rule rule = allRules.get(i);
+        if (rule instanceof AbstractTokenBasedRule) {
+          String[] inflectedRuleTokens = new String[0];
+          if (withLemmaHints) {
+            inflectedRuleTokens = ((AbstractTokenBasedRule) rule).inflectedRuleTokens;
+            if (inflectedRuleTokens != null) {
+              byLemma.computeIfAbsent(inflectedRuleTokens[0], __ -> new BitSet()).set(i);
+            }
           }
-        }
-        String[][] formHints = ((AbstractTokenBasedRule) rule).formHints;
-        if (formHints != null) {
-          for (String token : formHints[0]) {
-            byToken.computeIfAbsent(token, __ -> new BitSet()).set(i);
+          String[][] formHints = ((AbstractTokenBasedRule) rule).formHints;
+          if (formHints != null) {
+            for (String token : formHints[0]) {
+              byToken.computeIfAbsent(token, __ -> new BitSet()).set(i);
+            }
+          } else if (inflectedRuleTokens == null || !withLemmaHints) {
+            unclassified.set(i);
           }
-        } else if (inflectedRuleTokens == null || !withLemmaHints) {
+        } else {
           unclassified.set(i);
         }
-      } else {
-        unclassified.set(i);
       }
     }
-    return new RuleSet() {
-      @Override
-      public List<Rule> allRules() {
-        return allRules;
-      }
 
-      @Override
-      public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
-        BitSet included = new BitSet();
-        included.or(unclassified);
-        if (!byLemma.isEmpty()) {
-          for (String lemma : sentence.getLemmaSet()) {
-            BitSet set = byLemma.get(lemma);
-            if (set != null) {
-              included.or(set);
-            }
-          }
-        }
-        for (String token : sentence.getTokenSet()) {
-          BitSet set = byToken.get(token);
+    @Override
+    public List<Rule> allRules() {
+      return allRules;
+    }
+
+    @Override
+    public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
+      return filterList(applicableRules(sentence), allRules);
+    }
+
+    /**
+     * @return the indices of the rules that might be applicable to the given sentence
+     */
+    BitSet applicableRules(AnalyzedSentence sentence) {
+      BitSet included = new BitSet();
+      included.or(unclassified);
+      if (!byLemma.isEmpty()) {
+        for (String lemma : sentence.getLemmaSet()) {
+          BitSet set = byLemma.get(lemma);
           if (set != null) {
             included.or(set);
           }
         }
-        return filterList(included, allRules);
       }
-    };
+      for (String token : sentence.getTokenSet()) {
+        BitSet set = byToken.get(token);
+        if (set != null) {
+          included.or(set);
+        }
+      }
+      return included;
+    }
+
+    /**
+     * @return the index of each rule, by identity
+     */
+    Map<Rule, Integer> positions() {
+      Map<Rule, Integer> result = positions;
+      if (result == null) {
+        result = new IdentityHashMap<>();
+        for (int i = 0; i < allRules.size(); i++) {
+          result.put(allRules.get(i), i);
+        }
+        positions = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A selection of rules, most of which are indexed by a shared {@link HintedRuleSet}.
+   */
+  private static class RuleSetView extends RuleSet {
+    private final List<Rule> allRules;
+    private final HintedRuleSet base;
+    private final BitSet inBase = new BitSet();
+    // the index in allRules of each rule of base, only set for the rules in inBase:
+    private final int[] baseToView;
+    private final HintedRuleSet others;
+    private final int[] othersToView;
+
+    RuleSetView(List<? extends Rule> rules, HintedRuleSet base) {
+      this.allRules = Collections.unmodifiableList(rules);
+      this.base = base;
+      this.baseToView = new int[base.allRules.size()];
+      Map<Rule, Integer> positions = base.positions();
+      List<Rule> otherRules = new ArrayList<>();
+      List<Integer> otherPositions = new ArrayList<>();
+      for (int i = 0; i < allRules.size(); i++) {
+        Integer pos = positions.get(allRules.get(i));
+        if (pos != null && !inBase.get(pos)) {
+          inBase.set(pos);
+          baseToView[pos] = i;
+        } else {
+          otherRules.add(allRules.get(i));
+          otherPositions.add(i);
+        }
+      }
+      this.others = new HintedRuleSet(otherRules, true);
+      this.othersToView = otherPositions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public List<Rule> allRules() {
+      return allRules;
+    }
+
+    @Override
+    public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
+      BitSet included = new BitSet(allRules.size());
+      BitSet fromBase = base.applicableRules(sentence);
+      fromBase.and(inBase);
+      for (int i = fromBase.nextSetBit(0); i >= 0; i = fromBase.nextSetBit(i + 1)) {
+        included.set(baseToView[i]);
+      }
+      if (othersToView.length > 0) {
+        BitSet fromOthers = others.applicableRules(sentence);
+        for (int i = fromOthers.nextSetBit(0); i >= 0; i = fromOthers.nextSetBit(i + 1)) {
+          included.set(othersToView[i]);
+        }
+      }
+      return filterList(included, allRules);
+    }
   }
 
   @ApiStatus.Internal
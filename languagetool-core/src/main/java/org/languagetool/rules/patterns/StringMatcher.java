@@ -19,6 +19,7 @@
 package org.languagetool.rules.patterns;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Sets;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,6 +27,7 @@ import org.languagetool.tools.InterruptibleCharSequence;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -62,16 +64,37 @@ abstract class StringMatcher {
   }
 
   static StringMatcher create(String pattern, boolean isRegExp, boolean caseSensitive, Function<String, String> internString) {
+    return create(pattern, isRegExp, caseSensitive, internString, null);
+  }
+
+  /**
+   * @param hints the analysis of regular expressions done earlier, e.g. when creating a {@link RuleBundle}.
+   *              Expressions found there have already been checked to be well-formed, so they only get
+   *              compiled when they're actually needed. The analysis of other expressions is added to it.
+   */
+  static StringMatcher create(String pattern, boolean isRegExp, boolean caseSensitive, Function<String, String> internString,
+                              @Nullable RegexpHints hints) {
     if (!isRegExp || "\\0".equals(pattern)) {
       return stringEquals(pattern, isRegExp, caseSensitive);
     }
 
-    // always compile the pattern to check it's well-formed
-    Pattern compiled = Pattern.compile(pattern, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+    RegexpHints.Hint hint = hints == null ? null : hints.get(pattern);
+    Supplier<Pattern> compiled;
+    if (hint == null) {
+      // always compile the pattern to check it's well-formed
+      Pattern precompiled = Pattern.compile(pattern, flags);
+      compiled = () -> precompiled;
+      hint = RegexpHints.Hint.analyze(pattern);
+      if (hints != null) {
+        hints.put(pattern, hint);
+      }
+    } else {
+      compiled = Suppliers.memoize(() -> Pattern.compile(pattern, flags));
+    }
 
-    Set<String> possibleRegexpValues = getPossibleRegexpValues(pattern);
-    if (possibleRegexpValues != null) {
-      Set<String> set = possibleRegexpValues.stream().map(internString).collect(Collectors.toSet());
+    if (hint.possibleValues != null) {
+      Set<String> set = hint.possibleValues.stream().map(internString).collect(Collectors.toSet());
       if (set.size() == 1) {
         return stringEquals(set.iterator().next(), true, caseSensitive);
       }
@@ -103,10 +126,8 @@ abstract class StringMatcher {
       };
     }
 
-    Substrings required = getRequiredSubstrings(pattern);
-    Substrings exhaustive = required == null ? null : required.checkCanReplaceRegex(pattern);
-    boolean substringsAreSufficient = exhaustive != null;
-    Substrings substrings = substringsAreSufficient ? exhaustive : required;
+    Substrings substrings = hint.substrings;
+    boolean substringsAreSufficient = hint.substringsAreSufficient;
 
     return new StringMatcher(pattern, true, caseSensitive) {
       @Nullable
@@ -119,7 +140,7 @@ abstract class StringMatcher {
       boolean matches(String s) {
         if (substrings != null && !substrings.matches(s, caseSensitive)) return false;
         if (substringsAreSufficient) return true;
-        return compiled.matcher(new InterruptibleCharSequence(s)).matches();
+        return compiled.get().matcher(new InterruptibleCharSequence(s)).matches();
       }
     };
   }
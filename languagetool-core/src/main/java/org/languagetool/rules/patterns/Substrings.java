@@ -29,7 +29,7 @@ import java.util.Arrays;
  */
 class Substrings {
   final String[] substrings;
-  private final int minLength;
+  final int minLength;
 
   /** Whether the first of {@link #substrings} must occur at the matched fragment start */
   final boolean mustStart;
@@ -41,7 +41,7 @@ class Substrings {
     this(mustStart, mustEnd, substrings, Arrays.stream(substrings).mapToInt(String::length).sum());
   }
 
-  private Substrings(boolean mustStart, boolean mustEnd, String[] substrings, int minLength) {
+  Substrings(boolean mustStart, boolean mustEnd, String[] substrings, int minLength) {
     this.substrings = substrings;
     this.mustStart = mustStart;
     this.mustEnd = mustEnd;
@@ -652,10 +652,21 @@ public class XMLRuleHandler extends DefaultHandler {
 
   private final Map<Triple<String, Boolean, Boolean>, StringMatcher> internedMatchers = new HashMap<>();
 
+  @Nullable
+  private RegexpHints regexpHints;
+
+  /**
+   * Use (and add to) the given analysis of regular expressions when creating token matchers.
+   * @since 5.2
+   */
+  void setRegexpHints(@Nullable RegexpHints regexpHints) {
+    this.regexpHints = regexpHints;
+  }
+
   private StringMatcher internMatcher(String text, boolean regexp, boolean caseSensitive) {
     text = internString(PatternToken.normalizeTextPattern(text));
     return internedMatchers.computeIfAbsent(Triple.of(text, regexp, caseSensitive), t ->
-      StringMatcher.create(t.getLeft(), t.getMiddle(), t.getRight(), this::internString));
+      StringMatcher.create(t.getLeft(), t.getMiddle(), t.getRight(), this::internString, regexpHints));
   }
 
   private final Map<Triple<String, Boolean, Boolean>, PatternToken.PosToken> internedPos = new HashMap<>();
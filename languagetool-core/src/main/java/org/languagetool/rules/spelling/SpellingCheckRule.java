@@ -212,6 +212,17 @@ public abstract class SpellingCheckRule extends Rule {
     return true;
   }
 
+  /**
+   * Whether the given word, which this rule considers misspelled, would be accepted if
+   * the given words were also ignored, e.g. because it's a compound that contains one of them.
+   * This lets callers apply words like those from a user's dictionary after the check, without
+   * creating a rule that knows about them. The words themselves are not accepted by this method.
+   * @since 5.2
+   */
+  public boolean isCompoundWithIgnoredWord(String word, Set<String> additionalWords) throws IOException {
+    return false;
+  }
+
   /**
    * Add the given words to the list of words to be ignored during spell check.
    * You might want to use {@link #acceptPhrases(List)} instead, as only that
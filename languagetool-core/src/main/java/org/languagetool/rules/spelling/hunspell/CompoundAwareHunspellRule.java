@@ -168,8 +168,9 @@ public abstract class CompoundAwareHunspellRule extends HunspellRule {
   protected List<String> getCandidates(List<String> parts) {
     int partCount = 0;
     List<String> candidates = new ArrayList<>();
+    boolean[] correctParts = hunspell.spell(parts);
     for (String part : parts) {
-      if (!hunspell.spell(part)) {
+      if (!correctParts[partCount]) {
         // assume noun, so use uppercase:
         boolean doUpperCase = partCount > 0 && !StringTools.startsWithUppercase(part);
         List<String> suggestions = morfoSpeller.getSuggestions(doUpperCase ? StringTools.uppercaseFirstChar(part) : part);
@@ -234,18 +235,24 @@ public abstract class CompoundAwareHunspellRule extends HunspellRule {
   // compound words with parts that are correct but the compound is not correct (e.g. "Arbeit + Amt = Arbeitamt"):
   private List<String> getCorrectWords(List<String> wordsOrPhrases) {
     List<String> result = new ArrayList<>();
+    // this might be a phrase like "aufgrund dessen", so it needs to be split, then all words
+    // get checked in one batch:
+    List<String[]> phrases = new ArrayList<>(wordsOrPhrases.size());
+    List<String> allWords = new ArrayList<>();
     for (String wordOrPhrase : wordsOrPhrases) {
-      // this might be a phrase like "aufgrund dessen", so it needs to be split: 
       String[] words = tokenizeText(wordOrPhrase);
+      phrases.add(words);
+      Collections.addAll(allWords, words);
+    }
+    boolean[] correct = hunspell.spell(allWords);
+    int wordIdx = 0;
+    for (int i = 0; i < phrases.size(); i++) {
       boolean wordIsOkay = true;
-      for (String word : words) {
-        if (!hunspell.spell(word)) {
-          wordIsOkay = false;
-          break;
-        }
+      for (int j = 0; j < phrases.get(i).length; j++) {
+        wordIsOkay &= correct[wordIdx++];
       }
       if (wordIsOkay) {
-        result.add(wordOrPhrase);
+        result.add(wordsOrPhrases.get(i));
       }
     }
     return result;
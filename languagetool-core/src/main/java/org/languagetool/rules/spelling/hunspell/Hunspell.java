@@ -6,15 +6,41 @@ import org.languagetool.JLanguageTool;
 import org.languagetool.broker.ResourceDataBroker;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+/**
+ * Access to a native Hunspell dictionary. A native Hunspell object must not be used by
+ * several threads at the same time, so this keeps a small pool of native handles per
+ * dictionary: a thread borrows a handle for each call (or for a whole batch of words,
+ * see {@link #spell(List)}). Additional handles are only created when threads actually
+ * compete for a handle, up to {@code -DhunspellHandles} (default: the number of processors,
+ * at most 4), as each handle holds its own copy of the dictionary in memory.
+ */
 public class Hunspell implements Closeable {
-  private final Pointer<HunspellLibrary.Hunhandle> handle;
-  private final Charset charset;
-  
+
+  private static final int MAX_HANDLES = Integer.getInteger("hunspellHandles", Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  private final Path dictionary;
+  private final Path affix;
+  private final int maxHandles;
+  // most recently used handles first, so that extra handles only get used under contention:
+  private final BlockingDeque<NativeHandle> idleHandles = new LinkedBlockingDeque<>();
+  private final List<NativeHandle> allHandles = new ArrayList<>();  // guarded by 'this'
+  // words added at runtime, in order, so that handles created (or borrowed) later can catch up:
+  private final List<String> addedWords = new CopyOnWriteArrayList<>();
+  private volatile boolean closed;
+
   private static final Map<LanguageAndPath, Hunspell> map = new HashMap<>();
   
   static class LanguageAndPath {
@@ -39,20 +65,42 @@ public class Hunspell implements Closeable {
   }
 
   public Hunspell(Path dictionary, Path affix) {
+    this(dictionary, affix, MAX_HANDLES);
+  }
+
+  /**
+   * @param maxHandles the maximum number of native handles, i.e. of threads that can use this object concurrently
+   * @since 5.2
+   */
+  public Hunspell(Path dictionary, Path affix, int maxHandles) {
+    if (maxHandles < 1) {
+      throw new IllegalArgumentException("maxHandles must be >= 1: " + maxHandles);
+    }
+    this.dictionary = dictionary;
+    this.affix = affix;
+    this.maxHandles = maxHandles;
+    // create the first handle now so that errors show up early:
+    NativeHandle first = createHandle();
+    allHandles.add(first);
+    idleHandles.add(first);
+  }
+
+  private NativeHandle createHandle() {
     try {
       Pointer<Byte> aff = Pointer.pointerToCString(affix.toString());
       Pointer<Byte> dic = Pointer.pointerToCString(dictionary.toString());
-      handle = HunspellLibrary.Hunspell_create(aff, dic);
-      charset = Charset.forName(HunspellLibrary.Hunspell_get_dic_encoding(handle).getCString());
-      if (this.handle == null) {
+      Pointer<HunspellLibrary.Hunhandle> handle = HunspellLibrary.Hunspell_create(aff, dic);
+      if (handle == null) {
         throw new RuntimeException("Unable to create Hunspell instance");
       }
+      Charset charset = Charset.forName(HunspellLibrary.Hunspell_get_dic_encoding(handle).getCString());
+      return new NativeHandle(handle, charset);
     } catch (UnsatisfiedLinkError e) {
       throw new RuntimeException("Could not create hunspell instance. Please note that LanguageTool supports only 64-bit platforms " +
         "(Linux, Windows, Mac) and that it requires a 64-bit JVM (Java).", e);
     }
   }
-  
+
   public static synchronized Hunspell getInstance(Path dictionary, Path affix) {
     LanguageAndPath key = new LanguageAndPath(dictionary, affix);
     Hunspell hunspell = map.get(key);
@@ -87,49 +135,189 @@ public class Hunspell implements Closeable {
   }
 
   public boolean spell(String word) {
-    if (handle == null) {
-      throw new RuntimeException("Attempt to use hunspell instance after closing");
+    NativeHandle handle = acquire();
+    try {
+      return handle.spell(word);
+    } finally {
+      release(handle);
+    }
+  }
+
+  /**
+   * Spell check several words, borrowing a native handle and its buffer only once
+   * for all of them.
+   * @return an array with {@code true} at the indexes of the correctly spelled words
+   * @since 5.2
+   */
+  public boolean[] spell(List<String> words) {
+    boolean[] result = new boolean[words.size()];
+    if (words.isEmpty()) {
+      return result;
+    }
+    NativeHandle handle = acquire();
+    try {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = handle.spell(words.get(i));
+      }
+    } finally {
+      release(handle);
     }
-    @SuppressWarnings("unchecked")
-    Pointer<Byte> str = (Pointer<Byte>) Pointer.pointerToString(word, Pointer.StringType.C, charset);
-    int result = HunspellLibrary.Hunspell_spell(handle, str);
-    return result != 0;
+    return result;
   }
 
   public void add(String word) {
-    if (handle == null) {
+    if (closed) {
       throw new RuntimeException("Attempt to use hunspell instance after closing");
     }
-    @SuppressWarnings("unchecked")
-    Pointer<Byte> str = (Pointer<Byte>) Pointer.pointerToString(word, Pointer.StringType.C, charset);
-    HunspellLibrary.Hunspell_add(handle, str);
+    addedWords.add(word);
   }
 
   public List<String> suggest(String word) {
-    // Create pointer to native string
-    @SuppressWarnings("unchecked")
-    Pointer<Byte> str = (Pointer<Byte>) Pointer.pointerToString(word, Pointer.StringType.C, charset);
-    // Create pointer to native string array
-    Pointer<Pointer<Pointer<Byte>>> nativeSuggestionArray = Pointer.allocatePointerPointer(Byte.class);
-    // Hunspell will allocate the array and fill it with suggestions
-    int suggestionCount = HunspellLibrary.Hunspell_suggest(handle, nativeSuggestionArray, str);
-    if (suggestionCount == 0) {
-      // Return early and don't try to free the array
-      return new ArrayList<>();
-    }
-    // Ask bridj for a `java.util.List` that wraps `nativeSuggestionArray`
-    List<Pointer<Byte>> nativeSuggestionList = nativeSuggestionArray.get().validElements(suggestionCount).asList();
-    // Convert C Strings to java strings
-    List<String> suggestions = nativeSuggestionList.stream().map(p -> p.getStringAtOffset(0, Pointer.StringType.C, charset)).collect(Collectors.toList());
-
-    // We can free the underlying buffer now because Java's `String` owns it's own memory
-    HunspellLibrary.Hunspell_free_list(handle, nativeSuggestionArray, suggestionCount);
-    return suggestions;
+    NativeHandle handle = acquire();
+    try {
+      return handle.suggest(word);
+    } finally {
+      release(handle);
+    }
   }
 
+  /**
+   * Destroys the native handles. Handles that are in use by other threads are destroyed when they
+   * are returned, not now, as the native code might still be using them.
+   */
+  @Override
   public void close() {
-    if (handle != null) {
+    closed = true;
+    destroyIdleHandles();
+  }
+
+  private void destroyIdleHandles() {
+    NativeHandle handle;
+    while ((handle = idleHandles.pollFirst()) != null) {
+      handle.close();
+    }
+  }
+
+  private NativeHandle acquire() {
+    if (closed) {
+      throw new RuntimeException("Attempt to use hunspell instance after closing");
+    }
+    NativeHandle handle = idleHandles.pollFirst();
+    if (handle == null) {
+      synchronized (this) {
+        if (!closed && allHandles.size() < maxHandles) {
+          handle = createHandle();
+          allHandles.add(handle);
+        }
+      }
+      while (handle == null) {
+        if (closed) {
+          throw new RuntimeException("Attempt to use hunspell instance after closing");
+        }
+        try {
+          // with a timeout, as nothing gets returned anymore once this has been closed:
+          handle = idleHandles.pollFirst(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException("Interrupted while waiting for a hunspell handle", e);
+        }
+      }
+    }
+    if (closed) {
+      release(handle);
+      throw new RuntimeException("Attempt to use hunspell instance after closing");
+    }
+    while (handle.addedWordCount < addedWords.size()) {
+      handle.add(addedWords.get(handle.addedWordCount++));
+    }
+    return handle;
+  }
+
+  private void release(NativeHandle handle) {
+    idleHandles.addFirst(handle);
+    if (closed) {
+      // close() has been called while the handle was in use, it's up to us to destroy it
+      // (polling makes sure every handle is only destroyed once):
+      destroyIdleHandles();
+    }
+  }
+
+  /**
+   * A native Hunspell object plus a native buffer for passing words to it, which gets
+   * reused for all calls instead of allocating native memory for each word.
+   * Only used by one thread at a time.
+   */
+  private static final class NativeHandle {
+
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
+    private final Pointer<HunspellLibrary.Hunhandle> handle;
+    private final CharsetEncoder encoder;
+    private ByteBuffer encoded = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private Pointer<Byte> buffer = Pointer.allocateBytes(INITIAL_BUFFER_SIZE);
+    private int addedWordCount;
+
+    private NativeHandle(Pointer<HunspellLibrary.Hunhandle> handle, Charset charset) {
+      this.handle = handle;
+      // same replacement behaviour as String.getBytes(), which BridJ uses for its strings:
+      this.encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private boolean spell(String word) {
+      return HunspellLibrary.Hunspell_spell(handle, toCString(word)) != 0;
+    }
+
+    private void add(String word) {
+      HunspellLibrary.Hunspell_add(handle, toCString(word));
+    }
+
+    private List<String> suggest(String word) {
+      // Create pointer to native string array
+      Pointer<Pointer<Pointer<Byte>>> nativeSuggestionArray = Pointer.allocatePointerPointer(Byte.class);
+      // Hunspell will allocate the array and fill it with suggestions
+      int suggestionCount = HunspellLibrary.Hunspell_suggest(handle, nativeSuggestionArray, toCString(word));
+      if (suggestionCount == 0) {
+        // Return early and don't try to free the array
+        return new ArrayList<>();
+      }
+      // Ask bridj for a `java.util.List` that wraps `nativeSuggestionArray`
+      List<Pointer<Byte>> nativeSuggestionList = nativeSuggestionArray.get().validElements(suggestionCount).asList();
+      // Convert C Strings to java strings
+      Charset charset = encoder.charset();
+      List<String> suggestions = nativeSuggestionList.stream().map(p -> p.getStringAtOffset(0, Pointer.StringType.C, charset)).collect(Collectors.toList());
+
+      // We can free the underlying buffer now because Java's `String` owns it's own memory
+      HunspellLibrary.Hunspell_free_list(handle, nativeSuggestionArray, suggestionCount);
+      return suggestions;
+    }
+
+    /**
+     * Encode the word into the reused native buffer as a zero-terminated C string.
+     */
+    private Pointer<Byte> toCString(String word) {
+      int maxBytes = (int) Math.ceil(word.length() * (double) encoder.maxBytesPerChar()) + 1;
+      if (encoded.capacity() < maxBytes) {
+        encoded = ByteBuffer.allocate(maxBytes * 2);
+      }
+      encoded.clear();
+      encoder.reset();
+      encoder.encode(CharBuffer.wrap(word), encoded, true);
+      encoder.flush(encoded);
+      int length = encoded.position();
+      if (buffer.getValidBytes() < length + 1) {
+        buffer.release();
+        buffer = Pointer.allocateBytes(encoded.capacity());
+      }
+      buffer.setBytesAtOffset(0, encoded.array(), 0, length);
+      buffer.setByteAtIndex(length, (byte) 0);
+      return buffer;
+    }
+
+    private void close() {
       HunspellLibrary.Hunspell_destroy(handle);
+      buffer.release();
     }
   }
 }
@@ -34,7 +34,8 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Morfologik-based spell checker.
+ * Morfologik-based spell checker. Thread-safe: each thread uses its own {@link Speller}
+ * (which keeps internal buffers) on top of the shared, immutable {@link Dictionary}.
  */
 public class MorfologikSpeller {
 
@@ -57,7 +58,7 @@ public class MorfologikSpeller {
       });
 
   private final Dictionary dictionary;
-  private final Speller speller;
+  private final ThreadLocal<Speller> speller;
   private final int maxEditDistance;
 
   /**
@@ -83,28 +84,27 @@ public class MorfologikSpeller {
     }
     this.dictionary = dictionary;
     this.maxEditDistance = maxEditDistance;
-    speller = new Speller(dictionary, maxEditDistance);
+    speller = ThreadLocal.withInitial(() -> new Speller(dictionary, maxEditDistance));
   }
 
   public boolean isMisspelled(String word) {
     if (word.isEmpty() || SpellingCheckRule.LANGUAGETOOL.equals(word) || SpellingCheckRule.LANGUAGETOOLER.equals(word)) {
       return false;
     }
-    synchronized (this) {
-      return speller.isMisspelled(word);
-    }
+    return speller.get().isMisspelled(word);
   }
 
-  public synchronized List<String> findReplacements(String word) {
-    return speller.findReplacements(word);
+  public List<String> findReplacements(String word) {
+    return speller.get().findReplacements(word);
   }
 
   /**
-   * @deprecated use (or introduce) other methods to this class which would take care of the necessary synchronization
+   * @return the speller of the calling thread, which must not be passed to other threads
+   * @deprecated use (or introduce) other methods to this class
    */
   @Deprecated
   public Speller getSpeller() {
-    return speller;
+    return speller.get();
   }
 
   public List<WeightedSuggestion> getSuggestions(String word) {
@@ -188,7 +188,7 @@ public class MorfologikSpeller {
    * @since 2.5
    */
   public boolean convertsCase() {
-    return speller.convertsCase();
+    return dictionary.metadata.isConvertingCase();
   }
 
   @Override
@@ -196,7 +196,8 @@ public class MorfologikSpeller {
     return "dist=" + maxEditDistance;
   }
 
-  public synchronized int getFrequency(String word) {
+  public int getFrequency(String word) {
+    Speller speller = this.speller.get();
     int freq = speller.getFrequency(word);
     if (freq == 0 && !word.equals(word.toLowerCase())) {
       freq = speller.getFrequency(word.toLowerCase());
@@ -46,7 +46,7 @@ public class BaseSynthesizer implements Synthesizer {
 
   private final String tagFileName;
   private final String resourceFileName;
-  private final IStemmer stemmer;
+  private final ThreadLocal<IStemmer> stemmer;  // stemmers are not thread-safe, the dictionary is
   private final ManualSynthesizer manualSynthesizer;
   private final ManualSynthesizer removalSynthesizer;
   private final String sorosFileName;
@@ -61,7 +61,8 @@ public class BaseSynthesizer implements Synthesizer {
   public BaseSynthesizer(String sorosFileName, String resourceFileName, String tagFileName, Language lang) {
     this.resourceFileName = resourceFileName;
     this.tagFileName = tagFileName;
-    this.stemmer = createStemmer();
+    this.stemmer = ThreadLocal.withInitial(this::createStemmer);
+    this.stemmer.get();  // fail early if the dictionary can't be loaded
     this.sorosFileName = sorosFileName;
     this.numberSpeller = createNumberSpeller(lang.getShortCode());
     try {
@@ -148,11 +149,9 @@ public class BaseSynthesizer implements Synthesizer {
    */
   protected List<String> lookup(String lemma, String posTag) {
     List<String> results = new ArrayList<>();
-    synchronized (this) { // the stemmer is not thread-safe
-      List<WordData> wordForms = stemmer.lookup(lemma + "|" + posTag);
-      for (WordData wd : wordForms) {
-        results.add(wd.getStem().toString());
-      }
+    List<WordData> wordForms = stemmer.get().lookup(lemma + "|" + posTag);
+    for (WordData wd : wordForms) {
+      results.add(wd.getStem().toString());
     }
     if (manualSynthesizer != null) {
       List<String> manualForms = manualSynthesizer.lookup(lemma, posTag);
@@ -215,10 +214,10 @@ public class BaseSynthesizer implements Synthesizer {
 
   /**
    * @since 2.5
-   * @return the stemmer interface to be used.
+   * @return the stemmer of the calling thread, which must not be passed to other threads
    */
   public IStemmer getStemmer() {
-    return stemmer;
+    return stemmer.get();
   }
 
   protected void initPossibleTags() throws IOException {
@@ -47,6 +47,7 @@ public abstract class BaseTagger implements Tagger {
   private final boolean tagLowercaseWithUppercase;
   private final String dictionaryPath;
   private final Dictionary dictionary;
+  private final WordTagCache wordTagCache = WordTagCache.DEFAULT_MAX_SIZE > 0 ? new WordTagCache(WordTagCache.DEFAULT_MAX_SIZE) : null;
 
   /**
    * Get the filenames for manual additions, e.g., {@code /en/added.txt}.
@@ -174,13 +175,41 @@ public abstract class BaseTagger implements Tagger {
     List<AnalyzedTokenReadings> tokenReadings = new ArrayList<>();
     int pos = 0;
     for (String word : sentenceTokens) {
-      List<AnalyzedToken> l = getAnalyzedTokens(word);
+      List<AnalyzedToken> l = getCachedAnalyzedTokens(word);
       tokenReadings.add(new AnalyzedTokenReadings(l, pos));
       pos += word.length();
     }
     return tokenReadings;
   }
 
+  /**
+   * Like {@link #getAnalyzedTokens(String)}, but uses the {@link #getWordTagCache() cache} of word forms.
+   * @since 5.2
+   */
+  protected final List<AnalyzedToken> getCachedAnalyzedTokens(String word) {
+    return wordTagCache != null ? wordTagCache.get(word, this::getAnalyzedTokens) : getAnalyzedTokens(word);
+  }
+
+  /**
+   * The cache used by {@link #tag(List)}, or {@code null} if caching is disabled
+   * (with the system property {@code taggerCacheSize=0}).
+   * @since 5.2
+   */
+  @Nullable
+  public WordTagCache getWordTagCache() {
+    return wordTagCache;
+  }
+
+  /**
+   * Tag the words of a frequency list (one word per line, most frequent first) to fill the cache of word forms.
+   * @since 5.2
+   */
+  public void warmUpCache(InputStream frequencyList) throws IOException {
+    if (wordTagCache != null) {
+      wordTagCache.warmUp(frequencyList, this::getAnalyzedTokens);
+    }
+  }
+
   protected List<AnalyzedToken> getAnalyzedTokens(String word) {
     List<AnalyzedToken> result = new ArrayList<>();
     String lowerWord = word.toLowerCase(locale);
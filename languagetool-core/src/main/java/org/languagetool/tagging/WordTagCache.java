@@ -0,0 +1,149 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tagging;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.languagetool.AnalyzedToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of the readings of word forms, for taggers that tag a word independent of its context.
+ * Natural text uses a small number of words very often, so most lookups in the dictionaries can be avoided.
+ * As {@link AnalyzedToken}s are mutable, the readings are kept as plain data and each lookup
+ * returns new {@link AnalyzedToken}s.
+ * @since 5.2
+ */
+public final class WordTagCache {
+
+  /** The default maximum number of word forms, can be set with the system property {@code taggerCacheSize} (0 to disable the cache) */
+  public static final long DEFAULT_MAX_SIZE = Long.getLong("taggerCacheSize", 50_000);
+
+  private final Cache<String, Readings> cache;
+  private final long maxSize;
+
+  /**
+   * @param maxSize the maximum number of word forms in the cache
+   */
+  public WordTagCache(long maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Tagger cache size must be >= 0: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+  }
+
+  /**
+   * @param tagger computes the readings of a word form that's not in the cache yet
+   * @return new {@link AnalyzedToken}s with the readings of the given word form
+   */
+  public List<AnalyzedToken> get(String word, Function<String, List<AnalyzedToken>> tagger) {
+    Readings readings = cache.getIfPresent(word);
+    if (readings == null) {
+      List<AnalyzedToken> tokens = tagger.apply(word);
+      cache.put(word, new Readings(tokens));
+      return tokens;
+    }
+    return readings.toAnalyzedTokens();
+  }
+
+  /**
+   * Fill the cache with the given word forms, e.g. the most frequent words of a language.
+   */
+  public void warmUp(Iterable<String> words, Function<String, List<AnalyzedToken>> tagger) {
+    for (String word : words) {
+      if (cache.size() >= maxSize) {
+        break;
+      }
+      get(word, tagger);
+    }
+  }
+
+  /**
+   * Fill the cache with the word forms from a frequency list with one word per line, most
+   * frequent first. Anything after the first tab or space of a line (e.g. a count) is ignored,
+   * as are empty lines and lines starting with {@code #}.
+   */
+  public void warmUp(InputStream frequencyList, Function<String, List<AnalyzedToken>> tagger) throws IOException {
+    List<String> words = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(frequencyList, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null && words.size() < maxSize) {
+        String word = line.trim().split("[\t ]", 2)[0];
+        if (!word.isEmpty() && !word.startsWith("#")) {
+          words.add(word);
+        }
+      }
+    }
+    warmUp(words, tagger);
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Hit and miss counts and the number of evicted word forms.
+   */
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static final class Readings {
+    private final String[] data;  // token, POS tag and lemma of each reading
+    private final boolean[] noTag;
+
+    private Readings(List<AnalyzedToken> tokens) {
+      data = new String[tokens.size() * 3];
+      noTag = new boolean[tokens.size()];
+      for (int i = 0; i < tokens.size(); i++) {
+        AnalyzedToken token = tokens.get(i);
+        data[i * 3] = token.getToken();
+        data[i * 3 + 1] = token.getPOSTag();
+        data[i * 3 + 2] = token.getLemma();
+        noTag[i] = token.hasNoTag();
+      }
+    }
+
+    private List<AnalyzedToken> toAnalyzedTokens() {
+      List<AnalyzedToken> tokens = new ArrayList<>(noTag.length);
+      for (int i = 0; i < noTag.length; i++) {
+        AnalyzedToken token = new AnalyzedToken(data[i * 3], data[i * 3 + 1], data[i * 3 + 2]);
+        if (token.hasNoTag() != noTag[i]) {
+          token.setNoPOSTag(noTag[i]);
+        }
+        tokens.add(token);
+      }
+      return tokens;
+    }
+  }
+}
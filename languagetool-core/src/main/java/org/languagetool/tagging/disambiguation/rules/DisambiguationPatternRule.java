@@ -45,6 +45,7 @@ public class DisambiguationPatternRule extends AbstractTokenBasedRule {
   private AnalyzedToken[] newTokenReadings;
   private List<DisambiguatedExample> examples = Collections.emptyList();
   private List<String> untouchedExamples = Collections.emptyList();
+  private volatile List<PatternRule> antiPatternRules;
 
   /**
    * @param id Id of the Rule
@@ -93,6 +94,22 @@ public class DisambiguationPatternRule extends AbstractTokenBasedRule {
     return canBeIgnoredFor(sentence) ? sentence : new DisambiguationPatternRuleReplacer(this).replace(sentence);
   }
 
+  /**
+   * The anti-patterns as {@link PatternRule}s for matching them against a sentence, created once.
+   */
+  List<PatternRule> getAntiPatternRules() {
+    List<DisambiguationPatternRule> antiPatterns = getAntiPatterns();
+    List<PatternRule> result = antiPatternRules;
+    if (result == null || result.size() != antiPatterns.size()) {  // anti-patterns can only be added
+      List<PatternRule> rules = new ArrayList<>(antiPatterns.size());
+      for (DisambiguationPatternRule antiPattern : antiPatterns) {
+        rules.add(new PatternRule("fake-disambig-id", getLanguage(), antiPattern.getPatternTokens(), "desc", "msg", "short"));
+      }
+      antiPatternRules = result = rules;
+    }
+    return result;
+  }
+
   public void setExamples(List<DisambiguatedExample> examples) {
     this.examples = Objects.requireNonNull(examples);
   }
@@ -48,9 +48,8 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
     List<PatternTokenMatcher> patternTokenMatchers = createElementMatchers();
 
     AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
-    AnalyzedTokenReadings[] preDisambigTokens = sentence.getTokens();
-    AnalyzedTokenReadings[][] whTokens = {sentence.getTokens()};
-    boolean[] changed = {false};
+    // copied on the first change only, and then changed in place by all matches of the rule:
+    AnalyzedTokenReadings[][] whTokens = {null};
 
     doMatch(patternTokenMatchers, tokens, (tokenPositions, firstMatchToken, lastMatchToken, firstMarkerMatchToken, lastMarkerMatchToken) -> {
       int ruleMatchFromPos = -1;
@@ -67,20 +66,20 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
       }
       int matchingTokens = (int)Arrays.stream(tokenPositions).filter(i -> i != 0).count();
       if (keepDespiteFilter(tokens, tokenPositions, firstMatchToken, lastMatchToken) && keepByDisambig(sentence, ruleMatchFromPos, ruleMatchToPos)) {
-        whTokens[0] = executeAction(sentence, whTokens[0], unifiedTokens, firstMatchToken, lastMarkerMatchToken, matchingTokens, tokenPositions);
-        changed[0] = true;
+        if (whTokens[0] == null) {
+          whTokens[0] = sentence.getTokens().clone();
+        }
+        executeAction(sentence, whTokens[0], unifiedTokens, firstMatchToken, lastMarkerMatchToken, matchingTokens, tokenPositions);
       }
     });
-    if (changed[0]) {
-      return new AnalyzedSentence(whTokens[0], preDisambigTokens);
+    if (whTokens[0] != null) {
+      return sentence.withDisambiguatedTokens(whTokens[0]);
     }
     return sentence;
   }
 
   private boolean keepByDisambig(AnalyzedSentence sentence, int ruleMatchFromPos, int ruleMatchToPos) throws IOException {
-    List<DisambiguationPatternRule> antiPatterns = rule.getAntiPatterns();
-    for (DisambiguationPatternRule antiPattern : antiPatterns) {
-      PatternRule disambigRule = new PatternRule("fake-disambig-id", rule.getLanguage(), antiPattern.getPatternTokens(), "desc", "msg", "short");
+    for (PatternRule disambigRule : ((DisambiguationPatternRule) rule).getAntiPatternRules()) {
       RuleMatch[] matches = disambigRule.match(sentence);
       if (matches != null) {
         for (RuleMatch disMatch : matches) {
@@ -108,12 +107,12 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
     return true;
   }
 
-  private AnalyzedTokenReadings[] executeAction(AnalyzedSentence sentence,
-                                                AnalyzedTokenReadings[] whiteTokens,
-                                                AnalyzedTokenReadings[] unifiedTokens,
-                                                int firstMatchToken, int lastMatchToken,
-                                                int matchingTokens, int[] tokenPositions) {
-    AnalyzedTokenReadings[] whTokens = whiteTokens.clone();
+  // changes whTokens in place
+  private void executeAction(AnalyzedSentence sentence,
+                             AnalyzedTokenReadings[] whTokens,
+                             AnalyzedTokenReadings[] unifiedTokens,
+                             int firstMatchToken, int lastMatchToken,
+                             int matchingTokens, int[] tokenPositions) {
     DisambiguationPatternRule rule = (DisambiguationPatternRule) this.rule;
 
     int correctedStPos = 0;
@@ -324,8 +323,6 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
           matchElementState.filterReadings();
         }
       }
-
-    return whTokens;
   }
 
 }
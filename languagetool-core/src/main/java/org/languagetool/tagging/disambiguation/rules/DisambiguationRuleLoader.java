@@ -18,6 +18,7 @@
  */
 package org.languagetool.tagging.disambiguation.rules;
 
+import org.languagetool.rules.patterns.RuleBundle;
 import org.languagetool.tools.Tools;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -27,6 +28,7 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -47,4 +49,23 @@ public class DisambiguationRuleLoader extends DefaultHandler {
     return handler.getDisambRules();
   }
 
+  /**
+   * Like {@link #getRules(InputStream)}, but loads the rules from a precompiled bundle.
+   * @since 5.2
+   */
+  public final List<DisambiguationPatternRule> getRules(RuleBundle bundle) throws SAXException {
+    DisambiguationRuleHandler handler = new DisambiguationRuleHandler();
+    bundle.replay(handler);
+    return handler.getDisambRules();
+  }
+
+  /**
+   * Write the precompiled bundle for the given disambiguation rules, see {@link RuleBundle}.
+   * @param filename used only for exception messages
+   * @since 5.2
+   */
+  public final void writeBundle(InputStream stream, String filename, OutputStream out) throws IOException {
+    RuleBundle.write(stream, filename, new DisambiguationRuleHandler(), out);
+  }
+
 }
@@ -22,13 +22,16 @@ package org.languagetool.tagging.disambiguation.rules;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.broker.ResourceDataBroker;
 import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.RuleBundle;
 import org.languagetool.rules.patterns.RuleSet;
 import org.languagetool.tagging.disambiguation.AbstractDisambiguator;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Objects;
 
@@ -69,7 +72,17 @@ public class XmlRuleDisambiguator extends AbstractDisambiguator {
    */
   protected List<DisambiguationPatternRule> loadPatternRules(String filename) throws ParserConfigurationException, SAXException, IOException {
     DisambiguationRuleLoader ruleLoader = new DisambiguationRuleLoader();
-    return ruleLoader.getRules(JLanguageTool.getDataBroker().getFromResourceDirAsStream(filename));
+    ResourceDataBroker dataBroker = JLanguageTool.getDataBroker();
+    String bundleFile = filename + RuleBundle.FILE_SUFFIX;
+    if (dataBroker.resourceExists(bundleFile)) {
+      RuleBundle bundle = RuleBundle.loadIfCurrent(dataBroker.getFromResourceDirAsUrl(bundleFile), dataBroker.getFromResourceDirAsUrl(filename));
+      if (bundle != null) {
+        return ruleLoader.getRules(bundle);
+      }
+    }
+    try (InputStream stream = dataBroker.getFromResourceDirAsStream(filename)) {
+      return ruleLoader.getRules(stream);
+    }
   }
 
 }
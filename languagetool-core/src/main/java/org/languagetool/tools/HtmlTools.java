@@ -27,7 +27,8 @@ import java.util.regex.Pattern;
 public class HtmlTools {
   public static class HtmlAnonymizer {
     public static final String DEFAULT_TAG = "tag";
-    private static final XPath xPath = XPathFactory.newInstance().newXPath();
+    // XPath objects are not thread-safe:
+    private static final ThreadLocal<XPath> xPath = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
 
     private String title;
     private String wikiText;
@@ -52,7 +53,7 @@ public class HtmlTools {
       DocumentBuilder db = dbf.newDocumentBuilder();
       Document doc = db.parse(new InputSource(new StringReader(html)));
       try {
-        cssUrl = (String) xPath.compile("/html/head/link[@rel='stylesheet']/@href").evaluate(doc, XPathConstants.STRING);
+        cssUrl = (String) xPath.get().compile("/html/head/link[@rel='stylesheet']/@href").evaluate(doc, XPathConstants.STRING);
       } catch (XPathExpressionException e) {
         System.err.println("No css stylesheet detected in " + title);
       }
@@ -217,7 +218,7 @@ public class HtmlTools {
     private static Long currentArticleId;
     private static Document currentArticleDocument;
 
-    public static Document parseArticle(String articleHtml, Long articleId) {
+    public static synchronized Document parseArticle(String articleHtml, Long articleId) {
       if (!articleId.equals(currentArticleId)) {
         DocumentBuilder docBuilder;
         try {
@@ -31,6 +31,7 @@ import org.languagetool.rules.patterns.AbstractPatternRule;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,7 +45,7 @@ public class RuleMatchesAsJsonSerializer {
   private static final String STATUS = "";
   private static final String PREMIUM_HINT = "You might be missing errors only the Premium version can find. Contact us at support<at>languagetoolplus.com.";
   private static final String START_MARKER = "__languagetool_start_marker";
-  private static final JsonFactory factory = new JsonFactory();
+  private static final JsonFactory factory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
   
   private final int compactMode;
   private final Language lang;
@@ -89,29 +90,40 @@ public class RuleMatchesAsJsonSerializer {
    */
   public String ruleMatchesToJson(List<RuleMatch> matches, List<RuleMatch> hiddenMatches, AnnotatedText text, int contextSize,
                                   DetectedLanguage detectedLang, String incompleteResultsReason, boolean showPremiumHint) {
-    ContextTools contextTools = new ContextTools();
-    contextTools.setEscapeHtml(false);
-    contextTools.setContextSize(contextSize);
-    contextTools.setErrorMarker(START_MARKER, "");
     StringWriter sw = new StringWriter();
     try {
-      try (JsonGenerator g = factory.createGenerator(sw)) {
-        g.writeStartObject();
-        writeSoftwareSection(g, showPremiumHint);
-        writeWarningsSection(g, incompleteResultsReason);
-        writeLanguageSection(g, detectedLang);
-        writeMatchesSection("matches", g, matches, text, contextTools);
-        if (hiddenMatches != null && hiddenMatches.size() > 0) {
-          writeMatchesSection("hiddenMatches", g, hiddenMatches, text, contextTools);
-        }
-        g.writeEndObject();
-      }
+      ruleMatchesToJson(sw, matches, hiddenMatches, text, contextSize, detectedLang, incompleteResultsReason, showPremiumHint);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
     return sw.toString();
   }
 
+  /**
+   * Like {@link #ruleMatchesToJson(List, List, AnnotatedText, int, DetectedLanguage, String, boolean)}, but
+   * writes the JSON directly to {@code writer} instead of building a string first. The writer is flushed,
+   * but not closed.
+   * @since 5.2
+   */
+  public void ruleMatchesToJson(Writer writer, List<RuleMatch> matches, List<RuleMatch> hiddenMatches, AnnotatedText text, int contextSize,
+                                DetectedLanguage detectedLang, String incompleteResultsReason, boolean showPremiumHint) throws IOException {
+    ContextTools contextTools = new ContextTools();
+    contextTools.setEscapeHtml(false);
+    contextTools.setContextSize(contextSize);
+    contextTools.setErrorMarker(START_MARKER, "");
+    try (JsonGenerator g = factory.createGenerator(writer)) {
+      g.writeStartObject();
+      writeSoftwareSection(g, showPremiumHint);
+      writeWarningsSection(g, incompleteResultsReason);
+      writeLanguageSection(g, detectedLang);
+      writeMatchesSection("matches", g, matches, text, contextTools);
+      if (hiddenMatches != null && hiddenMatches.size() > 0) {
+        writeMatchesSection("hiddenMatches", g, hiddenMatches, text, contextTools);
+      }
+      g.writeEndObject();
+    }
+  }
+
   private void writeSoftwareSection(JsonGenerator g, boolean showPremiumHint) throws IOException {
     if (compactMode == 1) {
       return;
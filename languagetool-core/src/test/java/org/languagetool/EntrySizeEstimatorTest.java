@@ -0,0 +1,62 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EntrySizeEstimatorTest {
+
+  @Test
+  public void testShallowSize() {
+    // the sizes of the HotSpot object layout on a 64-bit JVM with compressed references:
+    assertThat(EntrySizeEstimator.shallowSize(Object.class), is(16L));
+    assertThat(EntrySizeEstimator.shallowSize(Integer.class), is(16L));
+    assertThat(EntrySizeEstimator.shallowSize(Long.class), is(24L));
+    assertThat(EntrySizeEstimator.shallowSize(Fields.class), is(32L));
+    assertThat(EntrySizeEstimator.shallowSize(MoreFields.class), is(40L));
+  }
+
+  @Test
+  public void testImplementationClassesExist() throws ClassNotFoundException {
+    // the estimator falls back to fixed sizes if these get renamed:
+    Class.forName("com.google.common.cache.LocalCache$StrongAccessEntry");
+    Class.forName("com.google.common.cache.LocalCache$WeightedStrongValueReference");
+    Class.forName("java.util.concurrent.ConcurrentHashMap$Node");
+    Class.forName("java.util.HashMap$Node");
+    Class.forName("org.languagetool.rules.RuleMatch$OffsetPosition");
+  }
+
+  @SuppressWarnings("unused")
+  private static class Fields {
+    private int i;
+    private long l;
+    private Object o;
+  }
+
+  @SuppressWarnings("unused")
+  private static class MoreFields extends Fields {
+    private boolean b;
+    private short s;
+    private Object o2;
+  }
+
+}
@@ -29,10 +29,12 @@ import org.languagetool.rules.patterns.AbstractPatternRule;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 @SuppressWarnings("ResultOfObjectAllocationIgnored")
@@ -52,6 +54,26 @@ public class MultiThreadedJLanguageToolTest {
     assertEquals(ruleMatchIds1, ruleMatchIds2);
   }
   
+  @Test
+  public void testCheckLongTextSplitIntoChunks() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      sb.append("A small toast. No error here. Foo go bar. First goes last there, please!\n\n");
+    }
+    String text = sb.toString();
+    JLanguageTool lt1 = new JLanguageTool(new Demo());
+    lt1.setCleanOverlappingMatches(false);
+    List<RuleMatch> expected = lt1.check(text);
+    MultiThreadedJLanguageTool lt2 = new MultiThreadedJLanguageTool(new Demo(), 4);
+    lt2.setCleanOverlappingMatches(false);
+    // the second run uses the rule costs measured in the first run:
+    for (int i = 0; i < 2; i++) {
+      List<RuleMatch> matches = lt2.check(text);
+      assertEquals(expected.toString(), matches.toString());
+    }
+    lt2.shutdown();
+  }
+
   @Test
   public void testShutdownException() throws IOException {
     MultiThreadedJLanguageTool tool = new MultiThreadedJLanguageTool(new Demo());
@@ -92,6 +114,36 @@ public class MultiThreadedJLanguageToolTest {
     return ruleMatchIds;
   }
 
+  private static class NonThreadSafeRule extends Rule {
+    private final AtomicBoolean inUse = new AtomicBoolean();
+    private volatile boolean usedConcurrently;
+
+    @Override
+    public String getId() {
+      return "NON_THREAD_SAFE_RULE";
+    }
+
+    @Override
+    public String getDescription() {
+      return "A rule that must not be used by several threads at the same time";
+    }
+
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      if (!inUse.compareAndSet(false, true)) {
+        usedConcurrently = true;
+        return toRuleMatchArray(Collections.emptyList());
+      }
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      inUse.set(false);
+      return toRuleMatchArray(Collections.emptyList());
+    }
+  }
+
   @Test
   public void testTwoRulesOnly() throws IOException {
     MultiThreadedJLanguageTool lt = new MultiThreadedJLanguageTool(new FakeLanguage() {
@@ -113,6 +165,32 @@ public class MultiThreadedJLanguageToolTest {
     lt.shutdown();
   }
 
+  @Test
+  public void testJavaRulesAreNotUsedConcurrently() throws IOException {
+    NonThreadSafeRule rule = new NonThreadSafeRule();
+    MultiThreadedJLanguageTool lt = new MultiThreadedJLanguageTool(new FakeLanguage() {
+      @Override
+      protected synchronized List<AbstractPatternRule> getPatternRules() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public List<Rule> getRelevantRules(ResourceBundle messages, UserConfig userConfig, Language motherTongue, List<Language> altLanguages) {
+        return Arrays.asList(rule, new MultipleWhitespaceRule(messages, this));
+      }
+    }, 4);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      sb.append("A sentence. ");
+    }
+    // the second run would split the (expensive) rule into chunks if that was allowed:
+    for (int i = 0; i < 2; i++) {
+      lt.check(sb.toString());
+    }
+    lt.shutdown();
+    assertFalse(rule.usedConcurrently);
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testIllegalThreadPoolSize1() {
     new MultiThreadedJLanguageTool(new Demo(), 0);
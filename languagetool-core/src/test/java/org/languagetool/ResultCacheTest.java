@@ -0,0 +1,203 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+  @Test
+  public void testOffHeapTier() throws IOException {
+    ResultCache cache = ResultCache.withMaxBytes(40_000, 1_000_000, 5, TimeUnit.MINUTES);
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, cache);
+    lt.addRule(new FooRule());
+    JLanguageTool uncached = new JLanguageTool(new Demo());
+    uncached.addRule(new FooRule());
+    String text = "This is foo sentence number 0. And a second foo.";
+    List<RuleMatch> expected = uncached.check(text);
+    assertTrue(expected.stream().anyMatch(m -> m.getRule() instanceof FooRule));
+    assertSameMatches(expected, lt.check(text));
+    // push the matches of the text out of the heap:
+    for (int i = 1; i < 500; i++) {
+      lt.check("This is foo sentence number " + i + ".");
+    }
+    assertTrue(cache.getOffHeapBytes() > 0);
+    assertTrue(cache.getMatchesCacheBytes() <= 40_000 / 4);
+    assertSameMatches(expected, lt.check(text));
+    assertTrue(cache.getOffHeapStats().hitCount() >= 1);
+  }
+
+  @Test
+  public void testByteEstimates() throws IOException {
+    ResultCache cache = ResultCache.withMaxBytes(10_000_000, 0, 5, TimeUnit.MINUTES);
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, cache);
+    assertThat(cache.getSentenceCacheBytes(), is(0L));
+    lt.check("A short sentence.");
+    long shortSentenceBytes = cache.getSentenceCacheBytes();
+    assertTrue(shortSentenceBytes > 0);
+    lt.check("A much longer sentence, with many more tokens than the short sentence we checked before.");
+    long bothBytes = cache.getSentenceCacheBytes();
+    assertTrue(bothBytes - shortSentenceBytes > shortSentenceBytes);
+    assertTrue(cache.getMatchesCacheBytes() > 0);
+    assertFalse(cache.hasOffHeapTier());
+    assertThat(cache.getOffHeapStats().requestCount(), is(0L));
+    cache.getSentenceCache().invalidateAll();
+    cache.getMatchesCache().invalidateAll();
+    assertThat(cache.getSentenceCacheBytes(), is(0L));
+    assertThat(cache.getMatchesCacheBytes(), is(0L));
+  }
+
+  @Test
+  public void testByteTotalWithSharedAndReplacedValues() throws IOException {
+    ResultCache cache = ResultCache.withMaxBytes(10_000_000, 0, 5, TimeUnit.MINUTES);
+    Demo lang = new Demo();
+    AnalyzedSentence sentence = new JLanguageTool(lang).getAnalyzedSentence("A short sentence.");
+    SimpleInputSentence key1 = new SimpleInputSentence("A short sentence.", lang);
+    SimpleInputSentence key2 = new SimpleInputSentence("Another key.", lang);
+    cache.getSentenceCache().put(key1, sentence);
+    long oneEntryBytes = cache.getSentenceCacheBytes();
+    // the same instance under two keys:
+    cache.getSentenceCache().put(key2, sentence);
+    long twoEntriesBytes = cache.getSentenceCacheBytes();
+    assertTrue(twoEntriesBytes > oneEntryBytes);
+    cache.getSentenceCache().invalidate(key2);
+    assertThat(cache.getSentenceCacheBytes(), is(oneEntryBytes));
+    // replacing a value, also by the same instance:
+    cache.getSentenceCache().put(key1, sentence);
+    assertThat(cache.getSentenceCacheBytes(), is(oneEntryBytes));
+    cache.getSentenceCache().put(key1, new JLanguageTool(lang).getAnalyzedSentence("A short sentence."));
+    assertThat(cache.getSentenceCacheBytes(), is(oneEntryBytes));
+    cache.getSentenceCache().invalidate(key1);
+    assertThat(cache.getSentenceCacheBytes(), is(0L));
+  }
+
+  @Test
+  public void testOffHeapStoreSkipsLazySuggestions() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("foo");
+    RuleMatch match = new RuleMatch(new FooRule(), sentence, 0, 3, "Foo");
+    match.setLazySuggestedReplacements(() -> {
+      throw new AssertionError("suggestions must not be computed for the off-heap store");
+    });
+    assertFalse(match.isSuggestedReplacementsComputed());
+    OffHeapMatchStore store = new OffHeapMatchStore(10_000, 5, TimeUnit.MINUTES);
+    store.put(key("foo"), Collections.singletonList(match));
+    assertThat(store.size(), is(0L));
+    RuleMatch computed = new RuleMatch(new FooRule(), sentence, 0, 3, "Foo");
+    computed.setLazySuggestedReplacements(() -> Collections.singletonList(new SuggestedReplacement("bar")));
+    assertThat(computed.getSuggestedReplacements(), is(Collections.singletonList("bar")));
+    assertTrue(computed.isSuggestedReplacementsComputed());
+    store.put(key("foo"), Collections.singletonList(computed));
+    assertThat(store.size(), is(1L));
+  }
+
+  @Test
+  public void testOffHeapStoreOverwritesOldestEntries() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    Rule rule = new FooRule();
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("foo");
+    List<RuleMatch> matches = Arrays.asList(rule.match(sentence));
+    int entrySize = OffHeapMatchStore.serialize(matches).length;
+    OffHeapMatchStore store = new OffHeapMatchStore(entrySize * 10 + entrySize / 2, 5, TimeUnit.MINUTES);
+    for (int i = 0; i < 25; i++) {
+      store.put(key("sentence " + i), matches);
+      assertTrue(store.getUsedBytes() <= store.getCapacity());
+    }
+    assertThat(store.size(), is(10L));
+    assertThat(store.evictionCount(), is(15L));
+    assertNull(store.remove(key("sentence 14"), id -> rule, sentence));
+    assertSameMatches(matches, store.remove(key("sentence 15"), id -> rule, sentence));
+    assertSameMatches(matches, store.remove(key("sentence 24"), id -> rule, sentence));
+    assertNull(store.remove(key("sentence 24"), id -> rule, sentence));
+    assertThat(store.size(), is(8L));
+    // matches of unknown rules can't be re-created:
+    assertNull(store.remove(key("sentence 20"), id -> null, sentence));
+    assertThat(store.hitCount(), is(2L));
+    assertThat(store.missCount(), is(3L));
+  }
+
+  private InputSentence key(String text) {
+    return new InputSentence(text, new Demo(), null, Collections.emptySet(), Collections.emptySet(),
+      Collections.emptySet(), Collections.emptySet(), null, Collections.emptyList(), JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT);
+  }
+
+  private void assertSameMatches(List<RuleMatch> expected, List<RuleMatch> actual) {
+    assertThat(actual.size(), is(expected.size()));
+    for (int i = 0; i < expected.size(); i++) {
+      RuleMatch e = expected.get(i);
+      RuleMatch a = actual.get(i);
+      assertThat(a.toString(), is(e.toString()));
+      assertThat(a.getShortMessage(), is(e.getShortMessage()));
+      assertThat(a.getUrl(), is(e.getUrl()));
+      assertThat(a.getType(), is(e.getType()));
+      assertThat(a.getFeatures(), is(e.getFeatures()));
+      assertThat(a.getSuggestedReplacementObjects().size(), is(e.getSuggestedReplacementObjects().size()));
+      for (int j = 0; j < e.getSuggestedReplacementObjects().size(); j++) {
+        SuggestedReplacement es = e.getSuggestedReplacementObjects().get(j);
+        SuggestedReplacement as = a.getSuggestedReplacementObjects().get(j);
+        assertThat(as.toString(), is(es.toString()));
+        assertThat(as.getShortDescription(), is(es.getShortDescription()));
+        assertThat(as.getConfidence(), is(es.getConfidence()));
+        assertThat(as.getType(), is(es.getType()));
+      }
+    }
+  }
+
+  static class FooRule extends Rule {
+    @Override
+    public String getId() {
+      return "FOO_RULE";
+    }
+    @Override
+    public String getDescription() {
+      return "Finds 'foo'";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) throws IOException {
+      List<RuleMatch> matches = new ArrayList<>();
+      for (AnalyzedTokenReadings token : sentence.getTokensWithoutWhitespace()) {
+        if (token.getToken().equals("foo")) {
+          RuleMatch match = new RuleMatch(this, sentence, token.getStartPos(), token.getEndPos(), "Did you mean <suggestion>bar</suggestion>?", "Foo");
+          SuggestedReplacement baz = new SuggestedReplacement("baz", "a short description");
+          baz.setConfidence(0.5f);
+          baz.setType(SuggestedReplacement.SuggestionType.Curated);
+          match.setSuggestedReplacementObjects(Arrays.asList(new SuggestedReplacement("bar"), baz));
+          match.setUrl(new URL("https://example.com/foo"));
+          match.setType(RuleMatch.Type.Hint);
+          match.setFeatures(new TreeMap<>(Collections.singletonMap("score", 0.25f)));
+          matches.add(match);
+        }
+      }
+      return toRuleMatchArray(matches);
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.rules.DoublePunctuationRule;
+import org.languagetool.rules.MultipleWhitespaceRule;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+import org.languagetool.rules.patterns.PatternRule;
+import org.languagetool.rules.patterns.PatternToken;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class RuleRegistryTest {
+
+  private static final String TEXT = "This is is a test,, with  a double space. And here's another sentence with foo..";
+
+  @Test
+  public void testRulesAreShared() throws IOException {
+    CountingLanguage language = new CountingLanguage();
+    RuleRegistry registry = new RuleRegistry(10, 1, TimeUnit.MINUTES);
+    JLanguageTool lt1 = newLanguageTool(language, registry, null);
+    JLanguageTool lt2 = newLanguageTool(language, registry, null);
+    assertThat(registry.size(), is(1L));
+    // Java rules are not necessarily thread-safe, so every JLanguageTool gets its own:
+    assertThat(language.ruleCreations.get(), is(2));
+    List<Rule> rules1 = lt1.getAllRules();
+    List<Rule> rules2 = lt2.getAllRules();
+    assertThat(rules1.size(), is(rules2.size()));
+    int patternRules = 0;
+    for (int i = 0; i < rules1.size(); i++) {
+      if (rules1.get(i) instanceof AbstractPatternRule) {
+        assertThat(rules1.get(i), sameInstance(rules2.get(i)));
+        patternRules++;
+      } else {
+        assertThat(rules1.get(i), not(sameInstance(rules2.get(i))));
+      }
+    }
+    assertThat(patternRules, is(1));
+
+    // a different configuration gets its own rules:
+    newLanguageTool(language, registry, new UserConfig(Collections.singletonList("foo")));
+    assertThat(registry.size(), is(2L));
+  }
+
+  @Test
+  public void testEnabledRulesAreNotShared() throws IOException {
+    RuleRegistry registry = new RuleRegistry(10, 1, TimeUnit.MINUTES);
+    JLanguageTool unshared = newLanguageTool(new CountingLanguage(), null, null);
+    JLanguageTool lt1 = newLanguageTool(new CountingLanguage(), registry, null);
+    JLanguageTool lt2 = newLanguageTool(new CountingLanguage(), registry, null);
+    List<String> expected = ids(unshared.check(TEXT));
+    assertThat(hasRule(expected, "DOUBLE_PUNCTUATION"), is(true));
+    assertThat(ids(lt1.check(TEXT)), is(expected));
+
+    lt2.disableRule("DOUBLE_PUNCTUATION");
+    unshared.disableRule("DOUBLE_PUNCTUATION");
+    List<String> expectedWithoutRule = ids(unshared.check(TEXT));
+    assertThat(hasRule(expectedWithoutRule, "DOUBLE_PUNCTUATION"), is(false));
+    assertThat(ids(lt2.check(TEXT)), is(expectedWithoutRule));
+    assertThat(ids(lt1.check(TEXT)), is(expected));
+
+    // rules that are added don't get shared:
+    lt1.disableRule("WHITESPACE_RULE");
+    lt1.addRule(new MultipleWhitespaceRule(JLanguageTool.getMessageBundle(), lt1.getLanguage()) {
+      @Override
+      public String getId() {
+        return "ANOTHER_WHITESPACE_RULE";
+      }
+    });
+    assertThat(hasRule(ids(lt1.check(TEXT)), "ANOTHER_WHITESPACE_RULE"), is(true));
+    assertThat(hasRule(ids(lt2.check(TEXT)), "ANOTHER_WHITESPACE_RULE"), is(false));
+  }
+
+  @Test
+  public void testSharedRegistryFromSeveralThreads() throws Exception {
+    CountingLanguage language = new CountingLanguage();
+    RuleRegistry registry = new RuleRegistry(10, 1, TimeUnit.MINUTES);
+    List<String> expected = ids(newLanguageTool(language, null, null).check(TEXT));
+    assertThat(hasRule(expected, "FOO_RULE"), is(true));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        results.add(executor.submit(() -> {
+          JLanguageTool lt = newLanguageTool(language, registry, null);
+          List<String> ids = new ArrayList<>();
+          for (int j = 0; j < 5; j++) {
+            ids = ids(lt.check(TEXT));
+          }
+          return ids;
+        }));
+      }
+      for (Future<List<String>> result : results) {
+        assertThat(result.get(), is(expected));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(registry.size(), is(1L));
+  }
+
+  private JLanguageTool newLanguageTool(Language language, RuleRegistry registry, UserConfig userConfig) {
+    return new JLanguageTool(language, Collections.emptyList(), null, null, null, userConfig, true, registry);
+  }
+
+  private List<String> ids(List<RuleMatch> matches) {
+    return matches.stream().map(match -> match.getRule().getId() + ":" + match.getFromPos()).collect(Collectors.toList());
+  }
+
+  private boolean hasRule(List<String> ids, String ruleId) {
+    return ids.stream().anyMatch(id -> id.startsWith(ruleId + ":"));
+  }
+
+  static class CountingLanguage extends FakeLanguage {
+    private final AtomicInteger ruleCreations = new AtomicInteger();
+    @Override
+    public List<Rule> getRelevantRules(ResourceBundle messages, UserConfig userConfig, Language motherTongue, List<Language> altLanguages) {
+      ruleCreations.incrementAndGet();
+      return Arrays.asList(new DoublePunctuationRule(messages), new MultipleWhitespaceRule(messages, this));
+    }
+    @Override
+    protected synchronized List<AbstractPatternRule> getPatternRules() {
+      PatternToken token = new PatternToken("foo", false, false, false);
+      return Collections.singletonList(new PatternRule("FOO_RULE", this, Collections.singletonList(token), "", "foo", ""));
+    }
+  }
+
+}
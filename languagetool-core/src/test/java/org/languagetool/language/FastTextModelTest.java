@@ -0,0 +1,247 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class FastTextModelTest {
+
+  private static final int BUCKET = 1000;
+  // buckets as computed by fastText (bucket = FNV-1a hash % 1000):
+  private static final int BUCKET_XY = 200;          // char ngram "<xy" of "xyz"
+  private static final int BUCKET_XYZ_AEOEUE = 744;  // word bigram "xyz äöü"
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testSoftmax() throws IOException {
+    FastTextModel model = FastTextModel.load(writeModel(false, false));
+    assertThat(model.getLabels(), is(Arrays.asList("__label__en", "__label__de")));
+    // "<xy", "xyz", "yz>", "</s>", "xyz </s>" -> hidden = (9/5, 0):
+    assertPrediction(model.predict("xyz", 5), "__label__en", 1.0 / (1.0 + Math.exp(-3.6)));
+    assertPrediction(model.predict("xyz\n", 5), "__label__en", 1.0 / (1.0 + Math.exp(-3.6)));
+    assertPrediction(model.predict("__label__de xyz", 5), "__label__en", 1.0 / (1.0 + Math.exp(-3.6)));
+    // 6 char ngrams, "</s>" and 2 word bigrams -> hidden = (1, 2), logits: en = 2, de = 4
+    assertPrediction(model.predict("xyz äöü", 5), "__label__de", 1.0 / (1.0 + Math.exp(-2)));
+    assertPrediction(model.predict("  xyz\täöü ", 5), "__label__de", 1.0 / (1.0 + Math.exp(-2)));
+    // known word:
+    assertThat(model.predict("hello", 1).get(0).getLabel(), is("__label__de"));
+    assertThat(model.predict("hello", 1).size(), is(1));
+  }
+
+  @Test
+  public void testHierarchicalSoftmax() throws IOException {
+    List<String> labels = Arrays.asList("__label__a", "__label__b", "__label__c");
+    float[][] input = new float[2][];
+    input[0] = new float[] {0, 0};   // </s>
+    input[1] = new float[] {2, 0};   // word
+    // the Huffman tree: root = (node 3, a), node 3 = (c, b):
+    float[][] output = {{(float) Math.log(3), 0}, {0, 0}};
+    File file = tempFolder.newFile();
+    writeModel(file, 1, 1, 0, 0, Arrays.asList("</s>", "word"), labels, new long[]{10, 5, 1}, input, output, false, null);
+    FastTextModel model = FastTextModel.load(file);
+    List<FastTextModel.Prediction> predictions = model.predict("word", 5);
+    assertThat(predictions.size(), is(3));
+    assertThat(predictions.get(0).getLabel(), is("__label__a"));
+    assertEquals(0.5, predictions.get(0).getProbability(), 0.0001);
+    assertThat(predictions.get(1).getLabel(), is("__label__b"));
+    assertEquals(0.375, predictions.get(1).getProbability(), 0.0001);
+    assertThat(predictions.get(2).getLabel(), is("__label__c"));
+    assertEquals(0.125, predictions.get(2).getProbability(), 0.0001);
+    assertThat(model.predict("word", 2).size(), is(2));
+  }
+
+  @Test
+  public void testQuantized() throws IOException {
+    FastTextModel dense = FastTextModel.load(writeModel(false, false));
+    FastTextModel quantized = FastTextModel.load(writeModel(true, false));
+    for (String text : Arrays.asList("xyz", "xyz äöü", "hello", "hello xyz", "unknown")) {
+      assertThat(quantized.predict(text, 2).toString(), is(dense.predict(text, 2).toString()));
+    }
+    // with only the buckets of "<xy" and "xyz äöü" left, "xyz" -> hidden = (9/2, 0):
+    FastTextModel pruned = FastTextModel.load(writeModel(true, true));
+    assertPrediction(pruned.predict("xyz", 5), "__label__en", 1.0 / (1.0 + Math.exp(-9)));
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidFile() throws IOException {
+    File file = tempFolder.newFile();
+    Files.write(file.toPath(), "not a model".getBytes(StandardCharsets.UTF_8));
+    FastTextModel.load(file);
+  }
+
+  private void assertPrediction(List<FastTextModel.Prediction> predictions, String label, double probability) {
+    assertThat(predictions.get(0).getLabel(), is(label));
+    assertEquals(probability + 1e-5, predictions.get(0).getProbability(), 1e-6);
+  }
+
+  private File writeModel(boolean quantize, boolean prune) throws IOException {
+    List<String> words = Arrays.asList("</s>", "hello");
+    Map<Integer, Integer> pruneIndex = null;
+    float[][] input;
+    if (prune) {
+      pruneIndex = new HashMap<>();
+      pruneIndex.put(BUCKET_XY, 0);
+      pruneIndex.put(BUCKET_XYZ_AEOEUE, 1);
+      input = new float[words.size() + 2][];
+    } else {
+      input = new float[words.size() + BUCKET][];
+    }
+    Arrays.fill(input, new float[] {0, 0});
+    input[1] = new float[] {0, 7};
+    input[words.size() + (prune ? 0 : BUCKET_XY)] = new float[] {9, 0};
+    input[words.size() + (prune ? 1 : BUCKET_XYZ_AEOEUE)] = new float[] {0, 18};
+    float[][] output = {{2, 0}, {0, 2}};
+    File file = tempFolder.newFile();
+    writeModel(file, 3, 2, 3, 3, words, Arrays.asList("__label__en", "__label__de"), new long[]{2, 1},
+      input, output, quantize, pruneIndex);
+    return file;
+  }
+
+  private static void writeModel(File file, int loss, int wordNgrams, int minn, int maxn, List<String> words, List<String> labels,
+                                 long[] labelCounts, float[][] input, float[][] output, boolean quantize,
+                                 Map<Integer, Integer> pruneIndex) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      writeInt(out, 793712314);
+      writeInt(out, 12);
+      int dim = output[0].length;
+      for (int value : new int[] {dim, 5, 5, 1, 5, wordNgrams, loss, 3, minn == 0 ? 0 : BUCKET, minn, maxn, 100}) {
+        writeInt(out, value);
+      }
+      writeLong(out, Double.doubleToLongBits(0.0001));
+      writeInt(out, words.size() + labels.size());
+      writeInt(out, words.size());
+      writeInt(out, labels.size());
+      writeLong(out, 1000);
+      writeLong(out, pruneIndex != null ? pruneIndex.size() : -1);
+      for (String word : words) {
+        out.write(word.getBytes(StandardCharsets.UTF_8));
+        out.write(0);
+        writeLong(out, 1);
+        out.write(0);
+      }
+      for (int i = 0; i < labels.size(); i++) {
+        out.write(labels.get(i).getBytes(StandardCharsets.UTF_8));
+        out.write(0);
+        writeLong(out, labelCounts[i]);
+        out.write(1);
+      }
+      if (pruneIndex != null) {
+        for (Map.Entry<Integer, Integer> entry : pruneIndex.entrySet()) {
+          writeInt(out, entry.getKey());
+          writeInt(out, entry.getValue());
+        }
+      }
+      out.writeBoolean(quantize);
+      if (quantize) {
+        writeQuantMatrix(out, input);
+      } else {
+        writeDenseMatrix(out, input);
+      }
+      out.writeBoolean(false);
+      writeDenseMatrix(out, output);
+    }
+  }
+
+  private static void writeDenseMatrix(DataOutputStream out, float[][] matrix) throws IOException {
+    writeLong(out, matrix.length);
+    writeLong(out, matrix[0].length);
+    for (float[] row : matrix) {
+      for (float value : row) {
+        writeInt(out, Float.floatToIntBits(value));
+      }
+    }
+  }
+
+  /**
+   * One sub-quantizer with the distinct rows as centroids, and the norms quantized separately.
+   */
+  private static void writeQuantMatrix(DataOutputStream out, float[][] matrix) throws IOException {
+    int dim = matrix[0].length;
+    List<List<Float>> centroids = new ArrayList<>();
+    List<Float> norms = new ArrayList<>();
+    byte[] codes = new byte[matrix.length];
+    byte[] normCodes = new byte[matrix.length];
+    for (int i = 0; i < matrix.length; i++) {
+      float norm = 0;
+      for (float value : matrix[i]) {
+        norm = Math.max(norm, Math.abs(value));
+      }
+      norm = norm == 0 ? 1 : norm;
+      List<Float> centroid = new ArrayList<>();
+      for (float value : matrix[i]) {
+        centroid.add(value / norm);
+      }
+      if (!centroids.contains(centroid)) {
+        centroids.add(centroid);
+      }
+      if (!norms.contains(norm)) {
+        norms.add(norm);
+      }
+      codes[i] = (byte) centroids.indexOf(centroid);
+      normCodes[i] = (byte) norms.indexOf(norm);
+    }
+    out.writeBoolean(true);
+    writeLong(out, matrix.length);
+    writeLong(out, dim);
+    writeInt(out, codes.length);
+    out.write(codes);
+    writeProductQuantizer(out, dim, centroids);
+    out.write(normCodes);
+    List<List<Float>> normCentroids = new ArrayList<>();
+    for (Float norm : norms) {
+      normCentroids.add(Collections.singletonList(norm));
+    }
+    writeProductQuantizer(out, 1, normCentroids);
+  }
+
+  private static void writeProductQuantizer(DataOutputStream out, int dim, List<List<Float>> centroids) throws IOException {
+    writeInt(out, dim);
+    writeInt(out, 1);  // nsubq
+    writeInt(out, dim);  // dsub
+    writeInt(out, dim);  // lastdsub
+    for (int i = 0; i < 256; i++) {
+      for (int j = 0; j < dim; j++) {
+        writeInt(out, Float.floatToIntBits(i < centroids.size() ? centroids.get(i).get(j) : 0));
+      }
+    }
+  }
+
+  private static void writeInt(DataOutputStream out, int value) throws IOException {
+    out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+  }
+
+  private static void writeLong(DataOutputStream out, long value) throws IOException {
+    out.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array());
+  }
+
+}
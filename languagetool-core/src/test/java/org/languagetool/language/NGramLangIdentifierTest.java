@@ -0,0 +1,90 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 LanguageTooler GmbH
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.languagetool.noop.NoopLanguage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class NGramLangIdentifierTest {
+
+  private static final List<String> CODES = Arrays.asList("en", "de", "nds");
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testDetectLanguages() throws IOException {
+    NGramLangIdentifier identifier = new NGramLangIdentifier(writeZipModel(), 12);
+    // "▁ab▁ab" -> <s> ▁ ab ▁ ab
+    Map<String, Double> result = identifier.detectLanguages("ab ab", CODES);
+    assertThat(result.keySet(), is(new HashSet<>(CODES)));
+    assertTrue(result.get("en") > result.get("de"));
+    assertTrue(result.get("de") > result.get("nds"));
+    assertEquals(1.0, result.values().stream().mapToDouble(Double::doubleValue).sum(), 0.000001);
+    // "▁ba" -> <s> ▁ b a
+    Map<String, Double> result2 = identifier.detectLanguages("BA", CODES);
+    assertTrue(result2.get("de") > result2.get("en"));
+    // only languages that can be detected are returned:
+    assertThat(identifier.detectLanguages("ab ab", Arrays.asList("en")).keySet(), is(Collections.singleton("en")));
+    // below threshold:
+    assertThat(identifier.detectLanguages("ccccccccccc", CODES), is(Collections.singletonMap(NoopLanguage.SHORT_CODE, 100.0)));
+  }
+
+  @Test
+  public void testBinaryModel() throws IOException {
+    NGramLangIdentifier zipIdentifier = new NGramLangIdentifier(writeZipModel(), 12);
+    File binaryModel = tempFolder.newFile("model.bin");
+    zipIdentifier.writeBinaryModel(binaryModel);
+    NGramLangIdentifier binaryIdentifier = new NGramLangIdentifier(binaryModel, 12);
+    for (String text : Arrays.asList("", "ab ab", "BA", "abcabc", "ab ba 12 ab", "ccccccccccc", "ab ab ab")) {
+      assertThat(text, binaryIdentifier.detectLanguages(text, CODES), is(zipIdentifier.detectLanguages(text, CODES)));
+    }
+  }
+
+  private File writeZipModel() throws IOException {
+    File file = tempFolder.newFile();
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+      addEntry(zip, "iso_codes.tsv", "English\ten\teng\t1\nGerman\tde\tdeu\t1\nFrench\tfr\tfra\t0\nLow German\tNULL\tnds\t1\n");
+      addEntry(zip, "vocab.txt", "<unk>\n<s>\n▁\na\nb\nab\nc\n");
+      // thresholds for text lengths 10 and 11:
+      addEntry(zip, "thresholds.txt", "10\n-100 -100 -100\n-10 -10 -10\n");
+      addEntry(zip, "00.txt", "1 2 0.5\n2 5 0.5\n5 2 0.5\n2 4 0.01\n");
+      addEntry(zip, "01.txt", "1 2 0.5\n2 5 0.1\n5 2 0.1\n2 4 0.5\n4 3 0.5\n");
+      addEntry(zip, "02.txt", "1 2 0.5\n2 5 0.01\n5 2 0.01\n");
+    }
+    return file;
+  }
+
+  private void addEntry(ZipOutputStream zip, String name, String content) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(content.getBytes(StandardCharsets.UTF_8));
+    zip.closeEntry();
+  }
+}
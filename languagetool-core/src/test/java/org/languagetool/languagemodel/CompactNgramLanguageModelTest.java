@@ -0,0 +1,136 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+public class CompactNgramLanguageModelTest {
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("compact-ngrams").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (File file : dir.listFiles()) {
+      Files.delete(file.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+
+  @Test
+  public void testLanguageModel() throws IOException {
+    try (CompactNgramIndexWriter writer = new CompactNgramIndexWriter(dir)) {
+      writer.add("the", 50);
+      writer.add("nice", 4);
+      writer.add("the nice", 3);
+      writer.add(Arrays.asList("the", "nice", "building"), 1);
+      writer.add("the", 5);  // counts of the same ngram are summed up
+    }
+    assertTrue(CompactNgramLanguageModel.isCompactIndex(dir));
+    assertThat(dir.list().length, is(1));
+    try (CompactNgramLanguageModel model = new CompactNgramLanguageModel(dir)) {
+      assertThat(model.getCount("the"), is(55L));
+      assertThat(model.getCount(Arrays.asList("the", "nice")), is(3L));
+      assertThat(model.getCount("the nice"), is(3L));
+      assertThat(model.getCount(Arrays.asList("the", "nice", "building")), is(1L));
+      assertThat(model.getCount(Arrays.asList("nice", "the")), is(0L));
+      assertThat(model.getCount("not-in-here"), is(0L));
+      assertThat(model.getTotalTokenCount(), is(59L));
+      assertThat(model.getNgramCount(), is(4L));
+      try {
+        model.getCount(Arrays.asList("the", "nice", "building", "here"));
+        fail();
+      } catch (RuntimeException expected) {}
+    }
+  }
+
+  @Test
+  public void testTotalTokenCountAndEmptyIndex() throws IOException {
+    try (CompactNgramIndexWriter writer = new CompactNgramIndexWriter(dir)) {
+      writer.setTotalTokenCount(1234);
+    }
+    try (CompactNgramLanguageModel model = new CompactNgramLanguageModel(dir)) {
+      assertThat(model.getTotalTokenCount(), is(1234L));
+      assertThat(model.getCount("foo"), is(0L));
+    }
+  }
+
+  @Test
+  public void testManyNgrams() throws IOException {
+    Random random = new Random(42);
+    Map<String, Long> expected = new HashMap<>();
+    try (CompactNgramIndexWriter writer = new CompactNgramIndexWriter(dir)) {
+      for (int i = 0; i < 100_000; i++) {
+        String ngram = "w" + random.nextInt(1000) + " w" + i;
+        long count = random.nextInt(4000);
+        writer.add(ngram, count);
+        expected.put(ngram, count);
+      }
+    }
+    try (CompactNgramLanguageModel model = new CompactNgramLanguageModel(dir)) {
+      assertThat(model.getNgramCount(), is(100_000L));
+      // lookups can be done by several threads:
+      expected.entrySet().parallelStream().forEach(entry -> {
+        assertThat(entry.getKey(), model.getCount(Arrays.asList(entry.getKey().split(" "))), is(entry.getValue()));
+        assertThat(model.getCount(entry.getKey() + "x"), is(0L));
+      });
+    }
+  }
+
+  @Test
+  public void testCountQuantization() {
+    for (long count = 0; count < 4096; count++) {
+      assertThat(CompactNgramFormat.decodeCount(CompactNgramFormat.encodeCount(count)), is(count));
+    }
+    List<Long> largeCounts = new ArrayList<>();
+    for (long count = 4096; count < Long.MAX_VALUE / 3; count = count * 3 / 2 + 1) {
+      largeCounts.add(count);
+    }
+    largeCounts.add(Long.MAX_VALUE);
+    for (long count : largeCounts) {
+      long decoded = CompactNgramFormat.decodeCount(CompactNgramFormat.encodeCount(count));
+      assertTrue(count + " -> " + decoded, Math.abs(decoded - count) / (double) count < 0.0003);
+    }
+  }
+
+  @Test
+  public void testHash() {
+    assertThat(CompactNgramFormat.hash(Arrays.asList("a", "b", "c")), is(CompactNgramFormat.hash("a b c")));
+    assertThat(CompactNgramFormat.hash(Collections.singletonList("abc")), is(CompactNgramFormat.hash("abc")));
+    assertNotEquals(CompactNgramFormat.hash("a b"), CompactNgramFormat.hash("ab"));
+    assertThat(IntStream.range(0, 10_000).mapToLong(i -> CompactNgramFormat.hash("w" + i) >>> 56).distinct().count(), is(256L));
+  }
+
+}
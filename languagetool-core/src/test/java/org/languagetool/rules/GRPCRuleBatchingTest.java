@@ -0,0 +1,134 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.TestTools;
+import org.languagetool.rules.ml.MLServerGrpc;
+import org.languagetool.rules.ml.MLServerProto;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link GRPCRule} against a local gRPC server.
+ */
+public class GRPCRuleBatchingTest {
+
+  private final List<MLServerProto.MatchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+  private final JLanguageTool lt = new JLanguageTool(TestTools.getDemoLanguage());
+  private Server server;
+
+  @Before
+  public void setUp() throws IOException {
+    server = NettyServerBuilder.forPort(0).addService(new MLServerGrpc.MLServerImplBase() {
+      @Override
+      public void match(MLServerProto.MatchRequest request, StreamObserver<MLServerProto.MatchResponse> responseObserver) {
+        requests.add(request);
+        if (request.getSentencesList().contains("Fail.")) {
+          responseObserver.onError(Status.INTERNAL.asRuntimeException());
+          return;
+        }
+        MLServerProto.MatchResponse.Builder response = MLServerProto.MatchResponse.newBuilder();
+        for (String sentence : request.getSentencesList()) {
+          response.addSentenceMatches(MLServerProto.MatchList.newBuilder().addMatches(MLServerProto.Match.newBuilder()
+            .setOffset(0).setLength(1).setSubId("TEST").setMatchDescription("Sentence: " + sentence)));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+      }
+    }).build().start();
+  }
+
+  @After
+  public void tearDown() {
+    server.shutdownNow();
+  }
+
+  private GRPCRule createRule(String ruleId, int maxBatchSize, long maxBatchDelay) {
+    RemoteRuleConfig config = new RemoteRuleConfig(ruleId, "localhost", server.getPort(),
+      0, 10_000L, 0.0f, 1, 0L, 1, maxBatchSize, maxBatchDelay, Collections.emptyMap());
+    return GRPCRule.create(config, false, ruleId, "Test rule", Collections.emptyMap());
+  }
+
+  private List<AnalyzedSentence> sentences(String... texts) throws IOException {
+    List<AnalyzedSentence> result = new ArrayList<>();
+    for (String text : texts) {
+      result.add(lt.getAnalyzedSentence(text));
+    }
+    return result;
+  }
+
+  @Test
+  public void testRequestsAreCombined() throws Exception {
+    // the first request waits until the batch is full:
+    GRPCRule rule = createRule("GRPC_BATCHING_TEST_RULE", 4, 10_000);
+    List<List<AnalyzedSentence>> texts = Arrays.asList(sentences("One."), sentences("Two.", "Three."), sentences("Four."));
+    ExecutorService executor = Executors.newFixedThreadPool(texts.size());
+    try {
+      List<FutureTask<RemoteRuleResult>> tasks = new ArrayList<>();
+      for (List<AnalyzedSentence> sentences : texts) {
+        FutureTask<RemoteRuleResult> task = rule.run(sentences);
+        tasks.add(task);
+        executor.submit(task);
+      }
+      for (int i = 0; i < texts.size(); i++) {
+        RemoteRuleResult result = tasks.get(i).get(30, TimeUnit.SECONDS);
+        assertTrue(result.isRemote());
+        List<RuleMatch> matches = result.getMatches();
+        assertThat(matches.size(), is(texts.get(i).size()));
+        for (int j = 0; j < matches.size(); j++) {
+          // results are assigned to the right sentences:
+          assertThat(matches.get(j).getSentence(), is(texts.get(i).get(j)));
+          assertThat(matches.get(j).getMessage(), is("Sentence: " + texts.get(i).get(j).getText()));
+          assertThat(matches.get(j).getRule().getId(), is("GRPC_BATCHING_TEST_RULE_TEST"));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(requests.size(), is(1));
+    assertThat(new HashSet<>(requests.get(0).getSentencesList()), is(new HashSet<>(Arrays.asList("One.", "Two.", "Three.", "Four."))));
+  }
+
+  @Test
+  public void testMatchAndFailure() throws Exception {
+    GRPCRule rule = createRule("GRPC_BATCHING_TEST_RULE_2", 1, 0);
+    RuleMatch[] matches = rule.match(lt.getAnalyzedSentence("A test."));
+    assertThat(Arrays.stream(matches).map(RuleMatch::getMessage).collect(Collectors.toList()), is(Arrays.asList("Sentence: A test.")));
+    FutureTask<RemoteRuleResult> task = rule.run(sentences("Fail."));
+    task.run();
+    RemoteRuleResult result = task.get(30, TimeUnit.SECONDS);
+    assertFalse(result.isRemote());
+    assertThat(result.getMatches().size(), is(0));
+  }
+}
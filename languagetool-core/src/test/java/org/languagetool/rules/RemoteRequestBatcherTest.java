@@ -0,0 +1,151 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class RemoteRequestBatcherTest {
+
+  private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+  private final List<CompletableFuture<List<String>>> responses = Collections.synchronizedList(new ArrayList<>());
+
+  // results are the upper case requests, completed by calling respond():
+  private CompletableFuture<List<String>> sendBatch(List<String> requests) {
+    CompletableFuture<List<String>> response = new CompletableFuture<>();
+    batches.add(requests);
+    responses.add(response);
+    return response;
+  }
+
+  private void respond(int batch) {
+    responses.get(batch).complete(batches.get(batch).stream().map(s -> s.toUpperCase()).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testCombineWhileBusy() throws Exception {
+    RemoteRequestBatcher<String, String> batcher = new RemoteRequestBatcher<>(10, 0, 1, String::length, this::sendBatch);
+    CompletableFuture<String> a = batcher.submit("a");
+    CompletableFuture<String> b = batcher.submit("bb");
+    CompletableFuture<String> c = batcher.submit("ccc");
+    assertThat(batches, is(Arrays.asList(Arrays.asList("a"))));
+    assertThat(batcher.getQueueLength(), is(2));
+    respond(0);
+    assertThat(a.get(), is("A"));
+    assertThat(batches.get(1), is(Arrays.asList("bb", "ccc")));
+    assertFalse(b.isDone());
+    respond(1);
+    assertThat(b.get(), is("BB"));
+    assertThat(c.get(), is("CCC"));
+    assertThat(batches.size(), is(2));
+  }
+
+  @Test
+  public void testMaxBatchSize() throws Exception {
+    RemoteRequestBatcher<String, String> batcher = new RemoteRequestBatcher<>(4, 0, 1, String::length, this::sendBatch);
+    batcher.submit("a");
+    CompletableFuture<String> b = batcher.submit("bb");
+    CompletableFuture<String> c = batcher.submit("cc");
+    CompletableFuture<String> d = batcher.submit("ddddd");
+    respond(0);
+    assertThat(batches.get(1), is(Arrays.asList("bb", "cc")));
+    respond(1);
+    // larger than the maximum size, but never split:
+    assertThat(batches.get(2), is(Arrays.asList("ddddd")));
+    respond(2);
+    assertThat(b.get() + c.get() + d.get(), is("BBCCDDDDD"));
+  }
+
+  @Test
+  public void testMaxDelay() throws Exception {
+    RemoteRequestBatcher<String, String> batcher = new RemoteRequestBatcher<>(10, 100, 5, String::length, this::sendBatch);
+    CompletableFuture<String> a = batcher.submit("a");
+    CompletableFuture<String> b = batcher.submit("b");
+    assertTrue(batches.isEmpty());
+    CompletableFuture<String> c = batcher.submit("cccccccc");  // batch is full, don't wait any longer
+    assertThat(batches, is(Arrays.asList(Arrays.asList("a", "b", "cccccccc"))));
+    CompletableFuture<String> d = batcher.submit("d");
+    long startTime = System.nanoTime();
+    while (batches.size() < 2) {
+      Thread.sleep(5);
+      assertTrue("batch not sent after delay", System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(10));
+    }
+    assertThat(batches.get(1), is(Arrays.asList("d")));
+    respond(0);
+    respond(1);
+    assertThat(a.get() + b.get() + c.get() + d.get(), is("ABCCCCCCCCD"));
+  }
+
+  @Test
+  public void testKeys() throws Exception {
+    RemoteRequestBatcher<String, String> batcher = new RemoteRequestBatcher<>(10, 0, 1, String::length,
+      s -> Character.isDigit(s.charAt(0)), this::sendBatch);
+    batcher.submit("a");
+    batcher.submit("1");
+    batcher.submit("b");
+    batcher.submit("2");
+    respond(0);
+    assertThat(batches.get(1), is(Arrays.asList("1", "2")));
+    respond(1);
+    assertThat(batches.get(2), is(Arrays.asList("b")));
+  }
+
+  @Test
+  public void testCancelledRequestsAreDropped() throws Exception {
+    RemoteRequestBatcher<String, String> batcher = new RemoteRequestBatcher<>(10, 0, 1, String::length, this::sendBatch);
+    batcher.submit("a");
+    CompletableFuture<String> b = batcher.submit("b");
+    CompletableFuture<String> c = batcher.submit("c");
+    b.cancel(true);
+    respond(0);
+    assertThat(batches.get(1), is(Arrays.asList("c")));
+    respond(1);
+    assertThat(c.get(), is("C"));
+  }
+
+  @Test
+  public void testErrors() {
+    RemoteRequestBatcher<String, String> batcher = new RemoteRequestBatcher<>(10, 0, 2, String::length, requests -> {
+      if (requests.contains("throw")) {
+        throw new IllegalStateException("test");
+      }
+      return CompletableFuture.completedFuture(Collections.singletonList("only one result"));
+    });
+    CompletableFuture<String> a = batcher.submit("throw");
+    assertTrue(a.isCompletedExceptionally());
+    CompletableFuture<String> b = batcher.submit("b");
+    assertThat(b.join(), is("only one result"));
+    // the failed batches don't count as in flight anymore:
+    for (int i = 0; i < 3; i++) {
+      assertTrue(batcher.submit("throw").isCompletedExceptionally());
+    }
+    try {
+      batcher.submit("throw").get();
+      fail();
+    } catch (InterruptedException | ExecutionException e) {
+      assertThat(e.getCause().getMessage(), is("test"));
+    }
+  }
+}
@@ -97,8 +97,7 @@ public class RuleMatchWithContextsTest {
     Document document = dbf.newDocumentBuilder().parse(inputStream);
     Node node = document.getFirstChild();
 
-    RuleMatchWithContexts.languageCode = languageCode;
-    RuleMatchWithContexts.assertNodeNotExcluded(node);
+    RuleMatchWithContexts.assertNodeNotExcluded(node, languageCode);
   }
 
 }
@@ -0,0 +1,78 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedToken;
+import org.languagetool.AnalyzedTokenReadings;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+import static org.languagetool.rules.patterns.PatternRuleBuilderHelper.*;
+
+public class PatternAnchorTest {
+
+  @Test
+  public void testCreate() {
+    assertEquals("TOKEN@1:bar", PatternAnchor.create(Arrays.asList(posRegex("N.*"), token("bar"))).toString());
+    assertEquals("TOKEN@0:bar|foo", PatternAnchor.create(Arrays.asList(tokenRegex("foo|bar"), pos("VB"))).toString());
+    assertEquals("POS_TAG@0:VB", PatternAnchor.create(Arrays.asList(pos("VB"), tokenRegex(".*"))).toString());
+    assertEquals("POS_TAG_PREFIX@0:N", PatternAnchor.create(Arrays.asList(posRegex("N.*"), tokenRegex(".*"))).toString());
+    assertEquals("POS_TAG_PREFIX@0:V", PatternAnchor.create(Arrays.asList(posRegex("VB?.*"), tokenRegex(".*"))).toString());
+    assertNull(PatternAnchor.create(Arrays.asList(posRegex("N.*|V.*"), tokenRegex(".*"))));
+    assertEquals("LEMMA@0:go", PatternAnchor.create(Arrays.asList(
+      new PatternTokenBuilder().token("go").matchInflectedForms().build(), pos("VB"))).toString());
+    // the offset of tokens after an optional token or one with skip is not fixed:
+    assertEquals("POS_TAG@0:DT", PatternAnchor.create(Arrays.asList(
+      new PatternTokenBuilder().pos("DT").setSkip(2).build(), token("bar"))).toString());
+    assertNull(PatternAnchor.create(Arrays.asList(new PatternTokenBuilder().token("foo").min(0).build(), token("bar"))));
+    PatternToken notVerb = new PatternToken("", false, false, false);
+    notVerb.setPosToken(new PatternToken.PosToken("VB", false, true));
+    assertNull(PatternAnchor.create(Arrays.asList(tokenRegex(".*"), notVerb)));
+  }
+
+  @Test
+  public void testGetStartPositions() {
+    AnalyzedSentence sentence = new AnalyzedSentence(new AnalyzedTokenReadings[]{
+      new AnalyzedTokenReadings(new AnalyzedToken("", "SENT_START", null)),
+      new AnalyzedTokenReadings(new AnalyzedToken("The", "DT", "the")),
+      new AnalyzedTokenReadings(new AnalyzedToken("Bar", "NN", "bar")),
+      new AnalyzedTokenReadings(new AnalyzedToken("goes", "VBZ", "go")),
+      new AnalyzedTokenReadings(new AnalyzedToken("bar", "NN", "bar")),
+    });
+    assertEquals(bits(1, 3), getStartPositions(sentence, posRegex("DT|VBZ"), token("bar")));
+    assertEquals(bits(2, 4), getStartPositions(sentence, token("bar")));
+    assertEquals(bits(3), getStartPositions(sentence, new PatternTokenBuilder().token("go").matchInflectedForms().build()));
+    assertEquals(bits(2, 4), getStartPositions(sentence, posRegex("N.*")));
+    assertEquals(bits(), getStartPositions(sentence, token("foo")));
+  }
+
+  private BitSet getStartPositions(AnalyzedSentence sentence, PatternToken... tokens) {
+    return PatternAnchor.create(Arrays.asList(tokens)).getStartPositions(sentence.getTokenPositionIndex(false));
+  }
+
+  private static BitSet bits(int... positions) {
+    BitSet result = new BitSet();
+    Arrays.stream(positions).forEach(result::set);
+    return result;
+  }
+}
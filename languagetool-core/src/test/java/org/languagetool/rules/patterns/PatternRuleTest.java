@@ -33,6 +33,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -338,6 +339,7 @@ public class PatternRuleTest extends AbstractPatternRuleTest {
           testCorrectSentences(lt.get(), allRulesLt, rule);
           testBadSentences(lt.get(), allRulesLt, lang, complexRules, rule);
           testErrorTriggeringSentences(lt.get(), rule);
+          testAnchoredMatches(lt.get(), rule);
           if (i.incrementAndGet() % 100 == 0) {
             System.out.println("Testing rule " + i + "...");
           }
@@ -534,6 +536,31 @@ public class PatternRuleTest extends AbstractPatternRuleTest {
     }
   }
 
+  // matching only at the start positions found via the rule's anchor must not change the result:
+  private void testAnchoredMatches(JLanguageTool lt, AbstractPatternRule rule) throws IOException {
+    if (!(rule instanceof PatternRule) || ((PatternRule) rule).anchor == null) {
+      return;
+    }
+    PatternRule patternRule = (PatternRule) rule;
+    List<String> sentences = new ArrayList<>();
+    rule.getIncorrectExamples().forEach(example -> sentences.add(cleanXML(example.getExample())));
+    rule.getCorrectExamples().forEach(example -> sentences.add(cleanXML(example.getExample())));
+    for (String sentence : sentences) {
+      for (AnalyzedSentence analyzedSentence : lt.analyzeText(sentence)) {
+        String expected = toPositions(patternRule.match(analyzedSentence, false));
+        String actual = toPositions(patternRule.match(analyzedSentence, true));
+        if (!expected.equals(actual)) {
+          addError(rule, "Matching with anchor " + patternRule.anchor + " found " + actual +
+            " instead of " + expected + " in: " + sentence);
+        }
+      }
+    }
+  }
+
+  private static String toPositions(RuleMatch[] matches) {
+    return Arrays.stream(matches).map(m -> m.getFromPos() + "-" + m.getToPos()).collect(Collectors.joining(", "));
+  }
+
   private void assertSuggestions(String sentence, List<String> expectedCorrections, AbstractPatternRule rule, List<RuleMatch> matches) {
     if (!expectedCorrections.isEmpty()) {
       boolean expectedNonEmptyCorrection = expectedCorrections.get(0).length() > 0;
@@ -0,0 +1,53 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedToken;
+import org.languagetool.PosTagIds;
+
+import static org.junit.Assert.*;
+
+public class PosTagRegexTest {
+
+  @Test
+  public void testMatches() {
+    PosTagRegex regex = PosTagRegex.get("SUB:NOM:SIN.*");
+    assertSame(regex, PosTagRegex.get("SUB:NOM:SIN.*"));
+    AnalyzedToken noun = new AnalyzedToken("Haus", "SUB:NOM:SIN:NEU", "Haus");
+    AnalyzedToken verb = new AnalyzedToken("geht", "VER:3:SIN:PRÄ:NON", "gehen");
+    for (int i = 0; i < 2; i++) {  // the second time, the stored results are used
+      assertTrue(regex.matches(noun));
+      assertTrue(regex.matches(new AnalyzedToken("Hauses", "SUB:NOM:SIN:NEU", "Haus")));
+      assertFalse(regex.matches(verb));
+    }
+  }
+
+  @Test
+  public void testTagIds() {
+    AnalyzedToken token1 = new AnalyzedToken("a", "TAG:1", null);
+    AnalyzedToken token2 = new AnalyzedToken("b", new String("TAG:1"), "b");
+    AnalyzedToken token3 = new AnalyzedToken("c", "TAG:2", null);
+    assertNotEquals(PosTagIds.NO_ID, token1.getPosTagId());
+    assertEquals(token1.getPosTagId(), token2.getPosTagId());
+    assertSame(token1.getPOSTag(), token2.getPOSTag());
+    assertNotEquals(token1.getPosTagId(), token3.getPosTagId());
+    assertEquals(PosTagIds.NO_ID, new AnalyzedToken("d", null, null).getPosTagId());
+  }
+}
@@ -0,0 +1,126 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.IncorrectExample;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationRuleLoader;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RuleBundleTest {
+
+  private static final String GRAMMAR_FILE = "/org/languagetool/rules/xx/grammar.xml";
+  private static final String DISAMBIGUATION_FILE = "/org/languagetool/resource/xx/disambiguation.xml";
+
+  @Test
+  public void testPatternRulesFromBundle() throws Exception {
+    URL xmlUrl = JLanguageTool.getDataBroker().getAsURL(GRAMMAR_FILE);
+    File bundleFile = tempFile(RuleBundle.FILE_SUFFIX);
+    PatternRuleLoader loader = new PatternRuleLoader();
+    try (InputStream xml = xmlUrl.openStream(); OutputStream out = new FileOutputStream(bundleFile)) {
+      loader.writeBundle(xml, GRAMMAR_FILE, out);
+    }
+    RuleBundle bundle = RuleBundle.load(bundleFile.toURI().toURL(), xmlUrl);
+    assertNotNull(bundle);
+
+    List<AbstractPatternRule> xmlRules;
+    try (InputStream xml = xmlUrl.openStream()) {
+      xmlRules = loader.getRules(xml, GRAMMAR_FILE);
+    }
+    List<AbstractPatternRule> bundleRules = loader.getRules(bundle, GRAMMAR_FILE);
+    assertEquals(xmlRules.size(), bundleRules.size());
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    for (int i = 0; i < xmlRules.size(); i++) {
+      AbstractPatternRule xmlRule = xmlRules.get(i);
+      AbstractPatternRule bundleRule = bundleRules.get(i);
+      assertEquals(xmlRule.toString(), bundleRule.toString());
+      assertEquals(xmlRule.getMessage(), bundleRule.getMessage());
+      assertEquals(xmlRule.getSourceFile(), bundleRule.getSourceFile());
+      assertEquals(xmlRule.getCategory().getName(), bundleRule.getCategory().getName());
+      assertEquals(xmlRule.getCorrectExamples().toString(), bundleRule.getCorrectExamples().toString());
+      for (IncorrectExample example : xmlRule.getIncorrectExamples()) {
+        String text = example.getExample().replaceAll("</?marker>", "");
+        assertEquals(xmlRule.getFullId() + ": " + text,
+          Arrays.toString(xmlRule.match(lt.getAnalyzedSentence(text))),
+          Arrays.toString(bundleRule.match(lt.getAnalyzedSentence(text))));
+      }
+    }
+  }
+
+  @Test
+  public void testDisambiguationRulesFromBundle() throws Exception {
+    URL xmlUrl = JLanguageTool.getDataBroker().getAsURL(DISAMBIGUATION_FILE);
+    File bundleFile = tempFile(RuleBundle.FILE_SUFFIX);
+    DisambiguationRuleLoader loader = new DisambiguationRuleLoader();
+    try (InputStream xml = xmlUrl.openStream(); OutputStream out = new FileOutputStream(bundleFile)) {
+      loader.writeBundle(xml, DISAMBIGUATION_FILE, out);
+    }
+    RuleBundle bundle = RuleBundle.load(bundleFile.toURI().toURL(), xmlUrl);
+    assertNotNull(bundle);
+    List<DisambiguationPatternRule> xmlRules;
+    try (InputStream xml = xmlUrl.openStream()) {
+      xmlRules = loader.getRules(xml);
+    }
+    assertEquals(xmlRules.toString(), loader.getRules(bundle).toString());
+  }
+
+  @Test
+  public void testStaleBundleIsIgnored() throws Exception {
+    File xmlFile = tempFile(".xml");
+    try (InputStream xml = JLanguageTool.getDataBroker().getAsStream(GRAMMAR_FILE)) {
+      Files.copy(xml, xmlFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    File bundleFile = tempFile(RuleBundle.FILE_SUFFIX);
+    try (InputStream xml = new FileInputStream(xmlFile); OutputStream out = new FileOutputStream(bundleFile)) {
+      new PatternRuleLoader().writeBundle(xml, GRAMMAR_FILE, out);
+    }
+    assertNotNull(RuleBundle.load(bundleFile.toURI().toURL(), xmlFile.toURI().toURL()));
+    try (Writer writer = new FileWriter(xmlFile, true)) {
+      writer.write("<!-- changed -->\n");
+    }
+    assertNull(RuleBundle.load(bundleFile.toURI().toURL(), xmlFile.toURI().toURL()));
+    assertNull(RuleBundle.loadIfCurrent(null, xmlFile.toURI().toURL()));
+  }
+
+  @Test(expected = IOException.class)
+  public void testCorruptBundle() throws Exception {
+    File bundleFile = tempFile(RuleBundle.FILE_SUFFIX);
+    try (OutputStream out = new FileOutputStream(bundleFile)) {
+      out.write(new byte[] {1, 2, 3});
+    }
+    RuleBundle.load(bundleFile.toURI().toURL(), null);
+  }
+
+  private File tempFile(String suffix) throws IOException {
+    File file = Files.createTempFile("ruleBundleTest", suffix).toFile();
+    file.deleteOnExit();
+    return file;
+  }
+}
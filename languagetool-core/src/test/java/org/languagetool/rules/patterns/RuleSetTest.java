@@ -68,6 +68,24 @@ public class RuleSetTest {
     assertRulesForSentence(textLemmaHinted(Arrays.asList(ruleOf(unsuitable), unrelated)), unrelated);
   }
 
+  @Test
+  public void viewsUseTheBaseIndex() {
+    PatternRule token = ruleOf(csToken("token"));
+    PatternRule lemma = ruleOf(new PatternTokenBuilder().token("lemma").matchInflectedForms().build());
+    PatternRule unsuitable = ruleOf(csToken("unsuitable"));
+    PatternRule unrelated = ruleOf(pos("somePos"));
+    RuleSet base = textLemmaHinted(Arrays.asList(token, lemma, unsuitable, unrelated));
+
+    assertRulesForSentence(textLemmaHinted(Arrays.asList(token, lemma, unsuitable, unrelated), base), token, lemma, unrelated);
+    // a selection, in a different order:
+    assertRulesForSentence(textLemmaHinted(Arrays.asList(unrelated, unsuitable, token), base), unrelated, token);
+    // rules that are not part of the base get indexed on their own:
+    PatternRule otherToken = ruleOf(csToken("token"));
+    PatternRule otherUnsuitable = ruleOf(csToken("unsuitable"));
+    assertRulesForSentence(textLemmaHinted(Arrays.asList(otherUnsuitable, lemma, otherToken, unsuitable), base), lemma, otherToken);
+    assertRulesForSentence(textLemmaHinted(Collections.emptyList(), base));
+  }
+
   private static void assertRulesForSentence(RuleSet ruleSet, PatternRule... expected) {
     assertEquals(Arrays.asList(expected), ruleSet.rulesForSentence(sampleSentence));
   }
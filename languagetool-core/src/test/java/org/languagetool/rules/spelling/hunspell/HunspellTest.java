@@ -0,0 +1,125 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.spelling.hunspell;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class HunspellTest {
+
+  @Test
+  public void testSpell() {
+    try (Hunspell hunspell = Hunspell.forDictionaryInResources("xx_XX", "/org/languagetool/resource/xx/hunspell/")) {
+      assertTrue(hunspell.spell("das"));
+      assertTrue(hunspell.spell("richtig"));
+      assertFalse(hunspell.spell("richtik"));
+      assertFalse(hunspell.spell("fälsch"));
+      // longer than the initial native buffer:
+      assertFalse(hunspell.spell(StringUtils.repeat("ä", 200)));
+      assertTrue(hunspell.spell("ist"));
+      assertTrue(hunspell.suggest("richtik").contains("richtig"));
+    }
+  }
+
+  @Test
+  public void testSpellBatch() {
+    try (Hunspell hunspell = Hunspell.forDictionaryInResources("xx_XX", "/org/languagetool/resource/xx/hunspell/")) {
+      List<String> words = Arrays.asList("das", "ist", "richtik", "", StringUtils.repeat("x", 100), "falsch");
+      boolean[] result = hunspell.spell(words);
+      assertEquals(words.size(), result.length);
+      for (int i = 0; i < words.size(); i++) {
+        assertEquals(words.get(i), hunspell.spell(words.get(i)), result[i]);
+      }
+      assertEquals(0, hunspell.spell(new ArrayList<>()).length);
+    }
+  }
+
+  @Test
+  public void testAddAndConcurrentUse() throws Exception {
+    Hunspell hunspell = Hunspell.forDictionaryInResources("xx_XX", "/org/languagetool/resource/xx/hunspell/");
+    hunspell.add("foobar");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 2000; j++) {
+            assertTrue(hunspell.spell("richtig"));
+            assertTrue(hunspell.spell("foobar"));
+            assertFalse(hunspell.spell("richtik"));
+            assertArrayEquals(new boolean[]{true, false, true}, hunspell.spell(Arrays.asList("das", "dass", "ist")));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      hunspell.close();
+    }
+  }
+
+  @Test
+  public void testCloseWhileInUse() throws Exception {
+    Hunspell hunspell = Hunspell.forDictionaryInResources("xx_XX", "/org/languagetool/resource/xx/hunspell/");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          try {
+            while (true) {
+              assertTrue(hunspell.spell("richtig"));
+              assertTrue(hunspell.suggest("richtik").contains("richtig"));
+            }
+          } catch (RuntimeException expected) {
+            // handles that are in use must not be destroyed, later calls must fail:
+            assertTrue(expected.getMessage(), expected.getMessage().contains("after closing"));
+          }
+          return null;
+        }));
+      }
+      Thread.sleep(200);
+      hunspell.close();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testUseAfterClose() {
+    Hunspell hunspell = Hunspell.forDictionaryInResources("xx_XX", "/org/languagetool/resource/xx/hunspell/");
+    hunspell.close();
+    hunspell.spell("das");
+  }
+}
@@ -21,6 +21,11 @@ package org.languagetool.rules.spelling.morfologik;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -44,6 +49,30 @@ public class MorfologikSpellerTest {
     assertTrue(speller.isMisspelled("nosuchword"));
   }
 
+  @Test
+  public void testConcurrentUse() throws Exception {
+    MorfologikSpeller speller = new MorfologikSpeller("/xx/spelling/test.dict");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 2000; j++) {
+            assertFalse(speller.isMisspelled("Häuser"));
+            assertTrue(speller.isMisspelled("nosuchword"));
+            assertThat(speller.findReplacements("wordonex").toString(), is("[wordone]"));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testGetSuggestions() {
     MorfologikSpeller spellerDist1 = new MorfologikSpeller("/xx/spelling/test.dict", 1);
@@ -0,0 +1,77 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tagging;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class WordTagCacheTest {
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final Function<String, List<AnalyzedToken>> tagger = word -> {
+    calls.incrementAndGet();
+    return Arrays.asList(new AnalyzedToken(word, "NN", word.toLowerCase()), new AnalyzedToken(word, null, null));
+  };
+
+  @Test
+  public void testGet() {
+    WordTagCache cache = new WordTagCache(10);
+    List<AnalyzedToken> tokens1 = cache.get("Haus", tagger);
+    List<AnalyzedToken> tokens2 = cache.get("Haus", tagger);
+    assertEquals(1, calls.get());
+    assertEquals(tokens1, tokens2);
+    assertNotSame(tokens1.get(0), tokens2.get(0));  // AnalyzedTokens are mutable, so they must not be shared
+    assertEquals("haus", tokens2.get(0).getLemma());
+    assertTrue(tokens2.get(1).hasNoTag());
+    assertEquals(1, cache.getStats().hitCount());
+    assertEquals(1, cache.getStats().missCount());
+  }
+
+  @Test
+  public void testEviction() {
+    WordTagCache cache = new WordTagCache(2);
+    for (String word : Arrays.asList("a", "b", "c", "d")) {
+      cache.get(word, tagger);
+    }
+    assertTrue(cache.size() <= 2);
+    assertTrue(cache.getStats().evictionCount() >= 2);
+  }
+
+  @Test
+  public void testWarmUp() throws IOException {
+    WordTagCache cache = new WordTagCache(2);
+    String frequencyList = "# most frequent first\nder\t1000\ndie 900\n\ndas\t800\n";
+    cache.warmUp(new ByteArrayInputStream(frequencyList.getBytes(StandardCharsets.UTF_8)), tagger);
+    assertEquals(2, calls.get());
+    assertEquals(2, cache.size());
+    cache.get("der", tagger);
+    cache.get("die", tagger);
+    assertEquals(2, calls.get());
+  }
+}
@@ -0,0 +1,46 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 LanguageTooler GmbH
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev;
+
+import org.languagetool.language.NGramLangIdentifier;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts the zip model of {@link NGramLangIdentifier} to its binary format, which loads
+ * faster and whose bigram tables are memory-mapped instead of kept on the heap.
+ * @since 5.2
+ */
+final class NGramLangIdentifierModelConverter {
+
+  private NGramLangIdentifierModelConverter() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + NGramLangIdentifierModelConverter.class.getSimpleName() + " <model.zip> <output file>");
+      System.exit(1);
+    }
+    File output = new File(args[1]);
+    NGramLangIdentifier identifier = new NGramLangIdentifier(new File(args[0]), 50);
+    identifier.writeBinaryModel(output);
+    System.out.println("Done: " + output + ", " + output.length() + " bytes");
+  }
+}
@@ -23,59 +23,97 @@ import org.languagetool.language.NGramLangIdentifier;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * Throughput benchmark for {@link NGramLangIdentifier}: reports load time, heap usage, and
+ * characters per second for one or more models (zip or binary format, see
+ * {@link NGramLangIdentifierModelConverter}).
+ */
 public class NGramLangIdentifierPerformanceTest {
 
-  private static final File ngramZip = new File("/home/languagetool/ngram-lang-id/model_ml50_new.zip");
-  private static final Path input = Paths.get("/home/dnaber/data/corpus/tatoeba/20191014/sentences_shuf.txt");
-  private static final int limit = 10_000;
+  private static final int WARMUP_RUNS = 2;
+  private static final int MEASURED_RUNS = 5;
+
+  private final List<String> lines;
+
+  private NGramLangIdentifierPerformanceTest(List<String> lines) {
+    this.lines = lines;
+  }
+
+  private void testPerformance(File model) throws IOException {
+    System.out.println("=== " + model + " ===");
+    long heapBefore = usedHeap();
+    long startTime = System.nanoTime();
+    NGramLangIdentifier ngram = new NGramLangIdentifier(model, 50);
+    long loadMillis = (System.nanoTime() - startTime) / 1_000_000;
+    long heapAfter = usedHeap();
+    System.out.printf(Locale.ENGLISH, "Loaded in %dms, heap: %.1fMB\n", loadMillis, (heapAfter - heapBefore) / 1024.0 / 1024.0);
+    long totalChars = 0;
+    for (String line : lines) {
+      totalChars += line.length();
+    }
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      run(ngram);
+    }
+    long totalNanos = 0;
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      long runStart = System.nanoTime();
+      run(ngram);
+      totalNanos += System.nanoTime() - runStart;
+    }
+    double seconds = totalNanos / 1_000_000_000.0;
+    System.out.printf(Locale.ENGLISH, "Runs: %d x %d lines, avg. length: %.2f chars\n", MEASURED_RUNS, lines.size(), (double) totalChars / lines.size());
+    System.out.printf(Locale.ENGLISH, "Avg: %.4fms per line, %.0f chars/sec\n",
+      seconds * 1000 / (MEASURED_RUNS * lines.size()), MEASURED_RUNS * totalChars / seconds);
+  }
 
-  public void testPerformance() throws IOException {
-    System.out.println("Loading ngrams...");
-    NGramLangIdentifier ngram = new NGramLangIdentifier(ngramZip, 50);
-    System.out.println("Loaded.");
-    int i = 0;
-    double totalMillis = 0;
-    long totalLength = 0;
-    long totalRuns = 0;
-    System.out.println("Loading input...");
-    List<String> lines = Files.readAllLines(input);
-    System.out.println("Loaded " + lines.size() + " lines.");
+  private int run(NGramLangIdentifier ngram) {
+    int results = 0;
     for (String line : lines) {
-      long startTime = System.nanoTime();
-      Map<String, Double> detectLanguages = ngram.detectLanguages(line, null);
-      long endTime = System.nanoTime();
-      double runTimeMillis = (endTime - startTime) / 1000.0f / 1000.0f;
-      if (i > 10) {
-        totalMillis += runTimeMillis;
-        totalLength += line.length();
-        totalRuns++;
-        //System.out.println(line.length() + " chars took " + runTimeMillis + "ms -> " + detectLanguages);
-        //System.out.println(line.length() + " chars took " + runTimeMillis + "ms");
-        if (runTimeMillis > 5) {
-          System.out.println(line.length() + " chars took " + runTimeMillis + "ms for text: " + line);
-        }
+      results += ngram.detectLanguages(line, Collections.emptyList()).size();
+    }
+    return results;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.out.println("Usage: " + NGramLangIdentifierPerformanceTest.class.getSimpleName() + " <input file> <model>... [--limit <lines>]");
+      System.out.println("  <input file> a plain text file with one sentence per line");
+      System.out.println("  <model>      a model in zip or binary format, several models are run one after the other");
+      System.exit(1);
+    }
+    int limit = Integer.MAX_VALUE;
+    List<File> models = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("--limit")) {
+        limit = Integer.parseInt(args[++i]);
       } else {
-        System.out.println("Skipping early run " + i);
+        models.add(new File(args[i]));
       }
-      if (i > limit) {
-        System.out.println("Stopping test at limit " + limit);
+    }
+    List<String> lines = new ArrayList<>();
+    for (String line : Files.readAllLines(Paths.get(args[0]))) {
+      if (lines.size() >= limit) {
         break;
       }
-      i++;
+      // the identifier is only used for short texts (see LanguageIdentifier), longer ones get cut:
+      lines.add(line.length() < 50 ? line : line.substring(0, 49));
+    }
+    System.out.println("Loaded " + lines.size() + " lines");
+    NGramLangIdentifierPerformanceTest test = new NGramLangIdentifierPerformanceTest(lines);
+    for (File model : models) {
+      test.testPerformance(model);
     }
-    System.out.println("Runs: " + totalRuns);
-    System.out.printf(Locale.ENGLISH, "Avg. length: %.2f chars\n", (double)totalLength/totalRuns);
-    System.out.printf(Locale.ENGLISH, "Avg: %.2fms\n", totalMillis/totalRuns);
-  }
-
-  public static void main(String[] args) throws IOException {
-    new NGramLangIdentifierPerformanceTest().testPerformance();
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.bigdata;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.languagetool.languagemodel.CompactNgramIndexWriter;
+import org.languagetool.languagemodel.CompactNgramLanguageModel;
+import org.languagetool.languagemodel.LuceneSingleIndexLanguageModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.*;
+
+/**
+ * Converts the Lucene ngram indexes used by {@link org.languagetool.languagemodel.LuceneLanguageModel}
+ * (as created by {@link FrequencyIndexCreator} or {@link AggregatedNgramToLucene}) to the much
+ * smaller file used by {@link CompactNgramLanguageModel}.
+ * @since 5.2
+ */
+final class CompactNgramIndexCreator {
+
+  private static final Set<String> COUNT_FIELD = Collections.singleton("count");
+
+  private long ngramCount;
+
+  private CompactNgramIndexCreator() {
+  }
+
+  private void convert(File luceneTopIndexDir, File outputDir) throws IOException {
+    // like LuceneLanguageModel, support both a single index and several 'index-N' sub directories:
+    File[] subDirs = luceneTopIndexDir.listFiles((file, name) -> name.matches("index-\\d+"));
+    List<File> indexTopDirs = subDirs != null && subDirs.length > 0 ? Arrays.asList(subDirs) : Collections.singletonList(luceneTopIndexDir);
+    long totalTokenCount = 0;
+    try (CompactNgramIndexWriter writer = new CompactNgramIndexWriter(outputDir)) {
+      for (File indexTopDir : indexTopDirs) {
+        LuceneSingleIndexLanguageModel.validateDirectory(indexTopDir);
+        try (LuceneSingleIndexLanguageModel lm = new LuceneSingleIndexLanguageModel(indexTopDir)) {
+          totalTokenCount += lm.getTotalTokenCount();
+        }
+        for (int ngramSize = 1; ngramSize <= 4; ngramSize++) {
+          File indexDir = new File(indexTopDir, ngramSize + "grams");
+          if (indexDir.isDirectory()) {
+            addIndex(indexDir, writer);
+          }
+        }
+      }
+      writer.setTotalTokenCount(totalTokenCount);
+      System.out.println("Sorting and writing " + NumberFormat.getNumberInstance(Locale.US).format(ngramCount) + " ngrams...");
+    }
+    try (CompactNgramLanguageModel lm = new CompactNgramLanguageModel(outputDir)) {
+      System.out.println("Done: " + new File(outputDir, CompactNgramLanguageModel.FILE_NAME) + ", " +
+        lm.getNgramCount() + " ngrams, total token count " + lm.getTotalTokenCount());
+    }
+  }
+
+  private void addIndex(File indexDir, CompactNgramIndexWriter writer) throws IOException {
+    System.out.println("Converting " + indexDir);
+    try (FSDirectory directory = FSDirectory.open(indexDir.toPath());
+         IndexReader reader = DirectoryReader.open(directory)) {
+      Terms terms = MultiFields.getTerms(reader, "ngram");
+      if (terms == null) {
+        System.err.println("No 'ngram' field found, ignoring " + indexDir);
+        return;
+      }
+      TermsEnum termsEnum = terms.iterator();
+      PostingsEnum postings = null;
+      BytesRef term;
+      while ((term = termsEnum.next()) != null) {
+        // sum up the counts of all documents, as LuceneSingleIndexLanguageModel does:
+        long count = 0;
+        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+        int docId;
+        while ((docId = postings.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+          count += Long.parseLong(reader.document(docId, COUNT_FIELD).get("count"));
+        }
+        writer.add(term.utf8ToString(), count);
+        if (++ngramCount % 1_000_000 == 0) {
+          System.out.println(NumberFormat.getNumberInstance(Locale.US).format(ngramCount) + " ngrams...");
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + CompactNgramIndexCreator.class.getSimpleName() + " <luceneIndexDir> <outputDir>");
+      System.out.println("    <luceneIndexDir> is the ngram directory of one language, e.g. 'en', with sub directories '1grams' etc.");
+      System.out.println("    <outputDir> is the directory the " + CompactNgramLanguageModel.FILE_NAME + " file gets written to,");
+      System.out.println("                it is used instead of the Lucene indexes when it's in the ngram directory of a language");
+      System.exit(1);
+    }
+    new CompactNgramIndexCreator().convert(new File(args[0]), new File(args[1]));
+  }
+}
@@ -1314,11 +1314,23 @@ public class GermanSpellerRule extends CompoundAwareHunspellRule {
       if (words.get(idx).contains("-")) {
         ignoreByHyphen = words.get(idx).endsWith("-") && ignoreByHangingHyphen(words, idx);
       }
-      ignoreHyphenatedCompound = !ignoreByHyphen && ignoreCompoundWithIgnoredWord(words.get(idx));
+      ignoreHyphenatedCompound = !ignoreByHyphen && ignoreCompoundWithIgnoredWord(words.get(idx), Collections.emptySet());
     }
     return ignore || ignoreUncapitalizedWord || ignoreByHyphen || ignoreHyphenatedCompound || ignoreElative(words.get(idx));
   }
 
+  @Override
+  public boolean isCompoundWithIgnoredWord(String word, Set<String> additionalWords) throws IOException {
+    if (additionalWords.isEmpty()) {
+      return false;
+    }
+    ensureInitialized();
+    if (hunspell == null) {
+      return false;
+    }
+    return ignoreCompoundWithIgnoredWord(word, additionalWords);
+  }
+
   @Override
   protected List<SuggestedReplacement> getAdditionalTopSuggestions(List<SuggestedReplacement> suggestions, String word) throws IOException {
     List<String> suggestionsList = suggestions.stream()
@@ -1766,8 +1778,8 @@ public class GermanSpellerRule extends CompoundAwareHunspellRule {
   }
 
   // check whether a <code>word<code> is a valid compound (e.g., "Feynmandiagramm" or "Feynman-Diagramm")
-  // that contains an ignored word from spelling.txt (e.g., "Feynman")
-  private boolean ignoreCompoundWithIgnoredWord(String word) throws IOException {
+  // that contains an ignored word from spelling.txt or from <code>additionalWords</code> (e.g., "Feynman")
+  private boolean ignoreCompoundWithIgnoredWord(String word, Set<String> additionalWords) throws IOException {
     if (!StringTools.startsWithUppercase(word) && !StringUtils.startsWithAny(word, "nord", "west", "ost", "süd")) {
       // otherwise stuff like "rumfangreichen" gets accepted
       return false;
@@ -1776,7 +1788,7 @@ public class GermanSpellerRule extends CompoundAwareHunspellRule {
     if (words.length < 2) {
       // non-hyphenated compound (e.g., "Feynmandiagramm"):
       // only search for compounds that start(!) with a word from spelling.txt
-      int end = super.startsWithIgnoredWord(word, true);
+      int end = Math.max(super.startsWithIgnoredWord(word, true), startsWithWord(word, additionalWords));
       if (end < 3) {
         // support for geographical adjectives - although "süd/ost/west/nord" are not in spelling.txt
         // to accept sentences such as
@@ -1807,19 +1819,19 @@ public class GermanSpellerRule extends CompoundAwareHunspellRule {
     String stripFirst = word.substring(words[0].length()+1); // everything after the first "-"
     String stripLast  = word.substring(0, word.length()-words[words.length-1].length()-1); // everything up to the last "-"
 
-    if (super.ignoreWord(stripFirst) || wordsToBeIgnoredInCompounds.contains(stripFirst)) { // e.g., "Senioren-Au-pair"
+    if (isIgnoredWord(stripFirst, additionalWords) || wordsToBeIgnoredInCompounds.contains(stripFirst)) { // e.g., "Senioren-Au-pair"
       hasIgnoredWord = true;
-      if (!super.ignoreWord(words[0])) {
+      if (!isIgnoredWord(words[0], additionalWords)) {
         toSpellCheck.add(words[0]);
       }
-    } else if (super.ignoreWord(stripLast) || wordsToBeIgnoredInCompounds.contains(stripLast)) { // e.g., "Au-pair-Agentur"
+    } else if (isIgnoredWord(stripLast, additionalWords) || wordsToBeIgnoredInCompounds.contains(stripLast)) { // e.g., "Au-pair-Agentur"
       hasIgnoredWord = true;
-      if (!super.ignoreWord(words[words.length-1])){
+      if (!isIgnoredWord(words[words.length-1], additionalWords)){
         toSpellCheck.add(words[words.length-1]);
       }
     } else {
       for (String word1 : words) {
-        if (super.ignoreWord(word1) || wordsToBeIgnoredInCompounds.contains(word1)) {
+        if (isIgnoredWord(word1, additionalWords) || wordsToBeIgnoredInCompounds.contains(word1)) {
           hasIgnoredWord = true;
         } else {
           toSpellCheck.add(word1);
@@ -1837,6 +1849,23 @@ public class GermanSpellerRule extends CompoundAwareHunspellRule {
     return hasIgnoredWord;
   }
 
+  private boolean isIgnoredWord(String word, Set<String> additionalWords) throws IOException {
+    return super.ignoreWord(word) || additionalWords.contains(word);
+  }
+
+  // like startsWithIgnoredWord(), but for the given words
+  private static int startsWithWord(String word, Set<String> words) {
+    if (words.isEmpty()) {
+      return 0;
+    }
+    for (int end = word.length() - 1; end >= 3; end--) {
+      if (words.contains(word.substring(0, end))) {
+        return end;
+      }
+    }
+    return 0;
+  }
+
   static class ExpandingReader extends BufferedReader {
 
     private final List<String> buffer = new ArrayList<>();
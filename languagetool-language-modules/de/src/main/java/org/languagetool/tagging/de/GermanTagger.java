@@ -19,6 +19,8 @@
 package org.languagetool.tagging.de;
 
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import gnu.trove.THashMap;
 import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -33,6 +35,7 @@ import org.languagetool.tagging.BaseTagger;
 import org.languagetool.tagging.CombiningTagger;
 import org.languagetool.tagging.ManualTagger;
 import org.languagetool.tagging.TaggedWord;
+import org.languagetool.tagging.WordTagCache;
 import org.languagetool.tokenizers.de.GermanCompoundTokenizer;
 import org.languagetool.tools.StringTools;
 
@@ -87,6 +90,10 @@ public class GermanTagger extends BaseTagger {
   private static final Supplier<Map<String, PrefixInfixVerb>> verbInfos = Suppliers.memoize(GermanTagger::initVerbInfos);
 
   private GermanCompoundTokenizer compoundTokenizer;
+  // splitting unknown words into compound parts is expensive, and the same words occur again and again:
+  private final Cache<String, List<String>> compoundPartsCache = CacheBuilder.newBuilder()
+    .maximumSize(WordTagCache.DEFAULT_MAX_SIZE)
+    .build();
 
   public GermanTagger() {
     super("/de/german.dict", Locale.GERMAN);
@@ -143,7 +150,7 @@ public class GermanTagger extends BaseTagger {
       String lastPart = splitWord.length > 1 && !splitWord[splitWord.length - 1].trim().equals("") ? splitWord[splitWord.length - 1] : word;
 
       //Find only the actual important part of the word
-      List<String> compoundedWord = compoundTokenizer.tokenize(lastPart);
+      List<String> compoundedWord = tokenizeCompound(lastPart);
       if (compoundedWord.size() > 1) {
         lastPart = StringTools.uppercaseFirstChar(compoundedWord.get(compoundedWord.size() - 1));
       } else {
@@ -249,7 +256,7 @@ public class GermanTagger extends BaseTagger {
             readings.add(new AnalyzedToken(word, tag, word));
           }
         } else if (!StringUtils.isAllBlank(word)) {
-          List<String> compoundParts = compoundTokenizer.tokenize(word);
+          List<String> compoundParts = tokenizeCompound(word);
           if (compoundParts.size() <= 1) {//Could not find simple compound parts
             // Recognize alternative imperative forms (e.g., "Geh bitte!" in addition to "Gehe bitte!")
             List<AnalyzedToken> imperativeFormList = getImperativeForm(word, sentenceTokens, pos);
@@ -280,7 +287,7 @@ public class GermanTagger extends BaseTagger {
                 String wordStem = wordOrig.substring(0, wordOrig.length() - word.length());
 
                 //Tokenize, start word uppercase if it's a result of splitting
-                List<String> compoundedWord = compoundTokenizer.tokenize(word);
+                List<String> compoundedWord = tokenizeCompound(word);
                 if (compoundedWord.size() > 1) {
                   word = StringTools.uppercaseFirstChar(compoundedWord.get(compoundedWord.size() - 1));
                 } else {
@@ -445,6 +452,15 @@ public class GermanTagger extends BaseTagger {
     }
   }
 
+  private List<String> tokenizeCompound(String word) {
+    List<String> parts = compoundPartsCache.getIfPresent(word);
+    if (parts == null) {
+      parts = Collections.unmodifiableList(compoundTokenizer.tokenize(word));
+      compoundPartsCache.put(word, parts);
+    }
+    return parts;
+  }
+
   private AnalyzedToken getNoInfoToken(String word) {
     return new AnalyzedToken(word, null, null);
   }
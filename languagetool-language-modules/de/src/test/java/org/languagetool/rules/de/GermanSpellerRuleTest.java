@@ -563,6 +563,17 @@ public class GermanSpellerRuleTest {
     assertEquals(0, ruleCH.match(lt.getAnalyzedSentence("Einpseudowortmitssfürlanguagetooltests-Auto")).length);
   }
 
+  @Test
+  public void testIsCompoundWithIgnoredWord() throws Exception {
+    GermanSpellerRule rule = new GermanSpellerRule(TestTools.getMessages("de"), GERMAN_DE);
+    Set<String> userWords = Collections.singleton("Mysurname");
+    assertTrue(rule.isCompoundWithIgnoredWord("Mysurnamehaus", userWords));
+    assertTrue(rule.isCompoundWithIgnoredWord("Mysurname-Haus", userWords));
+    assertFalse(rule.isCompoundWithIgnoredWord("Mysurnamehxus", userWords));
+    assertFalse(rule.isCompoundWithIgnoredWord("Mxsurnamehaus", userWords));
+    assertFalse(rule.isCompoundWithIgnoredWord("Mysurnamehaus", Collections.emptySet()));
+  }
+
   @Test
   public void testGetSuggestionsFromSpellingTxt() throws Exception {
     MyGermanSpellerRule ruleGermany = new MyGermanSpellerRule(TestTools.getMessages("de"), GERMAN_DE);
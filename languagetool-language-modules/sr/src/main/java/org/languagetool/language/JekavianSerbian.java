@@ -43,23 +43,14 @@ import java.util.ResourceBundle;
  */
 public class JekavianSerbian extends Serbian {
 
-  private Synthesizer synthesizer;
-  private Tagger tagger;
-
   @Override
-  public Tagger getTagger() {
-    if (tagger == null) {
-      tagger = new JekavianTagger();
-    }
-    return tagger;
+  public Tagger createDefaultTagger() {
+    return new JekavianTagger();
   }
 
   @Override
-  public Synthesizer getSynthesizer() {
-    if (synthesizer == null) {
-      synthesizer = new JekavianSynthesizer();
-    }
-    return synthesizer;
+  public Synthesizer createDefaultSynthesizer() {
+    return new JekavianSynthesizer();
   }
 
   @Override
@@ -55,11 +55,6 @@ import java.util.ResourceBundle;
 public class Serbian extends Language {
 
   private static final Language SERBIA_SERBIAN = new SerbianSerbian();
-  
-  private SentenceTokenizer sentenceTokenizer;
-  private Tagger tagger;
-  private Synthesizer synthesizer;
-  private Disambiguator disambiguator;
 
   // Grammar rules distributed over multiple .XML files
   // We want to keep our rules small and tidy.
@@ -101,35 +96,23 @@ public class Serbian extends Language {
   }
 
   @Override
-  public Tagger getTagger() {
-    if (tagger == null) {
-      tagger = new EkavianTagger();
-    }
-    return tagger;
+  public Tagger createDefaultTagger() {
+    return new EkavianTagger();
   }
 
   @Override
-  public Synthesizer getSynthesizer() {
-    if (synthesizer == null) {
-      synthesizer = new EkavianSynthesizer();
-    }
-    return synthesizer;
+  public Synthesizer createDefaultSynthesizer() {
+    return new EkavianSynthesizer();
   }
 
   @Override
-  public Disambiguator getDisambiguator() {
-    if (disambiguator == null) {
-      disambiguator = new SerbianHybridDisambiguator();
-    }
-    return disambiguator;
+  public Disambiguator createDefaultDisambiguator() {
+    return new SerbianHybridDisambiguator();
   }
 
   @Override
-  public SentenceTokenizer getSentenceTokenizer() {
-    if (sentenceTokenizer == null) {
-      sentenceTokenizer = new SRXSentenceTokenizer(this);
-    }
-    return sentenceTokenizer;
+  public SentenceTokenizer createDefaultSentenceTokenizer() {
+    return new SRXSentenceTokenizer(this);
   }
 
   @Override
@@ -164,6 +164,11 @@ class ApiV2 {
     AnnotatedText aText;
     if (parameters.containsKey("text") && parameters.containsKey("data")) {
       throw new IllegalArgumentException("Set only 'text' or 'data' parameter, not both");
+    } else if (parameters.containsKey("changes") && (parameters.containsKey("text") || parameters.containsKey("data"))) {
+      throw new IllegalArgumentException("Set only 'changes' or 'text' / 'data' parameter, not both");
+    } else if (parameters.containsKey("changes")) {
+      // incremental check: the text is the text of an earlier check with the given changes applied
+      aText = new AnnotatedTextBuilder().addText(textChecker.getChangedDocumentText(parameters)).build();
     } else if (parameters.containsKey("text")) {
       aText = new AnnotatedTextBuilder().addText(parameters.get("text")).build();
     } else if (parameters.containsKey("data")) {
@@ -179,7 +184,7 @@ class ApiV2 {
         throw new IllegalArgumentException("'data' key in JSON requires 'text' or 'annotation' key");
       }
     } else {
-      throw new IllegalArgumentException("Missing 'text' or 'data' parameter");
+      throw new IllegalArgumentException("Missing 'text', 'data', or 'changes' parameter");
     }
     textChecker.checkText(aText, httpExchange, parameters, errorRequestLimiter, remoteAddress);
   }
@@ -43,6 +43,7 @@ import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -55,10 +56,22 @@ class DatabaseAccess {
   private static SqlSessionFactory sqlSessionFactory;
   private static final Logger logger = LoggerFactory.getLogger(DatabaseAccess.class);
 
-  private final Cache<Long, List<UserDictEntry>> userDictCache = CacheBuilder.newBuilder()
+  // how long a cached user dictionary is used without asking the database again - changes
+  // made via this server are visible at once, changes made via other servers only after this time:
+  private static final long USER_DICT_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  // older entries are still used when the database is down:
+  private final Cache<Long, CachedUserDict> userDictCache = CacheBuilder.newBuilder()
           .maximumSize(1000)
           .expireAfterWrite(24, TimeUnit.HOURS)
           .build();
+  // user id -> version of the user's dictionary, changed on every add/delete so that a
+  // lookup that started before the change cannot make the outdated words look valid
+  // (expires like the cached dictionaries, a missing version only causes a reload):
+  private final Cache<Long, Long> userDictVersions = CacheBuilder.newBuilder()
+          .expireAfterWrite(24, TimeUnit.HOURS)
+          .build();
+  private final AtomicLong userDictVersionCounter = new AtomicLong();
 
   private final Cache<String, Long> dbLoggingCache = CacheBuilder.newBuilder()
     .expireAfterAccess(1, TimeUnit.HOURS)
@@ -109,35 +122,46 @@ class DatabaseAccess {
   }
 
   List<String> getUserDictWords(Long userId) {
-    List<String> dictEntries = new ArrayList<>();
     if (sqlSessionFactory == null) {
-      return dictEntries;
+      return Collections.emptyList();
+    }
+    Long changedVersion = userDictVersions.getIfPresent(userId);
+    long version = changedVersion != null ? changedVersion : 0L;
+    CachedUserDict cachedDict = userDictCache.getIfPresent(userId);
+    if (cachedDict != null && cachedDict.version == version &&
+        System.currentTimeMillis() - cachedDict.loadedAt < USER_DICT_MAX_AGE_MILLIS) {
+      return cachedDict.words;
     }
     try (SqlSession session = sqlSessionFactory.openSession()) {
       try {
         List<UserDictEntry> dict = session.selectList("org.languagetool.server.UserDictMapper.selectWordList", userId);
+        List<String> dictEntries = new ArrayList<>(dict.size());
         for (UserDictEntry userDictEntry : dict) {
           dictEntries.add(userDictEntry.getWord());
         }
+        dictEntries = Collections.unmodifiableList(dictEntries);
         if (dict.size() <= 1000) {  // make sure users with huge dict don't blow up the cache
-          userDictCache.put(userId, dict);
+          userDictCache.put(userId, new CachedUserDict(version, dictEntries));
         } else {
           logger.info("WARN: Large dict size " + dict.size() + " for user " + userId + " - will not put user's dict in cache");
         }
+        return dictEntries;
       } catch (Exception e) {
         // try to be more robust when database is down, i.e. don't just crash but try to use cache:
-        List<UserDictEntry> cachedDictOrNull = userDictCache.getIfPresent(userId);
-        if (cachedDictOrNull != null) {
-          logger.error("ERROR: Could not get words from database for user " + userId + ": " + e.getMessage() + ", will use cached version (" + cachedDictOrNull.size() + " items). Full stack trace follows:" + ExceptionUtils.getStackTrace(e));
-          for (UserDictEntry userDictEntry : cachedDictOrNull) {
-            dictEntries.add(userDictEntry.getWord());
-          }
+        if (cachedDict != null) {
+          logger.error("ERROR: Could not get words from database for user " + userId + ": " + e.getMessage() + ", will use cached version (" + cachedDict.words.size() + " items). Full stack trace follows:" + ExceptionUtils.getStackTrace(e));
+          return cachedDict.words;
         } else {
           logger.error("ERROR: Could not get words from database for user " + userId + ": " + e.getMessage() + " - also, could not use version from cache, user id not found in cache, will use empty dict. Full stack trace follows:" + ExceptionUtils.getStackTrace(e));
+          return Collections.emptyList();
         }
       }
     }
-    return dictEntries;
+  }
+
+  private void invalidateUserDict(Long userId) {
+    userDictVersions.put(userId, userDictVersionCounter.incrementAndGet());
+    userDictCache.invalidate(userId);
   }
 
   List<UserDictEntry> getWords(Long userId, int offset, int limit) {
@@ -395,6 +419,7 @@ class DatabaseAccess {
         map.put("created_at", now);
         map.put("updated_at", now);
         int affectedRows = session.insert("org.languagetool.server.UserDictMapper.addWord", map);
+        invalidateUserDict(userId);
         logger.info("Added '" + word + "' for user " + userId + " to list of ignored words, affectedRows: " + affectedRows);
         return affectedRows == 1;
       }
@@ -448,6 +473,7 @@ class DatabaseAccess {
         return false;
       } else {
         int affectedRows = session.delete("org.languagetool.server.UserDictMapper.deleteWord", map);
+        invalidateUserDict(userId);
         logger.info("Deleted '" + word + "' for user " + userId + " from list of ignored words, affectedRows: " + affectedRows);
         return affectedRows >= 1;
       }
@@ -576,6 +602,9 @@ class DatabaseAccess {
       session.delete("org.languagetool.server.UserDictMapper.deleteUsersTable");
       session.delete("org.languagetool.server.UserDictMapper.deleteIgnoreWordsTable");
     }
+    if (instance != null) {
+      instance.userDictCache.invalidateAll();
+    }
   }
 
   /** For unit tests only */
@@ -589,6 +618,18 @@ class DatabaseAccess {
     }
   }
 
+  private static class CachedUserDict {
+    private final long version;
+    private final long loadedAt;
+    private final List<String> words;
+
+    private CachedUserDict(long version, List<String> words) {
+      this.version = version;
+      this.loadedAt = System.currentTimeMillis();
+      this.words = words;
+    }
+  }
+
   public static class DayStatistics {
     private final String date;
     private final Boolean applied;
@@ -0,0 +1,253 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.JLanguageTool;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.TextLevelRule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the text and the matches of recently checked documents, so that clients can send
+ * only their changes to a document and only the paragraphs around these changes need to be
+ * checked again.
+ * @since 5.2
+ */
+class DocumentSessions {
+
+  private static final long EXPIRE_MINUTES = 30;
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final Cache<String, Document> documents;
+
+  DocumentSessions(int maxSize) {
+    documents = CacheBuilder.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+      .build();
+  }
+
+  @Nullable
+  Document get(String key) {
+    return documents.getIfPresent(key);
+  }
+
+  void put(String key, Document document) {
+    documents.put(key, document);
+  }
+
+  /**
+   * Get the text of the document after applying {@code changesJson} to its revision {@code baseRevision}.
+   * @param changesJson a JSON array of objects with {@code offset}, {@code length} and {@code text}, each
+   *                    replacing {@code length} characters at {@code offset}. Offsets refer to the text
+   *                    after applying the previous changes.
+   */
+  String applyChanges(String key, int baseRevision, String changesJson) throws IOException {
+    Document document = documents.getIfPresent(key);
+    if (document == null || document.revision != baseRevision) {
+      throw new IllegalArgumentException("Revision " + baseRevision + " of this document is not known (anymore), please send the complete text");
+    }
+    JsonNode changes = mapper.readTree(changesJson);
+    if (!changes.isArray()) {
+      throw new IllegalArgumentException("'changes' must be a JSON array: " + changesJson);
+    }
+    StringBuilder sb = new StringBuilder(document.text);
+    for (JsonNode change : changes) {
+      if (change.get("offset") == null || change.get("length") == null || change.get("text") == null) {
+        throw new IllegalArgumentException("Each item of 'changes' needs 'offset', 'length', and 'text': " + change);
+      }
+      int offset = change.get("offset").asInt();
+      int length = change.get("length").asInt();
+      if (offset < 0 || length < 0 || offset + length > sb.length()) {
+        throw new IllegalArgumentException("Change outside of text (length " + sb.length() + "): " + change);
+      }
+      sb.replace(offset, offset + length, change.get("text").asText());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Check {@code text}, an edited version of the previously checked {@code oldText}. Only the paragraphs
+   * that contain the edit are checked again, plus as many paragraphs around them as the text-level
+   * rules need (see {@link TextLevelRule#minToCheckParagraph()}), and the paragraphs in which matches
+   * start that reach into the checked paragraphs. The matches of all other paragraphs
+   * are taken from {@code oldMatches}. Text-level rules that need the complete text are run on the
+   * complete text, but with only these rules enabled.
+   */
+  static List<RuleMatch> checkIncrementally(String oldText, List<RuleMatch> oldMatches, String text,
+                                            JLanguageTool lt, JLanguageTool.Mode mode, PartialCheck check) throws Exception {
+    int prefix = 0;
+    int maxPrefix = Math.min(oldText.length(), text.length());
+    while (prefix < maxPrefix && oldText.charAt(prefix) == text.charAt(prefix)) {
+      prefix++;
+    }
+    if (prefix == oldText.length() && prefix == text.length()) {
+      return new ArrayList<>(oldMatches);
+    }
+    int suffix = 0;
+    int maxSuffix = maxPrefix - prefix;
+    while (suffix < maxSuffix && oldText.charAt(oldText.length() - suffix - 1) == text.charAt(text.length() - suffix - 1)) {
+      suffix++;
+    }
+    int delta = text.length() - oldText.length();
+
+    int window = 0;
+    boolean fullTextRules = false;
+    if (mode != JLanguageTool.Mode.ALL_BUT_TEXTLEVEL_ONLY) {
+      for (Rule rule : lt.getAllActiveRules()) {
+        if (rule instanceof TextLevelRule) {
+          int minToCheck = ((TextLevelRule) rule).minToCheckParagraph();
+          if (minToCheck < 0) {
+            fullTextRules = true;
+          } else {
+            window = Math.max(window, minToCheck);
+          }
+        }
+      }
+    }
+
+    // a deleted line break joins paragraphs, so also start with the paragraph before the edit:
+    List<Integer> paraStarts = getParagraphStarts(text, lt.getLanguage().getSentenceTokenizer().singleLineBreaksMarksPara());
+    int firstPara = getParagraphIndex(paraStarts, Math.max(0, prefix - 1));
+    int lastPara = getParagraphIndex(paraStarts, text.length() - suffix);
+    // matches in [keepFrom, keepTo) might have changed, checking them needs the text in [checkFrom, checkTo):
+    int keepFromPara = Math.max(0, firstPara - window);
+    // old matches that overlap keepFrom get dropped, so the paragraphs they start in need to be checked again:
+    int overlapPara = keepFromPara;
+    do {
+      keepFromPara = overlapPara;
+      int boundary = paraStarts.get(keepFromPara);
+      for (RuleMatch match : oldMatches) {
+        if (match.getFromPos() < boundary && match.getToPos() > boundary && !(fullTextRules && isFullTextRule(match.getRule()))) {
+          overlapPara = Math.min(overlapPara, getParagraphIndex(paraStarts, match.getFromPos()));
+        }
+      }
+    } while (overlapPara < keepFromPara);
+    int keepFrom = paraStarts.get(keepFromPara);
+    int keepTo = getParagraphEnd(paraStarts, lastPara + window, text.length());
+    int checkFrom = paraStarts.get(Math.max(0, keepFromPara - window));
+    int checkTo = getParagraphEnd(paraStarts, lastPara + 2 * window, text.length());
+
+    List<RuleMatch> result = new ArrayList<>();
+    for (RuleMatch match : oldMatches) {
+      if (fullTextRules && isFullTextRule(match.getRule())) {
+        continue;
+      }
+      if (match.getToPos() <= keepFrom) {
+        result.add(match);
+      } else if (match.getFromPos() >= keepTo - delta) {
+        result.add(shift(match, delta));
+      }
+    }
+    List<RuleMatch> partMatches = check.check(text.substring(checkFrom, checkTo), checkFrom, mode,
+      rule -> rule.minToCheckParagraph() >= 0);
+    for (RuleMatch match : partMatches) {
+      int fromPos = match.getFromPos() + checkFrom;
+      if (fromPos >= keepFrom && fromPos < keepTo) {
+        result.add(shift(match, checkFrom));
+      }
+    }
+    if (fullTextRules) {
+      result.addAll(check.check(text, 0, JLanguageTool.Mode.TEXTLEVEL_ONLY, rule -> rule.minToCheckParagraph() < 0));
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  private static boolean isFullTextRule(Rule rule) {
+    return rule instanceof TextLevelRule && ((TextLevelRule) rule).minToCheckParagraph() < 0;
+  }
+
+  static RuleMatch shift(RuleMatch match, int offset) {
+    if (offset == 0) {
+      return match;
+    }
+    RuleMatch shifted = new RuleMatch(match);
+    shifted.setOffsetPosition(match.getFromPos() + offset, match.getToPos() + offset);
+    return shifted;
+  }
+
+  /**
+   * Start positions of the paragraphs, a paragraph includes the line breaks that end it.
+   */
+  static List<Integer> getParagraphStarts(String text, boolean singleLineBreaksMarksPara) {
+    List<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    String separator = singleLineBreaksMarksPara ? "\n" : "\n\n";
+    int pos = text.indexOf(separator);
+    while (pos != -1) {
+      int end = pos + separator.length();
+      while (end < text.length() && text.charAt(end) == '\n') {
+        end++;
+      }
+      if (end < text.length()) {
+        starts.add(end);
+      }
+      pos = text.indexOf(separator, end);
+    }
+    return starts;
+  }
+
+  private static int getParagraphIndex(List<Integer> paraStarts, int pos) {
+    int idx = Collections.binarySearch(paraStarts, pos);
+    return idx >= 0 ? idx : -idx - 2;
+  }
+
+  private static int getParagraphEnd(List<Integer> paraStarts, int paraIndex, int textLength) {
+    return paraIndex + 1 < paraStarts.size() ? paraStarts.get(paraIndex + 1) : textLength;
+  }
+
+  /**
+   * Checks a part of the document that starts at {@code offset}, using only the text-level rules
+   * accepted by {@code textLevelRuleFilter}. Returned positions are relative to the part.
+   */
+  interface PartialCheck {
+    List<RuleMatch> check(String part, int offset, JLanguageTool.Mode mode, Predicate<TextLevelRule> textLevelRuleFilter) throws Exception;
+  }
+
+  /**
+   * A checked revision of a document.
+   */
+  static class Document {
+    final int revision;
+    final String text;
+    final PipelinePool.PipelineSettings settings;
+    final List<RuleMatch> matches;
+
+    Document(int revision, String text, PipelinePool.PipelineSettings settings, List<RuleMatch> matches) {
+      this.revision = revision;
+      this.text = text;
+      this.settings = settings;
+      this.matches = Collections.unmodifiableList(new ArrayList<>(matches));
+    }
+  }
+
+}
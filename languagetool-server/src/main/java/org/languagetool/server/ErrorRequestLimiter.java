@@ -18,9 +18,6 @@
  */
 package org.languagetool.server;
 
-import org.languagetool.JLanguageTool;
-
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +34,14 @@ class ErrorRequestLimiter extends RequestLimiter {
     super(requestLimit, 0, requestLimitPeriodInSeconds);
   }
 
+  /**
+   * @param backend where the request counters are kept, use a shared backend to enforce the limit over several servers
+   * @since 5.2
+   */
+  ErrorRequestLimiter(int requestLimit, int requestLimitPeriodInSeconds, RequestLimiterBackend backend) {
+    super(requestLimit, 0, requestLimitPeriodInSeconds, 1, backend);
+  }
+
   /**
    * @param ipAddress the client's IP address
    * @return true if access is allowed because the request limit is not reached yet
@@ -55,10 +60,7 @@ class ErrorRequestLimiter extends RequestLimiter {
    * @param params the request's query parameters
    */
   void logAccess(String ipAddress, Map<String, List<String>> httpHeader, Map<String, String> params) {
-    while (requestEvents.size() > REQUEST_QUEUE_SIZE) {
-      requestEvents.remove(0);
-    }
-    requestEvents.add(new RequestEvent(ipAddress, new Date(), 0, computeFingerprint(httpHeader, params), JLanguageTool.Mode.ALL));
+    addRequest(ipAddress, computeFingerprint(httpHeader, params), 0);
   }
   
 }
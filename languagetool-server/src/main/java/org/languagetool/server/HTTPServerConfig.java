@@ -40,6 +40,14 @@ public class HTTPServerConfig {
 
   enum Mode { LanguageTool }
 
+  /**
+   * How a check request is executed: {@code POOLED} hands the check off to a separate thread pool
+   * that enforces the time limit, {@code INLINE} runs it in the thread serving the request. In both cases
+   * the check stops cooperatively once the time limit is reached and the request fails with a timeout.
+   * @since 5.2
+   */
+  enum CheckExecution { POOLED, INLINE }
+
   public static final String DEFAULT_HOST = "localhost";
 
   /** The default port on which the server is running (8081). */
@@ -80,10 +88,14 @@ public class HTTPServerConfig {
   protected int ipFingerprintFactor = 1;
   protected boolean trustXForwardForHeader;
   protected int maxWorkQueueSize;
+  protected CheckExecution checkExecution = CheckExecution.POOLED;
   protected File rulesConfigFile = null;
   protected File remoteRulesConfigFile = null;
   protected int cacheSize = 0;
   protected long cacheTTLSeconds = 300;
+  protected long cacheSizeInBytes = 0;
+  protected long cacheOffHeapSizeInBytes = 0;
+  protected int documentSessions = 0;
   protected float maxErrorsPerWordRate = 0;
   protected int maxSpellingSuggestions = 0;
   protected List<String> blockedReferrers = new ArrayList<>();
@@ -114,8 +126,8 @@ public class HTTPServerConfig {
   protected File ngramLangIdentData;
 
   private static final List<String> KNOWN_OPTION_KEYS = Arrays.asList("abTest", "abTestClients", "abTestRollout",
-    "beolingusFile", "blockedReferrers", "cacheSize", "cacheTTLSeconds",
-    "dbDriver", "dbPassword", "dbUrl", "dbUsername", "disabledRuleIds", "fasttextBinary", "fasttextModel", "grammalectePassword",
+    "beolingusFile", "blockedReferrers", "cacheSize", "cacheSizeInBytes", "cacheOffHeapSizeInBytes", "cacheTTLSeconds", "checkExecution",
+    "dbDriver", "dbPassword", "dbUrl", "dbUsername", "disabledRuleIds", "documentSessions", "fasttextBinary", "fasttextModel", "grammalectePassword",
     "grammalecteServer", "grammalecteUser", "hiddenMatchesLanguages", "hiddenMatchesServer", "hiddenMatchesServerFailTimeout",
     "hiddenMatchesServerTimeout", "hiddenMatchesServerFall", "ipFingerprintFactor", "languageModel", "maxCheckThreads", "maxCheckTimeMillis",
     "maxCheckTimeWithApiKeyMillis", "maxErrorsPerWordRate", "maxPipelinePoolSize", "maxSpellingSuggestions", "maxTextHardLength",
@@ -233,6 +245,12 @@ public class HTTPServerConfig {
         if (maxWorkQueueSize < 0) {
           throw new IllegalArgumentException("maxWorkQueueSize must be >= 0: " + maxWorkQueueSize);
         }
+        String checkExecutionValue = getOptionalProperty(props, "checkExecution", "pooled").trim();
+        try {
+          checkExecution = CheckExecution.valueOf(checkExecutionValue.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException("Invalid value for checkExecution, must be 'pooled' or 'inline': " + checkExecutionValue);
+        }
         String url = getOptionalProperty(props, "serverURL", null);
         setServerURL(url);
         String langModel = getOptionalProperty(props, "languageModel", null);
@@ -249,7 +267,7 @@ public class HTTPServerConfig {
         }
         String fasttextModel = getOptionalProperty(props, "fasttextModel", null);
         String fasttextBinary = getOptionalProperty(props, "fasttextBinary", null);
-        if (fasttextBinary != null && fasttextModel != null) {
+        if (fasttextModel != null) {
           setFasttextPaths(fasttextModel, fasttextBinary);
         }
         maxCheckThreads = Integer.parseInt(getOptionalProperty(props, "maxCheckThreads", "10"));
@@ -278,10 +296,28 @@ public class HTTPServerConfig {
         if (cacheSize < 0) {
           throw new IllegalArgumentException("Invalid value for cacheSize: " + cacheSize + ", use 0 to deactivate cache");
         }
-        if (props.containsKey("cacheTTLSeconds") && !props.containsKey("cacheSize")) {
-          throw new IllegalArgumentException("Use of cacheTTLSeconds without also setting cacheSize has no effect.");
+        cacheSizeInBytes = Long.parseLong(getOptionalProperty(props, "cacheSizeInBytes", "0"));
+        if (cacheSizeInBytes < 0) {
+          throw new IllegalArgumentException("Invalid value for cacheSizeInBytes: " + cacheSizeInBytes + ", use 0 to deactivate cache");
+        }
+        if (cacheSize > 0 && cacheSizeInBytes > 0) {
+          throw new IllegalArgumentException("Set either cacheSize or cacheSizeInBytes, not both");
+        }
+        cacheOffHeapSizeInBytes = Long.parseLong(getOptionalProperty(props, "cacheOffHeapSizeInBytes", "0"));
+        if (cacheOffHeapSizeInBytes < 0 || cacheOffHeapSizeInBytes > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Invalid value for cacheOffHeapSizeInBytes: " + cacheOffHeapSizeInBytes + ", must be >= 0 and <= " + Integer.MAX_VALUE);
+        }
+        if (cacheOffHeapSizeInBytes > 0 && cacheSizeInBytes == 0) {
+          throw new IllegalArgumentException("Use of cacheOffHeapSizeInBytes without also setting cacheSizeInBytes has no effect.");
+        }
+        if (props.containsKey("cacheTTLSeconds") && !props.containsKey("cacheSize") && !props.containsKey("cacheSizeInBytes")) {
+          throw new IllegalArgumentException("Use of cacheTTLSeconds without also setting cacheSize or cacheSizeInBytes has no effect.");
         }
         cacheTTLSeconds = Integer.parseInt(getOptionalProperty(props, "cacheTTLSeconds", "300"));
+        documentSessions = Integer.parseInt(getOptionalProperty(props, "documentSessions", "0"));
+        if (documentSessions < 0) {
+          throw new IllegalArgumentException("Invalid value for documentSessions: " + documentSessions + ", use 0 to deactivate incremental checks");
+        }
         if (props.containsKey("warmUp")) {
           System.err.println("Setting ignored: 'warmUp'. Look into using pipelineCaching and pipelinePrewarming instead.");
         }
@@ -408,12 +444,15 @@ public class HTTPServerConfig {
     }
   }
 
-  private void setFasttextPaths(String fasttextModelPath, String fasttextBinaryPath) {
+  private void setFasttextPaths(String fasttextModelPath, @Nullable String fasttextBinaryPath) {
     fasttextModel = new File(fasttextModelPath);
-    fasttextBinary = new File(fasttextBinaryPath);
     if (!fasttextModel.exists() || fasttextModel.isDirectory()) {
       throw new RuntimeException("Fasttext model path not valid (file doesn't exist or is a directory): " + fasttextModelPath);
     }
+    if (fasttextBinaryPath == null) {
+      return;
+    }
+    fasttextBinary = new File(fasttextBinaryPath);
     if (!fasttextBinary.exists() || fasttextBinary.isDirectory() || !fasttextBinary.canExecute()) {
       throw new RuntimeException("Fasttext binary path not valid (file doesn't exist, is a directory or not executable): " + fasttextBinaryPath);
     }
@@ -669,11 +708,26 @@ public class HTTPServerConfig {
     return trustXForwardForHeader;
   }
 
+  /** @since 5.2 */
+  void setMaxWorkQueueSize(int maxWorkQueueSize) {
+    this.maxWorkQueueSize = maxWorkQueueSize;
+  }
+
   /** @since 2.9 */
   int getMaxWorkQueueSize() {
     return maxWorkQueueSize;
   }
 
+  /** @since 5.2 */
+  void setCheckExecution(CheckExecution checkExecution) {
+    this.checkExecution = Objects.requireNonNull(checkExecution);
+  }
+
+  /** @since 5.2 */
+  CheckExecution getCheckExecution() {
+    return checkExecution;
+  }
+
 
   /**
    * @since 4.4
@@ -747,6 +801,36 @@ public class HTTPServerConfig {
     this.cacheSize = sentenceCacheSize;
   }
 
+  /**
+   * Maximum estimated heap size of the cache in bytes, 0 if the size is set with {@link #getCacheSize()} instead.
+   * @since 5.2
+   */
+  long getCacheSizeInBytes() {
+    return cacheSizeInBytes;
+  }
+
+  /**
+   * @since 5.2
+   */
+  void setCacheSizeInBytes(long cacheSizeInBytes) {
+    this.cacheSizeInBytes = cacheSizeInBytes;
+  }
+
+  /**
+   * Size of the off-heap buffer for rule matches evicted from the cache, in bytes, 0 if deactivated.
+   * @since 5.2
+   */
+  long getCacheOffHeapSizeInBytes() {
+    return cacheOffHeapSizeInBytes;
+  }
+
+  /**
+   * @since 5.2
+   */
+  void setCacheOffHeapSizeInBytes(long cacheOffHeapSizeInBytes) {
+    this.cacheOffHeapSizeInBytes = cacheOffHeapSizeInBytes;
+  }
+
   /**
    * Cache entry TTL; refreshed on access; in seconds
    * @since 4.6
@@ -763,6 +847,21 @@ public class HTTPServerConfig {
     this.cacheTTLSeconds = cacheTTLSeconds;
   }
 
+  /**
+   * Maximum number of documents whose text and matches are kept for incremental checks, 0 if deactivated.
+   * @since 5.2
+   */
+  int getDocumentSessions() {
+    return documentSessions;
+  }
+
+  /**
+   * @since 5.2
+   */
+  void setDocumentSessions(int documentSessions) {
+    this.documentSessions = documentSessions;
+  }
+
   /**
    * Maximum errors per word rate, checking will stop if the rate is higher.
    * For example, with a rate of 0.33, the checking would stop if the user's
@@ -0,0 +1,113 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the counters of a {@link RequestLimiter} in memory, so the limits are enforced
+ * per server. Every key has a ring of counters, one per time bucket of the window, plus
+ * the sums over the window, which are updated when a bucket is added or drops out of
+ * the window. So the work per request doesn't depend on the number of requests.
+ * @since 5.2
+ */
+class InMemoryRequestLimiterBackend implements RequestLimiterBackend {
+
+  private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+  @Override
+  public Usage add(String key, long bucket, int windowBuckets, int requests, long weightedSize) {
+    Usage[] usage = new Usage[1];
+    // compute() so that evict() cannot remove the counters while the requests are added:
+    counters.compute(key, (k, keyCounters) -> {
+      Counters result = keyCounters != null ? keyCounters : new Counters(windowBuckets);
+      usage[0] = result.add(bucket, requests, weightedSize);
+      return result;
+    });
+    return usage[0];
+  }
+
+  @Override
+  public Usage get(String key, long bucket, int windowBuckets) {
+    Counters keyCounters = counters.get(key);
+    return keyCounters != null ? keyCounters.get(bucket) : Usage.NONE;
+  }
+
+  @Override
+  public void evict(String keyPrefix, long bucket) {
+    for (String key : counters.keySet()) {
+      if (!key.startsWith(keyPrefix)) {
+        continue;  // the buckets of other limiters are not comparable to ours
+      }
+      counters.computeIfPresent(key, (k, keyCounters) -> keyCounters.get(bucket).getRequests() == 0 ? null : keyCounters);
+    }
+  }
+
+  int size() {
+    return counters.size();
+  }
+
+  private static final class Counters {
+
+    private final int[] requests;
+    private final long[] sizes;
+    private long currentBucket = -1;
+    private int requestSum;
+    private long sizeSum;
+
+    private Counters(int windowBuckets) {
+      requests = new int[windowBuckets];
+      sizes = new long[windowBuckets];
+    }
+
+    synchronized Usage add(long bucket, int requestCount, long weightedSize) {
+      advanceTo(bucket);
+      // a request from the past (e.g. a node with a clock behind) is counted as a current one:
+      int slot = (int) (currentBucket % requests.length);
+      requests[slot] += requestCount;
+      sizes[slot] += weightedSize;
+      requestSum += requestCount;
+      sizeSum += weightedSize;
+      return new Usage(requestSum, sizeSum);
+    }
+
+    synchronized Usage get(long bucket) {
+      advanceTo(bucket);
+      return new Usage(requestSum, sizeSum);
+    }
+
+    // clear the buckets that drop out of the window when it moves to end with 'bucket':
+    private void advanceTo(long bucket) {
+      if (bucket <= currentBucket) {
+        return;
+      }
+      long steps = currentBucket < 0 ? requests.length : Math.min(bucket - currentBucket, requests.length);
+      for (long i = 0; i < steps; i++) {
+        int slot = (int) ((bucket - i) % requests.length);
+        requestSum -= requests[slot];
+        sizeSum -= sizes[slot];
+        requests[slot] = 0;
+        sizes[slot] = 0;
+      }
+      currentBucket = bucket;
+    }
+  }
+
+}
@@ -88,6 +88,13 @@ class LanguageToolHttpHandler implements HttpHandler {
     ServerMetricsCollector.getInstance().logRequest();
     boolean incrementHandleCount = false;
     try {
+      if (Server.RejectedRequestHandler.isRejectedRequest()) {
+        String message = "Error: There are currently too many parallel requests. Please try again later.";
+        logError(message + " Rejected by the executor, work queue full.", HTTP_UNAVAILABLE, parameters, httpExchange);
+        sendError(httpExchange, HTTP_UNAVAILABLE, message);
+        ServerMetricsCollector.getInstance().logRequestError(ServerMetricsCollector.RequestErrorType.QUEUE_FULL);
+        return;
+      }
       URI requestedUri = httpExchange.getRequestURI();
       String path = requestedUri.getRawPath();
       if (config.getServerURL() != null) {
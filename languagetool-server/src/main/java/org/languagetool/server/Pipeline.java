@@ -75,7 +75,12 @@ class Pipeline extends JLanguageTool {
   }
 
   Pipeline(Language language, List<Language> altLanguages, Language motherTongue, ResultCache cache, GlobalConfig globalConfig, UserConfig userConfig, boolean inputLogging) {
-    super(language, altLanguages, motherTongue, cache, globalConfig, userConfig, inputLogging);
+    this(language, altLanguages, motherTongue, cache, globalConfig, userConfig, inputLogging, null);
+  }
+
+  Pipeline(Language language, List<Language> altLanguages, Language motherTongue, ResultCache cache, GlobalConfig globalConfig,
+           UserConfig userConfig, boolean inputLogging, RuleRegistry ruleRegistry) {
+    super(language, altLanguages, motherTongue, cache, globalConfig, userConfig, inputLogging, ruleRegistry);
     lastUsedTimestamp = System.currentTimeMillis();
   }
 
@@ -112,6 +112,8 @@ class PipelinePool {
   private final HTTPServerConfig config;
   private final ResultCache cache;
   private final LoadingCache<PipelineSettings, ConcurrentLinkedQueue<Pipeline>> pool;
+  // pipelines that only differ in their query settings share the default rules:
+  private final RuleRegistry ruleRegistry;
   private final boolean internalServer;
 
   private long pipelineExpireCheckTimestamp;
@@ -126,6 +128,8 @@ class PipelinePool {
     this.pipelineExpireCheckTimestamp = System.currentTimeMillis();
     int maxPoolSize = config.getMaxPipelinePoolSize();
     int expireTime = config.getPipelineExpireTime();
+    // there are at most as many different rule configurations as pipeline settings:
+    this.ruleRegistry = new RuleRegistry(maxPoolSize, PIPELINE_EXPIRE_TIME, TimeUnit.MILLISECONDS);
     if (config.isPipelineCachingEnabled()) {
       this.pool = CacheBuilder.newBuilder()
         .maximumSize(maxPoolSize)
@@ -195,7 +199,7 @@ class PipelinePool {
   Pipeline createPipeline(Language lang, Language motherTongue, TextChecker.QueryParams params, GlobalConfig globalConfig,
                           UserConfig userConfig, List<String> disabledRuleIds)
     throws Exception { // package-private for mocking
-    Pipeline lt = new Pipeline(lang, params.altLanguages, motherTongue, cache, globalConfig, userConfig, params.inputLogging);
+    Pipeline lt = new Pipeline(lang, params.altLanguages, motherTongue, cache, globalConfig, userConfig, params.inputLogging, ruleRegistry);
     lt.setMaxErrorsPerWordRate(config.getMaxErrorsPerWordRate());
     lt.disableRules(disabledRuleIds);
     if (config.getLanguageModelDir() != null) {
@@ -218,11 +222,11 @@ class PipelinePool {
       } catch (Exception e) {
         logger.error("Could not load remote rule configuration", e);
       }
-      // modify remote rule configuration: no timeouts, downtime, ...
+      // modify remote rule configuration: no timeouts, downtime, batching, ...
       rules = rules.stream().map(c -> {
         return new RemoteRuleConfig(c.getRuleId(), c.getUrl(), c.getPort(),
           0, 0L, 0f,
-          0, 0L, c.getOptions());
+          0, 0L, c.getMaxConcurrentRequests(), 1, 0L, c.getOptions());
       }).collect(Collectors.toList());
       lt.activateRemoteRules(rules);
     } else {
@@ -18,40 +18,64 @@
  */
 package org.languagetool.server;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.languagetool.JLanguageTool;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Limit the maximum number of request per IP address for a given time range.
+ * The requests are counted per IP address and per IP address plus client fingerprint
+ * in time buckets of 1/{@value #WINDOW_BUCKETS} of the period (see {@link RequestLimiterBackend}),
+ * so a request counts for at least 95% of the period and never longer than the period.
  */
 class RequestLimiter {
 
-  // TODO: this only works if the period covered is larger than requestLimitPeriodInSeconds -
-  // we should add a sanity check that warns if that's not the case
-  static final int REQUEST_QUEUE_SIZE = 1000;
+  static final int WINDOW_BUCKETS = 20;
 
-  final List<RequestEvent> requestEvents = new CopyOnWriteArrayList<>();
-  
+  // request sizes are counted in tenths of a character, so that the factor for text level checks is exact:
+  private static final int SIZE_FACTOR = 10;
+  private static final int TEXTLEVEL_SIZE_FACTOR = 1;
+
+  private static final ScheduledExecutorService evictionService = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("lt-request-limiter-eviction-%d").setDaemon(true).build());
+
+  private final RequestLimiterBackend backend;
+  private final long bucketMillis;
+  private final int windowBuckets;
   private final int ipFingerprintFactor;
   private final int requestLimit;
   private final int requestLimitInBytes;
   private final int requestLimitPeriodInSeconds;
   private final Long server;
   private final DatabaseLogger logger;
+  // keeps the counters apart from those of other limiters (with other buckets) using the same backend:
+  private final String keyPrefix;
 
   /**
    * @param requestLimit the maximum number of request per <tt>requestLimitPeriodInSeconds</tt>
    * @param requestLimitPeriodInSeconds the time period over which requests are considered, in seconds
    * @param ipFingerprintFactor allow limits x times larger per ip when fingerprints differ
    *                            (i.e. assume there may be a maximum of x users behind the same ip)
+   * @param backend where the request counters are kept, use a shared backend to enforce the limit over several servers
+   * @since 5.2
    */
-  RequestLimiter(int requestLimit, int requestLimitInBytes, int requestLimitPeriodInSeconds, int ipFingerprintFactor) {
+  RequestLimiter(int requestLimit, int requestLimitInBytes, int requestLimitPeriodInSeconds, int ipFingerprintFactor, RequestLimiterBackend backend) {
     this.requestLimit = requestLimit;
     this.requestLimitInBytes = requestLimitInBytes;
     this.requestLimitPeriodInSeconds = requestLimitPeriodInSeconds;
     this.ipFingerprintFactor = ipFingerprintFactor;
+    this.backend = Objects.requireNonNull(backend);
+    long periodMillis = requestLimitPeriodInSeconds * 1000L;
+    this.bucketMillis = Math.max(1, periodMillis / WINDOW_BUCKETS);
+    this.windowBuckets = (int) Math.max(1, (periodMillis + bucketMillis - 1) / bucketMillis);
+    this.keyPrefix = getClass().getSimpleName() + "/" + requestLimitPeriodInSeconds + "s/";
     this.logger = DatabaseLogger.getInstance();
     if (this.logger.isLogging()) {
       DatabaseAccess db = DatabaseAccess.getInstance();
@@ -59,12 +83,44 @@ class RequestLimiter {
     } else {
       this.server = null;
     }
+    scheduleEviction(this, Math.max(1000, periodMillis));
+  }
+
+  /**
+   * @param requestLimit the maximum number of request per <tt>requestLimitPeriodInSeconds</tt>
+   * @param requestLimitPeriodInSeconds the time period over which requests are considered, in seconds
+   * @param ipFingerprintFactor allow limits x times larger per ip when fingerprints differ
+   *                            (i.e. assume there may be a maximum of x users behind the same ip)
+   */
+  RequestLimiter(int requestLimit, int requestLimitInBytes, int requestLimitPeriodInSeconds, int ipFingerprintFactor) {
+    this(requestLimit, requestLimitInBytes, requestLimitPeriodInSeconds, ipFingerprintFactor, new InMemoryRequestLimiterBackend());
   }
 
   RequestLimiter(int requestLimit, int requestLimitInBytes, int requestLimitPeriodInSeconds) {
     this(requestLimit, requestLimitInBytes, requestLimitPeriodInSeconds, 1);
   }
 
+  // the task only keeps a weak reference, so it ends when the limiter isn't used anymore:
+  private static void scheduleEviction(RequestLimiter limiter, long delayMillis) {
+    WeakReference<RequestLimiter> limiterRef = new WeakReference<>(limiter);
+    AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+    future.set(evictionService.scheduleWithFixedDelay(() -> {
+      RequestLimiter l = limiterRef.get();
+      if (l == null) {
+        ScheduledFuture<?> f = future.get();
+        if (f != null) {
+          f.cancel(false);
+        }
+        return;
+      }
+      try {
+        l.backend.evict(l.keyPrefix, l.getCurrentBucket());
+      } catch (RuntimeException e) {
+        ServerTools.print("WARN: Could not evict old request limiter entries: " + e, System.err);
+      }
+    }, delayMillis, delayMillis, TimeUnit.MILLISECONDS));
+  }
+
   /**
    * The maximum number of request per {@link #getRequestLimitPeriodInSeconds()}.
    */
@@ -108,13 +164,29 @@ class RequestLimiter {
       return;
     }
     int reqSize = getRequestSize(params);
-    while (requestEvents.size() > REQUEST_QUEUE_SIZE) {
-      requestEvents.remove(0);
-    }
-    requestEvents.add(new RequestEvent(ipAddress, new Date(), reqSize, computeFingerprint(httpHeader, params), ServerTools.getMode(params)));
+    long weightedSize = (long) reqSize * (ServerTools.getMode(params) == JLanguageTool.Mode.TEXTLEVEL_ONLY ? TEXTLEVEL_SIZE_FACTOR : SIZE_FACTOR);
+    addRequest(ipAddress, computeFingerprint(httpHeader, params), weightedSize);
     checkLimit(ipAddress, params, httpHeader);
   }
 
+  void addRequest(String ipAddress, String fingerprint, long weightedSize) {
+    long bucket = getCurrentBucket();
+    backend.add(getIpKey(ipAddress), bucket, windowBuckets, 1, weightedSize);
+    backend.add(getFingerprintKey(ipAddress, fingerprint), bucket, windowBuckets, 1, weightedSize);
+  }
+
+  private long getCurrentBucket() {
+    return System.currentTimeMillis() / bucketMillis;
+  }
+
+  private String getIpKey(String ipAddress) {
+    return keyPrefix + "ip:" + ipAddress;
+  }
+
+  private String getFingerprintKey(String ipAddress, String fingerprint) {
+    return keyPrefix + "fingerprint:" + ipAddress + "\n" + fingerprint;
+  }
+
   private int getRequestSize(Map<String, String> params) {
     String text = params.get("text");
     if (text != null) {
@@ -158,92 +230,46 @@ class RequestLimiter {
   }
 
   void checkLimit(String ipAddress, Map<String, String> parameters, Map<String, List<String>> httpHeader) {
-    int requestsByIp = 0;
-    int requestSizeByIp = 0;
-    int requestsByFingerprint = 0;
-    int requestSizeByFingerprint = 0;
-    // all requests before this date are considered old:
-    Date thresholdDate = new Date(System.currentTimeMillis() - requestLimitPeriodInSeconds * 1000L);
     String fingerprint = computeFingerprint(httpHeader, parameters);
-    String referer = getReferer(httpHeader);
-    String userAgent = getUserAgent(httpHeader);
-    Long clientId = getClientId(parameters);
-    for (RequestEvent event : requestEvents) {
-      if (event.ip.equals(ipAddress) && event.date.after(thresholdDate)) {
-        // text level rules cause much less load, so count them accordingly
-        float modeFactor = event.mode == JLanguageTool.Mode.TEXTLEVEL_ONLY ? 0.1f : 1f;
-        requestsByIp++;
-        requestSizeByIp += event.getSizeInBytes() * modeFactor;
-        if (event.fingerprint.equals(fingerprint)) {
-          requestsByFingerprint++;
-          requestSizeByFingerprint += event.getSizeInBytes() * modeFactor;
-        }
-        if (requestLimit > 0 && requestsByFingerprint > requestLimit) {
-          String msg = "limit: " + requestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-          logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
-          throw new TooManyRequestsException("Client request limit of " + requestLimit + " requests per " +
-            requestLimitPeriodInSeconds + " seconds exceeded"); }
-        if (requestLimit > 0 && requestsByIp > requestLimit * ipFingerprintFactor) {
-          String msg = "limit: " + requestLimit * ipFingerprintFactor + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-          logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodIp", server, clientId, null, msg, referer, userAgent));
-          throw new TooManyRequestsException("IP request limit of " + requestLimit * ipFingerprintFactor + " requests per " +
-            requestLimitPeriodInSeconds + " seconds exceeded");
-        }
-        if (event.mode == JLanguageTool.Mode.TEXTLEVEL_ONLY) {
-          if (requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
-            String msg = "limit in Mode.TEXTLEVEL_ONLY: " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded in text-level checks");
-          }
-          if (requestLimitInBytes > 0 && requestSizeByIp > requestLimitInBytes * ipFingerprintFactor) {
-            String msg = "limit in Mode.TEXTLEVEL_ONLY: " + requestLimitInBytes * ipFingerprintFactor + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodIp", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("IP request size limit of " + requestLimitInBytes * ipFingerprintFactor + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded in text-level checks");
-          }
-        } else {
-          if (requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
-            String msg = "limit: " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded");
-          }
-          if (requestLimitInBytes > 0 && requestSizeByIp > requestLimitInBytes * ipFingerprintFactor) {
-            String msg = "limit: " + requestLimitInBytes * ipFingerprintFactor + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodIp", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("IP request size limit of " + requestLimitInBytes * ipFingerprintFactor + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded");
-          }
-        }
-      }
+    long bucket = getCurrentBucket();
+    RequestLimiterBackend.Usage ipUsage = backend.get(getIpKey(ipAddress), bucket, windowBuckets);
+    RequestLimiterBackend.Usage fingerprintUsage = backend.get(getFingerprintKey(ipAddress, fingerprint), bucket, windowBuckets);
+    int requestsByIp = ipUsage.getRequests();
+    long requestSizeByIp = ipUsage.getWeightedSize() / SIZE_FACTOR;
+    int requestsByFingerprint = fingerprintUsage.getRequests();
+    long requestSizeByFingerprint = fingerprintUsage.getWeightedSize() / SIZE_FACTOR;
+    // text level rules cause much less load, that's why their size is weighted less in addRequest():
+    boolean textLevelOnly = ServerTools.getMode(parameters) == JLanguageTool.Mode.TEXTLEVEL_ONLY;
+    String modeInfo = textLevelOnly ? " in Mode.TEXTLEVEL_ONLY" : "";
+    String modeMsg = textLevelOnly ? " in text-level checks" : "";
+    if (requestLimit > 0 && requestsByFingerprint > requestLimit) {
+      String msg = "limit: " + requestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logLimit("MaxRequestPerPeriodFingerprint", msg, parameters, httpHeader);
+      throw new TooManyRequestsException("Client request limit of " + requestLimit + " requests per " +
+        requestLimitPeriodInSeconds + " seconds exceeded");
     }
-  }
-  
-  protected static class RequestEvent {
-
-    private final String ip;
-    private final Date date;
-    private final int sizeInBytes;
-    private final String fingerprint;
-    private final JLanguageTool.Mode mode;
-
-    RequestEvent(String ip, Date date, int sizeInBytes, String fingerprint, JLanguageTool.Mode mode) {
-      this.ip = ip;
-      this.date = new Date(date.getTime());
-      this.sizeInBytes = sizeInBytes;
-      this.fingerprint = fingerprint;
-      this.mode = mode;
+    if (requestLimit > 0 && requestsByIp > requestLimit * ipFingerprintFactor) {
+      String msg = "limit: " + requestLimit * ipFingerprintFactor + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logLimit("MaxRequestPerPeriodIp", msg, parameters, httpHeader);
+      throw new TooManyRequestsException("IP request limit of " + requestLimit * ipFingerprintFactor + " requests per " +
+        requestLimitPeriodInSeconds + " seconds exceeded");
     }
-
-    protected Date getDate() {
-      return date;
+    if (requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
+      String msg = "limit" + modeInfo + ": " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logLimit("MaxRequestSizePerPeriodFingerprint", msg, parameters, httpHeader);
+      throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
+        requestLimitPeriodInSeconds + " seconds exceeded" + modeMsg);
     }
-    
-    int getSizeInBytes() {
-      return sizeInBytes;
+    if (requestLimitInBytes > 0 && requestSizeByIp > (long) requestLimitInBytes * ipFingerprintFactor) {
+      String msg = "limit" + modeInfo + ": " + requestLimitInBytes * ipFingerprintFactor + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logLimit("MaxRequestSizePerPeriodIp", msg, parameters, httpHeader);
+      throw new TooManyRequestsException("IP request size limit of " + requestLimitInBytes * ipFingerprintFactor + " bytes per " +
+        requestLimitPeriodInSeconds + " seconds exceeded" + modeMsg);
     }
+  }
 
+  private void logLimit(String type, String msg, Map<String, String> parameters, Map<String, List<String>> httpHeader) {
+    logger.log(new DatabaseAccessLimitLogEntry(type, server, getClientId(parameters), null, msg, getReferer(httpHeader), getUserAgent(httpHeader)));
   }
 
 }
@@ -0,0 +1,78 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+/**
+ * Where a {@link RequestLimiter} keeps its counters. Time is split into buckets of equal
+ * length, the usage of a key (e.g. an IP address) is the sum over the buckets that make up
+ * the limiter's period. {@link InMemoryRequestLimiterBackend} only knows about the requests
+ * to this server, an implementation backed by a shared store lets several servers enforce
+ * one common limit. Limiters with different periods use different buckets, so they can share
+ * a backend only because their keys start with a prefix that includes the limiter's name and period.
+ * @since 5.2
+ */
+interface RequestLimiterBackend {
+
+  /**
+   * Add requests to the counters of {@code key}.
+   * @param bucket the current time bucket
+   * @param windowBuckets the number of buckets (up to and including {@code bucket}) that are summed up
+   * @param weightedSize the request size, weighted by the limiter
+   * @return the usage of {@code key} in the window, including the requests just added
+   */
+  Usage add(String key, long bucket, int windowBuckets, int requests, long weightedSize);
+
+  /**
+   * The usage of {@code key} in the window of {@code windowBuckets} buckets that ends with {@code bucket}.
+   */
+  Usage get(String key, long bucket, int windowBuckets);
+
+  /**
+   * Remove the counters of the keys starting with {@code keyPrefix} that have no requests in the window
+   * that ends with {@code bucket}. Called regularly in the background.
+   */
+  void evict(String keyPrefix, long bucket);
+
+  final class Usage {
+
+    static final Usage NONE = new Usage(0, 0);
+
+    private final int requests;
+    private final long weightedSize;
+
+    Usage(int requests, long weightedSize) {
+      this.requests = requests;
+      this.weightedSize = weightedSize;
+    }
+
+    int getRequests() {
+      return requests;
+    }
+
+    long getWeightedSize() {
+      return weightedSize;
+    }
+
+    @Override
+    public String toString() {
+      return requests + " requests, weighted size " + weightedSize;
+    }
+  }
+
+}
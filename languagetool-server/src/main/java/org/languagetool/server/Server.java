@@ -25,6 +25,7 @@ import org.languagetool.JLanguageTool;
 
 import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -123,7 +124,10 @@ abstract class Server {
                        "                                            affects Hunspell-based languages only)");
     System.out.println("                 'maxCheckThreads' - maximum number of threads working in parallel (optional)");
     System.out.println("                 'cacheSize' - size of internal cache in number of sentences (optional, default: 0)");
-    System.out.println("                 'cacheTTLSeconds' - how many seconds sentences are kept in cache (optional, default: 300 if 'cacheSize' is set)");
+    System.out.println("                 'cacheSizeInBytes' - size of internal cache in bytes, as estimated from its content, instead of 'cacheSize' (optional, default: 0)");
+    System.out.println("                 'cacheOffHeapSizeInBytes' - size of an off-heap buffer (max. 2GB) that keeps the rule matches evicted from the cache (optional, default: 0, needs 'cacheSizeInBytes')");
+    System.out.println("                 'cacheTTLSeconds' - how many seconds sentences are kept in cache (optional, default: 300 if 'cacheSize' or 'cacheSizeInBytes' is set)");
+    System.out.println("                 'documentSessions' - number of documents kept for incremental checks with 'documentId' and 'changes', only used for logged-in users (optional, default: 0 = deactivated)");
     System.out.println("                 'requestLimit' - maximum number of requests per requestLimitPeriodInSeconds (optional)");
     System.out.println("                 'requestLimitInBytes' - maximum aggregated size of requests per requestLimitPeriodInSeconds (optional)");
     System.out.println("                 'timeoutRequestLimit' - maximum number of timeout request (optional)");
@@ -134,9 +138,12 @@ abstract class Server {
     System.out.println("                  https://github.com/languagetool-org/languagetool/blob/master/languagetool-standalone/CHANGES.md#word2vec");
     System.out.println("                 'fasttextModel' - a model file for better language detection (optional), see");
     System.out.println("                  https://fasttext.cc/docs/en/language-identification.html");
-    System.out.println("                 'fasttextBinary' - compiled fasttext executable for language detection (optional), see");
-    System.out.println("                  https://fasttext.cc/docs/en/support.html");
+    System.out.println("                 'fasttextBinary' - compiled fasttext executable for language detection, only needed for");
+    System.out.println("                  models older than fasttext 0.2 (optional), see https://fasttext.cc/docs/en/support.html");
     System.out.println("                 'maxWorkQueueSize' - reject request if request queue gets larger than this (optional)");
+    System.out.println("                 'checkExecution' - 'pooled' (default) to run checks in a separate thread pool, or 'inline' to run them");
+    System.out.println("                  in the request thread; with 'inline', requests that don't fit into a queue of twice 'maxWorkQueueSize'");
+    System.out.println("                  are rejected by the thread pool and only get a 503 response (optional)");
     System.out.println("                 'rulesFile' - a file containing rules configuration, such as .langugagetool.cfg (optional)");
     System.out.println("                 'warmUp' - set to 'true' to warm up server at start, i.e. run a short check with all languages (optional)");
     System.out.println("                 'blockedReferrers' - a comma-separated list of HTTP referrers (and 'Origin' headers) that are blocked and will not be served (optional)");
@@ -172,10 +179,66 @@ abstract class Server {
     }
   }
   
+  /**
+   * The queue of requests waiting for a thread. It's only bounded for {@link HTTPServerConfig.CheckExecution#INLINE},
+   * as then the request threads are the only ones doing the checks.
+   * @since 5.2
+   */
+  protected LinkedBlockingQueue<Runnable> createWorkQueue(HTTPServerConfig config) {
+    if (config.getCheckExecution() == HTTPServerConfig.CheckExecution.INLINE && config.getMaxWorkQueueSize() > 0) {
+      // requests beyond maxWorkQueueSize still get a proper error response from a thread of the pool,
+      // only beyond this the executor rejects them (see RejectedRequestHandler):
+      return new LinkedBlockingQueue<>(config.getMaxWorkQueueSize() * 2);
+    }
+    return new LinkedBlockingQueue<>();
+  }
+
   protected ThreadPoolExecutor getExecutorService(LinkedBlockingQueue<Runnable> workQueue, HTTPServerConfig config) {
     int threadPoolSize = config.getMaxCheckThreads();
     ServerTools.print("Setting up thread pool with " + threadPoolSize + " threads");
-    return new StoppingThreadPoolExecutor(threadPoolSize, workQueue);
+    StoppingThreadPoolExecutor executor = new StoppingThreadPoolExecutor(threadPoolSize, workQueue);
+    if (workQueue.remainingCapacity() != Integer.MAX_VALUE) {
+      executor.setRejectedExecutionHandler(new RejectedRequestHandler(config.getMaxWorkQueueSize()));
+    }
+    return executor;
+  }
+
+  /**
+   * Serves the requests that the executor rejects because its work queue is full, so that
+   * the client gets a 503 response instead of a closed connection. They are run by a separate
+   * thread, for which {@link LanguageToolHttpHandler} only sends the error response.
+   * @since 5.2
+   */
+  static class RejectedRequestHandler implements RejectedExecutionHandler {
+
+    private static final ThreadLocal<Boolean> rejected = ThreadLocal.withInitial(() -> false);
+
+    private final ThreadPoolExecutor rejectionExecutor;
+
+    RejectedRequestHandler(int maxQueueSize) {
+      // if even this queue is full, the default AbortPolicy applies and the connection gets closed:
+      rejectionExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(Math.max(1, maxQueueSize)),
+            new ThreadFactoryBuilder().setNameFormat("lt-server-rejection-thread-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @return whether the current thread serves a request that was rejected and should only get an error response
+     */
+    static boolean isRejectedRequest() {
+      return rejected.get();
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+      rejectionExecutor.execute(() -> {
+        rejected.set(true);
+        try {
+          r.run();
+        } finally {
+          rejected.set(false);
+        }
+      });
+    }
   }
 
   static class StoppingThreadPoolExecutor extends ThreadPoolExecutor {
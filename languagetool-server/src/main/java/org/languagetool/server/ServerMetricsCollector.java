@@ -19,16 +19,19 @@
 package org.languagetool.server;
 
 import com.google.common.cache.Cache;
-import io.prometheus.client.Counter;
-import io.prometheus.client.Gauge;
-import io.prometheus.client.Histogram;
+import com.google.common.cache.CacheStats;
+import io.prometheus.client.*;
 import io.prometheus.client.exporter.HTTPServer;
 import io.prometheus.client.guava.cache.CacheMetricsCollector;
 import io.prometheus.client.hotspot.DefaultExports;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.ResultCache;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class ServerMetricsCollector {
 
@@ -111,6 +114,7 @@ public class ServerMetricsCollector {
     .labelNames("status").register();
 
   private final CacheMetricsCollector cacheMetrics = new CacheMetricsCollector().register();
+  private final ResultCacheCollector resultCacheMetrics = new ResultCacheCollector().register();
 
 
   public static void init(int port) throws IOException {
@@ -130,6 +134,15 @@ public class ServerMetricsCollector {
     cacheMetrics.addCache(name, cache);
   }
 
+  /**
+   * Export the estimated size of the tiers of the cache and the statistics of its off-heap tier.
+   * A cache set here replaces the one set before.
+   * @since 5.2
+   */
+  public void monitorResultCache(ResultCache cache) {
+    resultCacheMetrics.cache = cache;
+  }
+
   public void logHiddenServerConfiguration(boolean enabled) {
     hiddenMatchesServerEnabled.set(enabled ? 1.0 : 0.0);
   }
@@ -190,4 +203,38 @@ public class ServerMetricsCollector {
     failedHealthcheckCounter.inc();
   }
 
+
+  private static class ResultCacheCollector extends Collector {
+
+    private volatile ResultCache cache;
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+      ResultCache cache = this.cache;
+      if (cache == null) {
+        return Collections.emptyList();
+      }
+      List<MetricFamilySamples> samples = new ArrayList<>();
+      GaugeMetricFamily bytes = new GaugeMetricFamily("languagetool_result_cache_bytes",
+        "Estimated size of the result cache in bytes, by tier", Collections.singletonList("tier"));
+      bytes.addMetric(Collections.singletonList("sentences"), cache.getSentenceCacheBytes());
+      bytes.addMetric(Collections.singletonList("matches"), cache.getMatchesCacheBytes());
+      bytes.addMetric(Collections.singletonList("remote_matches"), cache.getRemoteMatchesCacheBytes());
+      if (cache.hasOffHeapTier()) {
+        bytes.addMetric(Collections.singletonList("off_heap"), cache.getOffHeapBytes());
+        samples.add(new GaugeMetricFamily("languagetool_result_cache_off_heap_capacity_bytes",
+          "Size of the off-heap buffer of the result cache in bytes", cache.getOffHeapCapacity()));
+        CacheStats stats = cache.getOffHeapStats();
+        samples.add(new CounterMetricFamily("languagetool_result_cache_off_heap_hit_total",
+          "Lookups served from the off-heap buffer of the result cache", stats.hitCount()));
+        samples.add(new CounterMetricFamily("languagetool_result_cache_off_heap_miss_total",
+          "Lookups served neither from the heap nor from the off-heap buffer of the result cache", stats.missCount()));
+        samples.add(new CounterMetricFamily("languagetool_result_cache_off_heap_eviction_total",
+          "Entries overwritten or expired in the off-heap buffer of the result cache", stats.evictionCount()));
+      }
+      samples.add(0, bytes);
+      return samples;
+    }
+  }
+
 }
@@ -27,6 +27,7 @@ import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
@@ -79,6 +80,26 @@ final class ServerTools {
   static String getHttpReferrer(HttpExchange httpExchange) {
     return httpExchange.getRequestHeaders().getFirst("Referer");
   }
+
+  /**
+   * Whether the client sent an {@code Accept-Encoding} header that allows a gzip-compressed response.
+   * @since 5.2
+   */
+  static boolean acceptsGzip(HttpExchange httpExchange) {
+    List<String> values = httpExchange.getRequestHeaders().get("Accept-Encoding");
+    if (values == null) {
+      return false;
+    }
+    for (String value : values) {
+      for (String coding : value.split(",")) {
+        String[] parts = coding.trim().split(";");
+        if (parts[0].trim().equalsIgnoreCase("gzip")) {
+          return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+      }
+    }
+    return false;
+  }
   
   static String getSQLDatetimeString(Calendar date) {
     SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -31,7 +31,6 @@ import org.languagetool.language.LanguageIdentifier;
 import org.languagetool.markup.AnnotatedText;
 import org.languagetool.markup.AnnotatedTextBuilder;
 import org.languagetool.rules.CategoryId;
-import org.languagetool.rules.DictionaryMatchFilter;
 import org.languagetool.rules.RemoteRule;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.bitext.BitextRule;
@@ -40,7 +39,7 @@ import org.languagetool.tools.Tools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.io.*;
 import java.net.HttpURLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -49,6 +48,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @since 3.4
@@ -60,8 +60,8 @@ abstract class TextChecker {
   private static final int NGRAM_THRESHOLD = 50;
 
   protected abstract void setHeaders(HttpExchange httpExchange);
-  protected abstract String getResponse(AnnotatedText text, Language language, DetectedLanguage lang, Language motherTongue, List<RuleMatch> matches,
-                                        List<RuleMatch> hiddenMatches, String incompleteResultReason, int compactMode, boolean showPremiumHint);
+  protected abstract void writeResponse(Writer writer, AnnotatedText text, Language language, DetectedLanguage lang, Language motherTongue, List<RuleMatch> matches,
+                                        List<RuleMatch> hiddenMatches, String incompleteResultReason, int compactMode, boolean showPremiumHint) throws IOException;
   @NotNull
   protected abstract List<String> getPreferredVariants(Map<String, String> parameters);
   protected abstract DetectedLanguage getLanguage(String text, Map<String, String> parameters, List<String> preferredVariants,
@@ -79,6 +79,7 @@ abstract class TextChecker {
   private static final Logger logger = LoggerFactory.getLogger(TextChecker.class);
 
   private static final String ENCODING = "UTF-8";
+  private static final int RESPONSE_BUFFER_SIZE = 8192;
   private static final int CACHE_STATS_PRINT = 500; // print cache stats every n cache requests
   
   private final Map<String,Integer> languageCheckCounts = new HashMap<>();
@@ -93,6 +94,7 @@ abstract class TextChecker {
   private final LanguageIdentifier fastTextIdentifier;
   private final ExecutorService executorService;
   private final ResultCache cache;
+  private final DocumentSessions documentSessions;
   private final DatabaseLogger databaseLogger;
   private final Long logServerId;
   private final Random random = new Random();
@@ -112,8 +114,14 @@ abstract class TextChecker {
       this.ngramIdentifier.enableNgrams(config.getNgramLangIdentData());
     }
     this.executorService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("lt-textchecker-thread-%d").build());
-    this.cache = config.getCacheSize() > 0 ? new ResultCache(
-      config.getCacheSize(), config.getCacheTTLSeconds(), TimeUnit.SECONDS) : null;
+    if (config.getCacheSizeInBytes() > 0) {
+      this.cache = ResultCache.withMaxBytes(config.getCacheSizeInBytes(), config.getCacheOffHeapSizeInBytes(),
+        config.getCacheTTLSeconds(), TimeUnit.SECONDS);
+    } else {
+      this.cache = config.getCacheSize() > 0 ? new ResultCache(
+        config.getCacheSize(), config.getCacheTTLSeconds(), TimeUnit.SECONDS) : null;
+    }
+    this.documentSessions = config.getDocumentSessions() > 0 ? new DocumentSessions(config.getDocumentSessions()) : null;
     this.databaseLogger = DatabaseLogger.getInstance();
     if (databaseLogger.isLogging()) {
       this.logServerId = DatabaseAccess.getInstance().getOrCreateServerId();
@@ -128,6 +136,7 @@ abstract class TextChecker {
       ServerMetricsCollector.getInstance().monitorCache("languagetool_remote_matches_cache", cache.getRemoteMatchesCache());
       ServerMetricsCollector.getInstance().monitorCache("languagetool_sentences_cache", cache.getSentenceCache());
       ServerMetricsCollector.getInstance().monitorCache("languagetool_remote_matches_cache", cache.getRemoteMatchesCache());
+      ServerMetricsCollector.getInstance().monitorResultCache(cache);
     }
 
     pipelinePool = new PipelinePool(config, cache, internalServer);
@@ -269,9 +278,13 @@ abstract class TextChecker {
       }
     }
 
-    UserConfig userConfig = new UserConfig(
+    // the user's words are not part of the UserConfig but applied to the results, so that pipelines
+    // and cached results can be shared by all users with the same settings:
+    UserDictMatchFilter userDictFilter = new UserDictMatchFilter(
             limits.getPremiumUid() != null ? getUserDictWords(limits.getPremiumUid()) : Collections.emptyList(),
-            getRuleValues(parameters), config.getMaxSpellingSuggestions(), null, null, filterDictionaryMatches,
+            filterDictionaryMatches);
+    UserConfig userConfig = new UserConfig(Collections.emptyList(),
+            getRuleValues(parameters), config.getMaxSpellingSuggestions(), null, null, false,
       abTest, textSessionId);
 
     //print("Check start: " + text.length() + " chars, " + langParam);
@@ -359,18 +372,32 @@ abstract class TextChecker {
 
     int textSize = aText.getPlainText().length();
 
+    // incremental check: keep the text and matches of the document, so later requests only need to send their changes
+    boolean incremental = documentSessions != null && parameters.get("documentId") != null && parameters.get("data") == null;
+    String documentKey = incremental ? getDocumentKey(parameters, limits) : null;
+    int documentRevision = documentKey != null && parameters.get("changes") != null ? getBaseRevision(parameters) + 1 : 0;
+
     List<RuleMatch> ruleMatchesSoFar = Collections.synchronizedList(new ArrayList<>());
 
-    Future<List<RuleMatch>> future = executorService.submit(new Callable<List<RuleMatch>>() {
-      @Override
-      public List<RuleMatch> call() throws Exception {
-        // use to fake OOM in thread for testing:
-        /*if (Math.random() < 0.1) {
-          throw new OutOfMemoryError();
-        }*/
-        return getRuleMatches(aText, lang, motherTongue, parameters, params, userConfig, detLang, preferredLangs, preferredVariants, f -> ruleMatchesSoFar.add(f));
-      }
-    });
+    // the check stops by itself once the time is up, so it doesn't keep running after a timeout:
+    long deadline = limits.getMaxCheckTimeMillis() < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + limits.getMaxCheckTimeMillis();
+    CheckDeadline cancelledCallback = new CheckDeadline(deadline);
+    Callable<List<RuleMatch>> check = () -> {
+      // use to fake OOM in thread for testing:
+      /*if (Math.random() < 0.1) {
+        throw new OutOfMemoryError();
+      }*/
+      return getRuleMatches(aText, lang, motherTongue, parameters, params, userConfig, userDictFilter, detLang, preferredLangs, preferredVariants, f -> ruleMatchesSoFar.add(f), cancelledCallback, documentKey, documentRevision);
+    };
+    Future<List<RuleMatch>> future;
+    boolean inline = config.getCheckExecution() == HTTPServerConfig.CheckExecution.INLINE;
+    if (inline) {
+      FutureTask<List<RuleMatch>> task = new FutureTask<>(check);
+      task.run();
+      future = task;
+    } else {
+      future = executorService.submit(check);
+    }
     String incompleteResultReason = null;
     List<RuleMatch> matches;
     try {
@@ -378,6 +405,10 @@ abstract class TextChecker {
         matches = future.get();
       } else {
         matches = future.get(limits.getMaxCheckTimeMillis(), TimeUnit.MILLISECONDS);
+        if (cancelledCallback.hasStoppedCheck()) {
+          // the check has been stopped early at the deadline, so the result is incomplete:
+          throw new TimeoutException();
+        }
       }
     } catch (ExecutionException e) {
       future.cancel(true);
@@ -461,17 +492,34 @@ abstract class TextChecker {
       }
     }
     int compactMode = Integer.parseInt(parameters.getOrDefault("c", "0"));
-    String response = getResponse(aText, lang, detLang, motherTongue, matches, hiddenMatches, incompleteResultReason, compactMode, limits.getPremiumUid() == null);
-    if (params.callback != null) {
-      // JSONP - still needed today for the special case of hosting your own on-premise LT without SSL
-      // and using it from a local MS Word (not Online Word) - issue #89 in the add-in repo:
-      response = params.callback + "(" + response + ");";
-    }
     String messageSent = "sent";
     String languageMessage = lang.getShortCodeWithCountryAndVariant();
+    // the response is serialized (and compressed) before the headers get sent, so a serialization error still
+    // leads to an error response; the bytes are written from the buffer without building a String or copying them:
+    boolean gzip = ServerTools.acceptsGzip(httpExchange);
+    ByteArrayOutputStream responseBytes = new ByteArrayOutputStream(RESPONSE_BUFFER_SIZE);
+    OutputStream out = gzip ? new GZIPOutputStream(responseBytes, RESPONSE_BUFFER_SIZE) : responseBytes;
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, ENCODING), RESPONSE_BUFFER_SIZE)) {
+      if (params.callback != null) {
+        // JSONP - still needed today for the special case of hosting your own on-premise LT without SSL
+        // and using it from a local MS Word (not Online Word) - issue #89 in the add-in repo:
+        writer.write(params.callback + "(");
+      }
+      writeResponse(writer, aText, lang, detLang, motherTongue, matches, hiddenMatches, incompleteResultReason, compactMode, limits.getPremiumUid() == null);
+      if (params.callback != null) {
+        writer.write(");");
+      }
+    }
     try {
-      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.getBytes(ENCODING).length);
-      httpExchange.getResponseBody().write(response.getBytes(ENCODING));
+      // the response depends on Accept-Encoding, so caches must not hand out one variant for the other:
+      httpExchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+      if (gzip) {
+        httpExchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, responseBytes.size());
+      try (OutputStream responseBody = httpExchange.getResponseBody()) {
+        responseBytes.writeTo(responseBody);
+      }
       ServerMetricsCollector.getInstance().logResponse(HttpURLConnection.HTTP_OK);
     } catch (IOException exception) {
       // the client is disconnected
@@ -554,17 +602,18 @@ abstract class TextChecker {
   }
 
   protected void checkParams(Map<String, String> parameters) {
-    if (parameters.get("text") == null && parameters.get("data") == null) {
-      throw new IllegalArgumentException("Missing 'text' or 'data' parameter");
+    if (parameters.get("text") == null && parameters.get("data") == null && parameters.get("changes") == null) {
+      throw new IllegalArgumentException("Missing 'text', 'data', or 'changes' parameter");
     }
   }
 
   private List<RuleMatch> getRuleMatches(AnnotatedText aText, Language lang,
                                          Language motherTongue, Map<String, String> parameters, 
-                                         QueryParams params, UserConfig userConfig,
+                                         QueryParams params, UserConfig userConfig, UserDictMatchFilter userDictFilter,
                                          DetectedLanguage detLang,
                                          List<String> preferredLangs, List<String> preferredVariants,
-                                         RuleMatchListener listener) throws Exception {
+                                         RuleMatchListener listener, CheckDeadline cancelledCallback,
+                                         String documentKey, int documentRevision) throws Exception {
     if (cache != null && cache.requestCount() > 0 && cache.requestCount() % CACHE_STATS_PRINT == 0) {
       double hitRate = cache.hitRate();
       String hitPercentage = String.format(Locale.ENGLISH, "%.2f", hitRate * 100.0f);
@@ -582,16 +631,14 @@ abstract class TextChecker {
       Language sourceLanguage = Languages.getLanguageForShortCode(parameters.get("sourceLanguage"));
       JLanguageTool sourceLt = new JLanguageTool(sourceLanguage);
       JLanguageTool targetLt = new JLanguageTool(lang);
-      if (userConfig.filterDictionaryMatches()) {
-        targetLt.addMatchFilter(new DictionaryMatchFilter(userConfig));
-      }
+      targetLt.addMatchFilter(userDictFilter);
       List<BitextRule> bitextRules = Tools.getBitextRules(sourceLanguage, lang);
       return Tools.checkBitext(parameters.get("sourceText"), aText.getPlainText(), sourceLt, targetLt, bitextRules);
     } else {
       List<RuleMatch> matches = new ArrayList<>();
 
       if (preferredLangs.size() < 2 || parameters.get("multilingual") == null || parameters.get("multilingual").equals("false")) {
-        matches.addAll(getPipelineResults(aText, lang, motherTongue, params, userConfig, listener));
+        matches.addAll(getPipelineResults(aText, lang, motherTongue, params, userConfig, userDictFilter, listener, cancelledCallback, documentKey, documentRevision));
       } else {
         // support for multilingual texts:
         try {
@@ -610,12 +657,12 @@ abstract class TextChecker {
           langs.addAll(secondLangs);
           Map<Language, AnnotatedTextBuilder> lang2builder = getBuilderMap(fragments, new HashSet<>(langs));
           for (Map.Entry<Language, AnnotatedTextBuilder> entry : lang2builder.entrySet()) {
-            matches.addAll(getPipelineResults(entry.getValue().build(), entry.getKey(), motherTongue, params, userConfig, listener));
+            matches.addAll(getPipelineResults(entry.getValue().build(), entry.getKey(), motherTongue, params, userConfig, userDictFilter, listener, cancelledCallback, null, 0));
           }
         } catch (Exception e) {
           logger.error("Problem with multilingual mode (preferredLangs=" + preferredLangs+ ", preferredVariants=" + preferredVariants + "), " +
             "falling back to single language.", e);
-          matches.addAll(getPipelineResults(aText, lang, motherTongue, params, userConfig, listener));
+          matches.addAll(getPipelineResults(aText, lang, motherTongue, params, userConfig, userDictFilter, listener, cancelledCallback, null, 0));
         }
       }
       return matches;
@@ -631,27 +678,103 @@ abstract class TextChecker {
     return Languages.getLanguageForShortCode(langCode);
   }
 
-  private List<RuleMatch> getPipelineResults(AnnotatedText aText, Language lang, Language motherTongue, QueryParams params, UserConfig userConfig, RuleMatchListener listener) throws Exception {
+  private List<RuleMatch> getPipelineResults(AnnotatedText aText, Language lang, Language motherTongue, QueryParams params, UserConfig userConfig,
+                                             UserDictMatchFilter userDictFilter, RuleMatchListener matchListener,
+                                             CheckDeadline cancelledCallback,
+                                             String documentKey, int documentRevision) throws Exception {
+    RuleMatchListener listener = matchListener == null ? null : match -> {
+      RuleMatch filtered = userDictFilter.filter(match, aText);
+      if (filtered != null) {
+        matchListener.matchFound(filtered);
+      }
+    };
     PipelinePool.PipelineSettings settings = null;
     Pipeline lt = null;
     List<RuleMatch> matches = new ArrayList<>();
     try {
       settings = new PipelinePool.PipelineSettings(lang, motherTongue, params, config.globalConfig, userConfig);
       lt = pipelinePool.getPipeline(settings);
+      lt.setCheckCancelledCallback(cancelledCallback);
       Long textSessionId = userConfig.getTextSessionId();
       if (params.regressionTestMode) {
         textSessionId = -2L; // magic value for remote rule roll-out - includes all results, even from disabled models
       }
-      matches.addAll(lt.check(aText, true, JLanguageTool.ParagraphHandling.NORMAL, listener,
-        params.mode, params.level, executorService, textSessionId));
+      if (documentKey != null) {
+        matches.addAll(checkDocument(aText.getPlainText(), documentKey, documentRevision, lt, settings, params, listener, cancelledCallback, textSessionId));
+      } else {
+        matches.addAll(lt.check(aText, true, JLanguageTool.ParagraphHandling.NORMAL, listener,
+          params.mode, params.level, executorService, textSessionId));
+      }
+      // before returning the pipeline, as the filter may ask its spelling rules about compounds:
+      return userDictFilter.filter(matches, aText);
     } finally {
       if (lt != null) {
+        lt.setCheckCancelledCallback(null);
+        lt.setTextLevelRuleFilter(null);
         pipelinePool.returnPipeline(settings, lt);
       }
     }
+  }
+
+  private List<RuleMatch> checkDocument(String text, String documentKey, int documentRevision, Pipeline lt,
+                                        PipelinePool.PipelineSettings settings, QueryParams params, RuleMatchListener listener,
+                                        CheckDeadline cancelledCallback, Long textSessionId) throws Exception {
+    DocumentSessions.PartialCheck check = (part, offset, mode, textLevelRuleFilter) -> {
+      lt.setTextLevelRuleFilter(textLevelRuleFilter);
+      RuleMatchListener partListener = listener == null ? null : match -> listener.matchFound(DocumentSessions.shift(match, offset));
+      return lt.check(new AnnotatedTextBuilder().addText(part).build(), true, JLanguageTool.ParagraphHandling.NORMAL, partListener,
+        mode, params.level, executorService, textSessionId);
+    };
+    DocumentSessions.Document previous = documentSessions.get(documentKey);
+    List<RuleMatch> matches;
+    if (previous != null && previous.settings.equals(settings)) {
+      matches = DocumentSessions.checkIncrementally(previous.text, previous.matches, text, lt, params.mode, check);
+    } else {
+      matches = check.check(text, 0, params.mode, null);
+    }
+    if (cancelledCallback == null || !cancelledCallback.hasStoppedCheck()) {
+      // incomplete results must not be re-used
+      documentSessions.put(documentKey, new DocumentSessions.Document(documentRevision, text, settings, matches));
+    }
     return matches;
   }
 
+  /**
+   * The text of a document after applying the {@code changes} parameter to the revision
+   * {@code baseRevision} of the document {@code documentId} that has been checked before.
+   * @since 5.2
+   */
+  String getChangedDocumentText(Map<String, String> parameters) throws IOException {
+    if (documentSessions == null) {
+      throw new IllegalArgumentException("Incremental checks with 'changes' are not enabled on this server, please send the complete text");
+    }
+    if (parameters.get("documentId") == null) {
+      throw new IllegalArgumentException("'documentId' parameter missing - must be set when 'changes' is set");
+    }
+    String documentKey = getDocumentKey(parameters, ServerTools.getUserLimits(parameters, config));
+    if (documentKey == null) {
+      throw new IllegalArgumentException("Incremental checks with 'changes' are only available for logged-in users, please send the complete text");
+    }
+    return documentSessions.applyChanges(documentKey, getBaseRevision(parameters), parameters.get("changes"));
+  }
+
+  /**
+   * The key of the document session, or {@code null} if the user cannot have one: the {@code documentId}
+   * is chosen by the client, so it's only safe to use together with the id of a logged-in user.
+   */
+  @Nullable
+  private String getDocumentKey(Map<String, String> parameters, UserLimits limits) {
+    Long uid = limits.getPremiumUid();
+    return uid != null && uid >= 0 ? uid + "/" + parameters.get("documentId") : null;
+  }
+
+  private int getBaseRevision(Map<String, String> parameters) {
+    if (parameters.get("baseRevision") == null) {
+      throw new IllegalArgumentException("'baseRevision' parameter missing - must be set when 'changes' is set");
+    }
+    return Integer.parseInt(parameters.get("baseRevision"));
+  }
+
   @NotNull
   private Map<Language, AnnotatedTextBuilder> getBuilderMap(List<FragmentWithLanguage> fragments, Set<Language> maybeUsedLangs) {
     Map<Language, AnnotatedTextBuilder> lang2builder = new HashMap<>();
@@ -733,6 +856,34 @@ abstract class TextChecker {
     return new DetectedLanguage(null, lang, detected != null ? detected.getDetectionConfidence() : 0f);
   }
 
+  /**
+   * Stops the check once the deadline has passed and remembers whether it did, as a check
+   * that finished just before the deadline has complete results.
+   */
+  static class CheckDeadline implements JLanguageTool.CheckCancelledCallback {
+    private final long deadline;
+    private volatile boolean stoppedCheck;
+
+    CheckDeadline(long deadline) {
+      this.deadline = deadline;
+    }
+
+    @Override
+    public boolean checkCancelled() {
+      if (System.currentTimeMillis() > deadline) {
+        stoppedCheck = true;
+      }
+      return stoppedCheck;
+    }
+
+    /**
+     * @return whether {@link #checkCancelled()} has told the check to stop, so its results are incomplete
+     */
+    boolean hasStoppedCheck() {
+      return stoppedCheck;
+    }
+  }
+
   static class QueryParams {
     final List<Language> altLanguages;
     final List<String> enabledRules;
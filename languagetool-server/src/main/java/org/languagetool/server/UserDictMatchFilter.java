@@ -0,0 +1,186 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.apache.commons.lang3.StringUtils;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.RuleMatchFilter;
+import org.languagetool.rules.SuggestedReplacement;
+import org.languagetool.rules.spelling.SpellingCheckRule;
+import org.languagetool.tools.StringTools;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Applies a user's personal dictionary to the matches of a check. The pipelines (and so the
+ * cached results) don't know about the user's words, so they can be shared by all users with the
+ * same settings. This filter then removes the spelling matches of words from the user's
+ * dictionary and adds similar words from the dictionary to the suggestions of the other
+ * spelling matches. Like when the words are ignored by the spelling rules, this also accepts
+ * words that consist of several tokens and, in languages that support it, compounds of a word
+ * from the dictionary and a correctly spelled word.
+ * @since 5.2
+ */
+class UserDictMatchFilter implements RuleMatchFilter {
+
+  private final Set<String> words;
+  private final List<String> multiTokenWords = new ArrayList<>();
+  private final boolean filterAllMatches;
+
+  /**
+   * @param filterAllMatches whether to remove not only spelling matches but all matches
+   *                         that cover a word from the dictionary (parameter {@code filterDictionaryMatches})
+   */
+  UserDictMatchFilter(List<String> words, boolean filterAllMatches) {
+    this.words = new HashSet<>(words);
+    for (String word : this.words) {
+      // e.g. "Mysurname-Corp" or "Mysurname's", which a spelling rule may see as several tokens:
+      if (!StringUtils.isAlphanumeric(word)) {
+        multiTokenWords.add(word);
+      }
+    }
+    this.filterAllMatches = filterAllMatches;
+  }
+
+  @Override
+  public List<RuleMatch> filter(List<RuleMatch> ruleMatches, AnnotatedText text) {
+    if (words.isEmpty()) {
+      return ruleMatches;
+    }
+    List<RuleMatch> result = new ArrayList<>(ruleMatches.size());
+    for (RuleMatch match : ruleMatches) {
+      RuleMatch filtered = filter(match, text);
+      if (filtered != null) {
+        result.add(filtered);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the match, a copy of it with additional suggestions, or {@code null} if the match is to be removed
+   */
+  RuleMatch filter(RuleMatch match, AnnotatedText text) {
+    if (words.isEmpty()) {
+      return match;
+    }
+    // the positions of the matches already refer to the original text, including its markup
+    // (getOriginalText() leaves out the markup, so it doesn't match these positions):
+    String originalText = text.getTextWithMarkup();
+    if (match.getToPos() > originalText.length()) {
+      return match;
+    }
+    String covered = originalText.substring(match.getFromPos(), match.getToPos());
+    if (filterAllMatches && (words.contains(covered) || isInMultiTokenWord(originalText, match.getFromPos(), match.getToPos()))) {
+      return null;
+    }
+    if (!match.getRule().isDictionaryBasedSpellingRule()) {
+      return match;
+    }
+    if (isAccepted(covered) || covered.endsWith(".") && isAccepted(covered.substring(0, covered.length() - 1))
+        || isInMultiTokenWord(originalText, match.getFromPos(), match.getToPos()) || isCompound(match, covered)) {
+      return null;
+    }
+    // matches may come from the result cache and be shared with other users, so don't modify them:
+    RuleMatch copy = new RuleMatch(match);
+    copy.setLazySuggestedReplacements(() -> {
+      // only computed when the suggestions are needed, as it compares the word to every word of the dictionary:
+      List<String> candidates = getCandidates(covered);
+      // like the spelling rules, put the words from the user's dictionary first:
+      List<SuggestedReplacement> suggestions = new ArrayList<>(SuggestedReplacement.convert(candidates));
+      for (SuggestedReplacement suggestion : match.getSuggestedReplacementObjects()) {
+        if (!candidates.contains(suggestion.getReplacement())) {
+          suggestions.add(suggestion);
+        }
+      }
+      return suggestions;
+    });
+    return copy;
+  }
+
+  private boolean isAccepted(String word) {
+    if (word.isEmpty()) {
+      return false;
+    }
+    // also accept the uppercase variant at the start of a sentence:
+    return words.contains(word) || StringTools.startsWithUppercase(word) && words.contains(StringTools.lowercaseFirstChar(word));
+  }
+
+  private boolean isInMultiTokenWord(String text, int fromPos, int toPos) {
+    for (String word : multiTokenWords) {
+      if (occursAround(text, word, fromPos, toPos) || occursAround(text, StringTools.uppercaseFirstChar(word), fromPos, toPos)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // whether the word occurs as a whole word that covers the range fromPos to toPos:
+  private static boolean occursAround(String text, String word, int fromPos, int toPos) {
+    int pos = text.indexOf(word, Math.max(0, toPos - word.length()));
+    while (pos != -1 && pos <= fromPos) {
+      int endPos = pos + word.length();
+      if (isWordBoundary(text, pos - 1) && isWordBoundary(text, endPos)) {
+        return true;
+      }
+      pos = text.indexOf(word, pos + 1);
+    }
+    return false;
+  }
+
+  private static boolean isWordBoundary(String text, int pos) {
+    return pos < 0 || pos >= text.length() || !Character.isLetterOrDigit(text.charAt(pos));
+  }
+
+  private boolean isCompound(RuleMatch match, String word) {
+    if (!(match.getRule() instanceof SpellingCheckRule)) {
+      return false;
+    }
+    try {
+      return ((SpellingCheckRule) match.getRule()).isCompoundWithIgnoredWord(word, words);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not check compound '" + word + "'", e);
+    }
+  }
+
+  private List<String> getCandidates(String word) {
+    int maxDistance = word.length() <= 4 ? 1 : 2;
+    String lcWord = word.toLowerCase();
+    List<String> candidates = new ArrayList<>();
+    List<Integer> distances = new ArrayList<>();
+    for (String dictWord : words) {
+      if (Math.abs(dictWord.length() - word.length()) > maxDistance) {
+        continue;
+      }
+      int distance = StringUtils.getLevenshteinDistance(lcWord, dictWord.toLowerCase(), maxDistance);
+      if (distance != -1) {
+        int pos = 0;
+        while (pos < distances.size() && distances.get(pos) <= distance) {
+          pos++;
+        }
+        candidates.add(pos, dictWord);
+        distances.add(pos, distance);
+      }
+    }
+    return candidates;
+  }
+
+}
@@ -0,0 +1,132 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Languages;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.TextLevelRule;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+public class DocumentSessionsTest {
+
+  private static final String[] PARAGRAPHS = {
+    "Ceci est un texte avec des erreur. Il faut la corriger rapidement.",
+    "Les enfant jouent dans le jardin. C'est une belle journée (vraiment.",
+    "Je suis allé au cinéma hier soir. Le film était très intéressant.",
+    "Il y a des fautes , et des espaces en trop  ici.",
+    "Nous avons mangé des pomme. elles étaient bonnes.",
+  };
+
+  @Test
+  public void testIncrementalCheckFindsSameMatchesAsFullCheck() throws Exception {
+    JLanguageTool lt = new JLanguageTool(Languages.getLanguageForShortCode("fr"));
+    DocumentSessions.PartialCheck check = (part, offset, mode, filter) -> {
+      lt.setTextLevelRuleFilter(filter);
+      try {
+        return lt.check(new AnnotatedTextBuilder().addText(part).build(), true, JLanguageTool.ParagraphHandling.NORMAL, null,
+          mode, JLanguageTool.Level.DEFAULT, null, null);
+      } finally {
+        lt.setTextLevelRuleFilter(null);
+      }
+    };
+    Random random = new Random(42);
+    String text = String.join("\n\n", PARAGRAPHS);
+    List<RuleMatch> matches = check.check(text, 0, JLanguageTool.Mode.ALL, null);
+    for (int i = 0; i < 30; i++) {
+      int from = random.nextInt(text.length());
+      int to = Math.min(text.length(), from + random.nextInt(10));
+      String insert = random.nextBoolean() ? "" : PARAGRAPHS[random.nextInt(PARAGRAPHS.length)].substring(0, random.nextInt(20));
+      if (random.nextInt(5) == 0) {
+        insert = "\n\n";
+      }
+      String newText = text.substring(0, from) + insert + text.substring(to);
+      List<RuleMatch> incremental = DocumentSessions.checkIncrementally(text, matches, newText, lt, JLanguageTool.Mode.ALL, check);
+      List<RuleMatch> full = check.check(newText, 0, JLanguageTool.Mode.ALL, null);
+      assertThat("edit " + i + ": '" + newText + "'", toString(incremental), is(toString(full)));
+      text = newText;
+      matches = incremental;
+    }
+  }
+
+  @Test
+  public void testMatchOverlappingCheckedParagraphs() throws Exception {
+    JLanguageTool lt = new JLanguageTool(Languages.getLanguageForShortCode("fr"));
+    Rule rule = lt.getAllActiveRules().stream().filter(r -> !(r instanceof TextLevelRule)).findFirst().get();
+    String oldText = "Un.\n\nDeux.\n\nTrois.\n\nQuatre.";
+    String text = "Un.\n\nDeux.\n\nTroix.\n\nQuatre.";
+    // a match from "Deux" to "Trois", re-found if its paragraph gets checked again:
+    List<RuleMatch> oldMatches = Collections.singletonList(new RuleMatch(rule, null, 5, 14, "message"));
+    List<Integer> checkedOffsets = new ArrayList<>();
+    List<RuleMatch> matches = DocumentSessions.checkIncrementally(oldText, oldMatches, text, lt,
+      JLanguageTool.Mode.ALL_BUT_TEXTLEVEL_ONLY, (part, offset, mode, filter) -> {
+        checkedOffsets.add(offset);
+        return offset <= 5 ? Collections.singletonList(new RuleMatch(rule, null, 5 - offset, 14 - offset, "message")) : Collections.emptyList();
+      });
+    assertThat(checkedOffsets, is(Collections.singletonList(5)));
+    assertThat(toString(matches), is(rule.getId() + "@5-14"));
+  }
+
+  @Test
+  public void testUnchangedText() throws Exception {
+    List<RuleMatch> matches = DocumentSessions.checkIncrementally("Texte.", Collections.emptyList(), "Texte.",
+      new JLanguageTool(Languages.getLanguageForShortCode("fr")), JLanguageTool.Mode.ALL, (part, offset, mode, filter) -> {
+        throw new AssertionError("unchanged text must not be checked");
+      });
+    assertTrue(matches.isEmpty());
+  }
+
+  @Test
+  public void testApplyChanges() throws Exception {
+    DocumentSessions sessions = new DocumentSessions(10);
+    sessions.put("doc", new DocumentSessions.Document(3, "Hallo Welt.", null, Collections.emptyList()));
+    assertThat(sessions.applyChanges("doc", 3, "[{\"offset\": 0, \"length\": 5, \"text\": \"Hello\"}, {\"offset\": 6, \"length\": 4, \"text\": \"world\"}]"),
+      is("Hello world."));
+    try {
+      sessions.applyChanges("doc", 2, "[]");
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      sessions.applyChanges("doc", 3, "[{\"offset\": 10, \"length\": 5, \"text\": \"x\"}]");
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  @Test
+  public void testGetParagraphStarts() {
+    assertThat(DocumentSessions.getParagraphStarts("a\n\nb\nc\n\n\nd\n\n", false), is(Arrays.asList(0, 3, 9)));
+    assertThat(DocumentSessions.getParagraphStarts("a\nb\n\nc", true), is(Arrays.asList(0, 2, 5)));
+  }
+
+  private static String toString(List<RuleMatch> matches) {
+    return matches.stream()
+      .map(match -> match.getRule().getId() + "@" + match.getFromPos() + "-" + match.getToPos())
+      .sorted()
+      .collect(Collectors.joining(", "));
+  }
+
+}
@@ -31,14 +31,16 @@ import java.nio.charset.StandardCharsets;
 public class FakeHttpExchange extends HttpExchange {
   
   private final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+  private final Headers requestHeaders = new Headers();
+  private final Headers responseHeaders = new Headers();
     
   @Override
   public Headers getRequestHeaders() {
-    return new Headers();
+    return requestHeaders;
   }
   @Override
   public Headers getResponseHeaders() {
-    return new Headers();
+    return responseHeaders;
   }
   @Override
   public URI getRequestURI() {
@@ -101,4 +103,8 @@ public class FakeHttpExchange extends HttpExchange {
     return new String(bos.toByteArray(), StandardCharsets.UTF_8);
   }
 
+  byte[] getRawOutput() {
+    return bos.toByteArray();
+  }
+
 }
\ No newline at end of file
@@ -31,11 +31,16 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -323,6 +328,35 @@ public class HTTPServerTest {
     }
   }
 
+  @Test
+  public void testRequestRejectedByExecutor() throws Exception {
+    HTTPServerConfig config = new HTTPServerConfig(HTTPTools.getDefaultPort(), false);
+    config.setCheckExecution(HTTPServerConfig.CheckExecution.INLINE);
+    config.setMaxCheckThreads(1);
+    config.setMaxWorkQueueSize(1);  // the executor then queues at most 2 requests
+    HTTPServer server = new HTTPServer(config, false);
+    List<Socket> incompleteRequests = new ArrayList<>();
+    try {
+      server.run();
+      // requests whose headers are incomplete keep the only thread busy and then fill the queue:
+      for (int i = 0; i < 3; i++) {
+        Socket socket = new Socket("localhost", HTTPTools.getDefaultPort());
+        socket.getOutputStream().write("GET /v2/healthcheck HTTP/1.1\r\n".getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        incompleteRequests.add(socket);
+        Thread.sleep(200);
+      }
+      URL url = new URL("http://localhost:<PORT>/v2/healthcheck".replace("<PORT>", String.valueOf(HTTPTools.getDefaultPort())));
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      assertThat(connection.getResponseCode(), is(HttpURLConnection.HTTP_UNAVAILABLE));
+    } finally {
+      for (Socket socket : incompleteRequests) {
+        socket.close();
+      }
+      server.stop();
+    }
+  }
+
   @Test
   public void testAccessDenied() throws Exception {
     HTTPServer server = new HTTPServer(new HTTPServerConfig(HTTPTools.getDefaultPort()), false, new HashSet<>());
@@ -0,0 +1,96 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class InMemoryRequestLimiterBackendTest {
+
+  @Test
+  public void testSlidingWindow() {
+    InMemoryRequestLimiterBackend backend = new InMemoryRequestLimiterBackend();
+    assertUsage(backend.get("a", 100, 3), 0, 0);
+    assertUsage(backend.add("a", 100, 3, 1, 10), 1, 10);
+    assertUsage(backend.add("a", 100, 3, 1, 5), 2, 15);
+    assertUsage(backend.add("a", 101, 3, 1, 1), 3, 16);
+    assertUsage(backend.add("b", 101, 3, 1, 1), 1, 1);
+    assertUsage(backend.get("a", 102, 3), 3, 16);
+    assertUsage(backend.get("a", 103, 3), 1, 1);   // bucket 100 dropped out of the window
+    assertUsage(backend.add("a", 102, 3, 1, 2), 2, 3);  // from the past, counted in the current bucket
+    assertUsage(backend.get("a", 104, 3), 1, 2);
+    assertUsage(backend.get("a", 200, 3), 0, 0);
+    assertUsage(backend.add("a", 200, 3, 1, 7), 1, 7);
+  }
+
+  @Test
+  public void testEvict() {
+    InMemoryRequestLimiterBackend backend = new InMemoryRequestLimiterBackend();
+    backend.add("x/a", 100, 3, 1, 10);
+    backend.add("x/b", 102, 3, 1, 10);
+    backend.add("y/a", 100, 3, 1, 10);
+    backend.evict("x/", 102);
+    assertThat(backend.size(), is(3));
+    backend.evict("x/", 103);
+    assertThat(backend.size(), is(2));
+    assertUsage(backend.get("x/a", 103, 3), 0, 0);
+    assertUsage(backend.get("x/b", 103, 3), 1, 10);
+    backend.evict("x/", 105);
+    assertThat(backend.size(), is(1));  // keys of other limiters are kept
+    backend.evict("y/", 105);
+    assertThat(backend.size(), is(0));
+  }
+
+  @Test
+  public void testConcurrentAdd() throws Exception {
+    InMemoryRequestLimiterBackend backend = new InMemoryRequestLimiterBackend();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 1000; j++) {
+            backend.add("a", 100, 5, 1, 10);
+            backend.evict("", 100);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertUsage(backend.get("a", 100, 5), 8000, 80000);
+  }
+
+  private void assertUsage(RequestLimiterBackend.Usage usage, int requests, long weightedSize) {
+    assertThat(usage.getRequests(), is(requests));
+    assertThat(usage.getWeightedSize(), is(weightedSize));
+  }
+
+}
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class RequestLimiterTest {
@@ -101,6 +102,41 @@ public class RequestLimiterTest {
     assertOkayWithSkippingLimits(limiter, firstIp, params, firstHeader);
   }
 
+  @Test
+  public void testSharedBackend() {
+    // two servers that share their counters enforce one limit:
+    InMemoryRequestLimiterBackend backend = new InMemoryRequestLimiterBackend();
+    RequestLimiter limiter1 = new RequestLimiter(3, 0, 100, 1, backend);
+    RequestLimiter limiter2 = new RequestLimiter(3, 0, 100, 1, backend);
+    String ip = "192.168.10.1";
+    Map<String, List<String>> header = new HashMap<>();
+    Map<String, String> params = new HashMap<>();
+    assertOkay(limiter1, ip, params, header);
+    assertOkay(limiter2, ip, params, header);
+    assertOkay(limiter1, ip, params, header);
+    assertException(limiter2, ip, params, header);
+    assertException(limiter1, ip, params, header);
+  }
+
+  @Test
+  public void testBackendSharedWithOtherLimiters() {
+    // limiters of different types or periods don't count each other's requests:
+    InMemoryRequestLimiterBackend backend = new InMemoryRequestLimiterBackend();
+    RequestLimiter limiter = new RequestLimiter(2, 0, 100, 1, backend);
+    RequestLimiter otherPeriodLimiter = new RequestLimiter(2, 0, 50, 1, backend);
+    ErrorRequestLimiter errorLimiter = new ErrorRequestLimiter(2, 100, backend);
+    String ip = "192.168.10.1";
+    Map<String, List<String>> header = new HashMap<>();
+    Map<String, String> params = new HashMap<>();
+    assertOkay(limiter, ip, params, header);
+    assertOkay(otherPeriodLimiter, ip, params, header);
+    errorLimiter.logAccess(ip, header, params);
+    assertTrue(errorLimiter.wouldAccessBeOkay(ip, params, header));
+    assertOkay(limiter, ip, params, header);
+    assertOkay(otherPeriodLimiter, ip, params, header);
+    assertException(limiter, ip, params, header);
+  }
+
   private void assertOkay(RequestLimiter limiter, String ip, Map<String, String> params, Map<String, List<String>> header) {
     try {
       limiter.checkAccess(ip, params, header, UserLimits.getDefaultLimits(config));
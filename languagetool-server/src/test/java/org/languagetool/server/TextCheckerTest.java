@@ -21,12 +21,15 @@ package org.languagetool.server;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.google.common.io.ByteStreams;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.languagetool.markup.AnnotatedTextBuilder;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -96,6 +99,138 @@ public class TextCheckerTest {
     }
   }
   
+  @Test
+  public void testInlineCheckExecutionStopsAtTimeout() throws Exception {
+    Map<String, String> params = new HashMap<>();
+    params.put("text", "not used");
+    params.put("language", "fr");
+    HTTPServerConfig config1 = new HTTPServerConfig(HTTPTools.getDefaultPort());
+    config1.setCheckExecution(HTTPServerConfig.CheckExecution.INLINE);
+    config1.setMaxCheckTimeMillis(1);
+    TextChecker checker = new V2TextChecker(config1, false, null, new RequestCounter());
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      text.append("Ceci est un texte avec des erreur, il faut la corriger rapidement. ");
+    }
+    try {
+      checker.checkText(new AnnotatedTextBuilder().addText(text.toString()).build(), new FakeHttpExchange(), params, null, null);
+      fail();
+    } catch (RuntimeException expected) {
+      assertTrue(expected.getMessage(), expected.getMessage().contains("Text checking took longer than allowed maximum"));
+    }
+    params.put("allowIncompleteResults", "true");
+    FakeHttpExchange httpExchange = new FakeHttpExchange();
+    checker.checkText(new AnnotatedTextBuilder().addText(text.toString()).build(), httpExchange, params, null, null);
+    assertTrue(httpExchange.getOutput().contains("Results are incomplete"));
+  }
+
+  @Test
+  public void testGzipAndJsonpResponse() throws Exception {
+    Map<String, String> params = new HashMap<>();
+    params.put("text", "not used");
+    params.put("language", "fr");
+    params.put("callback", "myCallback");
+    TextChecker checker = new V2TextChecker(new HTTPServerConfig(HTTPTools.getDefaultPort()), false, null, new RequestCounter());
+    FakeHttpExchange plainExchange = new FakeHttpExchange();
+    checker.checkText(new AnnotatedTextBuilder().addText("Ceci est un texte avec des erreur.").build(), plainExchange, params, null, null);
+    String plain = plainExchange.getOutput();
+    assertTrue(plain, plain.startsWith("myCallback({\"software\":"));
+    assertTrue(plain, plain.endsWith("});"));
+    assertNull(plainExchange.getResponseHeaders().getFirst("Content-Encoding"));
+    assertThat(plainExchange.getResponseHeaders().getFirst("Vary"), is("Accept-Encoding"));
+
+    FakeHttpExchange gzipExchange = new FakeHttpExchange();
+    gzipExchange.getRequestHeaders().add("Accept-Encoding", "deflate, gzip;q=1.0");
+    checker.checkText(new AnnotatedTextBuilder().addText("Ceci est un texte avec des erreur.").build(), gzipExchange, params, null, null);
+    assertThat(gzipExchange.getResponseHeaders().getFirst("Content-Encoding"), is("gzip"));
+    assertThat(gzipExchange.getResponseHeaders().getFirst("Vary"), is("Accept-Encoding"));
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipExchange.getRawOutput()))) {
+      assertThat(new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8), is(plain));
+    }
+  }
+
+  @Test
+  public void testIncrementalCheck() throws Exception {
+    HTTPServerConfig config1 = new HTTPServerConfig(HTTPTools.getDefaultPort());
+    config1.setDocumentSessions(10);
+    // document sessions are only kept for logged-in users:
+    config1.setDatabaseDriver("org.hsqldb.jdbcDriver");
+    config1.setDatabaseUrl("jdbc:hsqldb:mem:testdb");
+    config1.setDatabaseUsername("");
+    config1.setDatabasePassword("");
+    DatabaseAccess.init(config1);
+    DatabaseLogger.getInstance().disableLogging();
+    DatabaseAccess.createAndFillTestTables();
+    try {
+      TextChecker checker = new V2TextChecker(config1, false, null, new RequestCounter());
+      Map<String, String> params = new HashMap<>();
+      params.put("text", "not used");
+      params.put("language", "fr");
+      params.put("documentId", "doc1");
+      params.put("username", UserDictTest.USERNAME1);
+      params.put("apiKey", UserDictTest.API_KEY1);
+      checker.checkText(new AnnotatedTextBuilder().addText("Ceci est un texte.\n\nLes enfant jouent.").build(), new FakeHttpExchange(), params, null, null);
+
+      params.remove("text");
+      params.put("baseRevision", "0");
+      params.put("changes", "[{\"offset\": 12, \"length\": 5, \"text\": \"texte avec des erreur\"}]");
+      String changedText = checker.getChangedDocumentText(params);
+      assertThat(changedText, is("Ceci est un texte avec des erreur.\n\nLes enfant jouent."));
+      FakeHttpExchange incrementalExchange = new FakeHttpExchange();
+      checker.checkText(new AnnotatedTextBuilder().addText(changedText).build(), incrementalExchange, params, null, null);
+
+      Map<String, String> fullParams = new HashMap<>();
+      fullParams.put("text", "not used");
+      fullParams.put("language", "fr");
+      fullParams.put("username", UserDictTest.USERNAME1);
+      fullParams.put("apiKey", UserDictTest.API_KEY1);
+      FakeHttpExchange fullExchange = new FakeHttpExchange();
+      checker.checkText(new AnnotatedTextBuilder().addText(changedText).build(), fullExchange, fullParams, null, null);
+      assertThat(incrementalExchange.getOutput(), is(fullExchange.getOutput()));
+
+      params.put("baseRevision", "1");
+      params.put("changes", "[{\"offset\": 0, \"length\": 4, \"text\": \"Cela\"}]");
+      assertThat(checker.getChangedDocumentText(params), is("Cela est un texte avec des erreur.\n\nLes enfant jouent."));
+      try {
+        params.put("baseRevision", "0");
+        checker.getChangedDocumentText(params);
+        fail();
+      } catch (IllegalArgumentException expected) {
+        // revision 0 has been replaced by revision 1
+      }
+      try {
+        params.put("baseRevision", "1");
+        params.remove("username");
+        params.remove("apiKey");
+        checker.getChangedDocumentText(params);
+        fail();
+      } catch (IllegalArgumentException expected) {
+        // anonymous users can't continue the documents of others just by knowing the documentId
+      }
+    } finally {
+      DatabaseAccess.deleteTestTables();
+    }
+  }
+
+  @Test
+  public void testByteBoundedCacheWithOffHeapTier() throws Exception {
+    HTTPServerConfig config1 = new HTTPServerConfig(HTTPTools.getDefaultPort());
+    config1.setCacheSizeInBytes(40_000);
+    config1.setCacheOffHeapSizeInBytes(1_000_000);
+    TextChecker checker = new V2TextChecker(config1, false, null, new RequestCounter());
+    Map<String, String> params = new HashMap<>();
+    params.put("text", "not used");
+    params.put("language", "fr");
+    FakeHttpExchange firstExchange = new FakeHttpExchange();
+    checker.checkText(new AnnotatedTextBuilder().addText("Les enfant jouent. Ceci est un texte avec des erreur.").build(), firstExchange, params, null, null);
+    for (int i = 0; i < 100; i++) {
+      checker.checkText(new AnnotatedTextBuilder().addText("Les enfant jouent " + i + " fois.").build(), new FakeHttpExchange(), params, null, null);
+    }
+    FakeHttpExchange secondExchange = new FakeHttpExchange();
+    checker.checkText(new AnnotatedTextBuilder().addText("Les enfant jouent. Ceci est un texte avec des erreur.").build(), secondExchange, params, null, null);
+    assertThat(secondExchange.getOutput(), is(firstExchange.getOutput()));
+  }
+
   @Test
   @Ignore("use to create JWT test tokens for the other tests")
   public void makeToken() {
@@ -0,0 +1,161 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Languages;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.spelling.SpellingCheckRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class UserDictMatchFilterTest {
+
+  private static final AnnotatedText TEXT = new AnnotatedTextBuilder().addText("Mysurname is Mxsurname. This is Mysurname.").build();
+
+  @Test
+  public void testFilter() {
+    UserDictMatchFilter filter = new UserDictMatchFilter(Arrays.asList("Mysurname", "this"), false);
+    RuleMatch speller1 = match(new FakeRule(true), 0, 9, "foo");
+    RuleMatch speller2 = match(new FakeRule(true), 13, 22, "Mxsurnames");
+    RuleMatch speller3 = match(new FakeRule(true), 32, 42, "foo");  // "Mysurname."
+    RuleMatch speller4 = match(new FakeRule(true), 24, 28, "foo");  // "This" at sentence start
+    RuleMatch grammar = match(new FakeRule(false), 24, 28, "foo");
+    List<RuleMatch> result = filter.filter(Arrays.asList(speller1, speller2, speller3, speller4, grammar), TEXT);
+    assertThat(result.size(), is(2));
+    assertFalse(result.get(0).isSuggestedReplacementsComputed());  // similar words are only searched when needed
+    assertThat(result.get(0).getSuggestedReplacements().toString(), is("[Mysurname, Mxsurnames]"));
+    assertThat(speller2.getSuggestedReplacements().toString(), is("[Mxsurnames]"));  // the original is not modified
+    assertThat(result.get(1), is(grammar));
+  }
+
+  @Test
+  public void testFilterAllMatches() {
+    UserDictMatchFilter filter = new UserDictMatchFilter(Collections.singletonList("This"), true);
+    RuleMatch grammar = match(new FakeRule(false), 24, 28, "foo");
+    assertTrue(filter.filter(Collections.singletonList(grammar), TEXT).isEmpty());
+  }
+
+  @Test
+  public void testMarkup() {
+    AnnotatedText text = new AnnotatedTextBuilder().addMarkup("<b>").addText("Mysurname").addMarkup("</b>").addText(" is Mxsurname.").build();
+    UserDictMatchFilter filter = new UserDictMatchFilter(Collections.singletonList("Mysurname"), false);
+    // the positions refer to the original text, including the markup:
+    RuleMatch speller1 = match(new FakeRule(true), 3, 12, "foo");
+    RuleMatch speller2 = match(new FakeRule(true), 20, 29, "Mxsurnames");
+    List<RuleMatch> result = filter.filter(Arrays.asList(speller1, speller2), text);
+    assertThat(result.size(), is(1));
+    assertThat(result.get(0).getSuggestedReplacements().toString(), is("[Mysurname, Mxsurnames]"));
+  }
+
+  @Test
+  public void testMultiTokenWord() {
+    AnnotatedText text = new AnnotatedTextBuilder().addText("This is Mysurname-Corp and Mxsurname-Corp.").build();
+    UserDictMatchFilter filter = new UserDictMatchFilter(Collections.singletonList("Mysurname-Corp"), false);
+    RuleMatch speller1 = match(new FakeRule(true), 8, 17, "foo");  // "Mysurname"
+    RuleMatch speller2 = match(new FakeRule(true), 18, 22, "foo");  // "Corp"
+    RuleMatch speller3 = match(new FakeRule(true), 37, 41, "foo");  // "Corp" of "Mxsurname-Corp"
+    List<RuleMatch> result = filter.filter(Arrays.asList(speller1, speller2, speller3), text);
+    assertThat(result.size(), is(1));
+    assertThat(result.get(0).getFromPos(), is(37));
+  }
+
+  @Test
+  public void testCompound() {
+    AnnotatedText text = new AnnotatedTextBuilder().addText("Das Mysurnamehaus und das Mxsurnamehaus.").build();
+    UserDictMatchFilter filter = new UserDictMatchFilter(Collections.singletonList("Mysurname"), false);
+    FakeSpellingRule rule = new FakeSpellingRule();
+    RuleMatch speller1 = match(rule, 4, 17, "foo");
+    RuleMatch speller2 = match(rule, 26, 39, "foo");
+    List<RuleMatch> result = filter.filter(Arrays.asList(speller1, speller2), text);
+    assertThat(result.size(), is(1));
+    assertThat(result.get(0).getFromPos(), is(26));
+  }
+
+  @Test
+  public void testEmptyDictionary() {
+    UserDictMatchFilter filter = new UserDictMatchFilter(Collections.emptyList(), true);
+    RuleMatch speller = match(new FakeRule(true), 0, 9, "foo");
+    assertThat(filter.filter(speller, TEXT), is(speller));
+  }
+
+  private RuleMatch match(Rule rule, int fromPos, int toPos, String suggestion) {
+    return new RuleMatch(rule, null, fromPos, toPos, "msg", null, Collections.singletonList(suggestion));
+  }
+
+  static class FakeRule extends Rule {
+    private final boolean speller;
+    FakeRule(boolean speller) {
+      this.speller = speller;
+    }
+    @Override
+    public String getId() {
+      return speller ? "FAKE_SPELLER" : "FAKE_RULE";
+    }
+    @Override
+    public String getDescription() {
+      return "fake rule";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      return new RuleMatch[0];
+    }
+    @Override
+    public boolean isDictionaryBasedSpellingRule() {
+      return speller;
+    }
+  }
+
+  static class FakeSpellingRule extends SpellingCheckRule {
+    FakeSpellingRule() {
+      super(JLanguageTool.getMessageBundle(), Languages.getLanguageForShortCode("en-US"), null);
+    }
+    @Override
+    public String getId() {
+      return "FAKE_SPELLING_RULE";
+    }
+    @Override
+    public String getDescription() {
+      return "fake spelling rule";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      return new RuleMatch[0];
+    }
+    @Override
+    public boolean isMisspelled(String word) {
+      return true;
+    }
+    @Override
+    public boolean isCompoundWithIgnoredWord(String word, Set<String> additionalWords) {
+      return additionalWords.stream().anyMatch(w -> word.startsWith(w) && word.substring(w.length()).equals("haus"));
+    }
+  }
+}
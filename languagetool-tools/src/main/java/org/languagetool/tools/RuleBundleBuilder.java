@@ -0,0 +1,113 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.Languages;
+import org.languagetool.broker.ResourceDataBroker;
+import org.languagetool.rules.patterns.PatternRuleLoader;
+import org.languagetool.rules.patterns.RuleBundle;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationRuleLoader;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Create the precompiled {@link RuleBundle}s of a language's {@code grammar.xml} and {@code disambiguation.xml}
+ * files, so they don't need to be parsed on startup. The bundles are written to the given directory in the
+ * same layout as the XML files in the classpath, so for a build this should be {@code target/classes} of the
+ * language module. Without a language code, bundles are created for all XML files found in that directory,
+ * this is how the language modules call it in the {@code process-classes} phase (see the {@code rule-bundles}
+ * profile in the parent pom). Bundles become stale when the XML file or the LanguageTool version changes,
+ * LanguageTool then falls back to the XML file.
+ * @since 5.2
+ */
+public final class RuleBundleBuilder {
+
+  private static final String DISAMBIGUATION_FILE = "disambiguation.xml";
+
+  private RuleBundleBuilder() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.out.println("Usage: " + RuleBundleBuilder.class.getSimpleName() + " [languageCode] <outputDir>");
+      System.out.println("  e.g.: " + RuleBundleBuilder.class.getSimpleName() + " de languagetool-language-modules/de/target/classes");
+      System.out.println("  Without languageCode, the bundles of all rule files in outputDir are created");
+      System.exit(1);
+    }
+    File outputDir = new File(args[args.length - 1]).getCanonicalFile();
+    List<Language> languages = args.length == 2 ? Collections.singletonList(Languages.getLanguageForShortCode(args[0])) : Languages.get();
+    ResourceDataBroker dataBroker = JLanguageTool.getDataBroker();
+    Set<String> done = new HashSet<>();
+    for (Language language : languages) {
+      for (String ruleFile : language.getRuleFileNames()) {
+        URL url = dataBroker.getAsURL(ruleFile);
+        if (url == null || !isIn(url, outputDir, args.length == 1) || !done.add(ruleFile)) {
+          continue;  // optional files like grammar-premium.xml, files of other modules, variants sharing a file
+        }
+        File bundleFile = getOutputFile(outputDir, ruleFile);
+        try (InputStream xml = dataBroker.getAsStream(ruleFile);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(bundleFile))) {
+          new PatternRuleLoader().writeBundle(xml, ruleFile, out);
+        }
+        System.out.println("Written " + bundleFile);
+      }
+      String disambiguationFile = language.getShortCode() + "/" + DISAMBIGUATION_FILE;
+      URL url = dataBroker.resourceExists(disambiguationFile) ? dataBroker.getFromResourceDirAsUrl(disambiguationFile) : null;
+      if (url == null || !isIn(url, outputDir, args.length == 1) || !done.add(disambiguationFile)) {
+        continue;
+      }
+      File bundleFile = getOutputFile(outputDir, dataBroker.getResourceDir() + "/" + disambiguationFile);
+      try (InputStream xml = dataBroker.getFromResourceDirAsStream(disambiguationFile);
+           OutputStream out = new BufferedOutputStream(new FileOutputStream(bundleFile))) {
+        new DisambiguationRuleLoader().writeBundle(xml, disambiguationFile, out);
+      }
+      System.out.println("Written " + bundleFile);
+    }
+  }
+
+  /**
+   * Whether the XML file is in {@code outputDir}, i.e. belongs to the module being built and not to one of its
+   * dependencies. With an explicitly given language, all of its files are used.
+   */
+  private static boolean isIn(URL url, File outputDir, boolean checkLocation) throws IOException {
+    if (!checkLocation) {
+      return true;
+    }
+    if (!"file".equals(url.getProtocol())) {
+      return false;
+    }
+    try {
+      return new File(url.toURI()).getCanonicalFile().toPath().startsWith(outputDir.toPath());
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static File getOutputFile(File outputDir, String resourcePath) throws IOException {
+    File file = new File(outputDir, resourcePath + RuleBundle.FILE_SUFFIX);
+    Files.createDirectories(file.getParentFile().toPath());
+    return file;
+  }
+}
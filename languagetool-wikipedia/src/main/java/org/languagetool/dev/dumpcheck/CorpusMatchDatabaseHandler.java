@@ -29,12 +29,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
 /**
- * Store rule matches to a database.
+ * Store rule matches to a database. The methods are synchronized, as the
+ * {@link WikipediaImportPipeline} calls them from several threads, but
+ * there's only one connection.
+ * Matches and the state of finished articles are written in batches: once {@code batchSize}
+ * matches are pending, or {@code commitInterval} seconds have passed, all pending matches
+ * are inserted and the finished articles are updated in one transaction. If that fails, the
+ * transaction is rolled back and the data stays pending, so the next batch or {@link #close()}
+ * writes it again, while the exception stops the {@link WikipediaImportPipeline}.
+ * The statements only use standard SQL, so this works with MySQL and other databases.
  * @since 2.4
  */
 class CorpusMatchDatabaseHandler implements AutoCloseable {
@@ -59,12 +68,18 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
   static final ContextTools contextTools;
   static final ContextTools smallContextTools;
 
+  private static final int DEFAULT_COMMIT_INTERVAL_SECONDS = 10;
+
   private final PreparedStatement insertCorpusArticleSt;
   private final PreparedStatement insertCorpusArticleErrorSt;
   private final PreparedStatement insertCorpusMatchSt;
-  private final PreparedStatement deleteNeverAppliedSuggestionsOfObsoleteArticles;
-  private final PreparedStatement deleteAlreadyAppliedSuggestionsInNewArticleRevisions;
-  private final PreparedStatement updateCorpusArticleMarkAsAnalyzed;
+
+  private final String languageCode;
+  private final int batchSize;
+  private final long commitIntervalMillis;
+  private final List<Object[]> pendingMatches = new ArrayList<>();
+  private final List<FinishedArticle> pendingArticles = new ArrayList<>();
+  private long lastFlushTime = System.currentTimeMillis();
 
   static {
     contextTools = new ContextTools();
@@ -82,6 +97,7 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
   CorpusMatchDatabaseHandler(File propertiesFile, String languageCode, int maxSentences, int maxErrors) {
     this.maxSentences = maxSentences;
     this.maxErrors = maxErrors;
+    this.languageCode = languageCode;
 
     Properties dbProperties = new Properties();
     try (FileInputStream inStream = new FileInputStream(propertiesFile)) {
@@ -89,7 +105,10 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
       String dbUrl = getProperty(dbProperties, "dbUrl");
       String dbUser = getProperty(dbProperties, "dbUsername");
       String dbPassword = getProperty(dbProperties, "dbPassword");
+      batchSize = Integer.parseInt(dbProperties.getProperty("batchSize", "1"));
+      commitIntervalMillis = 1000L * Integer.parseInt(dbProperties.getProperty("commitInterval", String.valueOf(DEFAULT_COMMIT_INTERVAL_SECONDS)));
       conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+      conn.setAutoCommit(false);
     } catch (SQLException | IOException e) {
       throw new RuntimeException(e);
     }
@@ -103,29 +122,6 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
       insertCorpusMatchSt = conn.prepareStatement("" +
         " INSERT INTO corpus_match (article_id, article_language_code, ruleid, rule_category, rule_subid, rule_description, message, error_context, small_error_context, html_error_context, replacement_suggestion, languagetool_version)" +
         " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-      deleteNeverAppliedSuggestionsOfObsoleteArticles = conn.prepareStatement("" +
-        " DELETE corpus_match" +
-        " FROM corpus_match" +
-        " INNER JOIN corpus_article ON corpus_match.article_id = corpus_article.id" +
-        " WHERE applied IS NULL AND title = ? AND language_code = ? AND revision <> ?");
-      deleteAlreadyAppliedSuggestionsInNewArticleRevisions = conn.prepareStatement("" +
-        " DELETE from corpus_match WHERE article_id = ? AND id IN " +
-        " (SELECT m.id" +
-        "  FROM corpus_match m, corpus_match m2" +
-        "  WHERE m.id > m2.id" +
-        "    AND (select a.url from corpus_article a where a.id = m.article_id) =" +
-        "        (select a2.url from corpus_article a2 where a2.id = m2.article_id)" +
-        "    AND m.ruleid = m2.ruleid" +
-        "    AND m.rule_subid = m2.rule_subid" +
-        "    AND m.error_context = m2.error_context" +
-        "    AND m.applied is null" +
-        "    AND m2.applied is not null" +
-        " )");
-      updateCorpusArticleMarkAsAnalyzed = conn.prepareStatement("" +
-        " UPDATE corpus_article" +
-        " SET analyzed = 1, html = null, anonymized_html = '' WHERE id = ?");
-
-
       PreparedStatement selectCorpusMatchCountSt = conn.prepareStatement("" +
         " SELECT COUNT(*) AS nonAppliedCount FROM corpus_match WHERE applied IS NULL AND article_language_code=?"
       );
@@ -169,42 +165,161 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
     return value;
   }
 
-  protected void handleResult(Sentence sentence, List<RuleMatchWithContexts> rulesMatchesWithSuggestions) throws SQLIntegrityConstraintViolationException {
+  /**
+   * Queue the matches of a sentence for insertion, they will be written with the
+   * next batch after their article has been finished with {@link #articleAnalyzed}.
+   */
+  protected synchronized void handleResult(Sentence sentence, List<RuleMatchWithContexts> rulesMatchesWithSuggestions) {
+    for (RuleMatchWithContexts match : rulesMatchesWithSuggestions) {
+      pendingMatches.add(getMatchRow(sentence.getArticleId(), sentence.getArticleLanguageCode(), match));
+      ++errorCount;
+      checkMaxErrors();
+      ++matchCount;
+      checkMaxMatches();
+    }
+    ++sentenceCount;
+    checkMaxSentences();
+  }
+
+  /**
+   * Mark an article as analyzed, after all its matches have been passed to {@link #handleResult}.
+   * Writes all pending data if the batch is full or the commit interval has passed.
+   * @param onCommitted called after the changes for the article have been committed, may be {@code null}
+   */
+  synchronized void articleAnalyzed(long articleId, String title, int revision, Runnable onCommitted) throws SQLException {
+    pendingArticles.add(new FinishedArticle(articleId, title, revision, onCommitted));
+    if (pendingMatches.size() >= batchSize || System.currentTimeMillis() - lastFlushTime >= commitIntervalMillis) {
+      flush();
+    }
+  }
+
+  /**
+   * Insert the pending matches and, for all pending articles at once, delete outdated
+   * matches and mark the articles as analyzed, in one transaction.
+   */
+  private void flush() throws SQLException {
     try {
-      for (RuleMatchWithContexts match : rulesMatchesWithSuggestions) {
-        createSentence(sentence.getArticleId(), sentence.getArticleLanguageCode(), match);
-        ++errorCount;
-        checkMaxErrors();
-        ++matchCount;
-        checkMaxMatches();
+      insertPendingMatches();
+      if (!pendingArticles.isEmpty()) {
+        deleteNeverAppliedSuggestionsOfObsoleteArticles();
+        markArticlesAsAnalyzed();
+        deleteAlreadyAppliedSuggestionsInNewArticleRevisions();
       }
-      ++sentenceCount;
-      checkMaxSentences();
-    }
-    catch(SQLIntegrityConstraintViolationException | DocumentLimitReachedException | ErrorLimitReachedException e) {
+      conn.commit();
+    } catch (SQLException e) {
+      // keep the pending data, nothing of it has been written:
+      insertCorpusMatchSt.clearBatch();
+      conn.rollback();
       throw e;
-    } catch (Exception e) {
-      throw new RuntimeException("Error storing matches for '" + sentence.getTitle() + "'", e);
+    } finally {
+      lastFlushTime = System.currentTimeMillis();
+    }
+    List<FinishedArticle> committedArticles = new ArrayList<>(pendingArticles);
+    pendingMatches.clear();
+    pendingArticles.clear();
+    for (FinishedArticle article : committedArticles) {
+      if (article.onCommitted != null) {
+        article.onCommitted.run();
+      }
+    }
+  }
+
+  private void insertPendingMatches() throws SQLException {
+    if (pendingMatches.isEmpty()) {
+      return;
+    }
+    for (Object[] row : pendingMatches) {
+      setParameters(insertCorpusMatchSt, row);
+      insertCorpusMatchSt.addBatch();
+    }
+    Savepoint savepoint = conn.setSavepoint();
+    try {
+      insertCorpusMatchSt.executeBatch();
+    } catch (BatchUpdateException e) {
+      // e.g. a duplicate match - insert the rows one by one so only the failing ones get lost:
+      conn.rollback(savepoint);
+      insertCorpusMatchSt.clearBatch();
+      for (Object[] row : pendingMatches) {
+        setParameters(insertCorpusMatchSt, row);
+        Savepoint rowSavepoint = conn.setSavepoint();
+        try {
+          insertCorpusMatchSt.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException ignored) {
+          conn.rollback(rowSavepoint);
+        } catch (SQLException e2) {
+          conn.rollback(rowSavepoint);
+          System.out.println("Could not store match for article " + row[0] + ": " + e2.getMessage());
+        }
+      }
     }
   }
 
-  void deleteNeverAppliedSuggestionsOfObsoleteArticles(String title, String languageCode, int revision) throws SQLException {
-    deleteNeverAppliedSuggestionsOfObsoleteArticles.setString(1, title);
-    deleteNeverAppliedSuggestionsOfObsoleteArticles.setString(2, languageCode);
-    deleteNeverAppliedSuggestionsOfObsoleteArticles.setInt(3, revision);
-    System.out.println("deleteNeverAppliedSuggestionsOfObsoleteArticles : deleted rows = "
-      + deleteNeverAppliedSuggestionsOfObsoleteArticles.executeUpdate()
-    );
+  private void deleteNeverAppliedSuggestionsOfObsoleteArticles() throws SQLException {
+    String pairs = StringUtils.repeat("(?, ?)", ", ", pendingArticles.size());
+    try (PreparedStatement st = conn.prepareStatement("" +
+      " DELETE FROM corpus_match" +
+      " WHERE applied IS NULL AND article_id IN" +
+      "  (SELECT id FROM corpus_article" +
+      "   WHERE language_code = ?" +
+      "     AND title IN (" + StringUtils.repeat("?", ", ", pendingArticles.size()) + ")" +
+      "     AND (title, revision) NOT IN (" + pairs + "))")) {
+      int i = 1;
+      st.setString(i++, languageCode);
+      for (FinishedArticle article : pendingArticles) {
+        st.setString(i++, article.title);
+      }
+      for (FinishedArticle article : pendingArticles) {
+        st.setString(i++, article.title);
+        st.setInt(i++, article.revision);
+      }
+      System.out.println("deleteNeverAppliedSuggestionsOfObsoleteArticles : deleted rows = " + st.executeUpdate());
+    }
+  }
+
+  private void markArticlesAsAnalyzed() throws SQLException {
+    try (PreparedStatement st = conn.prepareStatement("" +
+      " UPDATE corpus_article" +
+      " SET analyzed = 1, html = null, anonymized_html = '' WHERE id IN (" + getArticleIdPlaceholders() + ")")) {
+      setArticleIds(st, 1);
+      st.executeUpdate();
+    }
   }
 
-  void deleteAlreadyAppliedSuggestionsInNewArticleRevisions(Long articleId) throws SQLException {
-    deleteAlreadyAppliedSuggestionsInNewArticleRevisions.setLong(1, articleId);
-    System.out.println("deleteAlreadyAppliedSuggestionsInNewArticleRevisions : deleted rows = "
-      + deleteAlreadyAppliedSuggestionsInNewArticleRevisions.executeUpdate()
-    );
+  private void deleteAlreadyAppliedSuggestionsInNewArticleRevisions() throws SQLException {
+    // the derived table 'obsolete' (made DISTINCT so that MySQL doesn't merge it into the
+    // outer query) lets the subquery read corpus_match while rows get deleted from it:
+    try (PreparedStatement st = conn.prepareStatement("" +
+      " DELETE FROM corpus_match WHERE id IN" +
+      "  (SELECT id FROM" +
+      "   (SELECT DISTINCT m.id AS id" +
+      "    FROM corpus_match m" +
+      "    INNER JOIN corpus_article a ON a.id = m.article_id" +
+      "    INNER JOIN corpus_article a2 ON a2.url = a.url" +
+      "    INNER JOIN corpus_match m2 ON m2.article_id = a2.id" +
+      "    WHERE m.article_id IN (" + getArticleIdPlaceholders() + ")" +
+      "      AND m.id > m2.id" +
+      "      AND m.ruleid = m2.ruleid" +
+      "      AND m.rule_subid = m2.rule_subid" +
+      "      AND m.error_context = m2.error_context" +
+      "      AND m.applied IS NULL" +
+      "      AND m2.applied IS NOT NULL) obsolete)")) {
+      setArticleIds(st, 1);
+      System.out.println("deleteAlreadyAppliedSuggestionsInNewArticleRevisions : deleted rows = " + st.executeUpdate());
+    }
+  }
+
+  private String getArticleIdPlaceholders() {
+    return StringUtils.repeat("?", ", ", pendingArticles.size());
+  }
+
+  private void setArticleIds(PreparedStatement st, int startIndex) throws SQLException {
+    int i = startIndex;
+    for (FinishedArticle article : pendingArticles) {
+      st.setLong(i++, article.articleId);
+    }
   }
 
-  Long createArticle(String languageCode, String title, int revision, String wikitext, String html, String anonymizedHtml, String cssUrl) throws SQLException {
+  synchronized Long createArticle(String languageCode, String title, int revision, String wikitext, String html, String anonymizedHtml, String cssUrl) throws SQLException {
     insertCorpusArticleSt.setString(1, languageCode);
     insertCorpusArticleSt.setString(2, title);
     insertCorpusArticleSt.setInt(3, revision);
@@ -221,7 +336,7 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
     throw new SQLException("Couldn't create article " + title);
   }
 
-  void createErroredArticle(String languageCode, String title, Integer revision, String wikitext, String errorName) throws SQLException {
+  synchronized void createErroredArticle(String languageCode, String title, Integer revision, String wikitext, String errorName) throws SQLException {
     insertCorpusArticleErrorSt.setString(1, languageCode);
     insertCorpusArticleErrorSt.setString(2, title);
     insertCorpusArticleErrorSt.setInt(3, revision);
@@ -232,30 +347,36 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
     throw new SQLException("Couldn't create article " + title);
   }
 
-  private void createSentence(long articleId, String languageCode, RuleMatchWithContexts match) throws SQLException {
-
+  private Object[] getMatchRow(long articleId, String languageCode, RuleMatchWithContexts match) {
     Rule rule = match.getRule();
-    insertCorpusMatchSt.setLong(1, articleId);
-    insertCorpusMatchSt.setString(2, languageCode);
-    insertCorpusMatchSt.setString(3, rule.getId());
-    insertCorpusMatchSt.setString(4, rule.getCategory().getName());
-    if (rule instanceof AbstractPatternRule) {
-      insertCorpusMatchSt.setString(5, ((AbstractPatternRule) rule).getSubId());
-    } else {
-      insertCorpusMatchSt.setNull(5, Types.VARCHAR);
+    return new Object[] {
+      articleId,
+      languageCode,
+      rule.getId(),
+      rule.getCategory().getName(),
+      rule instanceof AbstractPatternRule ? ((AbstractPatternRule) rule).getSubId() : null,
+      rule.getDescription(),
+      StringUtils.abbreviate(match.getMessage(), 255),
+      match.getTextContext(),
+      StringUtils.abbreviate(match.getSmallTextContext(), 255),
+      match.getHtmlContext(),
+      match.getSuggestedReplacements().get(0),
+      JLanguageTool.VERSION
+    };
+  }
+
+  private static void setParameters(PreparedStatement st, Object[] row) throws SQLException {
+    st.setLong(1, (Long) row[0]);
+    for (int i = 1; i < row.length; i++) {
+      if (row[i] == null) {
+        st.setNull(i + 1, Types.VARCHAR);
+      } else {
+        st.setString(i + 1, (String) row[i]);
+      }
     }
-    insertCorpusMatchSt.setString(6, rule.getDescription());
-    insertCorpusMatchSt.setString(7, StringUtils.abbreviate(match.getMessage(), 255));
-    insertCorpusMatchSt.setString(8, match.getTextContext());
-    insertCorpusMatchSt.setString(9, StringUtils.abbreviate(match.getSmallTextContext(), 255));
-    insertCorpusMatchSt.setString(10, match.getHtmlContext());
-
-    insertCorpusMatchSt.setString(11, match.getSuggestedReplacements().get(0));
-    insertCorpusMatchSt.setString(12, JLanguageTool.VERSION);
-    insertCorpusMatchSt.executeQuery();
   }
 
-  Object[] getAnalyzedArticle(String title, String languageCode, int revision) throws SQLException {
+  synchronized Object[] getAnalyzedArticle(String title, String languageCode, int revision) throws SQLException {
     ResultSet corpusArticleResultSet = null;
     PreparedStatement selectCorpusArticleWithEqualOrHigherRevisionSt = conn.prepareStatement("" +
       " SELECT id, revision, analyzed, wikitext, css_url, html, anonymized_html FROM corpus_article article" +
@@ -296,20 +417,20 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
     }
   }
 
-  public void markArticleAsAnalyzed(Long currentArticleId) throws SQLException {
-    updateCorpusArticleMarkAsAnalyzed.setLong(1, currentArticleId);
-    updateCorpusArticleMarkAsAnalyzed.execute();
+  @Override
+  public synchronized void close() throws Exception {
+    try {
+      flush();
+    } finally {
+      closeStatements();
+    }
   }
 
-  @Override
-  public void close() throws Exception {
+  private void closeStatements() throws SQLException {
     for (PreparedStatement preparedStatement : Arrays.asList(
       insertCorpusArticleSt,
       insertCorpusArticleErrorSt,
-      insertCorpusMatchSt,
-      deleteNeverAppliedSuggestionsOfObsoleteArticles,
-      deleteAlreadyAppliedSuggestionsInNewArticleRevisions,
-      updateCorpusArticleMarkAsAnalyzed
+      insertCorpusMatchSt
     )) {
       if (preparedStatement != null) {
         preparedStatement.close();
@@ -317,4 +438,17 @@ class CorpusMatchDatabaseHandler implements AutoCloseable {
     }
     conn.close();
   }
+
+  private static class FinishedArticle {
+    final long articleId;
+    final String title;
+    final int revision;
+    final Runnable onCommitted;
+    FinishedArticle(long articleId, String title, int revision, Runnable onCommitted) {
+      this.articleId = articleId;
+      this.title = title;
+      this.revision = revision;
+      this.onCommitted = onCommitted;
+    }
+  }
 }
@@ -21,9 +21,11 @@ package org.languagetool.dev.dumpcheck;
 import org.apache.commons.compress.compressors.CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
-import org.languagetool.MultiThreadedJLanguageTool;
+import org.languagetool.dev.wikipedia.ParsoidWikipediaTextParser;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -36,7 +38,6 @@ import java.util.regex.Pattern;
  * @since 2.4
  */
 public class MixingSentenceSource extends SentenceSource {
-  public static MultiThreadedJLanguageTool lt = null;
 
   private final List<SentenceSource> sources;
   private final Map<String, Integer> sourceDistribution = new HashMap<>();
@@ -44,22 +45,37 @@ public class MixingSentenceSource extends SentenceSource {
   private int count;
 
   public static MixingSentenceSource create(List<String> dumpFileNames, Language language) throws IOException {
-    return create(dumpFileNames, language, null, null, null);
+    return create(dumpFileNames, language, null, null, null, Collections.emptyList(), 1, 1);
   }
 
-  public static MixingSentenceSource create(List<String> dumpFileNames, Language language, Pattern filter, String parsoidUrl, CorpusMatchDatabaseHandler resultHandler) throws IOException {
+  /**
+   * @param checkers used for checking Wikipedia dumps, one check thread is used per instance
+   * @param parsoidThreads number of concurrent conversions of wikitext to HTML for Wikipedia dumps
+   * @param readerThreads number of streams of a multistream Wikipedia dump that are decompressed and parsed
+   *                      concurrently, used if the dump's index file is in the same directory as the dump
+   * @since 5.2
+   */
+  public static MixingSentenceSource create(List<String> dumpFileNames, Language language, Pattern filter, ParsoidWikipediaTextParser textParser, CorpusMatchDatabaseHandler resultHandler,
+                                            List<JLanguageTool> checkers, int parsoidThreads, int readerThreads) throws IOException {
     List<SentenceSource> sources = new ArrayList<>();
     for (String dumpFileName : dumpFileNames) {
       File file = new File(dumpFileName);
       if (file.getName().endsWith(".bz2") || file.getName().endsWith(".xml")) {
-        if (parsoidUrl == null || resultHandler == null) {
-          throw new RuntimeException("You need to specify a Parsoid URL and a DB handler to parse XML files");
+        if (textParser == null || resultHandler == null) {
+          throw new RuntimeException("You need to specify a Parsoid parser and a DB handler to parse XML files");
+        }
+        File indexFile = MultiStreamDumpReader.getIndexFile(file);
+        if (indexFile != null) {
+          File checkpointFile = new File(file.getPath() + ".offset");
+          MultiStreamDumpReader dumpReader = new MultiStreamDumpReader(file, indexFile, checkpointFile, readerThreads);
+          sources.add(new WikipediaSentenceSource(dumpReader, language, filter, textParser, resultHandler, checkers, parsoidThreads));
+          continue;
         }
         InputStream is = new FileInputStream(dumpFileName);
         if (file.getName().endsWith(".bz2")) {
-          is = new MultiStreamBZip2InputStream(is);
+          is = new MultiStreamBZip2InputStream(new BufferedInputStream(is));
         }
-        sources.add(new WikipediaSentenceSource(is, language, filter, parsoidUrl, resultHandler));
+        sources.add(new WikipediaSentenceSource(is, language, filter, textParser, resultHandler, checkers, parsoidThreads));
       } else if (file.getName().startsWith("tatoeba-")) {
         sources.add(new TatoebaSentenceSource(new FileInputStream(dumpFileName), language, filter));
       } else if (file.getName().endsWith(".txt")) {
@@ -166,26 +182,23 @@ public class MixingSentenceSource extends SentenceSource {
     }
 
     /**
-     * Read the data from read(). This makes sure we funnel through read so
-     * we can do our multistream magic.
+     * Read a block of data, continuing with the next stream if the current one ends.
      */
+    @Override
     public int read(byte[] dest, int off, int len) throws IOException
     {
       if ((off < 0) || (len < 0) || (off + len > dest.length)) {
         throw new IndexOutOfBoundsException();
       }
-
-      int i = 1;
-      int c = read();
-      if (c == -1) return -1;
-      dest[off++] = (byte)c;
-      while (i < len) {
-        c = read();
-        if (c == -1) break;
-        dest[off++] = (byte)c;
-        ++i;
+      if (len == 0) {
+        return 0;
+      }
+      int count = fBZip2.read(dest, off, len);
+      while (count == -1 && fInputStream.available() > 0) {
+        fBZip2 = new BZip2CompressorInputStream(fInputStream);
+        count = fBZip2.read(dest, off, len);
       }
-      return i;
+      return count;
     }
 
     public void close() throws IOException
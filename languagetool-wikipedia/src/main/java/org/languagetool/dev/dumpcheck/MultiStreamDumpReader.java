@@ -0,0 +1,267 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.languagetool.dev.dumpcheck.WikipediaSentenceSource.print;
+
+/**
+ * Reads a Wikipedia {@code pages-articles-multistream.xml.bz2} dump with several threads.
+ * The dump consists of independent bz2 streams of about 100 pages each, their offsets are
+ * listed in the {@code multistream-index.txt.bz2} file published with the dump. Each thread
+ * decompresses and parses one stream at a time, so pages are returned in no particular order.
+ * The offset of the first stream whose pages are not completely done is saved to a checkpoint
+ * file, so that an interrupted import can be resumed from there.
+ * @since 5.2
+ */
+class MultiStreamDumpReader {
+
+  private static final byte[] DOCUMENT_START = "<mediawiki>".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] DOCUMENT_END = "</mediawiki>".getBytes(StandardCharsets.UTF_8);
+  private static final int PENDING_STREAMS_PER_THREAD = 2;
+
+  private final File dumpFile;
+  private final File indexFile;
+  private final File checkpointFile;
+  private final int threadCount;
+
+  private final ConcurrentSkipListSet<Long> unfinishedStreams = new ConcurrentSkipListSet<>();
+  private long savedCheckpoint = -1;
+
+  /**
+   * @param checkpointFile where the offset to resume from is stored, may be {@code null}
+   */
+  MultiStreamDumpReader(File dumpFile, File indexFile, File checkpointFile, int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be >= 1: " + threadCount);
+    }
+    this.dumpFile = dumpFile;
+    this.indexFile = indexFile;
+    this.checkpointFile = checkpointFile;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * The index file that belongs to a multistream dump, e.g. {@code dewiki-20201101-pages-articles-multistream-index.txt.bz2}
+   * for {@code dewiki-20201101-pages-articles-multistream.xml.bz2}, or {@code null} if there's none.
+   */
+  static File getIndexFile(File dumpFile) {
+    String name = dumpFile.getName();
+    if (!name.contains("multistream") || !name.endsWith(".xml.bz2")) {
+      return null;
+    }
+    File indexFile = new File(dumpFile.getParentFile(), name.replaceFirst("\\.xml\\.bz2$", "-index.txt.bz2"));
+    return indexFile.exists() ? indexFile : null;
+  }
+
+  int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Read all pages of the dump, starting from the checkpoint if there is one. The listener
+   * is called from several threads. Pages are only considered done, and the checkpoint can only
+   * move past their stream, after the {@code Runnable} given to the listener has been run.
+   */
+  void read(Listener listener) throws IOException, SAXException, ParserConfigurationException {
+    List<Long> offsets = readStreamOffsets();
+    long resumeOffset = readCheckpoint();
+    List<Long> todo = new ArrayList<>();
+    for (long offset : offsets) {
+      if (offset >= resumeOffset) {
+        todo.add(offset);
+      }
+    }
+    if (resumeOffset > 0) {
+      print("Resuming at offset " + resumeOffset + ", " + (offsets.size() - todo.size()) + " of " + offsets.size() + " streams skipped");
+    }
+    unfinishedStreams.addAll(todo);
+    long dumpLength = dumpFile.length();
+    ExecutorService executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(threadCount * PENDING_STREAMS_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+    List<Future<?>> futures = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(dumpFile.toPath(), StandardOpenOption.READ)) {
+      for (int i = 0; i < todo.size(); i++) {
+        long start = todo.get(i);
+        long end = i + 1 < todo.size() ? todo.get(i + 1) : dumpLength;
+        futures.add(executor.submit(() -> {
+          readStream(channel, start, end, listener);
+          return null;
+        }));
+        // don't keep the futures of all streams, but don't miss failures either:
+        for (Iterator<Future<?>> it = futures.iterator(); it.hasNext(); ) {
+          Future<?> future = it.next();
+          if (future.isDone()) {
+            future.get();
+            it.remove();
+          }
+        }
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof SAXException) {
+        throw (SAXException) cause;
+      } else if (cause instanceof ParserConfigurationException) {
+        throw (ParserConfigurationException) cause;
+      }
+      throw new RuntimeException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The offsets of all streams with pages, in ascending order. The stream at offset 0
+   * only contains the {@code siteinfo} and is not listed in the index.
+   */
+  List<Long> readStreamOffsets() throws IOException {
+    List<Long> offsets = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+           new BZip2CompressorInputStream(new BufferedInputStream(new FileInputStream(indexFile)), true), StandardCharsets.UTF_8))) {
+      String line;
+      long prevOffset = -1;
+      while ((line = reader.readLine()) != null) {
+        // format: offset:pageId:title
+        int colonPos = line.indexOf(':');
+        if (colonPos <= 0) {
+          continue;
+        }
+        long offset = Long.parseLong(line.substring(0, colonPos));
+        if (offset != prevOffset) {
+          offsets.add(offset);
+          prevOffset = offset;
+        }
+      }
+    }
+    return offsets;
+  }
+
+  private void readStream(FileChannel channel, long start, long end, Listener listener) throws IOException, SAXException, ParserConfigurationException {
+    ByteBuffer compressed = ByteBuffer.allocate((int) (end - start));
+    while (compressed.hasRemaining()) {
+      if (channel.read(compressed, start + compressed.position()) < 0) {
+        throw new EOFException("Unexpected end of " + dumpFile + " at offset " + (start + compressed.position()));
+      }
+    }
+    byte[] xml;
+    try (InputStream in = new BZip2CompressorInputStream(new ByteArrayInputStream(compressed.array()), true)) {
+      xml = IOUtils.toByteArray(in);
+    }
+    // the pages of a stream are not a well-formed document, and the last stream also has the end of the root element:
+    int length = lengthWithoutDocumentEnd(xml);
+    InputStream document = new SequenceInputStream(new ByteArrayInputStream(DOCUMENT_START),
+      new SequenceInputStream(new ByteArrayInputStream(xml, 0, length), new ByteArrayInputStream(DOCUMENT_END)));
+    // one extra count for the parsing itself, so the stream isn't finished before all its pages are known:
+    AtomicInteger pendingPages = new AtomicInteger(1);
+    Runnable pageDone = () -> {
+      if (pendingPages.decrementAndGet() == 0) {
+        streamFinished(start);
+      }
+    };
+    SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+    saxParser.parse(document, new WikipediaSentenceSource.PageHandler((title, revisionId, wikitext) -> {
+      pendingPages.incrementAndGet();
+      listener.page(title, revisionId, wikitext, pageDone);
+    }));
+    pageDone.run();
+  }
+
+  private static int lengthWithoutDocumentEnd(byte[] xml) {
+    int end = xml.length;
+    while (end > 0 && Character.isWhitespace(xml[end - 1])) {
+      end--;
+    }
+    int start = end - DOCUMENT_END.length;
+    if (start < 0) {
+      return xml.length;
+    }
+    for (int i = 0; i < DOCUMENT_END.length; i++) {
+      if (xml[start + i] != DOCUMENT_END[i]) {
+        return xml.length;
+      }
+    }
+    return start;
+  }
+
+  private void streamFinished(long offset) {
+    unfinishedStreams.remove(offset);
+    if (checkpointFile == null) {
+      return;
+    }
+    Long firstUnfinished = unfinishedStreams.isEmpty() ? Long.MAX_VALUE : unfinishedStreams.first();
+    try {
+      saveCheckpoint(firstUnfinished);
+    } catch (IOException e) {
+      print("Could not save checkpoint to " + checkpointFile + ": " + e);
+    }
+  }
+
+  private synchronized void saveCheckpoint(long offset) throws IOException {
+    if (offset <= savedCheckpoint) {
+      return;
+    }
+    File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+    Files.write(tmpFile.toPath(), String.valueOf(offset).getBytes(StandardCharsets.UTF_8));
+    Files.move(tmpFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    savedCheckpoint = offset;
+  }
+
+  private long readCheckpoint() throws IOException {
+    if (checkpointFile == null || !checkpointFile.exists()) {
+      return 0;
+    }
+    String content = new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim();
+    return content.isEmpty() ? 0 : Long.parseLong(content);
+  }
+
+  interface Listener {
+    /**
+     * @param onDone to be run once the page has been completely handled
+     */
+    void page(String title, int revisionId, String wikitext, Runnable onDone);
+  }
+
+}
@@ -23,7 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.Languages;
-import org.languagetool.MultiThreadedJLanguageTool;
+import org.languagetool.dev.wikipedia.ParsoidWikipediaTextParser;
 import org.languagetool.rules.Category;
 import org.languagetool.rules.CategoryId;
 import org.languagetool.rules.Rule;
@@ -41,6 +41,10 @@ import java.util.regex.Pattern;
  */
 public class SentenceSourceChecker {
 
+  private static final int DEFAULT_PARSOID_THREADS = 4;
+  private static final int DEFAULT_READER_THREADS = 2;
+  private static final int DEFAULT_PARSOID_TIMEOUT = 60000;
+
   private SentenceSourceChecker() {
     // no public constructor
   }
@@ -114,7 +118,10 @@ public class SentenceSourceChecker {
     options.addOption(Option.builder("d").longOpt("db-properties").argName("file").hasArg()
             .desc("A file to set database access properties. If not set, the output will be written to STDOUT. " +
                   "The file needs to set the properties dbUrl ('jdbc:...'), dbUser, and dbPassword. " +
-                  "It can optionally define the batchSize for insert statements, which defaults to 1.").build());
+                  "It can optionally define the batchSize for insert statements, which defaults to 1, " +
+                  "and the commitInterval in seconds after which pending inserts are written anyway, which defaults to 10. " +
+                  "For Wikipedia dumps, it needs to set parsoidUrl and can set parsoidTimeout (milliseconds) and " +
+                  "parsoidCacheDir, a directory where the HTML of each article revision is cached.").build());
     options.addOption(Option.builder().longOpt("rule-properties").argName("file").hasArg()
             .desc("A file to set rules which should be disabled per language (e.g. en=RULE1,RULE2 or all=RULE3,RULE4)").build());
     options.addOption(Option.builder().longOpt("rule-category-properties").argName("file").hasArg()
@@ -145,6 +152,13 @@ public class SentenceSourceChecker {
             .desc("Don't skip spell checking rules").build());
     options.addOption(Option.builder().longOpt("rulesource").hasArg()
             .desc("Activate only rules from this XML file (e.g. 'grammar.xml')").build());
+    options.addOption(Option.builder().longOpt("parsoid-threads").argName("number").hasArg()
+            .desc("number of Wikipedia pages converted to HTML by Parsoid concurrently (default: " + DEFAULT_PARSOID_THREADS + ")").build());
+    options.addOption(Option.builder().longOpt("reader-threads").argName("number").hasArg()
+            .desc("number of streams of a multistream Wikipedia dump decompressed and parsed concurrently, " +
+                  "if the dump's index file is in the same directory (default: " + DEFAULT_READER_THREADS + ")").build());
+    options.addOption(Option.builder().longOpt("check-threads").argName("number").hasArg()
+            .desc("number of threads checking the converted pages (default: number of processors)").build());
     options.addOption(Option.builder().longOpt("skip").hasArg()
             .desc("Skip this many sentences from input before actually checking sentences").build());
     try {
@@ -164,19 +178,51 @@ public class SentenceSourceChecker {
   private void run(File propFile, Set<String> disabledRules, Set<String> disabledRuleCategoryIds, String langCode,
                    int maxSentences, int maxErrors, int contextSize,
                    CommandLine options) throws IOException {
-    long startTime = System.currentTimeMillis();
+    String[] fileNames = options.getOptionValues('f');
+    Pattern filter = options.hasOption("filter") ? Pattern.compile(options.getOptionValue("filter")) : null;
+    int sentencesToSkip = options.hasOption("skip") ? Integer.parseInt(options.getOptionValue("skip")) : 0;
+    int checkThreads = options.hasOption("check-threads") ? Integer.parseInt(options.getOptionValue("check-threads")) : Runtime.getRuntime().availableProcessors();
+    int parsoidThreads = options.hasOption("parsoid-threads") ? Integer.parseInt(options.getOptionValue("parsoid-threads")) : DEFAULT_PARSOID_THREADS;
+    int readerThreads = options.hasOption("reader-threads") ? Integer.parseInt(options.getOptionValue("reader-threads")) : DEFAULT_READER_THREADS;
+    Language lang = Languages.getLanguageForShortCode(langCode);
+    // JLanguageTool is not thread-safe, so every check thread gets its own instance:
+    List<JLanguageTool> checkers = new ArrayList<>();
+    for (int i = 0; i < checkThreads; i++) {
+      checkers.add(createLanguageTool(lang, disabledRules, disabledRuleCategoryIds, options, i == 0));
+    }
+    if (filter != null) {
+      System.out.println("*** NOTE: only sentences that match regular expression '" + filter + "' will be checked");
+    }
+    System.out.println("Working on: " + StringUtils.join(fileNames, ", "));
+    System.out.println("Sentence limit: " + (maxSentences > 0 ? maxSentences : "no limit"));
+    System.out.println("Context size: " + contextSize);
+    System.out.println("Error limit: " + (maxErrors > 0 ? maxErrors : "no limit"));
+    System.out.println("Skip: " + sentencesToSkip);
+    System.out.println("Threads: " + readerThreads + " for reading, " + parsoidThreads + " for Parsoid, " + checkThreads + " for checking");
+    //System.out.println("Version: " + JLanguageTool.VERSION + " (" + JLanguageTool.BUILD_DATE + ")");
+
+    CorpusMatchDatabaseHandler databaseHandler = new CorpusMatchDatabaseHandler(propFile, lang.getShortCode(), maxSentences, maxErrors);
+    FileInputStream inStream = new FileInputStream(propFile);
+    Properties properties = new Properties();
+    properties.load(inStream);
+    String parsoidUrl = getProperty(properties, "parsoidUrl");
+    File parsoidCacheDir = properties.containsKey("parsoidCacheDir") ? new File(properties.getProperty("parsoidCacheDir")) : null;
+    int parsoidTimeout = Integer.parseInt(properties.getProperty("parsoidTimeout", String.valueOf(DEFAULT_PARSOID_TIMEOUT)));
+    ParsoidWikipediaTextParser textParser = new ParsoidWikipediaTextParser(lang.getShortCode(), parsoidUrl, parsoidCacheDir, parsoidTimeout);
+
+    MixingSentenceSource.create(Arrays.asList(fileNames), lang, filter, textParser, databaseHandler, checkers, parsoidThreads, readerThreads);
+  }
+
+  private JLanguageTool createLanguageTool(Language lang, Set<String> disabledRules, Set<String> disabledRuleCategoryIds,
+                                           CommandLine options, boolean verbose) throws IOException {
     String[] ruleIds = options.hasOption('r') ? options.getOptionValue('r').split(",") : null;
     String[] additionalCategoryIds = options.hasOption("also-enable-categories") ? options.getOptionValue("also-enable-categories").split(",") : null;
-    String[] fileNames = options.getOptionValues('f');
     File languageModelDir = options.hasOption("languagemodel") ? new File(options.getOptionValue("languagemodel")) : null;
     File word2vecModelDir = options.hasOption("word2vecmodel") ? new File(options.getOptionValue("word2vecmodel")) : null;
     File neuralNetworkModelDir = options.hasOption("neuralnetworkmodel") ? new File(options.getOptionValue("neuralnetworkmodel")) : null;
     File remoteRules = options.hasOption("remoterules") ? new File(options.getOptionValue("remoterules")) : null;
-    Pattern filter = options.hasOption("filter") ? Pattern.compile(options.getOptionValue("filter")) : null;
     String ruleSource = options.hasOption("rulesource") ? options.getOptionValue("rulesource") : null;
-    int sentencesToSkip = options.hasOption("skip") ? Integer.parseInt(options.getOptionValue("skip")) : 0;
-    Language lang = Languages.getLanguageForShortCode(langCode);
-    MultiThreadedJLanguageTool lt = new MultiThreadedJLanguageTool(lang);
+    JLanguageTool lt = new JLanguageTool(lang);
     lt.setCleanOverlappingMatches(false);
     if (languageModelDir != null) {
       lt.activateLanguageModelRules(languageModelDir);
@@ -190,7 +236,9 @@ public class SentenceSourceChecker {
     int activatedBySource = 0;
     for (Rule rule : lt.getAllRules()) {
       if (rule.isDefaultTempOff()) {
-        System.out.println("Activating " + rule.getFullId() + ", which is default='temp_off'");
+        if (verbose) {
+          System.out.println("Activating " + rule.getFullId() + ", which is default='temp_off'");
+        }
         lt.enableRule(rule.getId());
       }
       if (ruleSource != null) {
@@ -212,50 +260,38 @@ public class SentenceSourceChecker {
     lt.activateRemoteRules(remoteRules);
     if (ruleSource == null) {
       if (ruleIds != null) {
-        enableOnlySpecifiedRules(ruleIds, lt);
+        enableOnlySpecifiedRules(ruleIds, lt, verbose);
       } else {
-        applyRuleDeactivation(lt, disabledRules, disabledRuleCategoryIds);
+        applyRuleDeactivation(lt, disabledRules, disabledRuleCategoryIds, verbose);
       }
-    } else {
+    } else if (verbose) {
       System.out.println("Activated " + activatedBySource + " rules from " + ruleSource);
     }
-    if (filter != null) {
-      System.out.println("*** NOTE: only sentences that match regular expression '" + filter + "' will be checked");
-    }
-    activateAdditionalCategories(additionalCategoryIds, lt);
+    activateAdditionalCategories(additionalCategoryIds, lt, verbose);
     if (options.hasOption("spelling")) {
-      System.out.println("Spelling rules active: yes (only if you're using a language code like en-US which comes with spelling)");
+      if (verbose) {
+        System.out.println("Spelling rules active: yes (only if you're using a language code like en-US which comes with spelling)");
+      }
     } else if (ruleIds == null) {
       disableSpellingRules(lt);
-      System.out.println("Spelling rules active: no");
+      if (verbose) {
+        System.out.println("Spelling rules active: no");
+      }
     }
-    System.out.println("Working on: " + StringUtils.join(fileNames, ", "));
-    System.out.println("Sentence limit: " + (maxSentences > 0 ? maxSentences : "no limit"));
-    System.out.println("Context size: " + contextSize);
-    System.out.println("Error limit: " + (maxErrors > 0 ? maxErrors : "no limit"));
-    System.out.println("Skip: " + sentencesToSkip);
-    //System.out.println("Version: " + JLanguageTool.VERSION + " (" + JLanguageTool.BUILD_DATE + ")");
-
-    CorpusMatchDatabaseHandler databaseHandler = new CorpusMatchDatabaseHandler(propFile, lang.getShortCode(), maxSentences, maxErrors);
-    FileInputStream inStream = new FileInputStream(propFile);
-    Properties properties = new Properties();
-    properties.load(inStream);
-    String parsoidUrl = getProperty(properties, "parsoidUrl");
-
-    MixingSentenceSource.lt = lt;
-    MixingSentenceSource.create(Arrays.asList(fileNames), lang, filter, parsoidUrl, databaseHandler);
-    MixingSentenceSource.lt.shutdown();
+    return lt;
   }
 
-  private void enableOnlySpecifiedRules(String[] ruleIds, JLanguageTool lt) {
+  private void enableOnlySpecifiedRules(String[] ruleIds, JLanguageTool lt, boolean verbose) {
     for (Rule rule : lt.getAllRules()) {
       lt.disableRule(rule.getId());
     }
     for (String ruleId : ruleIds) {
       lt.enableRule(ruleId);
     }
-    warnOnNonExistingRuleIds(ruleIds, lt);
-    System.out.println("Only these rules are enabled: " + Arrays.toString(ruleIds));
+    if (verbose) {
+      warnOnNonExistingRuleIds(ruleIds, lt);
+      System.out.println("Only these rules are enabled: " + Arrays.toString(ruleIds));
+    }
   }
 
   private void warnOnNonExistingRuleIds(String[] ruleIds, JLanguageTool lt) {
@@ -273,12 +309,14 @@ public class SentenceSourceChecker {
     }
   }
 
-  private void applyRuleDeactivation(JLanguageTool lt, Set<String> disabledRules, Set<String> disabledRuleCategories) {
+  private void applyRuleDeactivation(JLanguageTool lt, Set<String> disabledRules, Set<String> disabledRuleCategories, boolean verbose) {
     // disabled via config file, usually to avoid too many false alarms:
     for (String disabledRuleId : disabledRules) {
       lt.disableRule(disabledRuleId);
     }
-    System.out.println("These rules are disabled: " + lt.getDisabledRules());
+    if (verbose) {
+      System.out.println("These rules are disabled: " + lt.getDisabledRules());
+    }
 
     Map<CategoryId, Category> categories = lt.getCategories();
     for (String disabledRuleCategoryId : disabledRuleCategories) {
@@ -289,19 +327,21 @@ public class SentenceSourceChecker {
           lt.disableCategory(categoryId);
         }
       }
-      if (!found) {
+      if (!found && verbose) {
         System.err.println("Disabled category not found : " + disabledRuleCategoryId);
       }
     }
   }
 
-  private void activateAdditionalCategories(String[] additionalCategoryIds, JLanguageTool lt) {
+  private void activateAdditionalCategories(String[] additionalCategoryIds, JLanguageTool lt, boolean verbose) {
     if (additionalCategoryIds != null) {
       for (String categoryId : additionalCategoryIds) {
         for (Rule rule : lt.getAllRules()) {
           CategoryId id = rule.getCategory().getId();
           if (id != null && id.toString().equals(categoryId)) {
-            System.out.println("Activating " + rule.getId() + " in category " + categoryId);
+            if (verbose) {
+              System.out.println("Activating " + rule.getId() + " in category " + categoryId);
+            }
             lt.enableRule(rule.getId());
           }
         }
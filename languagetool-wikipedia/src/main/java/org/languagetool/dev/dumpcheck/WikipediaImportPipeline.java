@@ -0,0 +1,386 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.apache.commons.lang3.StringUtils;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.dev.wikipedia.ParsoidWikipediaTextParser;
+import org.languagetool.rules.RuleMatchWithContexts;
+import org.languagetool.tools.HtmlTools;
+import org.languagetool.tools.HtmlTools.HTMLParser;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.languagetool.dev.dumpcheck.WikipediaSentenceSource.print;
+import static org.languagetool.tools.HtmlTools.htmlToAnnotatedText;
+
+/**
+ * Imports the pages of a Wikipedia dump into the database in several stages that run
+ * concurrently: pages extracted from the XML are looked up in the database and converted
+ * to HTML by Parsoid ({@code parsoidThreads} in parallel), then checked (one thread per
+ * {@link JLanguageTool} given), then a single writer stores the matches. The stages are
+ * connected by bounded queues, so a slow stage blocks the ones before it instead of
+ * letting the pending pages pile up in memory.
+ * @since 5.2
+ */
+class WikipediaImportPipeline {
+
+  private static final int QUEUE_SIZE_PER_THREAD = 2;
+
+  private final Language language;
+  private final ParsoidWikipediaTextParser textParser;
+  private final CorpusMatchDatabaseHandler databaseHandler;
+  private final Predicate<String> sentenceFilter;
+  private final List<JLanguageTool> checkers;
+  private final int parsoidThreads;
+
+  private final BlockingQueue<Page> pages;
+  private final BlockingQueue<Article> articles;
+  private final BlockingQueue<CheckedArticle> checkedArticles;
+  private final ExecutorService parsoidExecutor;
+  private final ExecutorService checkExecutor;
+  private final ExecutorService writerExecutor;
+  private final List<Future<?>> parsoidFutures = new ArrayList<>();
+  private final List<Future<?>> checkFutures = new ArrayList<>();
+  private Future<?> writerFuture;
+
+  private volatile Throwable failure;
+
+  private final AtomicInteger articleCount = new AtomicInteger();
+  private int sentenceCount = 0;
+  private int ruleMatchCount = 0;
+
+  /**
+   * @param sentenceFilter decides which sentences of an article get checked
+   * @param checkers one check thread is started per checker, as {@link JLanguageTool} is not thread-safe
+   */
+  WikipediaImportPipeline(Language language, ParsoidWikipediaTextParser textParser, CorpusMatchDatabaseHandler databaseHandler,
+                          Predicate<String> sentenceFilter, List<JLanguageTool> checkers, int parsoidThreads) {
+    if (parsoidThreads < 1 || checkers.isEmpty()) {
+      throw new IllegalArgumentException("At least one Parsoid thread and one checker are required: " + parsoidThreads + ", " + checkers.size());
+    }
+    this.language = language;
+    this.textParser = textParser;
+    this.databaseHandler = Objects.requireNonNull(databaseHandler);
+    this.sentenceFilter = sentenceFilter;
+    this.checkers = checkers;
+    this.parsoidThreads = parsoidThreads;
+    pages = new ArrayBlockingQueue<>(parsoidThreads * QUEUE_SIZE_PER_THREAD);
+    articles = new ArrayBlockingQueue<>(checkers.size() * QUEUE_SIZE_PER_THREAD);
+    checkedArticles = new ArrayBlockingQueue<>(checkers.size() * QUEUE_SIZE_PER_THREAD);
+    parsoidExecutor = Executors.newFixedThreadPool(parsoidThreads);
+    checkExecutor = Executors.newFixedThreadPool(checkers.size());
+    writerExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  void start() {
+    for (int i = 0; i < parsoidThreads; i++) {
+      parsoidFutures.add(parsoidExecutor.submit(() -> runStage(pages, Page.END, this::prepareArticle, articles)));
+    }
+    for (JLanguageTool lt : checkers) {
+      checkFutures.add(checkExecutor.submit(() -> runStage(articles, Article.END, article -> checkArticle(lt, article), checkedArticles)));
+    }
+    writerFuture = writerExecutor.submit(() -> runStage(checkedArticles, CheckedArticle.END, this::storeArticle, null));
+  }
+
+  /**
+   * Add a page extracted from the dump. Blocks while the pipeline is busy.
+   * @param onDone called once the page has been stored or skipped and the database changes are committed, may be {@code null}
+   */
+  void addPage(String title, int revisionId, String wikitext, Runnable onDone) {
+    put(pages, new Page(title, revisionId, wikitext, onDone));
+  }
+
+  /**
+   * Wait for all pages added so far to be processed and stop the pipeline.
+   * @throws RuntimeException if one of the stages failed
+   */
+  void finish() {
+    try {
+      // the threads of a stage get their end markers when the previous stage is done:
+      endStage(parsoidFutures, pages, Page.END);
+      endStage(checkFutures, articles, Article.END);
+      endStage(Collections.singletonList(writerFuture), checkedArticles, CheckedArticle.END);
+    } finally {
+      parsoidExecutor.shutdownNow();
+      checkExecutor.shutdownNow();
+      writerExecutor.shutdownNow();
+    }
+    if (failure != null) {
+      throw new RuntimeException("Import failed", failure);
+    }
+  }
+
+  int getArticleCount() {
+    return articleCount.get();
+  }
+
+  int getSentenceCount() {
+    return sentenceCount;
+  }
+
+  int getRuleMatchCount() {
+    return ruleMatchCount;
+  }
+
+  private <T> void endStage(List<Future<?>> futures, BlockingQueue<T> input, T end) {
+    for (int i = 0; i < futures.size(); i++) {
+      put(input, end);
+    }
+    for (Future<?> future : futures) {
+      waitFor(future);
+    }
+  }
+
+  private void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(e);
+    } catch (ExecutionException e) {
+      fail(e.getCause());
+    }
+  }
+
+  private <I, O> void runStage(BlockingQueue<I> input, I end, StageFunction<I, O> function, BlockingQueue<O> output) {
+    try {
+      while (failure == null) {
+        I item = input.poll(1, TimeUnit.SECONDS);
+        if (item == end) {
+          return;
+        }
+        if (item != null) {
+          O result = function.apply(item);
+          if (result != null && output != null) {
+            put(output, result);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Throwable e) {
+      fail(e);
+    }
+  }
+
+  private <T> void put(BlockingQueue<T> queue, T item) {
+    try {
+      while (!queue.offer(item, 1, TimeUnit.SECONDS)) {
+        if (failure != null) {
+          throw new RuntimeException("Import failed", failure);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void fail(Throwable e) {
+    if (failure == null) {
+      failure = e;
+    }
+  }
+
+  /**
+   * Stage 1: skip pages that are already analyzed, convert the others to HTML.
+   */
+  private Article prepareArticle(Page page) throws SQLException {
+    String title = page.title;
+    Object[] article = databaseHandler.getAnalyzedArticle(title, language.getShortCode(), page.revisionId);
+    boolean isAnalyzed = article != null && (Boolean) article[2];
+    if (isAnalyzed) {
+      Long existingRevisionId = (Long) article[1];
+      if (existingRevisionId > page.revisionId) {
+        print("Article " + title + " skipped : the version in the DB (" + existingRevisionId + ") is more recent than this one (" + page.revisionId + ")");
+      } else {
+        print("Article " + title + " skipped : it is already in the DB (revision " + page.revisionId + ")");
+      }
+      page.done();
+      return null;
+    }
+    int count = articleCount.incrementAndGet();
+    print("Article " + title + " (#" + count + ") : Starting analysis");
+    if (article == null) {
+      article = addArticle(title, page.revisionId, page.wikitext);
+      if (article == null) {
+        page.done();
+        return null;
+      }
+    } else {
+      print("Article " + title + " (#" + count + ") : In the DB but not analysed. Starting analysis");
+    }
+    return new Article((Long) article[0], title, page.revisionId, (String) article[3], (String) article[4], (String) article[5], (String) article[6], page.onDone);
+  }
+
+  private Object[] addArticle(String title, int revisionId, String wikitext) {
+    try {
+      HtmlTools.HtmlAnonymizer htmlAnonymizer = textParser.convertWikitextToHtml(title, revisionId, wikitext);
+      if (htmlAnonymizer != null) {
+        String html = htmlAnonymizer.getHtml();
+        String anonymizedHtml = htmlAnonymizer.getAnonymizedHtml();
+        String cssUrl = htmlAnonymizer.getCssUrl();
+        Long articleId = databaseHandler.createArticle(language.getShortCode(), title, revisionId, wikitext, html, anonymizedHtml, cssUrl);
+        return new Object[] { articleId, 0, false, wikitext, cssUrl, html, anonymizedHtml };
+      }
+    } catch (Exception e) {
+      if (e instanceof SocketTimeoutException) {
+        try {
+          databaseHandler.createErroredArticle(language.getShortCode(), title, revisionId, wikitext, e.getClass().getSimpleName());
+        } catch (SQLException e2) {
+          print("Could not extract text, skipping document: " + e2 + ", full stacktrace follows:");
+        }
+      }
+      print("Could not extract text, skipping document: " + e + ", full stacktrace follows:");
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Stage 2: split the article into sentences and check them.
+   */
+  private CheckedArticle checkArticle(JLanguageTool lt, Article article) {
+    List<CheckedSentence> checkedSentences = new ArrayList<>();
+    Document document = null;
+    for (String text : language.getSentenceTokenizer().tokenize(article.anonymizedHtml)) {
+      if (!sentenceFilter.test(text)) {
+        continue;
+      }
+      String url = WikipediaSentenceSource.getUrl(language.getShortCode(), article.title, article.revisionId);
+      Sentence sentence = new Sentence(text, "wikipedia", article.title, url, article.articleId, language.getShortCode());
+      try {
+        List<RuleMatchWithContexts> matches = getMatches(lt, sentence, article.wikitext);
+        if (!matches.isEmpty() && article.html != null) {
+          if (document == null) {
+            document = HTMLParser.parseArticle(article.html, article.articleId);
+          }
+          matches = matches.stream()
+            .map(RuleMatchWithContexts.mapRuleAddHtmlContext(language.getShortCode(), document, article.cssUrl))
+            .filter(Objects::nonNull).collect(Collectors.toList());
+        }
+        checkedSentences.add(new CheckedSentence(sentence, matches));
+      } catch (Exception e) {
+        System.out.println("Check failed on sentence: " + StringUtils.abbreviate(sentence.getText(), 250) + ", cause : " + e.getMessage());
+      }
+    }
+    return new CheckedArticle(article, checkedSentences);
+  }
+
+  static List<RuleMatchWithContexts> getMatches(JLanguageTool lt, Sentence sentence, String articleWikitext) throws IOException {
+    return lt.check(htmlToAnnotatedText(sentence.getText())).stream()
+      .map(RuleMatchWithContexts.addTextContext(articleWikitext, sentence.getTitle(), sentence.getText()))
+      .filter(Objects::nonNull).collect(Collectors.toList());
+  }
+
+  /**
+   * Stage 3: store the matches and update the state of the article.
+   */
+  private Void storeArticle(CheckedArticle checked) throws SQLException {
+    Article article = checked.article;
+    for (CheckedSentence checkedSentence : checked.sentences) {
+      try {
+        databaseHandler.handleResult(checkedSentence.sentence, checkedSentence.matches);
+        sentenceCount++;
+        ruleMatchCount += checkedSentence.matches.size();
+      } catch (DocumentLimitReachedException | ErrorLimitReachedException e) {
+        System.out.println(getClass().getSimpleName() + ": " + e);
+      }
+    }
+    databaseHandler.articleAnalyzed(article.articleId, article.title, article.revisionId, article.onDone);
+    return null;
+  }
+
+  interface StageFunction<I, O> {
+    O apply(I input) throws Exception;
+  }
+
+  static class Page {
+    static final Page END = new Page(null, 0, null, null);
+    final String title;
+    final int revisionId;
+    final String wikitext;
+    final Runnable onDone;
+    Page(String title, int revisionId, String wikitext, Runnable onDone) {
+      this.title = title;
+      this.revisionId = revisionId;
+      this.wikitext = wikitext;
+      this.onDone = onDone;
+    }
+    void done() {
+      if (onDone != null) {
+        onDone.run();
+      }
+    }
+  }
+
+  static class Article {
+    static final Article END = new Article(null, null, 0, null, null, null, null, null);
+    final Long articleId;
+    final String title;
+    final int revisionId;
+    final String wikitext;
+    final String cssUrl;
+    final String html;
+    final String anonymizedHtml;
+    final Runnable onDone;
+    Article(Long articleId, String title, int revisionId, String wikitext, String cssUrl, String html, String anonymizedHtml, Runnable onDone) {
+      this.articleId = articleId;
+      this.title = title;
+      this.revisionId = revisionId;
+      this.wikitext = wikitext;
+      this.cssUrl = cssUrl;
+      this.html = html;
+      this.anonymizedHtml = anonymizedHtml;
+      this.onDone = onDone;
+    }
+  }
+
+  static class CheckedSentence {
+    final Sentence sentence;
+    final List<RuleMatchWithContexts> matches;
+    CheckedSentence(Sentence sentence, List<RuleMatchWithContexts> matches) {
+      this.sentence = sentence;
+      this.matches = matches;
+    }
+  }
+
+  static class CheckedArticle {
+    static final CheckedArticle END = new CheckedArticle(null, null);
+    final Article article;
+    final List<CheckedSentence> sentences;
+    CheckedArticle(Article article, List<CheckedSentence> sentences) {
+      this.article = article;
+      this.sentences = sentences;
+    }
+  }
+}
@@ -19,6 +19,8 @@
 package org.languagetool.dev.wikipedia;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.IOUtils;
 import org.languagetool.tools.HtmlTools;
 import org.xml.sax.SAXException;
 
@@ -28,27 +30,67 @@ import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Convert Wikipedia wikicode syntax to HTML using Parsoid.
+ * Requests that failed with a server error or an I/O error are retried, with an exponentially growing
+ * delay. Client errors (HTTP 4xx) are not retried, as the same request would fail again. Like for {@link org.languagetool.rules.RemoteRule}, Parsoid is
+ * considered down after several consecutive failures, and is not called for a while then.
+ * If a cache directory is set, the HTML of each revision of an article is only requested once.
+ * This class is thread-safe.
  */
 public class ParsoidWikipediaTextParser {
 
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private static final int TIMEOUT = 60000;
+  private static final int MAX_RETRIES = 2;
+  private static final long RETRY_DELAY_MILLIS = 250;   // doubled for every further retry
+  private static final int FALL = 3;
+  private static final long DOWN_MILLIS = 30_000;
+
   private final String urlBase;
   private final String languageCode;
+  private final File cacheDir;
+  private final int timeout;
 
-  private static final int TIMEOUT = 60000;
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong lastFailure = new AtomicLong();
 
   public ParsoidWikipediaTextParser(String languageCode, String urlBase) {
+    this(languageCode, urlBase, null, TIMEOUT);
+  }
+
+  /**
+   * @param cacheDir directory to cache the HTML per article revision in, or {@code null}
+   * @param timeout connect and read timeout in milliseconds
+   * @since 5.2
+   */
+  public ParsoidWikipediaTextParser(String languageCode, String urlBase, File cacheDir, int timeout) {
     this.languageCode = languageCode;
     this.urlBase = urlBase;
+    this.cacheDir = cacheDir;
+    this.timeout = timeout;
   }
 
   public HtmlTools.HtmlAnonymizer convertWikitextToHtml(String title, String wikiText) throws SocketTimeoutException {
+    return convertWikitextToHtml(title, null, wikiText);
+  }
+
+  /**
+   * @param revision the revision of the article, used as part of the cache key - if {@code null}, the cache is not used
+   * @since 5.2
+   */
+  public HtmlTools.HtmlAnonymizer convertWikitextToHtml(String title, Integer revision, String wikiText) throws SocketTimeoutException {
     try {
-      String html = convertWikitextToHtml(wikiText);
+      String html = getHtml(title, revision, wikiText);
       if (html == null) {
         return null;
       }
@@ -64,57 +106,152 @@ public class ParsoidWikipediaTextParser {
     }
   }
 
-  private String convertWikitextToHtml(String inputText) throws SocketTimeoutException {
-    URL url;
-    try {
-      url = new URL(this.urlBase + "/wikipedia_" + languageCode + "/v3/transform/wikitext/to/html");
-      HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-      HashMap<String, Object> params = new HashMap<>();
-      params.put("wikitext", inputText);
-      String requestBody = new ObjectMapper().writeValueAsString(params);
-
-      conn.setDoInput(true);
-      conn.setDoOutput(true);
-      conn.setRequestMethod("POST");
-      conn.setUseCaches(false);
-      conn.setRequestProperty("Accept-Encoding", "gzip");
-      conn.setRequestProperty("Content-Type", "application/json");
-      conn.setConnectTimeout(TIMEOUT);
-      conn.setReadTimeout(TIMEOUT);
-
-      PrintWriter out = new PrintWriter(new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8));
-      out.print(requestBody);
-      out.close();
-
-      conn.connect();
-
-      InputStreamReader reader;
-      if ("gzip".equals(conn.getContentEncoding())) {
-        reader = new InputStreamReader(new GZIPInputStream(conn.getInputStream()));
-      }
-      else {
-        reader = new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8);
+  private String getHtml(String title, Integer revision, String wikiText) throws SocketTimeoutException {
+    File cacheFile = cacheDir != null && revision != null ? getCacheFile(title, revision) : null;
+    if (cacheFile != null && cacheFile.exists()) {
+      try (InputStream in = new GZIPInputStream(new FileInputStream(cacheFile))) {
+        return IOUtils.toString(in, StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        System.err.println("Could not read cached HTML from " + cacheFile + ", calling Parsoid: " + e);
       }
+    }
+    String html = convertWikitextToHtml(wikiText);
+    if (html != null && cacheFile != null) {
+      writeCacheFile(cacheFile, html);
+    }
+    return html;
+  }
+
+  File getCacheFile(String title, int revision) {
+    String hash = Hashing.sha256().hashString(title, StandardCharsets.UTF_8).toString();
+    return new File(cacheDir, languageCode + File.separator + hash.substring(0, 2) + File.separator + hash + "-" + revision + ".html.gz");
+  }
 
-      BufferedReader bufferedReader = new BufferedReader(reader);
-      StringBuilder sb = new StringBuilder();
-      String line;
-      while ((line = bufferedReader.readLine()) != null) {
-        sb.append(line).append("\n");
+  private static void writeCacheFile(File cacheFile, String html) {
+    try {
+      Files.createDirectories(cacheFile.getParentFile().toPath());
+      File tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+      try (OutputStream out = new GZIPOutputStream(new FileOutputStream(tmpFile))) {
+        out.write(html.getBytes(StandardCharsets.UTF_8));
       }
-      bufferedReader.close();
+      Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      System.err.println("Could not cache HTML in " + cacheFile + ": " + e);
+    }
+  }
 
-      return sb.toString();
+  private String convertWikitextToHtml(String inputText) throws SocketTimeoutException {
+    waitWhileDown();
+    String requestBody;
+    try {
+      requestBody = mapper.writeValueAsString(Collections.singletonMap("wikitext", inputText));
     } catch (IOException e) {
-      if (e instanceof SocketTimeoutException) {
-        System.err.println("Timeout when calling Parsoid");
-        throw (SocketTimeoutException) e;
+      e.printStackTrace();
+      return null;
+    }
+    IOException lastException = null;
+    for (int i = 0; i <= MAX_RETRIES; i++) {
+      if (i > 0 && !sleep(RETRY_DELAY_MILLIS << (i - 1))) {
+        break;
       }
-      else {
-        e.printStackTrace();
+      try {
+        String html = post(requestBody);
+        consecutiveFailures.set(0);
+        return html;
+      } catch (HttpStatusException e) {
+        if (e.statusCode < 500) {
+          // the request itself is wrong, Parsoid is not to blame:
+          System.err.println("Error calling Parsoid, not retrying: " + e);
+          return null;
+        }
+        lastException = e;
+        System.err.println("Error calling Parsoid, tried " + (i + 1) + " times: " + e);
+      } catch (IOException e) {
+        lastException = e;
+        System.err.println("Error calling Parsoid, tried " + (i + 1) + " times: " + e);
       }
-      return null;
+    }
+    if (consecutiveFailures.incrementAndGet() >= FALL) {
+      lastFailure.set(System.currentTimeMillis());
+      System.err.println("Parsoid marked as down for " + DOWN_MILLIS + "ms");
+    }
+    if (lastException instanceof SocketTimeoutException) {
+      System.err.println("Timeout when calling Parsoid");
+      throw (SocketTimeoutException) lastException;
+    }
+    lastException.printStackTrace();
+    return null;
+  }
+
+  /**
+   * Parsoid is considered down after {@link #FALL} consecutive failed conversions. As the import
+   * has no use for articles without HTML, the callers wait instead of skipping the articles then.
+   */
+  private void waitWhileDown() {
+    if (consecutiveFailures.get() < FALL) {
+      return;
+    }
+    long waitMillis = lastFailure.get() + DOWN_MILLIS - System.currentTimeMillis();
+    if (waitMillis > 0) {
+      sleep(waitMillis);
+    }
+  }
+
+  /**
+   * @return false if the thread has been interrupted
+   */
+  private static boolean sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private String post(String requestBody) throws IOException {
+    URL url = new URL(this.urlBase + "/wikipedia_" + languageCode + "/v3/transform/wikitext/to/html");
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    conn.setDoInput(true);
+    conn.setDoOutput(true);
+    conn.setRequestMethod("POST");
+    conn.setUseCaches(false);
+    conn.setRequestProperty("Accept-Encoding", "gzip");
+    conn.setRequestProperty("Content-Type", "application/json");
+    conn.setConnectTimeout(timeout);
+    conn.setReadTimeout(timeout);
+
+    byte[] body = requestBody.getBytes(StandardCharsets.UTF_8);
+    conn.setFixedLengthStreamingMode(body.length);
+    try (OutputStream out = conn.getOutputStream()) {
+      out.write(body);
+    }
+
+    int responseCode = conn.getResponseCode();
+    if (responseCode != HttpURLConnection.HTTP_OK) {
+      // read the error completely, so the connection can be kept alive and reused:
+      InputStream errorStream = conn.getErrorStream();
+      if (errorStream != null) {
+        try (InputStream in = errorStream) {
+          IOUtils.copy(in, new ByteArrayOutputStream());
+        }
+      }
+      throw new HttpStatusException(responseCode, "Parsoid returned HTTP " + responseCode + " for " + url);
+    }
+    // closing the fully read stream returns the connection to the keep-alive pool:
+    try (InputStream in = "gzip".equals(conn.getContentEncoding()) ? new GZIPInputStream(conn.getInputStream()) : conn.getInputStream()) {
+      return IOUtils.toString(in, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    private HttpStatusException(int statusCode, String message) {
+      super(message);
+      this.statusCode = statusCode;
     }
   }
+
 }
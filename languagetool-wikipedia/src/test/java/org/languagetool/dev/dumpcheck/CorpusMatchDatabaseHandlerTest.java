@@ -0,0 +1,141 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CorpusMatchDatabaseHandlerTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testArticleAnalyzed() throws Exception {
+    String dbUrl = "jdbc:hsqldb:mem:corpusMatchDatabaseHandlerTest1";
+    try (Connection conn = DriverManager.getConnection(dbUrl, "SA", "")) {
+      WikipediaImportPipelineTest.createTables(conn);
+      long oldRevision = insertArticle(conn, "Cats", 1);
+      long newRevision = insertArticle(conn, "Cats", 2);
+      insertMatch(conn, oldRevision, "RULE1", null);  // never applied, article outdated
+      insertMatch(conn, oldRevision, "RULE2", 1);
+      insertMatch(conn, newRevision, "RULE2", null);  // already applied in the old revision
+      insertMatch(conn, newRevision, "RULE3", null);
+      try (CorpusMatchDatabaseHandler handler = new CorpusMatchDatabaseHandler(writeDbProperties(dbUrl), "en", 0, 0)) {
+        AtomicInteger committed = new AtomicInteger();
+        handler.articleAnalyzed(newRevision, "Cats", 2, committed::incrementAndGet);
+        assertThat(committed.get(), is(1));
+      }
+      assertThat(getRuleIds(conn), is(Arrays.asList("RULE2", "RULE3")));
+      assertThat(getAnalyzed(conn, newRevision), is(1));
+    }
+  }
+
+  @Test
+  public void testFailedFlushKeepsPendingArticles() throws Exception {
+    String dbUrl = "jdbc:hsqldb:mem:corpusMatchDatabaseHandlerTest2";
+    try (Connection conn = DriverManager.getConnection(dbUrl, "SA", "")) {
+      WikipediaImportPipelineTest.createTables(conn);
+      long articleId = insertArticle(conn, "Cats", 1);
+      AtomicInteger committed = new AtomicInteger();
+      try (CorpusMatchDatabaseHandler handler = new CorpusMatchDatabaseHandler(writeDbProperties(dbUrl), "en", 0, 0)) {
+        try (Statement st = conn.createStatement()) {
+          st.execute("ALTER TABLE corpus_match RENAME TO corpus_match_tmp");
+        }
+        try {
+          handler.articleAnalyzed(articleId, "Cats", 1, committed::incrementAndGet);
+          fail("Expected the flush to fail without the corpus_match table");
+        } catch (SQLException expected) {
+          assertThat(committed.get(), is(0));
+          assertThat(getAnalyzed(conn, articleId), is(0));
+        }
+        try (Statement st = conn.createStatement()) {
+          st.execute("ALTER TABLE corpus_match_tmp RENAME TO corpus_match");
+        }
+      }
+      // close() has written the pending article:
+      assertThat(committed.get(), is(1));
+      assertThat(getAnalyzed(conn, articleId), is(1));
+    }
+  }
+
+  private File writeDbProperties(String dbUrl) throws Exception {
+    File file = WikipediaImportPipelineTest.writeDbProperties(tempFolder, dbUrl);
+    Files.write(file.toPath(), Collections.singletonList("commitInterval=0"), StandardCharsets.ISO_8859_1, StandardOpenOption.APPEND);
+    return file;
+  }
+
+  private long insertArticle(Connection conn, String title, int revision) throws SQLException {
+    try (PreparedStatement st = conn.prepareStatement("INSERT INTO corpus_article (language_code, title, url, revision, analyzed)" +
+      " VALUES ('en', ?, ?, ?, 0)", Statement.RETURN_GENERATED_KEYS)) {
+      st.setString(1, title);
+      st.setString(2, "https://en.wikipedia.org/wiki/" + title);
+      st.setInt(3, revision);
+      st.executeUpdate();
+      try (ResultSet keys = st.getGeneratedKeys()) {
+        keys.next();
+        return keys.getLong(1);
+      }
+    }
+  }
+
+  private void insertMatch(Connection conn, long articleId, String ruleId, Integer applied) throws SQLException {
+    try (PreparedStatement st = conn.prepareStatement("INSERT INTO corpus_match (article_id, article_language_code, ruleid, rule_subid, error_context, applied)" +
+      " VALUES (?, 'en', ?, '1', 'context', ?)")) {
+      st.setLong(1, articleId);
+      st.setString(2, ruleId);
+      st.setObject(3, applied, Types.INTEGER);
+      st.executeUpdate();
+    }
+  }
+
+  private List<String> getRuleIds(Connection conn) throws SQLException {
+    List<String> ruleIds = new ArrayList<>();
+    try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT ruleid FROM corpus_match ORDER BY id")) {
+      while (rs.next()) {
+        ruleIds.add(rs.getString(1));
+      }
+    }
+    return ruleIds;
+  }
+
+  private int getAnalyzed(Connection conn, long articleId) throws SQLException {
+    try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT analyzed FROM corpus_article WHERE id = " + articleId)) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
+}
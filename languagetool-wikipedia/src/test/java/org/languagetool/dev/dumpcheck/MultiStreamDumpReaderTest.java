@@ -0,0 +1,132 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MultiStreamDumpReaderTest {
+
+  @Test
+  public void testRead() throws Exception {
+    File dir = Files.createTempDirectory("multistream").toFile();
+    File dump = new File(dir, "xxwiki-20201101-pages-articles-multistream.xml.bz2");
+    writeDump(dump, 5, 3);
+    File index = MultiStreamDumpReader.getIndexFile(dump);
+    assertThat(index != null, is(true));
+    File checkpoint = new File(dir, "checkpoint");
+    MultiStreamDumpReader reader = new MultiStreamDumpReader(dump, index, checkpoint, 3);
+    assertThat(reader.readStreamOffsets().size(), is(5));
+
+    Set<String> titles = Collections.synchronizedSet(new TreeSet<>());
+    reader.read((title, revisionId, wikitext, onDone) -> {
+      assertThat(wikitext, is("Text of " + title));
+      titles.add(title);
+      onDone.run();
+    });
+    assertThat(titles.size(), is(15));
+    assertThat(titles.contains("Page 0-0"), is(true));
+    assertThat(titles.contains("Page 4-2"), is(true));
+    assertThat(new String(Files.readAllBytes(checkpoint.toPath()), StandardCharsets.UTF_8), is(String.valueOf(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    File dir = Files.createTempDirectory("multistream").toFile();
+    File dump = new File(dir, "xxwiki-20201101-pages-articles-multistream.xml.bz2");
+    writeDump(dump, 4, 2);
+    File index = MultiStreamDumpReader.getIndexFile(dump);
+    File checkpoint = new File(dir, "checkpoint");
+    List<Long> offsets = new MultiStreamDumpReader(dump, index, null, 1).readStreamOffsets();
+
+    // pages of the third stream are never done, so the import has to be resumed there:
+    List<String> titles = Collections.synchronizedList(new ArrayList<>());
+    new MultiStreamDumpReader(dump, index, checkpoint, 1).read((title, revisionId, wikitext, onDone) -> {
+      if (!title.startsWith("Page 2-")) {
+        onDone.run();
+      }
+    });
+    assertThat(new String(Files.readAllBytes(checkpoint.toPath()), StandardCharsets.UTF_8), is(String.valueOf(offsets.get(2))));
+
+    new MultiStreamDumpReader(dump, index, checkpoint, 2).read((title, revisionId, wikitext, onDone) -> {
+      titles.add(title);
+      onDone.run();
+    });
+    Collections.sort(titles);
+    assertThat(titles, is(Arrays.asList("Page 2-0", "Page 2-1", "Page 3-0", "Page 3-1")));
+  }
+
+  @Test
+  public void testSequentialRead() throws Exception {
+    File dir = Files.createTempDirectory("multistream").toFile();
+    File dump = new File(dir, "xxwiki-20201101-pages-articles-multistream.xml.bz2");
+    writeDump(dump, 3, 2);
+    try (InputStream in = new MixingSentenceSource.MultiStreamBZip2InputStream(new BufferedInputStream(new FileInputStream(dump)))) {
+      String xml = new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+      assertThat(xml.startsWith("<mediawiki"), is(true));
+      assertThat(xml.contains("Text of Page 1-1"), is(true));
+      assertThat(xml.trim().endsWith("</mediawiki>"), is(true));
+    }
+  }
+
+  private void writeDump(File dump, int streams, int pagesPerStream) throws IOException {
+    StringBuilder index = new StringBuilder();
+    try (OutputStream out = Files.newOutputStream(dump.toPath())) {
+      long offset = writeStream(out, "<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.10/\">\n  <siteinfo></siteinfo>\n");
+      int pageId = 1;
+      for (int i = 0; i < streams; i++) {
+        StringBuilder xml = new StringBuilder();
+        for (int j = 0; j < pagesPerStream; j++) {
+          String title = "Page " + i + "-" + j;
+          xml.append("  <page>\n    <title>").append(title).append("</title>\n    <ns>0</ns>\n    <id>").append(pageId).append("</id>\n")
+             .append("    <revision>\n      <id>").append(1000 + pageId).append("</id>\n")
+             .append("      <text xml:space=\"preserve\">Text of ").append(title).append("</text>\n    </revision>\n  </page>\n");
+          index.append(offset).append(':').append(pageId).append(':').append(title).append('\n');
+          pageId++;
+        }
+        if (i == streams - 1) {
+          xml.append("</mediawiki>\n");
+        }
+        offset += writeStream(out, xml.toString());
+      }
+    }
+    try (OutputStream out = Files.newOutputStream(new File(dump.getParentFile(), dump.getName().replace(".xml.bz2", "-index.txt.bz2")).toPath())) {
+      writeStream(out, index.toString());
+    }
+  }
+
+  private long writeStream(OutputStream out, String content) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (BZip2CompressorOutputStream bz2 = new BZip2CompressorOutputStream(compressed)) {
+      bz2.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    compressed.writeTo(out);
+    return compressed.size();
+  }
+
+}
@@ -0,0 +1,153 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.dev.wikipedia.ParsoidWikipediaTextParser;
+import org.languagetool.language.AmericanEnglish;
+import org.languagetool.rules.RuleMatchWithContexts;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+import org.languagetool.tools.HtmlTools;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WikipediaImportPipelineTest {
+
+  private static final String WIKITEXT = "This is is a test about cats.";
+  private static final String HTML = "<html><head><link rel=\"stylesheet\" href=\"https://example.org/style.css\"/></head>" +
+    "<body><section data-mw-section-id=\"0\"><p id=\"mwAg\">" + WIKITEXT + "</p></section></body></html>";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testArticleMatchesAreStored() throws Exception {
+    String dbUrl = "jdbc:hsqldb:mem:wikipediaImportPipelineTest";
+    try (Connection conn = DriverManager.getConnection(dbUrl, "SA", "")) {
+      createTables(conn);
+      RecordingDatabaseHandler databaseHandler = new RecordingDatabaseHandler(writeDbProperties(dbUrl), "en");
+      Language language = new AmericanEnglish() {
+        @Override
+        protected List<AbstractPatternRule> getPatternRules() {
+          return Collections.emptyList();  // Java rules are enough here, keeps the test independent of grammar.xml
+        }
+      };
+      ParsoidWikipediaTextParser textParser = new ParsoidWikipediaTextParser("en", "http://localhost:1") {
+        @Override
+        public HtmlTools.HtmlAnonymizer convertWikitextToHtml(String title, Integer revision, String wikiText) {
+          try {
+            HtmlTools.HtmlAnonymizer htmlAnonymizer = HtmlTools.HtmlAnonymizer.createFromHtml(title, wikiText, HTML);
+            htmlAnonymizer.anonymize();
+            return htmlAnonymizer;
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+      WikipediaImportPipeline pipeline = new WikipediaImportPipeline(language, textParser, databaseHandler,
+        text -> true, Collections.singletonList(new JLanguageTool(language)), 1);
+      pipeline.start();
+      CountDownLatch done = new CountDownLatch(1);
+      pipeline.addPage("Cats", 1, WIKITEXT, done::countDown);
+      pipeline.finish();
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      assertThat(pipeline.getArticleCount(), is(1));
+      assertThat(databaseHandler.analyzedArticles, is(Collections.singletonList("Cats")));
+      List<RuleMatchWithContexts> matches = databaseHandler.matches;
+      assertThat(matches.size(), is(1));
+      assertThat(matches.get(0).getRule().getId(), is("ENGLISH_WORD_REPEAT_RULE"));
+      assertThat(matches.get(0).getHtmlContext(), notNullValue());
+      assertThat(pipeline.getRuleMatchCount(), is(1));
+    }
+  }
+
+  static void createTables(Connection conn) throws SQLException {
+    try (Statement st = conn.createStatement()) {
+      st.execute("CREATE TABLE corpus_article (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY," +
+        " language_code VARCHAR(5), title VARCHAR(255), url VARCHAR(255), revision INT, wikitext LONGVARCHAR, html LONGVARCHAR," +
+        " anonymized_html LONGVARCHAR, css_url VARCHAR(255), error VARCHAR(255), analyzed INT)");
+      st.execute("CREATE TABLE corpus_match (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY," +
+        " article_id BIGINT, article_language_code VARCHAR(5), ruleid VARCHAR(255), rule_category VARCHAR(255)," +
+        " rule_subid VARCHAR(255), rule_description VARCHAR(255), message VARCHAR(255), error_context LONGVARCHAR," +
+        " small_error_context VARCHAR(255), html_error_context LONGVARCHAR, replacement_suggestion VARCHAR(255)," +
+        " languagetool_version VARCHAR(50), applied INT)");
+    }
+  }
+
+  private File writeDbProperties(String dbUrl) throws IOException {
+    return writeDbProperties(tempFolder, dbUrl);
+  }
+
+  static File writeDbProperties(TemporaryFolder tempFolder, String dbUrl) throws IOException {
+    File file = tempFolder.newFile("db.properties");
+    Properties props = new Properties();
+    props.setProperty("dbUrl", dbUrl);
+    props.setProperty("dbUsername", "SA");
+    props.setProperty("dbPassword", "");
+    try (OutputStream out = new FileOutputStream(file)) {
+      props.store(out, null);
+    }
+    return file;
+  }
+
+  /**
+   * Records the results instead of writing them, so they can be checked without reading them back.
+   */
+  static class RecordingDatabaseHandler extends CorpusMatchDatabaseHandler {
+    private final List<RuleMatchWithContexts> matches = new ArrayList<>();
+    private final List<String> analyzedArticles = new ArrayList<>();
+
+    RecordingDatabaseHandler(File propertiesFile, String languageCode) {
+      super(propertiesFile, languageCode, 0, 0);
+    }
+
+    @Override
+    protected synchronized void handleResult(Sentence sentence, List<RuleMatchWithContexts> rulesMatchesWithSuggestions) {
+      matches.addAll(rulesMatchesWithSuggestions);
+    }
+
+    @Override
+    synchronized void articleAnalyzed(long articleId, String title, int revision, Runnable onCommitted) {
+      analyzedArticles.add(title);
+      if (onCommitted != null) {
+        onCommitted.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2020 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.wikipedia;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.tools.HtmlTools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ParsoidWikipediaTextParserTest {
+
+  private static final String HTML = "<html><head><link rel=\"stylesheet\" href=\"/style.css\"/></head><body><p>Hello world.</p></body></html>";
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger failuresToSimulate = new AtomicInteger();
+  private volatile int failureStatus = 500;
+  private HttpServer server;
+  private String urlBase;
+
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/wikipedia_xx/v3/transform/wikitext/to/html", exchange -> {
+      requests.incrementAndGet();
+      String request = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+      if (failuresToSimulate.getAndDecrement() > 0 || !request.contains("\"wikitext\"")) {
+        exchange.sendResponseHeaders(failureStatus, -1);
+        exchange.close();
+        return;
+      }
+      ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+      try (OutputStream out = new GZIPOutputStream(gzipped)) {
+        out.write(HTML.getBytes(StandardCharsets.UTF_8));
+      }
+      exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      exchange.sendResponseHeaders(200, gzipped.size());
+      try (OutputStream out = exchange.getResponseBody()) {
+        gzipped.writeTo(out);
+      }
+    });
+    server.start();
+    urlBase = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testConvertWithRetries() throws Exception {
+    ParsoidWikipediaTextParser parser = new ParsoidWikipediaTextParser("xx", urlBase);
+    failuresToSimulate.set(2);
+    HtmlTools.HtmlAnonymizer result = parser.convertWikitextToHtml("Title", "Hello world.");
+    assertThat(result, is(notNullValue()));
+    assertThat(result.getCssUrl(), is("/style.css"));
+    assertThat(requests.get(), is(3));
+  }
+
+  @Test
+  public void testNoRetryOnClientError() throws Exception {
+    ParsoidWikipediaTextParser parser = new ParsoidWikipediaTextParser("xx", urlBase);
+    failureStatus = 400;
+    failuresToSimulate.set(1);
+    assertThat(parser.convertWikitextToHtml("Title", "Hello world."), is(nullValue()));
+    assertThat(requests.get(), is(1));
+  }
+
+  @Test
+  public void testRetriesWithBackoff() throws Exception {
+    ParsoidWikipediaTextParser parser = new ParsoidWikipediaTextParser("xx", urlBase);
+    failuresToSimulate.set(3);
+    long startTime = System.currentTimeMillis();
+    assertThat(parser.convertWikitextToHtml("Title", "Hello world."), is(nullValue()));
+    assertThat(requests.get(), is(3));
+    // 250ms before the first retry, 500ms before the second:
+    assertThat(System.currentTimeMillis() - startTime >= 750, is(true));
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    File cacheDir = Files.createTempDirectory("parsoid-cache").toFile();
+    ParsoidWikipediaTextParser parser = new ParsoidWikipediaTextParser("xx", urlBase, cacheDir, 5000);
+    assertThat(parser.convertWikitextToHtml("Title", 123, "Hello world."), is(notNullValue()));
+    assertThat(parser.getCacheFile("Title", 123).exists(), is(true));
+    assertThat(requests.get(), is(1));
+
+    ParsoidWikipediaTextParser parser2 = new ParsoidWikipediaTextParser("xx", urlBase, cacheDir, 5000);
+    assertThat(parser2.convertWikitextToHtml("Title", 123, "Hello world.").getCssUrl(), is("/style.css"));
+    assertThat(requests.get(), is(1));
+    parser2.convertWikitextToHtml("Title", 124, "Hello world.");
+    assertThat(requests.get(), is(2));
+  }
+
+}